@@ -0,0 +1,254 @@
+package ikasaidi.backend_lab.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+/**
+ * Test de charge HTTP d’une application déjà démarrée, lancé hors de son processus.
+ *
+ * <code>loadtest.clients</code> clients simultanés enchaînent des requêtes sur l’API de
+ * <code>loadtest.base-url</code> (chaque client attend sa réponse avant la suivante), une phase par route :
+ * <ul>
+ *     <li><b>GET /series</b> : première page du catalogue ;</li>
+ *     <li><b>GET /series/trending</b> : tendances de la semaine ;</li>
+ *     <li><b>POST /ratings/series/{id}</b> : note d’une série au hasard, chaque client avec le token d’une personne.</li>
+ * </ul>
+ *
+ * Les personnes et les séries sont lues par l’API (<code>GET /persons</code>, <code>GET /series</code>) ;
+ * les tokens des clients sont signés avec le secret JWT de l’application (<code>loadtest.jwt-secret</code>,
+ * par défaut <code>jwt.secret</code> de <code>application.properties</code>), sans passer par la connexion.
+ * Les clients sont des requêtes asynchrones de {@link HttpClient} : mille clients n’occupent pas mille fils.
+ * Les premières <code>loadtest.warmup-ms</code> de chaque phase ne sont pas mesurées.
+ *
+ * Le même test, contre l’application démarrée avec et sans le profil <code>virtual</code>,
+ * compare les deux modes d’exécution :
+ * <pre>
+ * mvn -Pjava21 spring-boot:run -Dspring-boot.run.profiles=prod,virtual
+ * mvn -Pjmh test-compile exec:java -Dexec.mainClass=ikasaidi.backend_lab.benchmarks.HttpLoadTest \
+ *     -Dexec.classpathScope=test -Dloadtest.base-url=http://localhost:8585
+ * </pre>
+ *
+ * Les résultats (requêtes par seconde, erreurs, latences p50, p99 et maximale) sont affichés,
+ * suivis des attentes de connexions JDBC (<code>GET /jdbc/stats</code>) si l’application les borne.
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+public final class HttpLoadTest {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private final String baseUrl;
+    private final int clients;
+    private final long durationMs;
+    private final long warmupMs;
+    private final SecretKey secretKey;
+
+    /**
+     * Constructeur.
+     *
+     * @param baseUrl adresse de l’API testée
+     * @param clients nombre de clients simultanés
+     * @param durationMs durée de chaque phase (ms)
+     * @param warmupMs début de phase non mesuré (ms)
+     * @param jwtSecret secret de signature des tokens de l’application
+     */
+    public HttpLoadTest(String baseUrl, int clients, long durationMs, long warmupMs, String jwtSecret) {
+        this.baseUrl = baseUrl;
+        this.clients = clients;
+        this.durationMs = durationMs;
+        this.warmupMs = warmupMs;
+        this.secretKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Lit les paramètres (propriétés système <code>loadtest.*</code>) et lance le test.
+     *
+     * @param args non utilisés
+     * @throws IOException si l’application ne répond pas ou si la configuration est illisible
+     * @throws InterruptedException si le fil est interrompu pendant la lecture des données
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String secret = System.getProperty("loadtest.jwt-secret");
+        if (secret == null) {
+            Properties application = new Properties();
+            try (InputStream in = HttpLoadTest.class.getResourceAsStream("/application.properties")) {
+                application.load(in);
+            }
+            secret = application.getProperty("jwt.secret");
+        }
+        new HttpLoadTest(
+                System.getProperty("loadtest.base-url", "http://localhost:8585"),
+                Integer.getInteger("loadtest.clients", 1000),
+                Long.getLong("loadtest.duration-ms", 15000L),
+                Long.getLong("loadtest.warmup-ms", 3000L),
+                secret).run();
+    }
+
+    /**
+     * Lit les personnes et les séries, puis enchaîne les trois phases.
+     *
+     * @throws IOException si l’application ne répond pas
+     * @throws InterruptedException si le fil est interrompu pendant la lecture des données
+     */
+    public void run() throws IOException, InterruptedException {
+        JsonNode persons = read("/persons?fields=id,email&limit=" + Math.min(clients, 1000));
+        JsonNode series = read("/series?fields=id&limit=1000");
+        if (persons.isEmpty() || series.isEmpty()) {
+            System.out.println("Test de charge annulé : aucune personne ou aucune série en base");
+            return;
+        }
+
+        List<String> tokens = new ArrayList<>(clients);
+        for (int c = 0; c < clients; c++) {
+            JsonNode person = persons.get(c % persons.size());
+            tokens.add(token(person.get("email").asText(), person.get("id").asInt()));
+        }
+        List<Long> seriesIds = new ArrayList<>();
+        series.forEach(s -> seriesIds.add(s.get("id").asLong()));
+
+        System.out.println("Test de charge sur " + baseUrl + " (" + clients + " clients, "
+                + durationMs + " ms par phase dont " + warmupMs + " ms de préchauffage)");
+
+        measure("GET /series", c -> get("/series"));
+        measure("GET /series/trending", c -> get("/series/trending"));
+        measure("POST /ratings/series/{id}", c -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            return request("/ratings/series/" + seriesIds.get(random.nextInt(seriesIds.size()))
+                    + "?score=" + random.nextInt(1, 6))
+                    .header("Authorization", "Bearer " + tokens.get(c))
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build();
+        });
+
+        HttpResponse<String> jdbc = http.send(request("/jdbc/stats")
+                .header("Authorization", "Bearer " + tokens.get(0)).GET().build(), HttpResponse.BodyHandlers.ofString());
+        if (jdbc.statusCode() == 200 && !mapper.readTree(jdbc.body()).isEmpty()) {
+            System.out.println("Accès JDBC : " + jdbc.body());
+        }
+    }
+
+    /**
+     * Exécute une phase et affiche son débit et ses latences.
+     */
+    private void measure(String name, IntFunction<HttpRequest> requests) {
+        LongAdder errors = new LongAdder();
+        AtomicReference<String> firstError = new AtomicReference<>();
+        long start = System.nanoTime();
+        long measuredFrom = start + warmupMs * 1_000_000L;
+        long deadline = start + durationMs * 1_000_000L;
+
+        List<List<Long>> latencies = new ArrayList<>(clients);
+        List<CompletableFuture<Void>> running = new ArrayList<>(clients);
+        for (int c = 0; c < clients; c++) {
+            List<Long> own = new ArrayList<>();
+            latencies.add(own);
+            running.add(loop(c, requests, own, errors, firstError, measuredFrom, deadline));
+        }
+        CompletableFuture.allOf(running.toArray(new CompletableFuture[0])).join();
+
+        List<Long> all = new ArrayList<>();
+        latencies.forEach(all::addAll);
+        Collections.sort(all);
+
+        double seconds = (durationMs - warmupMs) / 1000.0;
+        System.out.println(String.format("%s : %.0f req/s (%d réussies, %d erreurs), p50=%.2f ms, p99=%.2f ms, max=%.2f ms",
+                name, all.size() / seconds, all.size(), errors.sum(),
+                percentile(all, 0.50), percentile(all, 0.99), percentile(all, 1.0)));
+        if (firstError.get() != null) {
+            System.out.println(name + " : première erreur → " + firstError.get());
+        }
+    }
+
+    /**
+     * Enchaîne les requêtes d’un client jusqu’à la fin de la phase (une seule requête en cours par client).
+     */
+    private CompletableFuture<Void> loop(int client, IntFunction<HttpRequest> requests, List<Long> latencies,
+                                         LongAdder errors, AtomicReference<String> firstError,
+                                         long measuredFrom, long deadline) {
+        long start = System.nanoTime();
+        if (start >= deadline) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return http.sendAsync(requests.apply(client), HttpResponse.BodyHandlers.ofString())
+                .handle((response, failure) -> {
+                    boolean measured = start >= measuredFrom;
+                    if (failure == null && response.statusCode() / 100 == 2) {
+                        if (measured) latencies.add(System.nanoTime() - start);
+                    } else {
+                        if (measured) errors.increment();
+                        firstError.compareAndSet(null, failure != null
+                                ? failure.getClass().getSimpleName() + " : " + failure.getMessage()
+                                : "HTTP " + response.statusCode() + " " + response.body());
+                    }
+                    return null;
+                })
+                .thenCompose(ignored -> loop(client, requests, latencies, errors, firstError, measuredFrom, deadline));
+    }
+
+    /**
+     * Token d’accès d’une personne, avec les mêmes claims que ceux délivrés à la connexion (sans session).
+     */
+    private String token(String email, int personId) {
+        return Jwts.builder()
+                .setSubject(email)
+                .claim("pid", personId)
+                .claim("roles", List.of("ROLE_USER"))
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 3_600_000L))
+                .signWith(secretKey)
+                .compact();
+    }
+
+    private JsonNode read(String path) throws IOException, InterruptedException {
+        HttpResponse<String> response = http.send(get(path), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException("GET " + path + " : HTTP " + response.statusCode());
+        }
+        return mapper.readTree(response.body());
+    }
+
+    private HttpRequest get(String path) {
+        return request(path).GET().build();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(30));
+    }
+
+    /**
+     * Percentile d’une liste triée de durées (ns), en millisecondes.
+     */
+    private static double percentile(List<Long> sorted, double p) {
+        if (sorted.isEmpty()) return 0.0;
+        int index = (int) Math.min(sorted.size() - 1, Math.ceil(p * sorted.size()) - 1);
+        return sorted.get(Math.max(0, index)) / 1_000_000.0;
+    }
+}
@@ -0,0 +1,93 @@
+package ikasaidi.backend_lab.benchmarks;
+
+import ikasaidi.backend_lab.utils.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bancs JMH de la génération et de la validation des tokens JWT ({@link JwtUtil}),
+ * sans contexte Spring (clé et durée de <code>application.properties</code>).
+ *
+ * <code>validationTokenRebuildParser</code> reproduit l’ancienne validation (clé et parseur
+ * recréés à chaque appel) et sert de référence ; <code>validationToken</code> est mesuré
+ * sans cache (<code>cacheMaxSize=0</code> : parseur partagé seulement) et avec le cache
+ * des tokens validés (même token à chaque appel, comme une session).
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    private static final String SECRET = "C0NkZRP0cwrDN2SKSWQb5SlZBG0Gb785";
+
+    /** Taille du cache des tokens validés (0 : désactivé). */
+    @Param({"0", "10000"})
+    public int cacheMaxSize;
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    /**
+     * Configure l’utilitaire JWT et prépare un token valide.
+     */
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 3_600_000L);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxSize", cacheMaxSize);
+        ReflectionTestUtils.setField(jwtUtil, "cacheTtlMs", 300_000L);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+        token = jwtUtil.generateToken("fschutt0@dailymail.co.uk");
+    }
+
+    /**
+     * @return nouveau token signé
+     */
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken("fschutt0@dailymail.co.uk");
+    }
+
+    /**
+     * @return claims du token préparé (signature vérifiée)
+     */
+    @Benchmark
+    public Claims validationToken() {
+        return jwtUtil.validationToken(token);
+    }
+
+    /**
+     * @return claims du token préparé, avec une clé et un parseur recréés (validation d’origine)
+     */
+    @Benchmark
+    public Claims validationTokenRebuildParser() {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}
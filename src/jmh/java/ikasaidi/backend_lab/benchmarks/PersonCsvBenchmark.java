@@ -0,0 +1,85 @@
+package ikasaidi.backend_lab.benchmarks;
+
+import ikasaidi.backend_lab.models.Person;
+import ikasaidi.backend_lab.services.PersonService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Banc JMH de la lecture du fichier CSV des personnes ({@link PersonService#listPersons(Path)}),
+ * sur des fichiers temporaires de plusieurs tailles au format de <code>data/people.csv</code>
+ * (avec mot de passe).
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersonCsvBenchmark {
+
+    /** Nombre de lignes du fichier. */
+    @Param({"1000", "100000"})
+    public int rows;
+
+    private Path file;
+    private PersonService personService;
+
+    /**
+     * Écrit le fichier CSV temporaire.
+     *
+     * @throws IOException si le fichier ne peut pas être écrit
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("people-", ".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("id,first_name,last_name,email,gender,password\n");
+            for (int i = 1; i <= rows; i++) {
+                writer.write(i + ",First" + i + ",Last" + i + ",user" + i + "@example.com,"
+                        + (i % 2 == 0 ? "Female" : "Male") + ",secret" + i + "\n");
+            }
+        }
+        // La lecture du fichier n’utilise ni le repository ni le cache
+        personService = new PersonService(null, null, null);
+    }
+
+    /**
+     * Supprime le fichier temporaire.
+     *
+     * @throws IOException si le fichier ne peut pas être supprimé
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * @return personnes lues
+     */
+    @Benchmark
+    public List<Person> listPersons() {
+        return personService.listPersons(file);
+    }
+}
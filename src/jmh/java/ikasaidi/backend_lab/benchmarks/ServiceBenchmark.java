@@ -0,0 +1,153 @@
+package ikasaidi.backend_lab.benchmarks;
+
+import ikasaidi.backend_lab.BackendLabApplication;
+import ikasaidi.backend_lab.DTO.TrendingDto;
+import ikasaidi.backend_lab.models.Ratings;
+import ikasaidi.backend_lab.models.Series;
+import ikasaidi.backend_lab.services.RatingsService;
+import ikasaidi.backend_lab.services.RecommendationService;
+import ikasaidi.backend_lab.services.TrendingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bancs JMH des services sur une vraie base SQLite (fichier temporaire).
+ *
+ * Pour chaque taille de jeu de données (<code>persons</code>), l’application est démarrée
+ * avec le profil <code>generate</code> : le générateur de charge remplit la base
+ * (séries, historiques, évaluations, visionnages proportionnels au nombre de personnes),
+ * puis les services sont appelés directement.
+ * <ul>
+ *     <li>{@link TrendingService#getTrending()} : classement en mémoire ;</li>
+ *     <li>{@link RecommendationService#getPersonsRecommendation(Integer)} : personne tirée au hasard,
+ *         dans une transaction en lecture (comme une requête HTTP avec OSIV) ;</li>
+ *     <li>{@link RatingsService#addOrUpdatingRatingBySerie(Long, int, int)} : écriture d’une note.</li>
+ * </ul>
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+
+    /** Nombre de personnes générées ; les autres volumes en découlent. */
+    @Param({"1000", "10000"})
+    public int persons;
+
+    private ConfigurableApplicationContext context;
+    private Path database;
+    private Path journal;
+
+    private TrendingService trendingService;
+    private RecommendationService recommendationService;
+    private RatingsService ratingsService;
+    private TransactionTemplate readOnly;
+
+    private int[] personIds;
+    private long[] seriesIds;
+
+    /**
+     * Crée la base temporaire, démarre l’application et génère les données.
+     *
+     * @throws IOException si les fichiers temporaires ne peuvent pas être créés
+     */
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        database = Files.createTempFile("jmh-", ".db");
+        journal = Files.createTempDirectory("jmh-journal");
+
+        context = new SpringApplicationBuilder(BackendLabApplication.class)
+                .profiles("generate")
+                .run("--spring.datasource.url=jdbc:sqlite:" + database,
+                        "--ratings.ingest.journal-dir=" + journal,
+                        "--logging.level.root=WARN",
+                        "--generate.exit=false",
+                        "--generate.persons=" + persons,
+                        "--generate.series=" + Math.max(100, persons / 10),
+                        "--generate.ratings=" + persons * 10L,
+                        "--generate.views=" + persons * 20L);
+
+        trendingService = context.getBean(TrendingService.class);
+        recommendationService = context.getBean(RecommendationService.class);
+        ratingsService = context.getBean(RatingsService.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        personIds = jdbcTemplate.queryForList("SELECT id FROM person", Integer.class)
+                .stream().mapToInt(Integer::intValue).toArray();
+        seriesIds = jdbcTemplate.queryForList("SELECT id FROM series", Long.class)
+                .stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Arrête l’application et supprime la base temporaire.
+     *
+     * @throws IOException si un fichier ne peut pas être supprimé
+     */
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        context.close();
+        Files.deleteIfExists(database);
+        FileSystemUtils.deleteRecursively(journal);
+    }
+
+    /**
+     * @return classement des séries tendance
+     */
+    @Benchmark
+    public List<TrendingDto> trending() {
+        return trendingService.getTrending();
+    }
+
+    /**
+     * @return recommandations d’une personne tirée au hasard
+     */
+    @Benchmark
+    public List<Series> recommendation() {
+        int personId = personIds[ThreadLocalRandom.current().nextInt(personIds.length)];
+        return readOnly.execute(status -> recommendationService.getPersonsRecommendation(personId));
+    }
+
+    /**
+     * @return note créée ou modifiée (série et personne tirées au hasard)
+     */
+    @Benchmark
+    public Ratings rateSeries() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return ratingsService.addOrUpdatingRatingBySerie(
+                seriesIds[random.nextInt(seriesIds.length)],
+                personIds[random.nextInt(personIds.length)],
+                random.nextInt(1, 6));
+    }
+}
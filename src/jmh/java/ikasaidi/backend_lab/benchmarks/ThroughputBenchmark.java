@@ -0,0 +1,179 @@
+package ikasaidi.backend_lab.benchmarks;
+
+import ikasaidi.backend_lab.BackendLabApplication;
+import ikasaidi.backend_lab.models.Ratings;
+import ikasaidi.backend_lab.services.RatingsService;
+import ikasaidi.backend_lab.services.SeriesService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Banc de débit des écritures concurrentes, pour comparer les profils de base de données.
+ *
+ * Plusieurs fils appellent les vrais services, en deux mesures :
+ * <ul>
+ *     <li>{@link #writes()} : notes de séries ({@link RatingsService#addOrUpdatingRatingBySerie}) ;</li>
+ *     <li>{@link #mixed()} : <code>readPercent</code> % de lectures de pages de séries, le reste en notes.</li>
+ * </ul>
+ *
+ * Le débit (mode <code>thrpt</code>) et les latences p50 et p99 (mode <code>sample</code>) sont
+ * mesurés pour chaque <code>profile</code>. Les profils SQLite travaillent sur une copie temporaire
+ * de <code>persons.db</code> ; le profil <code>postgres</code> (base de <code>application-postgres.properties</code>,
+ * modifiée par le banc) n’est lancé que sur demande :
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="ThroughputBenchmark"
+ * mvn -Pjmh,postgres test-compile exec:exec -Djmh.args="ThroughputBenchmark -p profile=postgres"
+ * </pre>
+ *
+ * Une opération en échec (par exemple <code>SQLITE_BUSY</code>) ne termine pas le banc :
+ * elle est comptée et signalée à la fin de l’essai.
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@Threads(8)
+@Fork(1)
+public class ThroughputBenchmark {
+
+    /** Profil Spring de la base : <code>default</code> (SQLite, une connexion), <code>prod</code> (SQLite WAL) ou <code>postgres</code>. */
+    @Param({"default", "prod"})
+    public String profile;
+
+    /** Part des lectures dans {@link #mixed()} (%). */
+    @Param({"80"})
+    public int readPercent;
+
+    private ConfigurableApplicationContext context;
+    private Path database;
+    private Path journal;
+
+    private RatingsService ratingsService;
+    private SeriesService seriesService;
+
+    private int[] personIds;
+    private long[] seriesIds;
+
+    private final LongAdder errors = new LongAdder();
+    private final AtomicReference<String> firstError = new AtomicReference<>();
+
+    /**
+     * Copie la base (profils SQLite), démarre l’application et lit les identifiants tirés au hasard.
+     *
+     * @throws IOException si les fichiers temporaires ne peuvent pas être créés
+     */
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        journal = Files.createTempDirectory("jmh-journal");
+
+        List<String> args = new ArrayList<>(List.of(
+                "--ratings.ingest.journal-dir=" + journal,
+                "--logging.level.root=WARN",
+                "--recommendation.cf.initial-delay-ms=3600000"));
+        if (!"postgres".equals(profile)) {
+            database = Files.createTempFile("jmh-throughput-", ".db");
+            Files.copy(Path.of("persons.db"), database, StandardCopyOption.REPLACE_EXISTING);
+            args.add("--spring.datasource.url=jdbc:sqlite:" + database);
+        }
+
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(BackendLabApplication.class);
+        if (!"default".equals(profile)) {
+            builder.profiles(profile);
+        }
+        context = builder.run(args.toArray(new String[0]));
+
+        ratingsService = context.getBean(RatingsService.class);
+        seriesService = context.getBean(SeriesService.class);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        personIds = jdbcTemplate.queryForList("SELECT id FROM person", Integer.class)
+                .stream().mapToInt(Integer::intValue).toArray();
+        seriesIds = jdbcTemplate.queryForList("SELECT id FROM series", Long.class)
+                .stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Signale les opérations en échec, arrête l’application et supprime la copie de la base.
+     *
+     * @throws IOException si un fichier ne peut pas être supprimé
+     */
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        if (errors.sum() > 0) {
+            System.out.println("[" + profile + "] " + errors.sum() + " opérations en échec, première : " + firstError.get());
+        }
+        context.close();
+        if (database != null) {
+            for (String suffix : List.of("", "-wal", "-shm")) {
+                Files.deleteIfExists(Path.of(database + suffix));
+            }
+        }
+        FileSystemUtils.deleteRecursively(journal);
+    }
+
+    /**
+     * @return note créée ou modifiée (série et personne tirées au hasard)
+     */
+    @Benchmark
+    public Ratings writes() {
+        return rate(ThreadLocalRandom.current());
+    }
+
+    /**
+     * @return page de séries lue, ou note écrite
+     */
+    @Benchmark
+    public Object mixed() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextInt(100) < readPercent) {
+            return seriesService.findPage(0, Limit.of(20));
+        }
+        return rate(random);
+    }
+
+    private Ratings rate(ThreadLocalRandom random) {
+        try {
+            return ratingsService.addOrUpdatingRatingBySerie(
+                    seriesIds[random.nextInt(seriesIds.length)],
+                    personIds[random.nextInt(personIds.length)],
+                    random.nextInt(1, 6));
+        } catch (RuntimeException e) {
+            errors.increment();
+            firstError.compareAndSet(null, e.getClass().getSimpleName() + " : " + e.getMessage());
+            return null;
+        }
+    }
+}
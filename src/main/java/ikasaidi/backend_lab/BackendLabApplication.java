@@ -5,6 +5,7 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Classe principale de l’application Spring Boot.
@@ -15,6 +16,9 @@ import org.springframework.context.annotation.Bean;
  * Lors du démarrage, elle vérifie si la base de données est vide
  * et importe les données initiales des utilisateurs à partir du fichier CSV.
  *
+ * Les tâches planifiées (ex. reconstruction du modèle de recommandation
+ * collaborative) sont activées via {@link EnableScheduling}.
+ *
  * @author Rachel
  * @author Sarah
  * @author Ikram
@@ -22,6 +26,7 @@ import org.springframework.context.annotation.Bean;
  * @version 1.0
  */
 @SpringBootApplication
+@EnableScheduling
 public class BackendLabApplication {
 
     /**
@@ -46,7 +51,7 @@ public class BackendLabApplication {
     @Bean
     CommandLineRunner run(PersonService personService) {
         return args -> {
-            if (personService.getAllPersons().isEmpty()) {
+            if (personService.hasNoPersons()) {
                 personService.bdFromTheStart();
             }
         };
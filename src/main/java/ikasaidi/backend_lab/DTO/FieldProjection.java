@@ -0,0 +1,71 @@
+package ikasaidi.backend_lab.DTO;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Projection légère d’une ligne de liste (DTO) sur une liste de champs choisis par le client
+ * (paramètre <code>fields=id,title,...</code> des endpoints de liste).
+ *
+ * Chaque champ autorisé est déclaré avec sa fonction de lecture.
+ * Le résultat est une liste de maps ordonnées, sérialisée telle quelle par Jackson.
+ *
+ * @param <T> type de la ligne projetée
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+public final class FieldProjection<T> {
+
+    /** Champs autorisés, dans l’ordre de déclaration. */
+    private final Map<String, Function<? super T, ?>> fields = new LinkedHashMap<>();
+
+    /**
+     * Déclare un champ projetable.
+     *
+     * @param name nom du champ dans la réponse JSON
+     * @param getter fonction de lecture de la valeur
+     * @return cette projection (chaînage)
+     */
+    public FieldProjection<T> field(String name, Function<? super T, ?> getter) {
+        fields.put(name, getter);
+        return this;
+    }
+
+    /**
+     * Projette chaque élément sur les champs demandés.
+     *
+     * @param items éléments à projeter
+     * @param requested liste de champs séparés par des virgules
+     * @return une map par élément, limitée aux champs demandés
+     * @throws IllegalArgumentException si un champ demandé n’est pas projetable
+     */
+    public List<Map<String, Object>> apply(List<? extends T> items, String requested) {
+        List<String> names = new ArrayList<>();
+        for (String name : requested.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) continue;
+            if (!fields.containsKey(trimmed)) {
+                throw new IllegalArgumentException("Champ inconnu : " + trimmed + " (champs possibles : "
+                        + String.join(", ", fields.keySet()) + ")");
+            }
+            names.add(trimmed);
+        }
+        if (names.isEmpty()) {
+            throw new IllegalArgumentException("Aucun champ demandé");
+        }
+
+        List<Map<String, Object>> result = new ArrayList<>(items.size());
+        for (T item : items) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (String name : names) {
+                row.put(name, fields.get(name).apply(item));
+            }
+            result.add(row);
+        }
+        return result;
+    }
+}
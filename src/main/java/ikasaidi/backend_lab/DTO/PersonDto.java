@@ -0,0 +1,48 @@
+package ikasaidi.backend_lab.DTO;
+
+import lombok.Data;
+
+/**
+ * Objet de transfert de données (DTO) représentant un utilisateur dans les listes.
+ *
+ * Construit directement par la requête JPQL ; le mot de passe et les collections
+ * (historique, évaluations, visionnages) ne sont ni lus ni exposés.
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+@Data
+public class PersonDto {
+
+    /** Identifiant de l’utilisateur. */
+    private Integer id;
+
+    /** Nom complet. */
+    private String name;
+
+    /** Âge. */
+    private int age;
+
+    /** Adresse courriel. */
+    private String email;
+
+    /** Genre. */
+    private String gender;
+
+    /**
+     * Constructeur complet (utilisé par l’expression <code>SELECT new</code>).
+     *
+     * @param id identifiant de l’utilisateur
+     * @param name nom complet
+     * @param age âge
+     * @param email adresse courriel
+     * @param gender genre
+     */
+    public PersonDto(Integer id, String name, int age, String email, String gender) {
+        this.id = id;
+        this.name = name;
+        this.age = age;
+        this.email = email;
+        this.gender = gender;
+    }
+}
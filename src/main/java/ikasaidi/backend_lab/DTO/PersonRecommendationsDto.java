@@ -0,0 +1,98 @@
+package ikasaidi.backend_lab.DTO;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import ikasaidi.backend_lab.models.Series;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Objet de transfert de données (DTO) représentant les recommandations calculées
+ * pour une personne lors d’un traitement par lot.
+ *
+ * Chaque instance correspond à une ligne du flux NDJSON renvoyé par
+ * {@link ikasaidi.backend_lab.controllers.PersonController} :
+ * <ul>
+ *     <li>l’identifiant de la personne,</li>
+ *     <li>la liste des séries recommandées (résumé sans les relations),</li>
+ *     <li>ou un message d’erreur si la personne n’existe pas.</li>
+ * </ul>
+ *
+ *
+ * <p>Ce DTO est produit par le service
+ * {@link ikasaidi.backend_lab.services.RecommendationService}.</p>
+ *
+ * @author Rachel
+ * @version 1.0
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PersonRecommendationsDto {
+
+    /** Identifiant de la personne. */
+    private Integer personId;
+
+    /** Séries recommandées, dans l’ordre de recommandation. */
+    private List<SeriesSummary> series;
+
+    /** Message d’erreur (absent si le calcul a réussi). */
+    private String error;
+
+    /**
+     * Constructeur par défaut (nécessaire pour la sérialisation JSON).
+     */
+    public PersonRecommendationsDto() {
+    }
+
+    /**
+     * Construit le résultat d’une personne à partir des séries recommandées.
+     *
+     * @param personId identifiant de la personne
+     * @param recommendations séries recommandées
+     */
+    public PersonRecommendationsDto(Integer personId, List<Series> recommendations) {
+        this.personId = personId;
+        this.series = new ArrayList<>(recommendations.size());
+        for (Series s : recommendations) {
+            this.series.add(new SeriesSummary(s.getId(), s.getTitle(), s.getGenre(), s.getNbEpisodes(), s.getNote()));
+        }
+    }
+
+    /**
+     * Construit un résultat en erreur.
+     *
+     * @param personId identifiant de la personne
+     * @param error message d’erreur
+     * @return le DTO en erreur
+     */
+    public static PersonRecommendationsDto error(Integer personId, String error) {
+        PersonRecommendationsDto dto = new PersonRecommendationsDto();
+        dto.setPersonId(personId);
+        dto.setError(error);
+        return dto;
+    }
+
+    /**
+     * Résumé d’une série recommandée (sans les épisodes, évaluations ni vues).
+     */
+    @Data
+    public static class SeriesSummary {
+        private Long id;
+        private String title;
+        private String genre;
+        private int nbEpisodes;
+        private double note;
+
+        public SeriesSummary() {
+        }
+
+        public SeriesSummary(Long id, String title, String genre, int nbEpisodes, double note) {
+            this.id = id;
+            this.title = title;
+            this.genre = genre;
+            this.nbEpisodes = nbEpisodes;
+            this.note = note;
+        }
+    }
+}
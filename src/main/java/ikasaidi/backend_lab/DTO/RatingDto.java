@@ -0,0 +1,53 @@
+package ikasaidi.backend_lab.DTO;
+
+import lombok.Data;
+
+/**
+ * Objet de transfert de données (DTO) représentant une évaluation dans les listes.
+ *
+ * Construit directement par la requête JPQL : l’utilisateur et l’épisode sont exposés
+ * par leur identifiant, la série par son identifiant et son titre.
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+@Data
+public class RatingDto {
+
+    /** Identifiant de l’évaluation. */
+    private Long id;
+
+    /** Note attribuée (1 à 5). */
+    private int score;
+
+    /** Identifiant de l’utilisateur ayant noté. */
+    private Integer personId;
+
+    /** Identifiant de la série notée. */
+    private Long seriesId;
+
+    /** Titre de la série notée. */
+    private String seriesTitle;
+
+    /** Identifiant de l’épisode noté, ou {@code null} pour une note de série. */
+    private Long episodeId;
+
+    /**
+     * Constructeur complet (utilisé par l’expression <code>SELECT new</code>).
+     *
+     * @param id identifiant de l’évaluation
+     * @param score note attribuée
+     * @param personId identifiant de l’utilisateur
+     * @param seriesId identifiant de la série
+     * @param seriesTitle titre de la série
+     * @param episodeId identifiant de l’épisode (facultatif)
+     */
+    public RatingDto(Long id, int score, Integer personId, Long seriesId, String seriesTitle, Long episodeId) {
+        this.id = id;
+        this.score = score;
+        this.personId = personId;
+        this.seriesId = seriesId;
+        this.seriesTitle = seriesTitle;
+        this.episodeId = episodeId;
+    }
+}
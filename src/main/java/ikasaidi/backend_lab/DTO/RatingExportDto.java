@@ -0,0 +1,50 @@
+package ikasaidi.backend_lab.DTO;
+
+import lombok.Data;
+
+/**
+ * Objet de transfert de données (DTO) représentant une ligne de l’export des évaluations.
+ *
+ * Chaque instance est construite directement par la requête JPQL (sans charger
+ * d’entité ni ses relations) et correspond à une ligne du flux NDJSON renvoyé par
+ * {@link ikasaidi.backend_lab.controllers.RatingsController}.
+ * L’identifiant d’épisode est {@code null} pour une note donnée à la série entière.
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+@Data
+public class RatingExportDto {
+
+    /** Identifiant de l’évaluation. */
+    private Long id;
+
+    /** Note attribuée (entre 1 et 5). */
+    private int score;
+
+    /** Identifiant de la personne ayant noté. */
+    private Integer personId;
+
+    /** Identifiant de la série notée (directement ou via un épisode). */
+    private Long seriesId;
+
+    /** Identifiant de l’épisode noté, ou {@code null}. */
+    private Long episodeId;
+
+    /**
+     * Constructeur complet (utilisé par l’expression <code>SELECT new</code>).
+     *
+     * @param id identifiant de l’évaluation
+     * @param score note attribuée
+     * @param personId identifiant de la personne
+     * @param seriesId identifiant de la série
+     * @param episodeId identifiant de l’épisode, ou {@code null}
+     */
+    public RatingExportDto(Long id, int score, Integer personId, Long seriesId, Long episodeId) {
+        this.id = id;
+        this.score = score;
+        this.personId = personId;
+        this.seriesId = seriesId;
+        this.episodeId = episodeId;
+    }
+}
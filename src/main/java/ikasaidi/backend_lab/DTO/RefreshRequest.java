@@ -0,0 +1,58 @@
+package ikasaidi.backend_lab.DTO;
+
+/**
+ * Objet de transfert de données (DTO) d’une demande de rafraîchissement ou de déconnexion.
+ *
+ * Il contient le jeton de rafraîchissement remis à la connexion et, pour une déconnexion,
+ * l’indication de fermer toutes les sessions de l’utilisateur.
+ *
+ * Ce DTO est consommé par le
+ * {@link ikasaidi.backend_lab.controllers.AuthentificationController}.
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+public class RefreshRequest {
+
+    /** Jeton de rafraîchissement remis à la connexion ou au dernier rafraîchissement. */
+    private String refreshToken;
+
+    /** Déconnexion de toutes les sessions de l’utilisateur (et non de la seule session du jeton). */
+    private boolean allSessions;
+
+    /**
+     * Retourne le jeton de rafraîchissement.
+     *
+     * @return jeton de rafraîchissement
+     */
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    /**
+     * Définit le jeton de rafraîchissement.
+     *
+     * @param refreshToken jeton de rafraîchissement
+     */
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+
+    /**
+     * Indique si toutes les sessions doivent être fermées.
+     *
+     * @return {@code true} pour fermer toutes les sessions de l’utilisateur
+     */
+    public boolean isAllSessions() {
+        return allSessions;
+    }
+
+    /**
+     * Définit si toutes les sessions doivent être fermées.
+     *
+     * @param allSessions {@code true} pour fermer toutes les sessions de l’utilisateur
+     */
+    public void setAllSessions(boolean allSessions) {
+        this.allSessions = allSessions;
+    }
+}
@@ -32,6 +32,9 @@ public class ReponseAuthentification {
     /** Token JWT généré lors d’une connexion réussie. */
     private String token;
 
+    /** Jeton de rafraîchissement de la session, pour obtenir un nouveau token sans mot de passe. */
+    private String refreshToken;
+
     /**
      * Constructeur complet de la réponse d’authentification.
      *
@@ -49,6 +52,21 @@ public class ReponseAuthentification {
         this.token = token;
     }
 
+    /**
+     * Constructeur d’une réponse qui ouvre ou prolonge une session.
+     *
+     * @param success indique si l’authentification a réussi
+     * @param message message de réponse du serveur
+     * @param id identifiant de l’utilisateur connecté
+     * @param name nom de l’utilisateur
+     * @param token token JWT associé à la session
+     * @param refreshToken jeton de rafraîchissement de la session
+     */
+    public ReponseAuthentification(boolean success, String message, Integer id, String name, String token, String refreshToken) {
+        this(success, message, id, name, token);
+        this.refreshToken = refreshToken;
+    }
+
     /**
      * Retourne le statut de réussite de l’authentification.
      *
@@ -138,4 +156,22 @@ public class ReponseAuthentification {
     public void setToken(String token) {
         this.token = token;
     }
+
+    /**
+     * Retourne le jeton de rafraîchissement de la session.
+     *
+     * @return jeton de rafraîchissement
+     */
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    /**
+     * Définit le jeton de rafraîchissement de la session.
+     *
+     * @param refreshToken nouveau jeton de rafraîchissement
+     */
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
 }
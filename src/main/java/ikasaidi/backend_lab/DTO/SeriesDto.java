@@ -0,0 +1,58 @@
+package ikasaidi.backend_lab.DTO;
+
+import lombok.Data;
+
+/**
+ * Objet de transfert de données (DTO) représentant une série dans les listes
+ * (page de séries, historique d’un utilisateur).
+ *
+ * Chaque instance est construite directement par la requête JPQL : seules les colonnes
+ * de la table <strong>series</strong> sont lues, sans les épisodes, notes ni visionnages.
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+@Data
+public class SeriesDto {
+
+    /** Identifiant de la série. */
+    private Long id;
+
+    /** Titre de la série. */
+    private String title;
+
+    /** Genre de la série. */
+    private String genre;
+
+    /** Nombre d’épisodes. */
+    private int nbEpisodes;
+
+    /** Note moyenne (moyenne des évaluations si la série en a reçu, sinon note initiale). */
+    private double note;
+
+    /** Nombre d’évaluations reçues par la série et ses épisodes. */
+    private long ratingCount;
+
+    /**
+     * Constructeur utilisé par l’expression <code>SELECT new</code>.
+     *
+     * La note est calculée comme dans {@link ikasaidi.backend_lab.models.Series#getNote()}.
+     *
+     * @param id identifiant de la série
+     * @param title titre
+     * @param genre genre
+     * @param nbEpisodes nombre d’épisodes
+     * @param note note initiale
+     * @param ratingSum somme des notes reçues
+     * @param ratingCount nombre de notes reçues
+     */
+    public SeriesDto(Long id, String title, String genre, int nbEpisodes, double note,
+                     long ratingSum, long ratingCount) {
+        this.id = id;
+        this.title = title;
+        this.genre = genre;
+        this.nbEpisodes = nbEpisodes;
+        this.note = ratingCount == 0 ? note : Math.round((double) ratingSum / ratingCount * 100.0) / 100.0;
+        this.ratingCount = ratingCount;
+    }
+}
@@ -0,0 +1,55 @@
+package ikasaidi.backend_lab.DTO;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * Objet de transfert de données (DTO) représentant un visionnage dans les listes.
+ *
+ * Construit directement par la requête JPQL : l’utilisateur est exposé par son
+ * identifiant, la série par son identifiant et son titre.
+ *
+ * @author Rachel
+ * @version 1.0
+ */
+@Data
+public class ViewDto {
+
+    /** Identifiant de l’enregistrement. */
+    private Long id;
+
+    /** Date du visionnage. */
+    private LocalDate dateWatched;
+
+    /** Progression du visionnage. */
+    private int progress;
+
+    /** Identifiant de la personne ayant regardé la série. */
+    private Integer personId;
+
+    /** Identifiant de la série regardée. */
+    private Long seriesId;
+
+    /** Titre de la série regardée. */
+    private String seriesTitle;
+
+    /**
+     * Constructeur complet (utilisé par l’expression <code>SELECT new</code>).
+     *
+     * @param id identifiant de l’enregistrement
+     * @param dateWatched date du visionnage
+     * @param progress progression du visionnage
+     * @param personId identifiant de la personne
+     * @param seriesId identifiant de la série
+     * @param seriesTitle titre de la série
+     */
+    public ViewDto(Long id, LocalDate dateWatched, int progress, Integer personId, Long seriesId, String seriesTitle) {
+        this.id = id;
+        this.dateWatched = dateWatched;
+        this.progress = progress;
+        this.personId = personId;
+        this.seriesId = seriesId;
+        this.seriesTitle = seriesTitle;
+    }
+}
@@ -0,0 +1,52 @@
+package ikasaidi.backend_lab.DTO;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * Objet de transfert de données (DTO) représentant une ligne de l’export
+ * de l’historique de visionnage.
+ *
+ * Chaque instance est construite directement par la requête JPQL (sans charger
+ * d’entité ni ses relations) et correspond à une ligne du flux NDJSON renvoyé par
+ * {@link ikasaidi.backend_lab.controllers.VuesHistoryController}.
+ *
+ * @author Rachel
+ * @version 1.0
+ */
+@Data
+public class ViewExportDto {
+
+    /** Identifiant de l’enregistrement. */
+    private Long id;
+
+    /** Identifiant de la personne ayant regardé la série. */
+    private Integer personId;
+
+    /** Identifiant de la série regardée. */
+    private Long seriesId;
+
+    /** Date du visionnage. */
+    private LocalDate dateWatched;
+
+    /** Progression du visionnage. */
+    private int progress;
+
+    /**
+     * Constructeur complet (utilisé par l’expression <code>SELECT new</code>).
+     *
+     * @param id identifiant de l’enregistrement
+     * @param personId identifiant de la personne
+     * @param seriesId identifiant de la série
+     * @param dateWatched date du visionnage
+     * @param progress progression du visionnage
+     */
+    public ViewExportDto(Long id, Integer personId, Long seriesId, LocalDate dateWatched, int progress) {
+        this.id = id;
+        this.personId = personId;
+        this.seriesId = seriesId;
+        this.dateWatched = dateWatched;
+        this.progress = progress;
+    }
+}
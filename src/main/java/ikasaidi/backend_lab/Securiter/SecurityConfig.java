@@ -1,8 +1,10 @@
 package ikasaidi.backend_lab.Securiter;
 
 import ikasaidi.backend_lab.utils.JwtFilter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
@@ -33,6 +35,8 @@ import java.util.List;
  *     <li><code>/auth/**</code> — pour la connexion et l’inscription</li>
  *     <li><code>/series/**</code>, <code>/persons/**</code>, <code>/vues/**</code>, <code>/ratings/**</code></li>
  * </ul>
+ * sauf les écritures de notes (<code>POST /ratings/**</code>) et d’historique
+ * (<code>POST /persons/{id}/history/**</code>), faites au nom de l’utilisateur du token.
  * Tous les autres endpoints nécessitent une authentification via un token JWT valide.
  *
  *
@@ -84,6 +88,8 @@ public class SecurityConfig {
                 // Définition des autorisations d’accès
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/auth/**").permitAll()
+                        // Écritures au nom de l’appelant : identité lue dans le token
+                        .requestMatchers(HttpMethod.POST, "/ratings/**", "/persons/*/history/**").authenticated()
                         .requestMatchers("/auth/**", "/series/**", "/persons/**", "/vues/**", "/ratings/**", "/ratings/episode/**").permitAll()
                         .anyRequest().authenticated()
                 )
@@ -115,10 +121,12 @@ public class SecurityConfig {
     /**
      * Définit le bean utilisé pour le chiffrement des mots de passe utilisateurs.
      *
+     * @param strength coût BCrypt (<code>password.bcrypt.strength</code>, 10 par défaut) :
+     *                 chaque unité double la durée d’un hachage
      * @return instance de {@link BCryptPasswordEncoder}
      */
     @Bean
-    public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BCryptPasswordEncoder passwordEncoder(@Value("${password.bcrypt.strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
 }
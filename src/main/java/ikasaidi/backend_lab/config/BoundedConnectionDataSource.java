@@ -0,0 +1,185 @@
+package ikasaidi.backend_lab.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Source de données qui borne le nombre de connexions JDBC ouvertes en même temps.
+ *
+ * Avec des fils virtuels, chaque requête HTTP a son propre fil : un millier de clients donne
+ * un millier de demandes de connexion simultanées au pool Hikari. Cette source les fait attendre
+ * devant un sémaphore équitable (premier arrivé, premier servi) :
+ * <ul>
+ *     <li>Une autorisation est prise à l’ouverture de la connexion et rendue à sa fermeture.</li>
+ *     <li>L’attente suspend le fil virtuel sans occuper de fil porteur.</li>
+ *     <li>Au-delà de l’attente maximale, l’ouverture échoue par une {@link SQLTransientConnectionException}.</li>
+ *     <li>Attentes, refus et durée d’attente sont suivis par {@link #getStatistics()}.</li>
+ * </ul>
+ *
+ * Voir {@link VirtualThreadsConfig}.
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+public class BoundedConnectionDataSource extends DelegatingDataSource {
+
+    private final Semaphore permits;
+    private final int maxPermits;
+    private final long acquireTimeoutMs;
+
+    /** Connexions obtenues. */
+    private final LongAdder acquired = new LongAdder();
+
+    /** Connexions obtenues après une attente. */
+    private final LongAdder waited = new LongAdder();
+
+    /** Demandes refusées après l’attente maximale. */
+    private final LongAdder timeouts = new LongAdder();
+
+    /** Durée totale des attentes (ns). */
+    private final LongAdder waitNanos = new LongAdder();
+
+    /** Plus longue attente observée (ns). */
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /** Plus grand nombre de fils en attente observé. */
+    private final AtomicInteger maxWaiting = new AtomicInteger();
+
+    /**
+     * Constructeur.
+     *
+     * @param target source de données enveloppée
+     * @param maxPermits nombre maximal de connexions ouvertes en même temps
+     * @param acquireTimeoutMs attente maximale d’une autorisation (ms)
+     */
+    public BoundedConnectionDataSource(DataSource target, int maxPermits, long acquireTimeoutMs) {
+        super(target);
+        this.maxPermits = Math.max(1, maxPermits);
+        this.permits = new Semaphore(this.maxPermits, true);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return bounded(obtainTargetDataSource().getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return bounded(obtainTargetDataSource().getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Retourne l’état du sémaphore et les durées d’attente.
+     *
+     * @return autorisations (total, libres), fils en attente (actuels, pic),
+     *         connexions obtenues, attentes, refus, durée moyenne et maximale des attentes (µs)
+     */
+    public Map<String, Map<String, Long>> getStatistics() {
+        Map<String, Long> values = new LinkedHashMap<>();
+        long n = waited.sum();
+        values.put("permits", (long) maxPermits);
+        values.put("available", (long) permits.availablePermits());
+        values.put("waiting", (long) permits.getQueueLength());
+        values.put("maxWaiting", (long) maxWaiting.get());
+        values.put("acquired", acquired.sum());
+        values.put("waited", n);
+        values.put("timeouts", timeouts.sum());
+        values.put("avgWaitMicros", n == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(waitNanos.sum() / n));
+        values.put("maxWaitMicros", TimeUnit.NANOSECONDS.toMicros(maxWaitNanos.get()));
+
+        Map<String, Map<String, Long>> result = new LinkedHashMap<>();
+        result.put("jdbc", values);
+        return result;
+    }
+
+    /**
+     * Prend une autorisation, en attendant au plus <code>acquireTimeoutMs</code>.
+     */
+    private void acquire() throws SQLException {
+        long start = System.nanoTime();
+        boolean granted;
+        try {
+            // tryAcquire() sans délai passerait devant les fils en attente, même avec un sémaphore équitable
+            if (permits.tryAcquire(0, TimeUnit.MILLISECONDS)) {
+                acquired.increment();
+                return;
+            }
+            maxWaiting.accumulateAndGet(permits.getQueueLength() + 1, Math::max);
+            granted = permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Attente d’une connexion interrompue", e);
+        }
+        long elapsed = System.nanoTime() - start;
+        if (!granted) {
+            timeouts.increment();
+            throw new SQLTransientConnectionException(
+                    "Aucune connexion disponible après " + acquireTimeoutMs + " ms (" + maxPermits + " en cours)");
+        }
+        acquired.increment();
+        waited.increment();
+        waitNanos.add(elapsed);
+        maxWaitNanos.accumulateAndGet(elapsed, Math::max);
+    }
+
+    /**
+     * Enveloppe une connexion pour rendre l’autorisation à sa première fermeture.
+     */
+    private Connection bounded(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(
+                BoundedConnectionDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "close":
+                            try {
+                                connection.close();
+                            } finally {
+                                if (released.compareAndSet(false, true)) {
+                                    permits.release();
+                                }
+                            }
+                            return null;
+                        default:
+                            break;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
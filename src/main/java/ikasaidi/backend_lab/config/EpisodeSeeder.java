@@ -1,12 +1,17 @@
 package ikasaidi.backend_lab.config;
 
-import ikasaidi.backend_lab.models.Episodes;
 import ikasaidi.backend_lab.models.Series;
 import ikasaidi.backend_lab.repositories.EpisodesRepository;
 import ikasaidi.backend_lab.repositories.SeriesRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
 
 
@@ -18,16 +23,24 @@ import java.util.List;
  * pour les séries existantes.
  *
  *
+ * Les épisodes sont générés en mémoire puis insérés par lots JDBC
+ * (<code>seed.batch-size</code> lignes par lot), dans une seule transaction.
+ *
  * Localisation des données générées : table <strong>episodes</strong>
  *
  * @author Sarah
  * @version 1.0
  */
+@Order(1)
+@Transactional
 @Component
+@ConditionalOnProperty(name = "seed.enabled", havingValue = "true", matchIfMissing = true)
 public class EpisodeSeeder implements CommandLineRunner {
 
     private final EpisodesRepository episodesRepository;
     private final SeriesRepository seriesRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
 
 
     /**
@@ -35,10 +48,15 @@ public class EpisodeSeeder implements CommandLineRunner {
      *
      * @param episodesRepository repository pour accéder aux données des épisodes
      * @param seriesRepository le repository des séries
+     * @param jdbcTemplate accès JDBC pour les insertions par lots
+     * @param batchSize nombre de lignes par lot JDBC
      */
-    public EpisodeSeeder(EpisodesRepository episodesRepository, SeriesRepository seriesRepository) {
+    public EpisodeSeeder(EpisodesRepository episodesRepository, SeriesRepository seriesRepository,
+                         JdbcTemplate jdbcTemplate, @Value("${seed.batch-size:1000}") int batchSize) {
         this.episodesRepository = episodesRepository;
         this.seriesRepository = seriesRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
     }
 
     /**
@@ -62,6 +80,9 @@ public class EpisodeSeeder implements CommandLineRunner {
             return;
         }
 
+        long start = System.currentTimeMillis();
+        List<EpisodeRow> rows = new ArrayList<>();
+
         for (Series series : allSeries) {
             int nbEpisodes = series.getNbEpisodes();
 
@@ -71,20 +92,24 @@ public class EpisodeSeeder implements CommandLineRunner {
             }
 
             for (int i = 1; i <= nbEpisodes; i++) {
-                Episodes episode = new Episodes();
-                episode.setEpisodeNumber(i);
-                episode.setTitle(generateEpisodeTitle(series.getTitle(), i));
-                episode.setSeries(series);
-
-                episodesRepository.save(episode);
+                rows.add(new EpisodeRow(i, generateEpisodeTitle(series.getTitle(), i), series.getId()));
             }
-
-            System.out.println("✅ " + nbEpisodes + " épisodes ajoutés pour la série : " + series.getTitle());
         }
 
-        System.out.println("🎉 Tous les épisodes ont été insérés avec succès !");
+        jdbcTemplate.batchUpdate("INSERT INTO episodes (episode_number, title, series_id) VALUES (?, ?, ?)",
+                rows, batchSize, (ps, row) -> {
+                    ps.setInt(1, row.number());
+                    ps.setString(2, row.title());
+                    ps.setLong(3, row.seriesId());
+                });
+
+        System.out.println("🎉 " + rows.size() + " épisodes insérés pour " + allSeries.size()
+                + " séries en " + (System.currentTimeMillis() - start) + " ms");
     }
 
+    /** Épisode généré, avant insertion. */
+    private record EpisodeRow(int number, String title, long seriesId) {}
+
     // Génère un titre thématique selon la série
     private String generateEpisodeTitle(String seriesTitle, int num) {
         return switch (seriesTitle.toLowerCase()) {
@@ -0,0 +1,32 @@
+package ikasaidi.backend_lab.config;
+
+import com.fasterxml.jackson.datatype.hibernate6.Hibernate6Module;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration de la sérialisation JSON des entités.
+ *
+ * Le module Hibernate empêche Jackson de déclencher le chargement des associations
+ * paresseuses pendant l’écriture de la réponse : une collection non chargée est
+ * écrite à <code>null</code> et une entité liée non chargée est réduite à son
+ * identifiant (<code>{"id": ...}</code>). Ce qui apparaît dans une réponse est donc
+ * exactement ce que la requête du repository a choisi de joindre.
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+@Configuration
+public class JacksonConfig {
+
+    /**
+     * Module enregistré automatiquement dans l’{@code ObjectMapper} de Spring Boot.
+     *
+     * @return le module Hibernate configuré
+     */
+    @Bean
+    public Hibernate6Module hibernateModule() {
+        return new Hibernate6Module()
+                .enable(Hibernate6Module.Feature.SERIALIZE_IDENTIFIER_FOR_LAZY_NOT_LOADED_OBJECTS);
+    }
+}
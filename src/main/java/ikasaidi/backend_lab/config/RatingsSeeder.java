@@ -1,15 +1,18 @@
 package ikasaidi.backend_lab.config;
 
-import ikasaidi.backend_lab.models.Episodes;
-import ikasaidi.backend_lab.models.Person;
-import ikasaidi.backend_lab.models.Ratings;
 import ikasaidi.backend_lab.repositories.EpisodesRepository;
 import ikasaidi.backend_lab.repositories.PersonRepository;
 import ikasaidi.backend_lab.repositories.RatingsRepository;
+import ikasaidi.backend_lab.repositories.SeriesRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 
@@ -19,22 +22,34 @@ import java.util.Random;
  * Elle génère automatiquement des notes aléatoires associées à des épisodes et des utilisateurs
  * au démarrage du serveur.
  *
+ * Chaque couple (personne, épisode) reçoit une note avec la probabilité <code>seed.ratings.density</code>.
+ * Les notes sont générées en mémoire par lots de <code>seed.batch-size</code> et insérées
+ * par lots JDBC, dans une seule transaction.
  *
  * Localisation des données générées : table <strong>ratings</strong>
+ * (les agrégats de notes des séries et des épisodes sont ensuite recalculés).
  *
  * @author Rachel
  * @author Ikram
  * @author Sarah
  * @version 1.0
  */
+@Order(2)
 @Transactional
 @Component
+@ConditionalOnProperty(name = "seed.enabled", havingValue = "true", matchIfMissing = true)
 public class RatingsSeeder implements CommandLineRunner {
 
+    private static final String INSERT =
+            "INSERT INTO ratings (score, person_id, series_id, episode_id) VALUES (?, ?, ?, ?)";
+
     private final PersonRepository personRepository;
     private final EpisodesRepository episodeRepository;
     private final RatingsRepository ratingsRepository;
-
+    private final SeriesRepository seriesRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final double density;
 
     /**
      * Constructeur du seeder des évaluations.
@@ -42,13 +57,25 @@ public class RatingsSeeder implements CommandLineRunner {
      * @param personRepository repository des utilisateurs
      * @param episodeRepository repository des épisodes
      * @param ratingsRepository repository des évaluations
+     * @param seriesRepository repository des séries (agrégats de notes)
+     * @param jdbcTemplate accès JDBC pour les insertions par lots
+     * @param batchSize nombre de lignes par lot JDBC
+     * @param density probabilité qu’une personne note un épisode (0 à 1)
      */
     public RatingsSeeder(PersonRepository personRepository,
                          EpisodesRepository episodeRepository,
-                         RatingsRepository ratingsRepository) {
+                         RatingsRepository ratingsRepository,
+                         SeriesRepository seriesRepository,
+                         JdbcTemplate jdbcTemplate,
+                         @Value("${seed.batch-size:1000}") int batchSize,
+                         @Value("${seed.ratings.density:0.5}") double density) {
         this.personRepository = personRepository;
         this.episodeRepository = episodeRepository;
         this.ratingsRepository = ratingsRepository;
+        this.seriesRepository = seriesRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.density = density;
     }
 
     /**
@@ -60,46 +87,69 @@ public class RatingsSeeder implements CommandLineRunner {
     @Override
     public void run(String... args) {
 
-        List<Person> persons = personRepository.findAll();
-        List<Episodes> episodes = episodeRepository.findAll();
+        List<Integer> personIds = personRepository.findAllIds();
+        // Identifiants seuls : aucune entité épisode n’est chargée
+        List<EpisodeRef> episodes = jdbcTemplate.query(
+                "SELECT id, series_id FROM episodes WHERE series_id IS NOT NULL ORDER BY id",
+                (rs, row) -> new EpisodeRef(rs.getLong(1), rs.getLong(2)));
 
-        if (persons.isEmpty() || episodes.isEmpty()) {
+        if (personIds.isEmpty() || episodes.isEmpty()) {
             System.out.println("❌ Pas de personnes ou épisodes → aucun rating généré");
             return;
         }
 
         // 🧹 Nettoyage des anciennes données pour éviter les doublons
-        ratingsRepository.deleteAll();
+        // (suppression immédiate en une requête : les index uniques refuseraient les nouvelles lignes
+        // si la suppression était reportée à la fin de la transaction)
+        ratingsRepository.deleteAllInBatch();
 
+        long start = System.currentTimeMillis();
         Random random = new Random();
-        int inserted = 0;
+        List<RatingRow> rows = new ArrayList<>(batchSize);
+        long inserted = 0;
 
-        for (Person p : persons) {
-            for (Episodes ep : episodes) {
-
-                if (ep.getId() == null || ep.getSeries() == null) {
-                    System.out.println("⚠️ Épisode ignoré : id ou série null");
-                    continue;
-                }
-
-                // Récupère une version gérée de l'épisode
-                Episodes epManaged = episodeRepository.findById(ep.getId()).orElse(null);
-                if (epManaged == null) continue;
+        for (Integer personId : personIds) {
+            for (EpisodeRef ep : episodes) {
 
                 // Création d’une note aléatoire (pas pour tous les épisodes)
-                if (random.nextBoolean()) {
+                if (random.nextDouble() < density) {
                     int score = random.nextInt(5) + 1; // de 1 à 5
 
-                    Ratings rating = new Ratings(score, p, epManaged);
-                    ratingsRepository.save(rating);
-                    inserted++;
-
-                    System.out.printf("✅ Rating ajouté — Person: %s | EpisodeID: %d | SerieID: %d | Score: %d%n",
-                            p.getName(), epManaged.getId(), epManaged.getSeries().getId(), score);
+                    rows.add(new RatingRow(score, personId, ep.seriesId(), ep.id()));
+                    if (rows.size() == batchSize) {
+                        inserted += flush(rows);
+                    }
                 }
             }
         }
+        inserted += flush(rows);
+
+        // 🔢 Les notes générées ne passent pas par le chemin d’écriture : agrégats recalculés en une requête
+        seriesRepository.recomputeRatingTotals();
+        episodeRepository.recomputeRatingTotals();
 
-        System.out.println("🎉 Ratings ajoutés : " + inserted);
+        System.out.println("🎉 Ratings ajoutés : " + inserted + " en " + (System.currentTimeMillis() - start) + " ms");
     }
+
+    /**
+     * Insère un lot de notes puis vide la liste.
+     */
+    private int flush(List<RatingRow> rows) {
+        if (rows.isEmpty()) return 0;
+        jdbcTemplate.batchUpdate(INSERT, rows, rows.size(), (ps, row) -> {
+            ps.setInt(1, row.score());
+            ps.setInt(2, row.personId());
+            ps.setLong(3, row.seriesId());
+            ps.setLong(4, row.episodeId());
+        });
+        int count = rows.size();
+        rows.clear();
+        return count;
+    }
+
+    /** Épisode noté : identifiant et série. */
+    private record EpisodeRef(long id, long seriesId) {}
+
+    /** Note générée, avant insertion. */
+    private record RatingRow(int score, int personId, long seriesId, long episodeId) {}
 }
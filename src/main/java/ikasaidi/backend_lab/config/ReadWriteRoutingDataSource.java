@@ -0,0 +1,38 @@
+package ikasaidi.backend_lab.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Source de données qui aiguille chaque connexion vers le pool d’écriture ou le pool de lecture.
+ *
+ * Seule une transaction en lecture-écriture obtient une connexion du pool d’écriture ;
+ * les transactions <code>readOnly</code> et les lectures hors transaction (chargements paresseux,
+ * requêtes des repositories) passent par le pool de lecture.
+ *
+ * La décision doit être prise au premier ordre SQL, une fois la transaction démarrée :
+ * cette source est donc toujours enveloppée dans un
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}
+ * (voir {@link SqliteDataSourceConfig}).
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    /** Clé du pool d’écriture. */
+    public static final String WRITER = "writer";
+
+    /** Clé du pool de lecture. */
+    public static final String READER = "reader";
+
+    /**
+     * @return {@link #WRITER} dans une transaction en lecture-écriture, sinon {@link #READER}
+     */
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean writing = TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        return writing ? WRITER : READER;
+    }
+}
@@ -0,0 +1,143 @@
+package ikasaidi.backend_lab.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.sqlite.SQLiteConfig;
+import org.sqlite.SQLiteOpenMode;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Configuration de la base SQLite pour le profil <code>prod</code>.
+ *
+ * Avec le journal par défaut (rollback journal), un lecteur bloque l’écrivain et inversement,
+ * ce qui produit des <code>SQLITE_BUSY</code> dès que notes et visionnages arrivent en parallèle.
+ * Ce profil :
+ * <ul>
+ *     <li>passe la base en mode <strong>WAL</strong> : les lectures ne bloquent plus l’écriture ;</li>
+ *     <li>applique à chaque connexion <code>synchronous=NORMAL</code>, <code>busy_timeout</code>,
+ *     <code>cache_size</code> et <code>mmap_size</code> ;</li>
+ *     <li>sépare un pool d’<strong>écriture</strong> d’une seule connexion (SQLite n’accepte qu’un
+ *     écrivain à la fois : les écritures attendent dans le pool plutôt que dans la base)
+ *     et un pool de <strong>lecture</strong> de N connexions.</li>
+ * </ul>
+ *
+ * L’aiguillage est fait par {@link ReadWriteRoutingDataSource}. Les connexions de lecture sont ouvertes
+ * en lecture seule (<code>SQLITE_OPEN_READONLY</code>) : une écriture aiguillée par erreur vers le pool
+ * de lecture échoue au lieu d’attendre le verrou d’écriture. Le profil désactive aussi open-in-view
+ * (<code>application-prod.properties</code>) : chaque écriture a sa propre transaction, donc sa connexion d’écriture.
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+@Configuration
+@Profile("prod")
+public class SqliteDataSourceConfig {
+
+    private final String url;
+    private final int busyTimeoutMs;
+    private final int cacheSizeKb;
+    private final long mmapSize;
+
+    /**
+     * Constructeur injectant les réglages SQLite.
+     *
+     * @param url adresse JDBC de la base
+     * @param busyTimeoutMs attente maximale d’un verrou avant <code>SQLITE_BUSY</code> (ms)
+     * @param cacheSizeKb taille du cache de pages par connexion (Kio)
+     * @param mmapSize taille maximale de la projection mémoire du fichier (octets)
+     */
+    public SqliteDataSourceConfig(@Value("${spring.datasource.url}") String url,
+                                  @Value("${sqlite.busy-timeout-ms:5000}") int busyTimeoutMs,
+                                  @Value("${sqlite.cache-size-kb:16384}") int cacheSizeKb,
+                                  @Value("${sqlite.mmap-size:268435456}") long mmapSize) {
+        this.url = url;
+        this.busyTimeoutMs = busyTimeoutMs;
+        this.cacheSizeKb = cacheSizeKb;
+        this.mmapSize = mmapSize;
+    }
+
+    /**
+     * Pool d’écriture : une seule connexion (utilisée aussi par les migrations Flyway).
+     *
+     * @return le pool d’écriture
+     */
+    @Bean
+    @FlywayDataSource
+    public HikariDataSource writerDataSource() {
+        HikariConfig config = config("sqlite-writer", 1);
+        config.addDataSourceProperty("journal_mode", "WAL");
+        return new HikariDataSource(config);
+    }
+
+    /**
+     * Pool de lecture, en lecture seule.
+     *
+     * Il est créé après le pool d’écriture : la base est alors déjà en WAL (réglage conservé
+     * dans le fichier), ce qu’une connexion en lecture seule ne pourrait pas faire elle-même.
+     *
+     * @param readers nombre de connexions de lecture
+     * @return le pool de lecture
+     */
+    @Bean
+    @DependsOn("writerDataSource")
+    public HikariDataSource readerDataSource(@Value("${sqlite.pool.readers:4}") int readers) {
+        HikariConfig config = config("sqlite-reader", readers);
+        // Le mode d’ouverture remplace les drapeaux par défaut (lecture-écriture, création)
+        config.addDataSourceProperty(SQLiteConfig.Pragma.OPEN_MODE.pragmaName,
+                String.valueOf(SQLiteOpenMode.READONLY.flag));
+        config.setReadOnly(true);
+        return new HikariDataSource(config);
+    }
+
+    /**
+     * Source de données utilisée par JPA et JdbcTemplate.
+     *
+     * La connexion physique n’est obtenue qu’au premier ordre SQL, quand l’état de la
+     * transaction (lecture seule ou non) est connu.
+     *
+     * @param writer pool d’écriture
+     * @param reader pool de lecture
+     * @return la source aiguillée
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("writerDataSource") DataSource writer,
+                                 @Qualifier("readerDataSource") DataSource reader) {
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource();
+        routing.setTargetDataSources(Map.of(
+                ReadWriteRoutingDataSource.WRITER, writer,
+                ReadWriteRoutingDataSource.READER, reader));
+        routing.setDefaultTargetDataSource(writer);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    /**
+     * Prépare un pool Hikari dont chaque connexion reçoit les pragmas SQLite
+     * (lus par le pilote dans les propriétés de connexion).
+     */
+    private HikariConfig config(String name, int size) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(name);
+        config.setJdbcUrl(url);
+        config.setDriverClassName("org.sqlite.JDBC");
+        config.setMaximumPoolSize(size);
+        config.setMinimumIdle(size);
+        config.addDataSourceProperty("synchronous", "NORMAL");
+        config.addDataSourceProperty("busy_timeout", String.valueOf(busyTimeoutMs));
+        config.addDataSourceProperty("cache_size", String.valueOf(-cacheSizeKb)); // négatif : en Kio
+        config.addDataSourceProperty("mmap_size", String.valueOf(mmapSize));
+        return config;
+    }
+}
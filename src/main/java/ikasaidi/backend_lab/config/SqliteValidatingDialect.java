@@ -0,0 +1,35 @@
+package ikasaidi.backend_lab.config;
+
+import org.hibernate.community.dialect.SQLiteDialect;
+
+import java.sql.Types;
+
+/**
+ * Dialecte SQLite utilisé avec la validation du schéma (<code>ddl-auto=validate</code>).
+ *
+ * SQLite ne distingue pas les tailles d’entiers (affinité INTEGER) et une clé primaire
+ * auto-incrémentée doit être déclarée <code>integer</code> : les identifiants <code>Long</code>
+ * des entités sont donc stockés dans des colonnes <code>integer</code>.
+ * Ce dialecte considère les types entiers comme équivalents lors de la validation.
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+public class SqliteValidatingDialect extends SQLiteDialect {
+
+    /**
+     * @param typeCode1 type JDBC trouvé ou attendu
+     * @param typeCode2 type JDBC trouvé ou attendu
+     * @return vrai si les deux types sont stockés de la même façon par SQLite
+     */
+    @Override
+    public boolean equivalentTypes(int typeCode1, int typeCode2) {
+        return super.equivalentTypes(typeCode1, typeCode2)
+                || isInteger(typeCode1) && isInteger(typeCode2);
+    }
+
+    private static boolean isInteger(int typeCode) {
+        return typeCode == Types.TINYINT || typeCode == Types.SMALLINT
+                || typeCode == Types.INTEGER || typeCode == Types.BIGINT;
+    }
+}
@@ -0,0 +1,77 @@
+package ikasaidi.backend_lab.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+
+import java.util.logging.Logger;
+
+/**
+ * Exécution des requêtes sur des fils virtuels, activée par le profil <code>virtual</code> (Java 21).
+ *
+ * Le profil active <code>spring.threads.virtual.enabled</code> : Tomcat traite chaque requête sur un
+ * fil virtuel (plus de limite de fils, seulement de connexions), de même que les traitements asynchrones
+ * de Spring MVC (réponses en flux, {@link java.util.concurrent.CompletableFuture}) et les tâches planifiées.
+ * Sous Java 17, la propriété est ignorée et un avertissement est journalisé.
+ *
+ * Les calculs restent sur leurs pools bornés de fils de plateforme (BCrypt, recommandations par lot,
+ * modèle collaboratif) : ils occupent le processeur, des fils virtuels n’y gagneraient rien.
+ *
+ * Chaque pool Hikari est enveloppé dans une {@link BoundedConnectionDataSource} d’autant d’autorisations
+ * que de connexions : sous le profil <code>prod</code>, une pour le pool d’écriture et
+ * <code>sqlite.pool.readers</code> pour le pool de lecture, la source aiguillée restant au-dessus.
+ * Les lectures n’attendent donc jamais derrière les écritures ; les requêtes en trop attendent dans
+ * une file équitable, avec un délai maximal, plutôt que de se disputer les connexions Hikari.
+ * Les attentes sont exposées par <code>GET /jdbc/stats</code>.
+ * <pre>
+ * mvn -Pjava21 spring-boot:run -Dspring-boot.run.profiles=prod,virtual
+ * </pre>
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+@Configuration
+@Profile("virtual")
+public class VirtualThreadsConfig {
+
+    /** Logger pour signaler un profil sans effet. */
+    private static final Logger logger = Logger.getLogger(VirtualThreadsConfig.class.getName());
+
+    /**
+     * Constructeur : vérifie que les fils virtuels sont réellement utilisés.
+     *
+     * @param environment configuration de l’application
+     */
+    public VirtualThreadsConfig(Environment environment) {
+        if (!Threading.VIRTUAL.isActive(environment)) {
+            logger.warning("Profil virtual sans effet : Java " + Runtime.version().feature()
+                    + " (21 requis), les requêtes restent sur des fils de plateforme");
+        }
+    }
+
+    /**
+     * Enveloppe chaque pool Hikari dans une {@link BoundedConnectionDataSource} de la taille du pool.
+     *
+     * @param environment configuration (<code>jdbc.concurrency.acquire-timeout-ms</code>)
+     * @return le post-processeur des beans
+     */
+    @Bean
+    static BeanPostProcessor boundedDataSourcePostProcessor(Environment environment) {
+        long timeoutMs = environment.getProperty("jdbc.concurrency.acquire-timeout-ms", Long.class, 5000L);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource pool) {
+                    int permits = pool.getMaximumPoolSize();
+                    logger.info("Accès JDBC de " + beanName + " bornés à " + permits + " connexions simultanées");
+                    return new BoundedConnectionDataSource(pool, permits, timeoutMs);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -1,15 +1,19 @@
 package ikasaidi.backend_lab.config;
 
-import ikasaidi.backend_lab.models.Person;
 import ikasaidi.backend_lab.models.Series;
-import ikasaidi.backend_lab.models.VuesHistory;
 import ikasaidi.backend_lab.repositories.PersonRepository;
 import ikasaidi.backend_lab.repositories.SeriesRepository;
-import ikasaidi.backend_lab.repositories.VuesHistoryRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Date;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 
@@ -20,18 +24,30 @@ import java.util.Random;
  * Cette classe simule le comportement des utilisateurs qui ont visionné
  * certains séries, afin de fournir des données de démonstration.
  *
+ * Le volume est configurable (<code>seed.views.*</code>) ; les lignes sont générées en mémoire
+ * par lots de <code>seed.batch-size</code> et insérées par lots JDBC, dans une seule transaction.
  *
  *Localisation des données générées : table <strong>vues_history</strong>
  *
  * @author Rachel
  * @version 1.0
  */
+@Order(3)
+@Transactional
 @Component
+@ConditionalOnProperty(name = "seed.enabled", havingValue = "true", matchIfMissing = true)
 public class VuesHistorySeeder implements CommandLineRunner {
 
+    private static final String INSERT =
+            "INSERT INTO vues_history (date_watched, progress, person_id, series_id) VALUES (?, ?, ?, ?)";
+
     private final PersonRepository personRepository;
     private final SeriesRepository seriesRepository;
-    private final VuesHistoryRepository vuesHistoryRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final int minPerPerson;
+    private final int maxPerPerson;
+    private final int days;
 
 
     /**
@@ -39,12 +55,25 @@ public class VuesHistorySeeder implements CommandLineRunner {
      *
      * @param personRepository repository des utilisateurs
      * @param seriesRepository repository des épisodes
-     * @param vuesHistoryRepository repository des historiques de vues
+     * @param jdbcTemplate accès JDBC pour les insertions par lots
+     * @param batchSize nombre de lignes par lot JDBC
+     * @param minPerPerson nombre minimal de séries vues par personne
+     * @param maxPerPerson nombre maximal de séries vues par personne
+     * @param days ancienneté maximale des visionnages (jours)
      */
-    public VuesHistorySeeder(PersonRepository personRepository, SeriesRepository seriesRepository, VuesHistoryRepository vuesHistoryRepository) {
+    public VuesHistorySeeder(PersonRepository personRepository, SeriesRepository seriesRepository,
+                             JdbcTemplate jdbcTemplate,
+                             @Value("${seed.batch-size:1000}") int batchSize,
+                             @Value("${seed.views.min-per-person:1}") int minPerPerson,
+                             @Value("${seed.views.max-per-person:3}") int maxPerPerson,
+                             @Value("${seed.views.days:30}") int days) {
         this.personRepository = personRepository;
         this.seriesRepository = seriesRepository;
-        this.vuesHistoryRepository = vuesHistoryRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.minPerPerson = minPerPerson;
+        this.maxPerPerson = Math.max(minPerPerson, maxPerPerson);
+        this.days = Math.max(1, days);
     }
 
     /**
@@ -54,35 +83,61 @@ public class VuesHistorySeeder implements CommandLineRunner {
      */
     @Override
     public void run(String... args) {
-        List<Person> persons = personRepository.findAll();
+        List<Integer> personIds = personRepository.findAllIds();
         List<Series> seriesList = seriesRepository.findAll();
 
-        if (persons.isEmpty() || seriesList.isEmpty()) {
+        if (personIds.isEmpty() || seriesList.isEmpty()) {
             System.out.println("Pas de personnes ou de séries → aucun historique généré.");
             return;
         }
 
+        long start = System.currentTimeMillis();
         Random random = new Random();
+        LocalDate today = LocalDate.now();
+        List<ViewRow> rows = new ArrayList<>(batchSize);
+        long inserted = 0;
 
-        for (Person person : persons) {
-            // Chaque personne regarde entre 1 et 3 séries
-            int nbSeries = 1 + random.nextInt(3);
+        for (Integer personId : personIds) {
+            // Chaque personne regarde entre min et max séries
+            int nbSeries = minPerPerson + random.nextInt(maxPerPerson - minPerPerson + 1);
 
             for (int i = 0; i < nbSeries; i++) {
                 Series series = seriesList.get(random.nextInt(seriesList.size()));
 
-                // Date dans les 30 derniers jours
-                LocalDate randomDate = LocalDate.now().minusDays(random.nextInt(30));
+                // Date dans les derniers jours
+                LocalDate randomDate = today.minusDays(random.nextInt(days));
 
                 // Progression (épisodes vus)
                 int progress = 1 + random.nextInt(Math.max(series.getNbEpisodes(), 1));
 
-                // Création et sauvegarde
-                VuesHistory vh = new VuesHistory(randomDate, progress, person, series);
-                vuesHistoryRepository.save(vh);
+                rows.add(new ViewRow(randomDate, progress, personId, series.getId()));
+                if (rows.size() == batchSize) {
+                    inserted += flush(rows);
+                }
             }
         }
+        inserted += flush(rows);
+
+        System.out.println(" VuesHistory simulées insérées : " + inserted
+                + " en " + (System.currentTimeMillis() - start) + " ms");
+    }
 
-        System.out.println(" VuesHistory simulées insérées !");
+    /**
+     * Insère un lot de visionnages puis vide la liste.
+     */
+    private int flush(List<ViewRow> rows) {
+        if (rows.isEmpty()) return 0;
+        jdbcTemplate.batchUpdate(INSERT, rows, rows.size(), (ps, row) -> {
+            ps.setDate(1, Date.valueOf(row.dateWatched()));
+            ps.setInt(2, row.progress());
+            ps.setInt(3, row.personId());
+            ps.setLong(4, row.seriesId());
+        });
+        int count = rows.size();
+        rows.clear();
+        return count;
     }
+
+    /** Visionnage généré, avant insertion. */
+    private record ViewRow(LocalDate dateWatched, int progress, int personId, long seriesId) {}
 }
@@ -1,18 +1,26 @@
 package ikasaidi.backend_lab.controllers;
 
 import ikasaidi.backend_lab.DTO.Connexion;
+import ikasaidi.backend_lab.DTO.RefreshRequest;
 import ikasaidi.backend_lab.DTO.ReponseAuthentification;
 import ikasaidi.backend_lab.services.AuthentificationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
 /**
  * Contrôleur responsable de la gestion de l'authentification des utilisateurs.
  * Cette classe gère les endpoints permettant aux utilisateurs de :
  * <ul>
  *     <li>Se connecter à l'application.</li>
  *     <li>Créer un nouveau compte (inscription).</li>
+ *     <li>Obtenir un nouveau token avec le jeton de rafraîchissement, sans renvoyer le mot de passe.</li>
+ *     <li>Se déconnecter (révocation de la session ou de toutes les sessions).</li>
  * </ul>
  *
  *
@@ -20,6 +28,10 @@ import org.springframework.web.bind.annotation.*;
  * est renvoyée sous forme de {@link ReponseAuthentification} contenant les informations
  * sur la réussite ou l'échec de l'opération.
  *
+ * Le calcul BCrypt est fait sur un pool dédié : la réponse est rendue de façon asynchrone,
+ * sans occuper un fil de Tomcat pendant le hachage. Si la file de ce pool est pleine,
+ * la requête est refusée immédiatement (429).
+ *
  * @author Aya
  * @version 1.0
  */
@@ -41,16 +53,21 @@ public class AuthentificationController {
      * <ul>
      *     <li><b>200: </b> L'authentification est réussie</li>
      *     <li><b>401: </b> Les identifiants sont invalides</li>
+     *     <li><b>429: </b> Trop de hachages en attente, réessayer plus tard</li>
      * </ul>
      */
     @PostMapping("/login")
-    public ResponseEntity<ReponseAuthentification> login(@RequestBody Connexion request) {
-        ReponseAuthentification auth = authentificationService.connexion(request);
-
-        if (!auth.isSuccess()) {
-            return ResponseEntity.status(401).body(auth);
+    public CompletableFuture<ResponseEntity<ReponseAuthentification>> login(@RequestBody Connexion request) {
+        try {
+            return authentificationService.connexion(request).thenApply(auth -> {
+                if (!auth.isSuccess()) {
+                    return ResponseEntity.status(401).body(auth);
+                }
+                return ResponseEntity.ok(auth);
+            });
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(tooManyRequests());
         }
-        return ResponseEntity.ok(auth);
     }
 
     /**
@@ -63,16 +80,71 @@ public class AuthentificationController {
      * <ul>
      *      <li><b>200: </b> L'inscription est réussie</li>
      *      <li><b>400: </b> Une erreur de validation survient (ex. utilisateur déjà existant)</li>
+     *      <li><b>429: </b> Trop de hachages en attente, réessayer plus tard</li>
      * </ul>
      *
      */
     @PostMapping("/register")
-    public ResponseEntity<ReponseAuthentification> register(@RequestBody Connexion request) {
-        ReponseAuthentification resp = authentificationService.register(request);
+    public CompletableFuture<ResponseEntity<ReponseAuthentification>> register(@RequestBody Connexion request) {
+        try {
+            return authentificationService.register(request).thenApply(resp -> {
+                if (!resp.isSuccess()) {
+                    return ResponseEntity.status(400).body(resp);
+                }
+                return ResponseEntity.ok(resp);
+            });
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(tooManyRequests());
+        }
+    }
+
+    /**
+     * Endpoint permettant d’obtenir un nouveau token d’accès avec le jeton de rafraîchissement,
+     * sans vérification de mot de passe. Le jeton présenté est remplacé par celui de la réponse.
+     *
+     * @param request le jeton de rafraîchissement
+     * @return un objet {@link ReponseAuthentification} contenant le nouveau token et le nouveau jeton
+     *
+     * <ul>
+     *     <li><b>200: </b> La session est prolongée</li>
+     *     <li><b>401: </b> Le jeton est invalide, déjà utilisé, révoqué ou expiré</li>
+     * </ul>
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<ReponseAuthentification> refresh(@RequestBody RefreshRequest request) {
+        ReponseAuthentification resp = authentificationService.refresh(request.getRefreshToken());
 
         if (!resp.isSuccess()) {
-            return ResponseEntity.status(400).body(resp);
+            return ResponseEntity.status(401).body(resp);
         }
         return ResponseEntity.ok(resp);
     }
+
+    /**
+     * Endpoint de déconnexion : ferme la session du jeton de rafraîchissement
+     * (ou toutes les sessions de l’utilisateur si <code>allSessions</code> est vrai).
+     * Les tokens d’accès de ces sessions sont refusés immédiatement.
+     *
+     * @param request le jeton de rafraîchissement et la portée de la déconnexion
+     * @return réponse vide
+     *
+     * <ul>
+     *     <li><b>204: </b> La session est fermée</li>
+     *     <li><b>401: </b> Le jeton ne correspond à aucune session ouverte</li>
+     * </ul>
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestBody RefreshRequest request) {
+        boolean revoked = authentificationService.logout(request.getRefreshToken(), request.isAllSessions());
+        return ResponseEntity.status(revoked ? 204 : 401).build();
+    }
+
+    /**
+     * Réponse 429 lorsque la file du pool de hachage est pleine.
+     */
+    private static ResponseEntity<ReponseAuthentification> tooManyRequests() {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ReponseAuthentification(false, "Trop de demandes, réessayez plus tard", null, null, null));
+    }
 }
@@ -0,0 +1,48 @@
+package ikasaidi.backend_lab.controllers;
+
+import ikasaidi.backend_lab.services.EntityCacheService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Contrôleur REST exposant l’état du cache de second niveau.
+ *
+ * Il permet de vérifier que les lectures de séries, d’épisodes et de personnes
+ * sont bien servies depuis la mémoire plutôt que depuis la base de données.
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+@RestController
+@RequestMapping("/cache")
+public class CacheController {
+
+    private final EntityCacheService entityCacheService;
+
+    /**
+     * Constructeur du contrôleur.
+     *
+     * @param entityCacheService service d’accès au cache des entités
+     */
+    public CacheController(EntityCacheService entityCacheService) {
+        this.entityCacheService = entityCacheService;
+    }
+
+    /**
+     * Retourne les compteurs du cache (succès, échecs, insertions) par région.
+     *
+     * @return statistiques par région et pour le cache de requêtes
+     *
+     * <ul>
+     *     <li><b>200: </b>Si les statistiques sont retournées</li>
+     *     <li><b>401: </b>Si l'utilisateur n'est pas authentifié</li>
+     * </ul>
+     */
+    @GetMapping("/stats")
+    public Map<String, Map<String, Long>> getStatistics() {
+        return entityCacheService.getStatistics();
+    }
+}
@@ -0,0 +1,56 @@
+package ikasaidi.backend_lab.controllers;
+
+import ikasaidi.backend_lab.config.BoundedConnectionDataSource;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Contrôleur REST exposant les attentes de connexions JDBC des pools bornés (profil <code>virtual</code>).
+ *
+ * Il permet de vérifier, pendant un test de charge, si les requêtes attendent leur connexion
+ * et devant quel pool (écriture ou lecture).
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+@RestController
+@RequestMapping("/jdbc")
+public class JdbcController {
+
+    private final Map<String, DataSource> dataSources;
+
+    /**
+     * Constructeur du contrôleur.
+     *
+     * @param dataSources sources de données de l’application, par nom de bean
+     */
+    public JdbcController(Map<String, DataSource> dataSources) {
+        this.dataSources = dataSources;
+    }
+
+    /**
+     * Retourne l’état de chaque pool borné par {@link BoundedConnectionDataSource}.
+     *
+     * @return par pool : autorisations, attentes, refus et durées d’attente (vide sans le profil <code>virtual</code>)
+     *
+     * <ul>
+     *     <li><b>200: </b>Si les statistiques sont retournées</li>
+     *     <li><b>401: </b>Si l'utilisateur n'est pas authentifié</li>
+     * </ul>
+     */
+    @GetMapping("/stats")
+    public Map<String, Map<String, Long>> getStatistics() {
+        Map<String, Map<String, Long>> result = new LinkedHashMap<>();
+        dataSources.forEach((name, dataSource) -> {
+            if (dataSource instanceof BoundedConnectionDataSource bounded) {
+                result.put(name, bounded.getStatistics().get("jdbc"));
+            }
+        });
+        return result;
+    }
+}
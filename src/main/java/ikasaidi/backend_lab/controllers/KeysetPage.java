@@ -0,0 +1,93 @@
+package ikasaidi.backend_lab.controllers;
+
+import ikasaidi.backend_lab.DTO.FieldProjection;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Outils communs aux endpoints de liste paginés par clé (<code>after</code>, <code>limit</code>).
+ *
+ * Une page contient au plus <code>limit</code> éléments dont l’identifiant est strictement
+ * supérieur à <code>after</code>, triés par identifiant : la requête s’appuie sur la clé primaire,
+ * son coût ne dépend donc pas de la position dans la table (contrairement à un <code>OFFSET</code>).
+ *
+ * Le corps reste un tableau JSON ; l’adresse de la page suivante est donnée dans l’en-tête
+ * <code>Link</code> (<code>rel="next"</code>), absent sur la dernière page.
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+public final class KeysetPage {
+
+    /** Taille de page utilisée si le client n’en précise pas. */
+    public static final int DEFAULT_LIMIT = 100;
+
+    /** Taille de page maximale : borne la mémoire utilisée par requête. */
+    public static final int MAX_LIMIT = 1000;
+
+    private KeysetPage() {}
+
+    /**
+     * Ramène la taille demandée entre 1 et {@link #MAX_LIMIT}.
+     *
+     * @param limit taille demandée
+     * @return taille effective
+     */
+    public static int clamp(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    /**
+     * Nombre de lignes à lire : une de plus que la page, pour savoir s’il existe une page suivante.
+     *
+     * @param limit taille effective de la page
+     * @return limite à passer au repository
+     */
+    public static Limit fetchLimit(int limit) {
+        return Limit.of(limit + 1);
+    }
+
+    /**
+     * Construit la réponse d’une page : lignes complètes ou projection sur les champs demandés,
+     * et lien vers la page suivante.
+     *
+     * @param rows lignes lues (au plus <code>limit + 1</code>)
+     * @param limit taille effective de la page
+     * @param idOf identifiant utilisé comme curseur
+     * @param projection champs projetables d’une ligne
+     * @param fields champs demandés, ou {@code null} pour les lignes complètes
+     * @param <T> type d’une ligne (DTO)
+     * @return la page, ou 400 si un champ demandé n’existe pas
+     */
+    public static <T> ResponseEntity<List<?>> of(List<T> rows, int limit, Function<T, ?> idOf,
+                                                 FieldProjection<T> projection, String fields) {
+        boolean hasNext = rows.size() > limit;
+        List<T> page = hasNext ? rows.subList(0, limit) : rows;
+
+        List<?> body;
+        if (fields == null || fields.isBlank()) {
+            body = page;
+        } else {
+            try {
+                body = projection.apply(page, fields);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (hasNext) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after", idOf.apply(page.get(page.size() - 1)))
+                    .replaceQueryParam("limit", limit)
+                    .build().toUriString();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(body);
+    }
+}
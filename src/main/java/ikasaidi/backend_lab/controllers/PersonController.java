@@ -1,14 +1,30 @@
 package ikasaidi.backend_lab.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ikasaidi.backend_lab.DTO.FieldProjection;
+import ikasaidi.backend_lab.DTO.PersonDto;
+import ikasaidi.backend_lab.DTO.SeriesDto;
 import ikasaidi.backend_lab.models.Person;
 import ikasaidi.backend_lab.models.Series;
 import ikasaidi.backend_lab.repositories.PersonRepository;
 import ikasaidi.backend_lab.repositories.SeriesRepository;
+import ikasaidi.backend_lab.services.CollaborativeRecommendationService;
 import ikasaidi.backend_lab.services.PersonService;
 import ikasaidi.backend_lab.services.RecommendationService;
+import ikasaidi.backend_lab.utils.AuthenticatedPerson;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -34,6 +50,14 @@ import java.util.List;
 @CrossOrigin
 public class PersonController {
 
+    /** Champs disponibles pour le paramètre <code>fields</code> (le mot de passe n’en fait pas partie). */
+    private static final FieldProjection<PersonDto> FIELDS = new FieldProjection<PersonDto>()
+            .field("id", PersonDto::getId)
+            .field("name", PersonDto::getName)
+            .field("age", PersonDto::getAge)
+            .field("email", PersonDto::getEmail)
+            .field("gender", PersonDto::getGender);
+
     private final PersonService personService;
     private final RecommendationService recommendationService;
 
@@ -43,6 +67,12 @@ public class PersonController {
     @Autowired
     private PersonRepository personRepository;
 
+    @Autowired
+    private CollaborativeRecommendationService collaborativeRecommendationService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * Constructeur du contrôleur.
      *
@@ -55,17 +85,30 @@ public class PersonController {
     }
 
     /**
-     * Récupère la liste complète des utilisateurs.
+     * Récupère la liste des utilisateurs.
+     *
+     * La liste est paginée par identifiant : au plus <code>limit</code> éléments (100 par défaut, 1000 au maximum)
+     * après <code>after</code> ; la page suivante est indiquée dans l’en-tête <code>Link</code>.
+     * Chaque personne est retournée sans mot de passe ni collections ({@link PersonDto}) ; le paramètre
+     * <code>fields</code> (ex. <code>id,name,email</code>) restreint encore les champs retournés.
      *
-     * @return une liste de toutes les personnes enregistrées dans la base de données
+     * @param after identifiant du dernier élément de la page précédente (0 pour la première page)
+     * @param limit taille de la page
+     * @param fields champs à retourner, séparés par des virgules (facultatif)
+     * @return une page de personnes (complètes ou restreintes aux champs demandés)
      *
      * <ul>
      *     <li><b>200: </b>La liste est retournée avec succès</li>
+     *     <li><b>400: </b>Si un champ demandé n’existe pas</li>
      * </ul>
      */
     @GetMapping()
-    public List<Person> getAllPersonsFromDB() {
-        return personService.getAllPersons();
+    public ResponseEntity<List<?>> getAllPersonsFromDB(@RequestParam(defaultValue = "0") int after,
+                                                       @RequestParam(defaultValue = "" + KeysetPage.DEFAULT_LIMIT) int limit,
+                                                       @RequestParam(required = false) String fields) {
+        int size = KeysetPage.clamp(limit);
+        List<PersonDto> rows = personService.getPersonsPage(after, KeysetPage.fetchLimit(size));
+        return KeysetPage.of(rows, size, PersonDto::getId, FIELDS, fields);
     }
 
     /**
@@ -114,7 +157,7 @@ public class PersonController {
      */
     @GetMapping("/{id}")
     public Person getPerson(@PathVariable int id) {
-        return personService.findPersonById(id);
+        return personService.getPersonDetails(id);
     }
 
     /**
@@ -148,6 +191,9 @@ public class PersonController {
     @DeleteMapping("/{id}")
     public String deletePerson(@PathVariable int id) {
         boolean removed = personService.deletePerson(id);
+        if (removed) {
+            recommendationService.onPersonRemoved(id);
+        }
         return removed ? "Personne supprimée avec succès" : "Personne non trouvée";
     }
 
@@ -155,7 +201,7 @@ public class PersonController {
      * Récupère l’historique de visionnement d’un utilisateur.
      *
      * @param id identifiant de la personne
-     * @return la liste des séries visionnées par cette personne
+     * @return la liste des séries visionnées par cette personne (sans leurs relations)
      *
      * @throws RuntimeException si la personne n’existe pas
      *
@@ -165,50 +211,139 @@ public class PersonController {
      * </ul>
      */
     @GetMapping("/{id}/history")
-    public List<Series> getUserHistory(@PathVariable int id) {
-        Person person = personRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Personne non trouvée"));
-
-        return person.getHistory();
+    public List<SeriesDto> getUserHistory(@PathVariable int id) {
+        List<SeriesDto> history = personRepository.findHistory(id);
+        // Une liste vide peut venir d’une personne inexistante : vérification seulement dans ce cas
+        if (history.isEmpty() && !personRepository.existsById(id)) {
+            throw new RuntimeException("Personne non trouvée");
+        }
+        return history;
     }
 
     /**
      * Ajoute une série à l’historique de visionnement d’un utilisateur.
      *
+     * Seul l’utilisateur connecté peut modifier son propre historique : son identifiant
+     * vient du token JWT et doit correspondre à celui du chemin.
+     *
      * @param id identifiant de la personne
      * @param seriesId identifiant de la série à ajouter à l’historique
+     * @param caller personne authentifiée (token JWT)
      * @return la personne mise à jour avec la nouvelle série ajoutée
      *
      * @throws RuntimeException si la personne ou la série n’existe pas
      *
      * <ul>
      *     <li><b>200: </b>Si l'ajout est réussi</li>
+     *     <li><b>401: </b>Si aucun utilisateur n'est connecté</li>
+     *     <li><b>403: </b>Si l'historique appartient à une autre personne</li>
      *     <li><b>404: </b>Si la personne ou la série n'est pas trouvée</li>
      * </ul>
      */
     @PostMapping("/{id}/history/{seriesId}")
-    public Person addSerieToHistory(@PathVariable int id, @PathVariable Long seriesId) {
-        Person person = personRepository.findById(id)
+    public Person addSerieToHistory(@PathVariable int id, @PathVariable Long seriesId,
+                                    @AuthenticationPrincipal AuthenticatedPerson caller) {
+        if (AuthenticatedPerson.idOf(caller) != id) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Historique d’une autre personne");
+        }
+        Person person = personRepository.findWithHistoryById(id)
                 .orElseThrow(() -> new RuntimeException("Personne non trouvée"));
         Series series = seriesRepository.findById(seriesId)
                 .orElseThrow(() -> new RuntimeException("Série non trouvée"));
 
         person.getHistory().add(series);
-        return personRepository.save(person);
+        Person saved = personRepository.save(person);
+        recommendationService.onHistoryAdded(id, series);
+        return saved;
     }
 
     /**
      * Retourne une liste de recommandations de séries pour un utilisateur donné.
      *
      * @param id identifiant de la personne
+     * @param engine (optionnel) moteur utilisé : <code>genre</code> (par défaut, genres favoris)
+     *               ou <code>collaborative</code> (séries regardées ou notées par les mêmes personnes)
      * @return liste des séries recommandées
      *
+     * @throws IllegalArgumentException si le moteur demandé n’existe pas
+     *
      * <ul>
      *     <li><b>200: </b>Si la liste est générée avec succès</li>
      * </ul>
      */
     @GetMapping("/{id}/recommendation")
-    public List<Series> getRecommendation(@PathVariable int id) {
-        return recommendationService.getPersonsRecommendation(id);
+    public List<Series> getRecommendation(@PathVariable int id,
+                                          @RequestParam(defaultValue = "genre") String engine) {
+        return switch (engine) {
+            case "genre" -> recommendationService.getPersonsRecommendation(id);
+            case "collaborative" -> collaborativeRecommendationService.getPersonsRecommendation(id);
+            default -> throw new IllegalArgumentException("Moteur de recommandation inconnu : " + engine);
+        };
+    }
+
+    /**
+     * Calcule les recommandations de plusieurs personnes en un seul passage.
+     *
+     * La réponse est un flux NDJSON : une ligne JSON par personne, envoyée dès que son paquet est calculé.
+     * Une personne inexistante produit une ligne contenant un champ <code>error</code>.
+     *
+     * @param ids (optionnel) identifiants séparés par des virgules, ou <code>all</code> (par défaut) pour toutes les personnes
+     * @return le flux des recommandations
+     *
+     * @throws IllegalArgumentException si un identifiant n’est pas un entier
+     *
+     * <ul>
+     *     <li><b>200: </b>Si le flux est généré avec succès</li>
+     * </ul>
+     */
+    @GetMapping(value = "/recommendations", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getRecommendations(@RequestParam(defaultValue = "all") String ids) {
+        if (ids.equals("all")) {
+            return streamRecommendations(null);
+        }
+        List<Integer> personIds = new ArrayList<>();
+        for (String part : ids.split(",")) {
+            try {
+                personIds.add(Integer.parseInt(part.trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Identifiant invalide : " + part);
+            }
+        }
+        return streamRecommendations(personIds);
+    }
+
+    /**
+     * Variante de {@link #getRecommendations(String)} pour les longues listes d’identifiants,
+     * transmises dans le corps de la requête.
+     *
+     * @param ids liste des identifiants des personnes
+     * @return le flux des recommandations
+     *
+     * <ul>
+     *     <li><b>200: </b>Si le flux est généré avec succès</li>
+     * </ul>
+     */
+    @PostMapping(value = "/recommendations", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> postRecommendations(@RequestBody List<Integer> ids) {
+        return streamRecommendations(ids);
+    }
+
+    private ResponseEntity<StreamingResponseBody> streamRecommendations(List<Integer> personIds) {
+        StreamingResponseBody body = (OutputStream out) -> {
+            try {
+                recommendationService.streamRecommendations(personIds, dto -> {
+                    try {
+                        out.write(objectMapper.writeValueAsBytes(dto));
+                        out.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 }
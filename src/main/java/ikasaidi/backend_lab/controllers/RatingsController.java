@@ -1,15 +1,21 @@
 package ikasaidi.backend_lab.controllers;
 
-import ikasaidi.backend_lab.models.Person;
+import ikasaidi.backend_lab.DTO.FieldProjection;
+import ikasaidi.backend_lab.DTO.RatingDto;
 import ikasaidi.backend_lab.models.Ratings;
-import ikasaidi.backend_lab.repositories.PersonRepository;
 import ikasaidi.backend_lab.repositories.RatingsRepository;
-import ikasaidi.backend_lab.repositories.SeriesRepository;
+import ikasaidi.backend_lab.services.ExportService;
+import ikasaidi.backend_lab.services.RatingIngestionService;
 import ikasaidi.backend_lab.services.RatingsService;
+import ikasaidi.backend_lab.utils.AuthenticatedPerson;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
-import java.util.Optional;
 
 /**
  * Contrôleur REST responsable de la gestion des évaluations (ratings)
@@ -17,14 +23,19 @@ import java.util.Optional;
  *
  * Ce contrôleur fournit des endpoints pour :
  * <ul>
- *     <li>Consulter toutes les évaluations.</li>
+ *     <li>Consulter les évaluations (pagination par clé, projection sur quelques champs).</li>
+ *     <li>Exporter toutes les évaluations en flux NDJSON.</li>
  *     <li>Voir les évaluations d’un utilisateur donné.</li>
  *     <li>Ajouter ou mettre à jour une note pour une série ou un épisode.</li>
+ *     <li>Soumettre une note en écriture différée lors des pics d’activité.</li>
  *     <li>Calculer la moyenne des notes pour une série ou un épisode.</li>
  * </ul>
  *
  *
- * Les opérations de logique métier sont déléguées au {@link RatingsService}.
+ * Les opérations de logique métier sont déléguées au {@link RatingsService}
+ * et, pour l’écriture différée, au {@link RatingIngestionService}.
+ * Les notes sont écrites au nom de l’utilisateur authentifié ({@link AuthenticatedPerson}, lu dans le token),
+ * et non d’une personne passée en paramètre.
  *
  * @author Rachel
  * @author Aya
@@ -36,101 +47,187 @@ import java.util.Optional;
 @RequestMapping("/ratings")
 public class RatingsController {
 
+    /** Champs disponibles pour le paramètre <code>fields</code> (associations exposées par leur identifiant). */
+    private static final FieldProjection<RatingDto> FIELDS = new FieldProjection<RatingDto>()
+            .field("id", RatingDto::getId)
+            .field("score", RatingDto::getScore)
+            .field("personId", RatingDto::getPersonId)
+            .field("seriesId", RatingDto::getSeriesId)
+            .field("seriesTitle", RatingDto::getSeriesTitle)
+            .field("episodeId", RatingDto::getEpisodeId);
+
     private final RatingsRepository ratingsRepository;
-    private final PersonRepository personRepository;
-    private final SeriesRepository seriesRepository;
     private final RatingsService ratingsService;
+    private final RatingIngestionService ratingIngestionService;
+    private final ExportService exportService;
 
     /**
      * Constructeur du contrôleur des évaluations.
      *
      * @param ratingsRepository repository des évaluations
-     * @param personRepository repository des utilisateurs
-     * @param seriesRepository repository des séries
      * @param ratingsService service de gestion des évaluations
+     * @param ratingIngestionService service d’écriture différée des évaluations
+     * @param exportService service d’export en flux
      */
     public RatingsController(RatingsRepository ratingsRepository,
-                             PersonRepository personRepository,
-                             SeriesRepository seriesRepository,
-                             RatingsService ratingsService) {
+                             RatingsService ratingsService,
+                             RatingIngestionService ratingIngestionService,
+                             ExportService exportService) {
         this.ratingsRepository = ratingsRepository;
-        this.personRepository = personRepository;
-        this.seriesRepository = seriesRepository;
         this.ratingsService = ratingsService;
+        this.ratingIngestionService = ratingIngestionService;
+        this.exportService = exportService;
     }
 
     /**
-     * Récupère la liste complète de toutes les évaluations enregistrées.
+     * Récupère la liste des évaluations enregistrées.
+     *
+     * La liste est paginée par identifiant : au plus <code>limit</code> éléments (100 par défaut, 1000 au maximum)
+     * après <code>after</code> ; la page suivante est indiquée dans l’en-tête <code>Link</code>.
+     * Chaque évaluation est retournée en {@link RatingDto} (associations réduites à leur identifiant,
+     * plus le titre de la série) ; le paramètre <code>fields</code> (ex. <code>id,score,seriesId</code>)
+     * restreint encore les champs retournés.
      *
-     * @return une liste de toutes les évaluations présentes dans la base de données
+     * @param after identifiant du dernier élément de la page précédente (0 pour la première page)
+     * @param limit taille de la page
+     * @param fields champs à retourner, séparés par des virgules (facultatif)
+     * @return une page d’évaluations (complètes ou restreintes aux champs demandés)
      *
      * <ul>
      *     <li><b>200: </b>Si les évaluations sont retournées avec succès</li>
+     *     <li><b>400: </b>Si un champ demandé n’existe pas</li>
      * </ul>
      */
     @GetMapping
-    public List<Ratings> getAllRatings() {
-        return ratingsRepository.findAll();
+    public ResponseEntity<List<?>> getAllRatings(@RequestParam(defaultValue = "0") long after,
+                                                 @RequestParam(defaultValue = "" + KeysetPage.DEFAULT_LIMIT) int limit,
+                                                 @RequestParam(required = false) String fields) {
+        int size = KeysetPage.clamp(limit);
+        List<RatingDto> rows = ratingsRepository.findPage(after, KeysetPage.fetchLimit(size));
+        return KeysetPage.of(rows, size, RatingDto::getId, FIELDS, fields);
+    }
+
+    /**
+     * Exporte toutes les évaluations au format NDJSON (une ligne JSON par enregistrement, triées par identifiant).
+     *
+     * Les lignes sont lues en flux et écrites au fur et à mesure : la mémoire utilisée
+     * ne dépend pas de la taille de la table.
+     *
+     * @return le flux NDJSON
+     *
+     * <ul>
+     *     <li><b>200: </b>Si l’export est généré avec succès</li>
+     * </ul>
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportRatings() {
+        StreamingResponseBody body = exportService::exportRatings;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     /**
      * Récupère toutes les évaluations effectuées par un utilisateur spécifique.
      *
      * @param id identifiant unique de l’utilisateur
-     * @return une liste d’évaluations associées à cet utilisateur
+     * @return une liste d’évaluations associées à cet utilisateur (vide s’il n’existe pas)
      *
      * <ul>
      *     <li><b>200: </b>Si la liste est retournée</li>
-     *     <li><b>404: </b>Si l'utilisateur n'existe pas</li>
      * </ul>
      */
     @GetMapping("/user/{id}")
-    public List<Ratings> getRatingsByUserEmail(@PathVariable Integer id) {
-        Optional<Person> person = personRepository.findById(id);
-        if (person.isEmpty()) {
-            return List.of();
-        }
-        return ratingsRepository.findByPerson(person.get());
+    public List<RatingDto> getRatingsByUserEmail(@PathVariable Integer id) {
+        return ratingsRepository.findByPersonId(id);
     }
 
     /**
      * Ajoute ou met à jour la note d’un utilisateur pour un épisode.
      *
      * @param episodeId identifiant de l’épisode évalué
-     * @param personId identifiant de l’utilisateur qui note
+     * @param caller utilisateur authentifié qui note (identité lue dans le token)
      * @param score note attribuée (généralement entre 1 et 5)
      * @return l’évaluation créée ou mise à jour
      *
      * <ul>
      *     <li><b>200: </b>Si l'évaluation est enregistrée avec succès</li>
-     *     <li><b>404: </b>Si l'épisode ou l'utilisateur n'existe pas</li>
+     *     <li><b>401: </b>Si l'utilisateur n'est pas authentifié</li>
+     *     <li><b>404: </b>Si l'épisode n'existe pas</li>
      * </ul>
      */
     @PostMapping("/episode/{episodeId}")
     public Ratings addOrUpdateRatingsByEpisode(@PathVariable Long episodeId,
-                                               @RequestParam int personId,
+                                               @AuthenticationPrincipal AuthenticatedPerson caller,
                                                @RequestParam int score) {
-        return ratingsService.addOrUpdatingRatingByEpisode(episodeId, personId, score);
+        return ratingsService.addOrUpdatingRatingByEpisode(episodeId, AuthenticatedPerson.idOf(caller), score);
     }
 
     /**
      * Ajoute ou met à jour la note d’un utilisateur pour une série.
      *
      * @param seriesId identifiant de la série évaluée
-     * @param personId identifiant de l’utilisateur
+     * @param caller utilisateur authentifié qui note (identité lue dans le token)
      * @param score note attribuée à la série
      * @return l’évaluation créée ou mise à jour
      *
      * <ul>
      *     <li><b>200: </b>Si l'évaluation est enregistrée avec succès</li>
-     *     <li><b>404: </b>Si la série ou l'utilisateur n'existe pas</li>
+     *     <li><b>401: </b>Si l'utilisateur n'est pas authentifié</li>
+     *     <li><b>404: </b>Si la série n'existe pas</li>
      * </ul>
      */
     @PostMapping("/series/{seriesId}")
     public Ratings addOrUpdateRatingsBySerie(@PathVariable Long seriesId,
-                                             @RequestParam int personId,
+                                             @AuthenticationPrincipal AuthenticatedPerson caller,
                                              @RequestParam int score) {
-        return ratingsService.addOrUpdatingRatingBySerie(seriesId, personId, score);
+        return ratingsService.addOrUpdatingRatingBySerie(seriesId, AuthenticatedPerson.idOf(caller), score);
+    }
+
+    /**
+     * Soumet la note d’un utilisateur pour un épisode en écriture différée.
+     *
+     * La note est validée et journalisée, puis écrite en base avec le prochain lot.
+     *
+     * @param episodeId identifiant de l’épisode évalué
+     * @param caller utilisateur authentifié qui note (identité lue dans le token)
+     * @param score note attribuée (entre 1 et 5)
+     * @return une réponse vide
+     *
+     * <ul>
+     *     <li><b>202: </b>Si la note est acquittée</li>
+     *     <li><b>429: </b>Si la file d'écriture est pleine</li>
+     *     <li><b>401: </b>Si l'utilisateur n'est pas authentifié</li>
+     *     <li><b>404: </b>Si l'épisode n'existe pas</li>
+     * </ul>
+     */
+    @PostMapping("/episode/{episodeId}/async")
+    public ResponseEntity<Void> submitRatingByEpisode(@PathVariable Long episodeId,
+                                                      @AuthenticationPrincipal AuthenticatedPerson caller,
+                                                      @RequestParam int score) {
+        boolean accepted = ratingIngestionService.submitEpisodeRating(episodeId, AuthenticatedPerson.idOf(caller), score);
+        return ResponseEntity.status(accepted ? HttpStatus.ACCEPTED : HttpStatus.TOO_MANY_REQUESTS).build();
+    }
+
+    /**
+     * Soumet la note d’un utilisateur pour une série en écriture différée.
+     *
+     * @param seriesId identifiant de la série évaluée
+     * @param caller utilisateur authentifié qui note (identité lue dans le token)
+     * @param score note attribuée (entre 1 et 5)
+     * @return une réponse vide
+     *
+     * <ul>
+     *     <li><b>202: </b>Si la note est acquittée</li>
+     *     <li><b>429: </b>Si la file d'écriture est pleine</li>
+     *     <li><b>401: </b>Si l'utilisateur n'est pas authentifié</li>
+     *     <li><b>404: </b>Si la série n'existe pas</li>
+     * </ul>
+     */
+    @PostMapping("/series/{seriesId}/async")
+    public ResponseEntity<Void> submitRatingBySerie(@PathVariable Long seriesId,
+                                                    @AuthenticationPrincipal AuthenticatedPerson caller,
+                                                    @RequestParam int score) {
+        boolean accepted = ratingIngestionService.submitSeriesRating(seriesId, AuthenticatedPerson.idOf(caller), score);
+        return ResponseEntity.status(accepted ? HttpStatus.ACCEPTED : HttpStatus.TOO_MANY_REQUESTS).build();
     }
 
     /**
@@ -1,8 +1,11 @@
 package ikasaidi.backend_lab.controllers;
 
+import ikasaidi.backend_lab.services.PasswordHashingService;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.Map;
+
 /**
  * Contrôleur de démonstration pour la sécurité de l’application.
  * <p>
@@ -13,12 +16,26 @@ import org.springframework.web.bind.annotation.RestController;
  * <p>Lorsque la configuration de sécurité est active, l’accès à cette route
  * peut être restreint aux utilisateurs authentifiés via un token JWT.</p>
  *
+ * <p>Il expose aussi l’état du pool de hachage des mots de passe (file, refus, durées BCrypt).</p>
+ *
  * @author Aya
+ * @author Sarah
  * @version 1.0
  */
 @RestController
 public class SecurityController {
 
+    private final PasswordHashingService passwordHashingService;
+
+    /**
+     * Constructeur du contrôleur.
+     *
+     * @param passwordHashingService service de hachage des mots de passe
+     */
+    public SecurityController(PasswordHashingService passwordHashingService) {
+        this.passwordHashingService = passwordHashingService;
+    }
+
     /**
      * Endpoint de test pour vérifier que la sécurité et le token JWT
      * fonctionnent correctement.
@@ -34,4 +51,20 @@ public class SecurityController {
     public String getSecurityData() {
         return "C'est securisé!";
     }
+
+    /**
+     * Retourne l’état du pool de hachage des mots de passe.
+     *
+     * @return file (fils, calculs en cours et en attente, pic, capacité, refus)
+     *         et durées des vérifications et des hachages
+     *
+     * <ul>
+     *     <li><b>200: </b>Si les statistiques sont retournées</li>
+     *     <li><b>401: </b>Si l'utilisateur n'est pas authentifié</li>
+     * </ul>
+     */
+    @GetMapping("/secure/password-hashing/stats")
+    public Map<String, Map<String, Long>> getPasswordHashingStatistics() {
+        return passwordHashingService.getStatistics();
+    }
 }
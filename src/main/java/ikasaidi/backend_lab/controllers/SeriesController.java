@@ -1,9 +1,12 @@
 package ikasaidi.backend_lab.controllers;
 
+import ikasaidi.backend_lab.DTO.FieldProjection;
+import ikasaidi.backend_lab.DTO.SeriesDto;
 import ikasaidi.backend_lab.DTO.TrendingDto;
 import ikasaidi.backend_lab.models.Series;
 import ikasaidi.backend_lab.services.SeriesService;
 import ikasaidi.backend_lab.services.TrendingService;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -31,6 +34,15 @@ import java.util.List;
 @CrossOrigin
 public class SeriesController {
 
+    /** Champs disponibles pour le paramètre <code>fields</code>. */
+    private static final FieldProjection<SeriesDto> FIELDS = new FieldProjection<SeriesDto>()
+            .field("id", SeriesDto::getId)
+            .field("title", SeriesDto::getTitle)
+            .field("genre", SeriesDto::getGenre)
+            .field("nbEpisodes", SeriesDto::getNbEpisodes)
+            .field("note", SeriesDto::getNote)
+            .field("ratingCount", SeriesDto::getRatingCount);
+
     private final SeriesService seriesService;
     private final TrendingService trendingService;
 
@@ -46,18 +58,31 @@ public class SeriesController {
     }
 
     /**
-     * Récupère la liste complète de toutes les séries disponibles.
+     * Récupère la liste des séries disponibles.
+     *
+     * La liste est paginée par identifiant : au plus <code>limit</code> éléments (100 par défaut, 1000 au maximum)
+     * après <code>after</code> ; la page suivante est indiquée dans l’en-tête <code>Link</code>.
+     * Chaque série est retournée sans ses relations ({@link SeriesDto}) ; le paramètre <code>fields</code>
+     * (ex. <code>id,title,genre</code>) restreint encore les champs retournés.
      *
-     * @return une liste de toutes les séries enregistrées
+     * @param after identifiant du dernier élément de la page précédente (0 pour la première page)
+     * @param limit taille de la page
+     * @param fields champs à retourner, séparés par des virgules (facultatif)
+     * @return une page de séries (complètes ou restreintes aux champs demandés)
      *
      * <ul>
      *     <li><b>200: </b>Si la liste est retournée avec succès</li>
+     *     <li><b>400: </b>Si un champ demandé n’existe pas</li>
      * </ul>
      *
      */
     @GetMapping
-    public List<Series> getAllSeries() {
-        return seriesService.findAll();
+    public ResponseEntity<List<?>> getAllSeries(@RequestParam(defaultValue = "0") long after,
+                                                @RequestParam(defaultValue = "" + KeysetPage.DEFAULT_LIMIT) int limit,
+                                                @RequestParam(required = false) String fields) {
+        int size = KeysetPage.clamp(limit);
+        List<SeriesDto> rows = seriesService.findPage(after, KeysetPage.fetchLimit(size));
+        return KeysetPage.of(rows, size, SeriesDto::getId, FIELDS, fields);
     }
 
     /**
@@ -148,15 +173,18 @@ public class SeriesController {
     /**
      * Récupère la liste des séries tendances.
      *
+     * @param window (optionnel) taille de la fenêtre en jours : 1, 7 (par défaut) ou 30
      * @return une liste de séries populaires au format {@link TrendingDto}
      *
+     * @throws IllegalArgumentException si la fenêtre n’est pas supportée
+     *
      * <ul>
      *     <li><b>200: </b>Si la liste est générée avec succès</li>
      * </ul>
      *
      */
     @GetMapping("/trending")
-    public List<TrendingDto> getTrending() {
-        return trendingService.getTrending();
+    public List<TrendingDto> getTrending(@RequestParam(defaultValue = "" + TrendingService.DAYS) int window) {
+        return trendingService.getTrending(window);
     }
 }
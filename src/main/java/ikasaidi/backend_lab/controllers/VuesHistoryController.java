@@ -1,21 +1,29 @@
 package ikasaidi.backend_lab.controllers;
 
-import ikasaidi.backend_lab.models.VuesHistory;
+import ikasaidi.backend_lab.DTO.FieldProjection;
+import ikasaidi.backend_lab.DTO.ViewDto;
 import ikasaidi.backend_lab.repositories.VuesHistoryRepository;
+import ikasaidi.backend_lab.services.ExportService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
 /**
  * Contrôleur REST responsable de la gestion de l’historique des vues.
  * <p>
- * Ce contrôleur permet d’accéder à la liste complète des historiques
+ * Ce contrôleur permet de parcourir, page par page, les historiques
  * de visionnement des utilisateurs. Il interagit directement avec
  * le {@link VuesHistoryRepository} pour récupérer les données stockées.
  * </p>
  *
+ * <p>L’historique complet peut aussi être exporté en flux NDJSON via le {@link ExportService}.</p>
+ *
  * <p>Chaque enregistrement représente une action d’un utilisateur
  * ayant visionné un épisode ou une série à une date donnée.</p>
  *
@@ -26,29 +34,72 @@ import java.util.List;
 @RequestMapping("/vues")
 public class VuesHistoryController {
 
+    /** Champs disponibles pour le paramètre <code>fields</code> (associations exposées par leur identifiant). */
+    private static final FieldProjection<ViewDto> FIELDS = new FieldProjection<ViewDto>()
+            .field("id", ViewDto::getId)
+            .field("dateWatched", ViewDto::getDateWatched)
+            .field("progress", ViewDto::getProgress)
+            .field("personId", ViewDto::getPersonId)
+            .field("seriesId", ViewDto::getSeriesId)
+            .field("seriesTitle", ViewDto::getSeriesTitle);
+
     private final VuesHistoryRepository vuesHistoryRepository;
+    private final ExportService exportService;
 
     /**
      * Constructeur du contrôleur d’historique des vues.
      *
      * @param vuesHistoryRepository repository utilisé pour accéder aux données d’historique
+     * @param exportService service d’export en flux
      */
-    public VuesHistoryController(VuesHistoryRepository vuesHistoryRepository) {
+    public VuesHistoryController(VuesHistoryRepository vuesHistoryRepository, ExportService exportService) {
         this.vuesHistoryRepository = vuesHistoryRepository;
+        this.exportService = exportService;
     }
 
     /**
-     * Récupère la liste complète des historiques de visionnement.
+     * Récupère les historiques de visionnement.
+     *
+     * La liste est paginée par identifiant : au plus <code>limit</code> éléments (100 par défaut, 1000 au maximum)
+     * après <code>after</code> ; la page suivante est indiquée dans l’en-tête <code>Link</code>.
+     * Chaque visionnage est retourné en {@link ViewDto} ; le paramètre <code>fields</code>
+     * (ex. <code>id,personId,seriesId,dateWatched</code>) restreint encore les champs retournés.
      *
-     * @return une liste d’objets {@link VuesHistory} contenant les informations
+     * @param after identifiant du dernier élément de la page précédente (0 pour la première page)
+     * @param limit taille de la page
+     * @param fields champs à retourner, séparés par des virgules (facultatif)
+     * @return une page de {@link ViewDto} (ou de champs choisis) contenant les informations
      *         sur les épisodes ou séries visionnés par les utilisateurs
      *
      * <ul>
      *     <li><b>200: </b>Si la liste est retournée avec succès</li>
+     *     <li><b>400: </b>Si un champ demandé n’existe pas</li>
      * </ul>
      */
     @GetMapping
-    public List<VuesHistory> getAllHistories() {
-        return vuesHistoryRepository.findAll();
+    public ResponseEntity<List<?>> getAllHistories(@RequestParam(defaultValue = "0") long after,
+                                                   @RequestParam(defaultValue = "" + KeysetPage.DEFAULT_LIMIT) int limit,
+                                                   @RequestParam(required = false) String fields) {
+        int size = KeysetPage.clamp(limit);
+        List<ViewDto> rows = vuesHistoryRepository.findPage(after, KeysetPage.fetchLimit(size));
+        return KeysetPage.of(rows, size, ViewDto::getId, FIELDS, fields);
+    }
+
+    /**
+     * Exporte tout l’historique de visionnage au format NDJSON (une ligne JSON par enregistrement, triées par identifiant).
+     *
+     * Les lignes sont lues en flux et écrites au fur et à mesure : la mémoire utilisée
+     * ne dépend pas de la taille de la table.
+     *
+     * @return le flux NDJSON
+     *
+     * <ul>
+     *     <li><b>200: </b>Si l’export est généré avec succès</li>
+     * </ul>
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportHistories() {
+        StreamingResponseBody body = exportService::exportViews;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 }
@@ -0,0 +1,57 @@
+package ikasaidi.backend_lab.db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Migration 2 : colonnes d’agrégats de notes (<code>rating_sum</code>, <code>rating_count</code>)
+ * des tables <strong>series</strong> et <strong>episodes</strong>.
+ *
+ * Migration Java plutôt que SQL : une base déjà mise à jour par Hibernate (ddl-auto=update)
+ * peut avoir ces colonnes, et SQLite n’a pas de <code>ADD COLUMN IF NOT EXISTS</code>.
+ * Chaque colonne absente est ajoutée avec la valeur 0 ; les agrégats sont calculés par
+ * <code>V6__rating_totals.sql</code>, après la suppression des doublons de notes (V3).
+ *
+ * Commune à SQLite et PostgreSQL (déclarée comme bean, Spring Boot la transmet à Flyway).
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+@Component
+public class V2__RatingAggregates extends BaseJavaMigration {
+
+    /**
+     * Ajoute les colonnes manquantes.
+     *
+     * @param context contexte Flyway (connexion de la migration)
+     * @throws SQLException si une instruction échoue
+     */
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        addAggregates(connection, "series");
+        addAggregates(connection, "episodes");
+    }
+
+    private void addAggregates(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String column : new String[]{"rating_sum", "rating_count"}) {
+                if (!hasColumn(connection, table, column)) {
+                    statement.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " bigint NOT NULL DEFAULT 0");
+                }
+            }
+        }
+    }
+
+    private boolean hasColumn(Connection connection, String table, String column) throws SQLException {
+        try (ResultSet columns = connection.getMetaData().getColumns(null, null, table, column)) {
+            return columns.next();
+        }
+    }
+}
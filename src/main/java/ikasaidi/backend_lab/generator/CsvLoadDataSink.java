@@ -0,0 +1,97 @@
+package ikasaidi.backend_lab.generator;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Écrit les lignes générées dans un fichier CSV par table (<code>person.csv</code>, <code>series.csv</code>, ...),
+ * avec une ligne d’en-tête reprenant les noms des colonnes, pour un chargement en masse
+ * (<code>COPY ... WITH (FORMAT csv, HEADER)</code> sous PostgreSQL, <code>.import --csv --skip 1</code> sous SQLite).
+ *
+ * Les identifiants commencent à 1 (base vide). Les dates sont écrites au format ISO,
+ * ou en millisecondes depuis l’époque (représentation utilisée par Hibernate sous SQLite).
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+public class CsvLoadDataSink implements LoadDataSink {
+
+    private final Path directory;
+    private final boolean epochDates;
+    private final Map<Table, BufferedWriter> writers = new EnumMap<>(Table.class);
+
+    /**
+     * @param directory dossier de sortie (créé si besoin)
+     * @param epochDates écrire les dates en millisecondes plutôt qu’au format ISO
+     */
+    public CsvLoadDataSink(Path directory, boolean epochDates) {
+        this.directory = directory;
+        this.epochDates = epochDates;
+    }
+
+    @Override
+    public long firstId(Table table) {
+        return 1;
+    }
+
+    @Override
+    public void add(Table table, Object... values) {
+        try {
+            BufferedWriter writer = writer(table);
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) writer.write(',');
+                writer.write(format(values[i]));
+            }
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        for (BufferedWriter writer : writers.values()) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        writers.clear();
+    }
+
+    private BufferedWriter writer(Table table) throws IOException {
+        BufferedWriter writer = writers.get(table);
+        if (writer == null) {
+            Files.createDirectories(directory);
+            writer = new BufferedWriter(Files.newBufferedWriter(
+                    directory.resolve(table.tableName() + ".csv"), StandardCharsets.UTF_8), 1 << 16);
+            writer.write(String.join(",", table.columns()));
+            writer.write('\n');
+            writers.put(table, writer);
+        }
+        return writer;
+    }
+
+    private String format(Object value) {
+        if (value == null) return "";
+        if (value instanceof LocalDate date) {
+            return epochDates
+                    ? Long.toString(date.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli())
+                    : date.toString();
+        }
+        String text = value.toString();
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+}
@@ -0,0 +1,116 @@
+package ikasaidi.backend_lab.generator;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Écrit les lignes générées directement en base, par lots JDBC.
+ *
+ * Chaque lot (<code>batchSize</code> lignes d’une table) est inséré dans sa propre transaction :
+ * une seule validation par lot, sans garder des millions de lignes dans une transaction.
+ * Les identifiants sont explicites ; sous PostgreSQL, les séquences d’identité sont
+ * replacées après le dernier identifiant à la fermeture.
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+public class JdbcLoadDataSink implements LoadDataSink {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Map<Table, List<Object[]>> pending = new EnumMap<>(Table.class);
+    private Table current;
+
+    /**
+     * @param jdbcTemplate accès JDBC
+     * @param transactionTemplate transaction de chaque lot
+     * @param batchSize nombre de lignes par lot
+     */
+    public JdbcLoadDataSink(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public long firstId(Table table) {
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table.tableName(), Long.class);
+        return max == null ? 1 : max + 1;
+    }
+
+    @Override
+    public void add(Table table, Object... values) {
+        if (table != current) {
+            // Nouvelle table : les lignes parentes en attente sont écrites d’abord (clés étrangères)
+            flushAll();
+            current = table;
+        }
+        List<Object[]> rows = pending.computeIfAbsent(table, t -> new ArrayList<>(batchSize));
+        rows.add(values);
+        if (rows.size() >= batchSize) {
+            flush(table, rows);
+        }
+    }
+
+    @Override
+    public void close() {
+        flushAll();
+        resetIdentities();
+    }
+
+    private void flushAll() {
+        for (Table table : Table.values()) {
+            List<Object[]> rows = pending.get(table);
+            if (rows != null) flush(table, rows);
+        }
+    }
+
+    private void flush(Table table, List<Object[]> rows) {
+        if (rows.isEmpty()) return;
+        String sql = "INSERT INTO " + table.tableName() + " (" + String.join(", ", table.columns()) + ") VALUES ("
+                + String.join(", ", table.columns().stream().map(c -> "?").toList()) + ")";
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(sql, rows, rows.size(), (ps, row) -> {
+                    for (int i = 0; i < row.length; i++) {
+                        bind(ps, i + 1, row[i]);
+                    }
+                }));
+        rows.clear();
+    }
+
+    private static void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.NULL);
+        } else if (value instanceof LocalDate date) {
+            // Même représentation que les dates écrites par Hibernate
+            ps.setDate(index, Date.valueOf(date));
+        } else {
+            ps.setObject(index, value);
+        }
+    }
+
+    /**
+     * Sous PostgreSQL, replace chaque séquence d’identité après le plus grand identifiant inséré.
+     */
+    private void resetIdentities() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) con -> con.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(product)) return;
+        for (Table table : Table.values()) {
+            if (!table.hasId()) continue;
+            jdbcTemplate.execute("SELECT setval(pg_get_serial_sequence('" + table.tableName() + "', 'id'), "
+                    + "(SELECT COALESCE(MAX(id), 1) FROM " + table.tableName() + "))");
+        }
+    }
+}
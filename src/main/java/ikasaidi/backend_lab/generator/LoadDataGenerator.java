@@ -0,0 +1,299 @@
+package ikasaidi.backend_lab.generator;
+
+import ikasaidi.backend_lab.generator.LoadDataSink.Table;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.logging.Logger;
+
+/**
+ * Générateur de données de charge, activé par le profil <code>generate</code>.
+ *
+ * Produit des personnes, séries, épisodes, évaluations et visionnages aux volumes choisis
+ * (<code>generate.*</code>), avec les colonnes des tables des entités
+ * ({@code Person}, {@code Series}, {@code Episodes}, {@code Ratings}, {@code VuesHistory}) :
+ * <ul>
+ *     <li>popularité des séries selon une loi de Zipf (<code>generate.zipf.series</code>) ;</li>
+ *     <li>activité des personnes selon une loi de Zipf (<code>generate.zipf.persons</code>) :
+ *         quelques personnes très actives, beaucoup de personnes peu actives ;</li>
+ *     <li>dates de visionnage sur <code>generate.days</code> jours, plus denses vers aujourd’hui
+ *         et le week-end ;</li>
+ *     <li>notes centrées sur une qualité propre à chaque série ;</li>
+ *     <li>historique de chaque personne (<code>person_history</code>, lu par les recommandations) :
+ *         au plus <code>generate.history-per-person</code> séries distinctes.</li>
+ * </ul>
+ *
+ * Les lignes sont écrites en base par lots JDBC (<code>generate.target=db</code>) ou dans des
+ * fichiers CSV pour un chargement en masse (<code>generate.target=csv</code>). Le tirage est
+ * reproductible (<code>generate.seed</code>).
+ * <pre>
+ * mvn spring-boot:run -Dspring-boot.run.profiles=generate -Dspring-boot.run.arguments="--generate.persons=1000000 --generate.views=100000000"
+ * </pre>
+ *
+ * Tous les comptes générés ont le même mot de passe (<code>generate.password</code>, haché une fois).
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+@Order(0)
+@Component
+@Profile("generate")
+public class LoadDataGenerator implements CommandLineRunner {
+
+    /** Logger pour l’avancement de la génération. */
+    private static final Logger logger = Logger.getLogger(LoadDataGenerator.class.getName());
+
+    private static final String[] GENRES = {
+            "Drama", "Comedy", "Sci-Fi", "Action", "Thriller", "Crime", "Family", "Fantasy", "Documentary", "Horror"
+    };
+    private static final String[] GENDERS = {"F", "M", "X"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BCryptPasswordEncoder passwordEncoder;
+    private final ConfigurableApplicationContext context;
+
+    @Value("${generate.target:db}")
+    private String target;
+    @Value("${generate.output-dir:target/loadgen}")
+    private String outputDir;
+    @Value("${generate.csv.epoch-dates:false}")
+    private boolean epochDates;
+    @Value("${generate.persons:10000}")
+    private int persons;
+    @Value("${generate.series:1000}")
+    private int series;
+    @Value("${generate.episodes-per-series:20}")
+    private int episodesPerSeries;
+    @Value("${generate.ratings:100000}")
+    private long ratings;
+    @Value("${generate.views:1000000}")
+    private long views;
+    @Value("${generate.history-per-person:20}")
+    private int historyPerPerson;
+    @Value("${generate.zipf.series:1.0}")
+    private double seriesExponent;
+    @Value("${generate.zipf.persons:0.8}")
+    private double personsExponent;
+    @Value("${generate.days:365}")
+    private int days;
+    @Value("${generate.batch-size:10000}")
+    private int batchSize;
+    @Value("${generate.seed:42}")
+    private long seed;
+    @Value("${generate.password:password}")
+    private String password;
+    @Value("${generate.exit:true}")
+    private boolean exit;
+
+    /**
+     * @param jdbcTemplate accès JDBC (cible <code>db</code>)
+     * @param transactionManager gestionnaire des transactions de chaque lot
+     * @param passwordEncoder encodeur du mot de passe commun
+     * @param context contexte de l’application, fermé à la fin si demandé
+     */
+    public LoadDataGenerator(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             BCryptPasswordEncoder passwordEncoder,
+                             ConfigurableApplicationContext context) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.passwordEncoder = passwordEncoder;
+        this.context = context;
+    }
+
+    /**
+     * Génère toutes les tables, puis arrête l’application si <code>generate.exit=true</code>.
+     *
+     * @param args arguments de la ligne de commande (non utilisés)
+     */
+    @Override
+    public void run(String... args) {
+        long start = System.currentTimeMillis();
+        logger.info(String.format("Génération (%s) : %d personnes, %d séries, %d évaluations, %d visionnages",
+                target, persons, series, ratings, views));
+
+        try (LoadDataSink sink = "csv".equalsIgnoreCase(target)
+                ? new CsvLoadDataSink(Path.of(outputDir), epochDates)
+                : new JdbcLoadDataSink(jdbcTemplate, transactionTemplate, batchSize)) {
+            generate(sink);
+        }
+
+        logger.info("Génération terminée en " + (System.currentTimeMillis() - start) / 1000 + " s");
+        if (exit) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+
+    private void generate(LoadDataSink sink) {
+        SplittableRandom random = new SplittableRandom(seed);
+        long personBase = sink.firstId(Table.PERSON);
+        long seriesBase = sink.firstId(Table.SERIES);
+        long firstEpisode = sink.firstId(Table.EPISODES);
+        long firstRating = sink.firstId(Table.RATINGS);
+        long firstView = sink.firstId(Table.VUES_HISTORY);
+
+        // Séries : qualité, nombre d’épisodes, et rang de popularité attribué au hasard
+        double[] quality = new double[series];
+        int[] nbEpisodes = new int[series];
+        for (int s = 0; s < series; s++) {
+            quality[s] = 1.5 + random.nextDouble() * 3.3;
+            nbEpisodes[s] = 1 + random.nextInt(Math.max(1, 2 * episodesPerSeries - 1));
+        }
+        int[] seriesByRank = permutation(series, random);
+        ZipfSampler popularity = new ZipfSampler(series, seriesExponent);
+
+        // Activité des personnes : rang Zipf attribué au hasard
+        int[] personRank = permutation(persons, random);
+        double activityTotal = 0;
+        for (int k = 0; k < persons; k++) {
+            activityTotal += ZipfSampler.weight(k, personsExponent);
+        }
+
+        // Premier passage des évaluations : agrégats des séries (même graine que l’écriture)
+        long ratingSeed = random.nextLong();
+        long[] ratingSum = new long[series];
+        long[] ratingCount = new long[series];
+        ratings(new SplittableRandom(ratingSeed), popularity, seriesByRank, personRank, activityTotal, quality,
+                (p, s, score) -> {
+                    ratingSum[s] += score;
+                    ratingCount[s]++;
+                });
+
+        String hash = passwordEncoder.encode(password);
+        for (int p = 0; p < persons; p++) {
+            long id = personBase + p;
+            sink.add(Table.PERSON, id, "User " + id, 16 + random.nextInt(60), "user" + id + "@loadgen.test",
+                    GENDERS[random.nextInt(GENDERS.length)], hash);
+        }
+        logger.info(persons + " personnes générées");
+
+        for (int s = 0; s < series; s++) {
+            long id = seriesBase + s;
+            double note = Math.round(quality[s] * 20) / 10.0;
+            sink.add(Table.SERIES, id, "Series " + id, GENRES[random.nextInt(GENRES.length)], nbEpisodes[s],
+                    note, ratingSum[s], ratingCount[s]);
+        }
+        logger.info(series + " séries générées");
+
+        long episodeId = firstEpisode;
+        for (int s = 0; s < series; s++) {
+            for (int e = 1; e <= nbEpisodes[s]; e++) {
+                sink.add(Table.EPISODES, episodeId++, e, "Episode " + e, seriesBase + s);
+            }
+        }
+        logger.info((episodeId - firstEpisode) + " épisodes générés");
+
+        long historyRows = 0;
+        Set<Integer> seen = new HashSet<>();
+        for (int p = 0; p < persons; p++) {
+            long count = Math.min(Math.min(share(views, personRank[p], activityTotal, random), historyPerPerson),
+                    series / 2);
+            seen.clear();
+            while (seen.size() < count) {
+                int s = seriesByRank[popularity.sample(random)];
+                if (seen.add(s)) {
+                    sink.add(Table.PERSON_HISTORY, personBase + p, seriesBase + s);
+                    historyRows++;
+                }
+            }
+        }
+        logger.info(historyRows + " séries d’historique générées");
+
+        long[] ratingId = {firstRating};
+        ratings(new SplittableRandom(ratingSeed), popularity, seriesByRank, personRank, activityTotal, quality,
+                (p, s, score) -> sink.add(Table.RATINGS, ratingId[0]++, score, personBase + p, seriesBase + s, null));
+        logger.info((ratingId[0] - firstRating) + " évaluations générées");
+
+        long viewId = firstView;
+        LocalDate today = LocalDate.now();
+        for (int p = 0; p < persons; p++) {
+            long count = share(views, personRank[p], activityTotal, random);
+            for (long v = 0; v < count; v++) {
+                int s = seriesByRank[popularity.sample(random)];
+                sink.add(Table.VUES_HISTORY, viewId++, viewDate(today, random),
+                        1 + random.nextInt(nbEpisodes[s]), personBase + p, seriesBase + s);
+            }
+        }
+        logger.info((viewId - firstView) + " visionnages générés");
+    }
+
+    /**
+     * Tire les évaluations personne par personne : une seule note par personne et par série
+     * (index unique des évaluations), au plus la moitié du catalogue par personne.
+     */
+    private void ratings(SplittableRandom random, ZipfSampler popularity, int[] seriesByRank, int[] personRank,
+                         double activityTotal, double[] quality, RatingConsumer consumer) {
+        Set<Integer> rated = new HashSet<>();
+        for (int p = 0; p < persons; p++) {
+            long count = Math.min(share(ratings, personRank[p], activityTotal, random), Math.max(1, series / 2));
+            rated.clear();
+            while (rated.size() < count) {
+                int s = seriesByRank[popularity.sample(random)];
+                if (rated.add(s)) {
+                    int score = (int) Math.round(quality[s] + random.nextDouble(-1.2, 1.2));
+                    consumer.accept(p, s, Math.max(1, Math.min(5, score)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Part d’un total attribuée à une personne selon son rang d’activité (arrondi aléatoire :
+     * la somme des parts vaut le total en moyenne).
+     */
+    private long share(long total, int rank, double activityTotal, SplittableRandom random) {
+        double expected = total * ZipfSampler.weight(rank, personsExponent) / activityTotal;
+        return (long) Math.floor(expected + random.nextDouble());
+    }
+
+    /**
+     * Date de visionnage : plus probable vers aujourd’hui (décroissance exponentielle) et le week-end.
+     */
+    private LocalDate viewDate(LocalDate today, SplittableRandom random) {
+        LocalDate date = recentDate(today, random);
+        DayOfWeek day = date.getDayOfWeek();
+        if (day != DayOfWeek.SATURDAY && day != DayOfWeek.SUNDAY && random.nextDouble() < 0.3) {
+            date = recentDate(today, random);
+        }
+        return date;
+    }
+
+    private LocalDate recentDate(LocalDate today, SplittableRandom random) {
+        double offset = -Math.log(1 - random.nextDouble()) * days / 4.0;
+        return today.minusDays((long) Math.min(days - 1, offset));
+    }
+
+    private static int[] permutation(int n, SplittableRandom random) {
+        int[] values = new int[n];
+        for (int i = 0; i < n; i++) values[i] = i;
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = values[i];
+            values[i] = values[j];
+            values[j] = tmp;
+        }
+        return values;
+    }
+
+    /** Reçoit une évaluation générée (indices de personne et de série, note). */
+    @FunctionalInterface
+    private interface RatingConsumer {
+        void accept(int person, int series, int score);
+    }
+}
@@ -0,0 +1,72 @@
+package ikasaidi.backend_lab.generator;
+
+import java.util.List;
+
+/**
+ * Destination des lignes produites par le {@link LoadDataGenerator} :
+ * la base de données ({@link JdbcLoadDataSink}) ou des fichiers CSV ({@link CsvLoadDataSink}).
+ *
+ * Les lignes sont passées avec leurs identifiants, dans l’ordre des colonnes de {@link Table}.
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+public interface LoadDataSink extends AutoCloseable {
+
+    /**
+     * Tables alimentées, dans l’ordre d’écriture (les parents avant les lignes qui les référencent).
+     */
+    enum Table {
+        PERSON("person", List.of("id", "name", "age", "email", "gender", "password")),
+        SERIES("series", List.of("id", "title", "genre", "nb_episodes", "note", "rating_sum", "rating_count")),
+        EPISODES("episodes", List.of("id", "episode_number", "title", "series_id")),
+        PERSON_HISTORY("person_history", List.of("person_id", "history_id")),
+        RATINGS("ratings", List.of("id", "score", "person_id", "series_id", "episode_id")),
+        VUES_HISTORY("vues_history", List.of("id", "date_watched", "progress", "person_id", "series_id"));
+
+        private final String tableName;
+        private final List<String> columns;
+
+        Table(String tableName, List<String> columns) {
+            this.tableName = tableName;
+            this.columns = columns;
+        }
+
+        /** @return nom de la table SQL */
+        public String tableName() {
+            return tableName;
+        }
+
+        /** @return colonnes écrites, dans l’ordre des valeurs */
+        public List<String> columns() {
+            return columns;
+        }
+
+        /** @return vrai si la table a un identifiant <code>id</code> (les tables de jointure n’en ont pas) */
+        public boolean hasId() {
+            return columns.get(0).equals("id");
+        }
+    }
+
+    /**
+     * Premier identifiant libre d’une table : les lignes générées sont numérotées à partir de celui-ci.
+     *
+     * @param table table
+     * @return premier identifiant à utiliser
+     */
+    long firstId(Table table);
+
+    /**
+     * Ajoute une ligne.
+     *
+     * @param table table
+     * @param values valeurs, dans l’ordre de {@link Table#columns()}
+     */
+    void add(Table table, Object... values);
+
+    /**
+     * Écrit les lignes en attente et libère les ressources.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,66 @@
+package ikasaidi.backend_lab.generator;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Tirage d’un rang selon une loi de Zipf : le rang <code>k</code> (0 = le plus populaire)
+ * a une probabilité proportionnelle à <code>1 / (k + 1)^s</code>.
+ *
+ * La fonction de répartition est calculée une fois ; chaque tirage est une recherche
+ * dichotomique (<code>O(log n)</code>).
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+public final class ZipfSampler {
+
+    private final double[] cdf;
+
+    /**
+     * @param n nombre de rangs
+     * @param exponent exposant <code>s</code> (0 = uniforme, 1 = Zipf classique)
+     */
+    public ZipfSampler(int n, double exponent) {
+        if (n <= 0) throw new IllegalArgumentException("n doit être positif");
+        cdf = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += weight(k, exponent);
+            cdf[k] = sum;
+        }
+        for (int k = 0; k < n; k++) {
+            cdf[k] /= sum;
+        }
+    }
+
+    /**
+     * Poids non normalisé du rang <code>k</code>.
+     *
+     * @param k rang (0 = le plus populaire)
+     * @param exponent exposant <code>s</code>
+     * @return <code>1 / (k + 1)^s</code>
+     */
+    public static double weight(int k, double exponent) {
+        return 1.0 / Math.pow(k + 1, exponent);
+    }
+
+    /**
+     * @return nombre de rangs
+     */
+    public int size() {
+        return cdf.length;
+    }
+
+    /**
+     * Tire un rang.
+     *
+     * @param random générateur aléatoire
+     * @return rang entre 0 et <code>size() - 1</code>
+     */
+    public int sample(SplittableRandom random) {
+        int index = Arrays.binarySearch(cdf, random.nextDouble());
+        int rank = index >= 0 ? index : -index - 1;
+        return Math.min(rank, cdf.length - 1);
+    }
+}
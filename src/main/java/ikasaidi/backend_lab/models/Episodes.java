@@ -2,6 +2,9 @@ package ikasaidi.backend_lab.models;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -23,11 +26,21 @@ import java.util.List;
  * </ul>
  *
  *
+ * <p>Les instances sont conservées dans la région <code>episodes</code> du cache de second niveau.</p>
+ *
+ * <p>La série est chargée à la demande ; son identifiant reste lisible sans requête.</p>
+ *
+ * <p>La somme et le nombre des notes reçues sont tenus à jour par le chemin d’écriture des évaluations ;
+ * ils sont exposés en JSON (<code>ratingSum</code>, <code>ratingCount</code>) avec leur moyenne
+ * (<code>averageRating</code>), comme pour {@link Series}.</p>
+ *
  * @author Sarah
  * @version 1.0
  */
 @Entity
 @Table(name = "episodes")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "episodes")
 public class Episodes {
 
     /** Identifiant unique de l’épisode (clé primaire). */
@@ -41,13 +54,23 @@ public class Episodes {
     /** Numéro de l’épisode dans la saison. */
     private int episodeNumber;
 
+    /** Somme des notes reçues, maintenue en base par incréments atomiques (jamais écrite par Hibernate). */
+    @ColumnDefault("0")
+    @Column(insertable = false, updatable = false)
+    private long ratingSum;
+
+    /** Nombre de notes reçues (maintenu comme {@link #ratingSum}). */
+    @ColumnDefault("0")
+    @Column(insertable = false, updatable = false)
+    private long ratingCount;
+
     /**
      * Série à laquelle cet épisode appartient.
      *
      * Relation ManyToOne : plusieurs épisodes peuvent appartenir à une seule série.
      *
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "series_id")
     @JsonIgnoreProperties({"episodes", "ratings"})
     private Series series;
@@ -120,4 +143,30 @@ public class Episodes {
     public void setSeries(Series series) {
         this.series = series;
     }
+
+    /** @return somme des notes reçues */
+    public long getRatingSum() {
+        return ratingSum;
+    }
+
+    /** @return nombre de notes reçues */
+    public long getRatingCount() {
+        return ratingCount;
+    }
+
+    /**
+     * Met à jour en mémoire les agrégats de notes relus en base après une écriture.
+     *
+     * @param ratingSum somme des notes
+     * @param ratingCount nombre de notes
+     */
+    public void setRatingTotals(long ratingSum, long ratingCount) {
+        this.ratingSum = ratingSum;
+        this.ratingCount = ratingCount;
+    }
+
+    /** @return moyenne des notes reçues (0.0 si aucune note) */
+    public double getAverageRating() {
+        return ratingCount == 0 ? 0.0 : (double) ratingSum / ratingCount;
+    }
 }
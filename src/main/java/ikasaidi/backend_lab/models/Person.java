@@ -1,7 +1,10 @@
 package ikasaidi.backend_lab.models;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -26,6 +29,8 @@ import java.util.List;
  * </ul>
  *
  *
+ * <p>Les instances sont conservées dans la région <code>person</code> du cache de second niveau.</p>
+ *
  * @author Rachel
  * @author Ikram
  * @author Aya
@@ -33,6 +38,8 @@ import java.util.List;
  * @version 1.0
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "person")
 public class Person {
 
     /** Identifiant unique de la personne (clé primaire). */
@@ -52,7 +59,8 @@ public class Person {
     /** Genre de la personne (ex. "F", "M", "Autre"). */
     private String gender;
 
-    /** Mot de passe de l’utilisateur (chiffré côté serveur). */
+    /** Mot de passe de l’utilisateur (chiffré côté serveur) ; accepté en entrée, jamais renvoyé en JSON. */
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private String password;
 
     /**
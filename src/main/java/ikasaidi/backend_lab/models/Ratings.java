@@ -1,6 +1,8 @@
 package ikasaidi.backend_lab.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import ikasaidi.backend_lab.services.TrendingListener;
 import jakarta.persistence.*;
 
 /**
@@ -22,11 +24,15 @@ import jakarta.persistence.*;
  *
  * <p>Les notes sont généralement comprises entre <strong>1 et 5</strong>.</p>
  *
+ * <p>Les trois associations sont chargées à la demande : chaque requête précise ce qu’elle
+ * joint (voir {@link ikasaidi.backend_lab.repositories.RatingsRepository}).</p>
+ *
  * @author Rachel
  * @author Sarah
  * @version 1.0
  */
 @Entity
+@EntityListeners(TrendingListener.class)
 public class Ratings {
 
     /** Identifiant unique de l’évaluation (clé primaire). */
@@ -43,7 +49,7 @@ public class Ratings {
      * Relation ManyToOne : un utilisateur peut laisser plusieurs évaluations.
      *
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "person_id")
     @JsonIgnoreProperties({"ratings", "history", "viewsHistories"})
     private Person person;
@@ -54,7 +60,7 @@ public class Ratings {
      * Relation ManyToOne : une série peut avoir plusieurs notes.
      *
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "series_id")
     @JsonIgnoreProperties({"ratings", "viewsHistories", "persons"})
     private Series series;
@@ -65,11 +71,21 @@ public class Ratings {
      * Relation ManyToOne : un épisode peut avoir plusieurs évaluations.
      *
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "episode_id")
     @JsonIgnoreProperties({"ratings", "series"})
     private Episodes episode;
 
+    /**
+     * Dernière note connue en base de données (non persistée).
+     *
+     * Permet au {@link TrendingListener} de calculer l’écart lorsqu’une note existante est modifiée.
+     *
+     */
+    @Transient
+    @JsonIgnore
+    private Integer persistedScore;
+
     /** Constructeur par défaut (requis par JPA). */
     public Ratings() {}
 
@@ -149,4 +165,19 @@ public class Ratings {
     public void setEpisode(Episodes episode) {
         this.episode = episode;
     }
+
+    /** @return dernière note connue en base, ou {@code null} si l’évaluation n’a jamais été chargée ni enregistrée */
+    public Integer getPersistedScore() {
+        return persistedScore;
+    }
+
+    /**
+     * Mémorise la note telle qu’elle est en base après chargement ou écriture.
+     */
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    void rememberPersistedScore() {
+        this.persistedScore = this.score;
+    }
 }
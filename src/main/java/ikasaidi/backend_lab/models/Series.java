@@ -1,8 +1,13 @@
 package ikasaidi.backend_lab.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import ikasaidi.backend_lab.services.TrendingListener;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -25,6 +30,13 @@ import java.util.List;
  *
  * Les données sont mappées à la table <strong>series</strong> dans la base de données.
  *
+ * <p>Les instances sont conservées dans la région <code>series</code> du cache de second niveau.</p>
+ *
+ * <p>La somme et le nombre des notes reçues (série et épisodes) sont tenus à jour par le chemin
+ * d’écriture des évaluations ; la note affichée est donc une moyenne en direct, sans agrégation.
+ * Les deux totaux sont exposés en JSON (<code>ratingSum</code>, <code>ratingCount</code>) avec la note,
+ * comme pour {@link Episodes}.</p>
+ *
  * @author Rachel
  * @author Sarah
  * @author Ikram
@@ -32,7 +44,10 @@ import java.util.List;
  */
 @Data
 @Entity
+@EntityListeners(TrendingListener.class)
 @Table(name = "series")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "series")
 public class Series {
 
     /** Identifiant unique de la série (clé primaire). */
@@ -49,9 +64,22 @@ public class Series {
     /** Nombre total d'épisodes dans la série. */
     private int nbEpisodes;
 
-    /** Note moyenne attribuée à la série (souvent basée sur les évaluations des utilisateurs). */
+    /** Note saisie pour la série, affichée tant qu’aucune évaluation n’a été reçue. */
     private double note;
 
+    /**
+     * Somme des notes reçues par la série et ses épisodes.
+     * Maintenue en base par incréments atomiques : Hibernate ne l’écrit jamais.
+     */
+    @ColumnDefault("0")
+    @Column(insertable = false, updatable = false)
+    private long ratingSum;
+
+    /** Nombre de notes reçues par la série et ses épisodes (maintenu comme {@link #ratingSum}). */
+    @ColumnDefault("0")
+    @Column(insertable = false, updatable = false)
+    private long ratingCount;
+
     /**
      * Constructeur complet de la série.
      *
@@ -112,9 +140,14 @@ public class Series {
         this.nbEpisodes = nbEpisodes;
     }
 
-    /** @return note moyenne de la série */
+    /**
+     * Retourne la note moyenne en direct (arrondie à deux décimales),
+     * ou la note saisie si la série n’a encore reçu aucune évaluation.
+     *
+     * @return note moyenne de la série
+     */
     public double getNote() {
-        return note;
+        return ratingCount == 0 ? note : Math.round(getAverageRating() * 100.0) / 100.0;
     }
 
     /** @param note nouvelle note moyenne à définir */
@@ -122,6 +155,33 @@ public class Series {
         this.note = note;
     }
 
+    /** @return somme des notes reçues par la série et ses épisodes */
+    public long getRatingSum() {
+        return ratingSum;
+    }
+
+    /** @return nombre de notes reçues par la série et ses épisodes */
+    public long getRatingCount() {
+        return ratingCount;
+    }
+
+    /**
+     * Met à jour en mémoire les agrégats de notes relus en base après une écriture.
+     *
+     * @param ratingSum somme des notes
+     * @param ratingCount nombre de notes
+     */
+    public void setRatingTotals(long ratingSum, long ratingCount) {
+        this.ratingSum = ratingSum;
+        this.ratingCount = ratingCount;
+    }
+
+    /** @return moyenne des notes reçues (0.0 si aucune note) */
+    @JsonIgnore
+    public double getAverageRating() {
+        return ratingCount == 0 ? 0.0 : (double) ratingSum / ratingCount;
+    }
+
     // 🔹 Relations avec d'autres entités
 
     /**
@@ -1,6 +1,7 @@
 package ikasaidi.backend_lab.models;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import ikasaidi.backend_lab.services.TrendingListener;
 import jakarta.persistence.*;
 import java.time.LocalDate;
 
@@ -22,12 +23,16 @@ import java.time.LocalDate;
  *
  * Les données sont persistées dans la table <strong>vues_history</strong>.
  *
+ * Les associations sont chargées à la demande : la liste paginée joint la série
+ * dans la même requête (voir {@link ikasaidi.backend_lab.repositories.VuesHistoryRepository}).
+ *
  * @author Rachel
  * @author Sarah
  * @author Ikram
  * @version 1.0
  */
 @Entity
+@EntityListeners(TrendingListener.class)
 public class VuesHistory {
 
     /** Identifiant unique de l’enregistrement de visionnage (clé primaire). */
@@ -48,7 +53,7 @@ public class VuesHistory {
      * Relation ManyToOne : un utilisateur peut avoir plusieurs historiques de visionnage.
      *
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JsonIgnoreProperties({"viewsHistories", "history", "ratings"})
     private Person person;
 
@@ -59,7 +64,7 @@ public class VuesHistory {
      * l’historique (visionnée par différents utilisateurs).
      *
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JsonIgnoreProperties({"viewsHistories", "ratings", "persons"})
     private Series series;
 
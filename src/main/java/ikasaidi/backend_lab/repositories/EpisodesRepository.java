@@ -2,7 +2,14 @@ package ikasaidi.backend_lab.repositories;
 
 import ikasaidi.backend_lab.models.Episodes;
 import ikasaidi.backend_lab.models.Series;
+import ikasaidi.backend_lab.repositories.SeriesRepository.RatingTotals;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -17,7 +24,8 @@ import java.util.List;
  *
  *
  * Elle définit également une méthode personnalisée permettant
- * de rechercher tous les épisodes associés à une série spécifique.
+ * de rechercher tous les épisodes associés à une série spécifique,
+ * ainsi que la lecture et la mise à jour atomique des agrégats de notes.
  *
  *
  * Méthodes héritées utiles :
@@ -49,4 +57,56 @@ public interface EpisodesRepository extends JpaRepository<Episodes, Long> {
      * @return une liste d’épisodes associés à cette série
      */
     List<Episodes> findBySeries(Series series);
+
+    /**
+     * Lit les agrégats de notes d’un épisode (lecture par clé primaire, sans agrégation).
+     *
+     * @param id identifiant de l’épisode
+     * @return les agrégats, ou {@code null} si l’épisode n’existe pas
+     */
+    @Query("SELECT e.ratingSum AS ratingSum, e.ratingCount AS ratingCount FROM Episodes e WHERE e.id = :id")
+    RatingTotals findRatingTotals(@Param("id") Long id);
+
+    /**
+     * Verrouille la ligne d’un épisode avant l’écriture d’une note (mise à jour sans effet).
+     *
+     * Exécutée en premier dans la transaction, elle sérialise les notes d’une même cible :
+     * la note précédente lue ensuite ne peut plus changer avant la validation
+     * (verrou de ligne sous PostgreSQL, verrou d’écriture de la base sous SQLite).
+     *
+     * @see SeriesRepository#lockForRating(Long)
+     * @param id identifiant de l’épisode
+     * @return 1 si l’épisode existe, 0 sinon
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "episodes"))
+    @Query(value = "UPDATE episodes SET rating_count = rating_count WHERE id = :id", nativeQuery = true)
+    int lockForRating(@Param("id") Long id);
+
+    /**
+     * Applique l’écart d’une évaluation aux agrégats d’un épisode, en une instruction atomique.
+     *
+     * @param id identifiant de l’épisode
+     * @param sumDelta écart de la somme (nouvelle note moins l’ancienne)
+     * @param countDelta 1 pour une nouvelle évaluation, 0 pour une modification
+     * @return nombre de lignes mises à jour
+     * @see SeriesRepository#addRating(Long, long, long)
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "episodes"))
+    @Query(value = "UPDATE episodes SET rating_sum = rating_sum + :sumDelta, rating_count = rating_count + :countDelta "
+            + "WHERE id = :id", nativeQuery = true)
+    int addRating(@Param("id") Long id, @Param("sumDelta") long sumDelta, @Param("countDelta") long countDelta);
+
+    /**
+     * Recalcule les agrégats de tous les épisodes à partir de la table des évaluations.
+     *
+     * @return nombre d’épisodes mis à jour
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "episodes"))
+    @Query(value = "UPDATE episodes SET "
+            + "rating_sum = (SELECT COALESCE(SUM(r.score), 0) FROM ratings r WHERE r.episode_id = episodes.id), "
+            + "rating_count = (SELECT COUNT(*) FROM ratings r WHERE r.episode_id = episodes.id)", nativeQuery = true)
+    int recomputeRatingTotals();
 }
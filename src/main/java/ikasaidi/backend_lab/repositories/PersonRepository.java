@@ -1,9 +1,18 @@
 package ikasaidi.backend_lab.repositories;
 
+import ikasaidi.backend_lab.DTO.PersonDto;
+import ikasaidi.backend_lab.DTO.SeriesDto;
 import ikasaidi.backend_lab.models.Person;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,6 +40,7 @@ import java.util.Optional;
  * <ul>
  *     <li>{@link ikasaidi.backend_lab.services.PersonService}</li>
  *     <li>{@link ikasaidi.backend_lab.services.AuthentificationService}</li>
+ *     <li>{@link ikasaidi.backend_lab.services.RecommendationService} (historiques lus en lot)</li>
  * </ul>
  *
  * @author Sarah
@@ -48,6 +58,39 @@ public interface PersonRepository extends JpaRepository<Person, Integer> {
      */
     List<Person> findByNameContainingIgnoreCase(String name);
 
+    /**
+     * Page de personnes triée par identifiant (pagination par clé).
+     *
+     * Le mot de passe n’est pas lu ; les lignes sont construites directement en {@link PersonDto}.
+     *
+     * @param after identifiant du dernier élément de la page précédente (0 pour la première page)
+     * @param limit nombre maximal d’éléments à retourner
+     * @return les éléments dont l’identifiant est supérieur à {@code after}
+     */
+    @Query("SELECT new ikasaidi.backend_lab.DTO.PersonDto(p.id, p.name, p.age, p.email, p.gender) "
+            + "FROM Person p WHERE p.id > :after ORDER BY p.id")
+    List<PersonDto> findPage(@Param("after") Integer after, Limit limit);
+
+    /**
+     * Lit l’historique de séries d’une personne, directement en {@link SeriesDto}.
+     *
+     * @param id identifiant de la personne
+     * @return les séries de l’historique (liste vide si la personne n’existe pas ou n’a rien vu)
+     */
+    @Query("SELECT new ikasaidi.backend_lab.DTO.SeriesDto(s.id, s.title, s.genre, s.nbEpisodes, s.note, "
+            + "s.ratingSum, s.ratingCount) FROM Person p JOIN p.history s WHERE p.id = :id")
+    List<SeriesDto> findHistory(@Param("id") Integer id);
+
+    /**
+     * Lit une personne avec son historique chargé (une jointure), pour le modifier
+     * hors d’une session ouverte.
+     *
+     * @param id identifiant de la personne
+     * @return la personne et son historique, ou vide si elle n’existe pas
+     */
+    @EntityGraph(attributePaths = "history")
+    Optional<Person> findWithHistoryById(Integer id);
+
     /**
      * Recherche une personne par son adresse courriel.
      *
@@ -59,4 +102,51 @@ public interface PersonRepository extends JpaRepository<Person, Integer> {
      * @return un {@link Optional} contenant la personne si elle existe, sinon vide
      */
     Optional<Person> findByEmail(String email);
+
+    /**
+     * Remplace le mot de passe d’une personne, seulement s’il n’a pas changé depuis sa lecture.
+     *
+     * Utilisé pour hacher de nouveau un mot de passe après une connexion réussie
+     * (mot de passe en clair ou haché d’un coût inférieur) ; la région « person » du cache
+     * de second niveau est invalidée par Hibernate après la mise à jour.
+     *
+     * @param id identifiant de la personne
+     * @param previous mot de passe lu lors de la connexion
+     * @param password nouveau haché
+     * @return nombre de lignes modifiées (0 si le mot de passe a changé entre-temps)
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Person p SET p.password = :password WHERE p.id = :id AND p.password = :previous")
+    int updatePassword(@Param("id") Integer id, @Param("previous") String previous, @Param("password") String password);
+
+    /**
+     * Retourne les identifiants de toutes les personnes, en ordre croissant.
+     *
+     * @return liste des identifiants
+     */
+    @Query("SELECT p.id FROM Person p ORDER BY p.id")
+    List<Integer> findAllIds();
+
+    /**
+     * Lit en une seule requête l’historique de plusieurs personnes.
+     *
+     * Une ligne est produite par série de l’historique ; une personne sans historique
+     * apparaît une fois avec une série nulle, et une personne inexistante n’apparaît pas.
+     *
+     * @param ids identifiants des personnes
+     * @return couples (personne, série, genre)
+     */
+    @Query("SELECT p.id AS personId, s.id AS seriesId, s.genre AS genre " +
+            "FROM Person p LEFT JOIN p.history s WHERE p.id IN :ids")
+    List<HistoryEntry> findHistoryEntries(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Projection d’une entrée d’historique : personne, série vue et genre de la série.
+     */
+    interface HistoryEntry {
+        Integer getPersonId();
+        Long getSeriesId();
+        String getGenre();
+    }
 }
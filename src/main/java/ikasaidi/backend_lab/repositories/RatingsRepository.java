@@ -1,15 +1,21 @@
 package ikasaidi.backend_lab.repositories;
 
+import ikasaidi.backend_lab.DTO.RatingDto;
+import ikasaidi.backend_lab.DTO.RatingExportDto;
 import ikasaidi.backend_lab.models.Episodes;
 import ikasaidi.backend_lab.models.Person;
 import ikasaidi.backend_lab.models.Ratings;
 import ikasaidi.backend_lab.models.Series;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Repository de gestion des entités {@link Ratings}.
@@ -23,11 +29,16 @@ import java.util.List;
  * <ul>
  *     <li>De rechercher les évaluations associées à un utilisateur ou à une série.</li>
  *     <li>De vérifier si une personne a déjà évalué une série ou un épisode.</li>
- *     <li>De calculer la moyenne des notes pour une série ou un épisode spécifique.</li>
+ *     <li>D’enregistrer une note en une seule instruction (insertion ou mise à jour selon l’index unique).</li>
+ *     <li>D’agréger les notes directement en base par personne et série.</li>
  * </ul>
  *
  *
  *
+ * Les moyennes par série et par épisode ne sont plus calculées ici : elles sont lues
+ * dans les agrégats tenus à jour sur {@link Series} et {@link Episodes}.
+ *
+ *
  * Ce repository est utilisé dans :
  * <ul>
  *     <li>{@link ikasaidi.backend_lab.services.RatingsService}</li>
@@ -45,12 +56,42 @@ import java.util.List;
 public interface RatingsRepository extends JpaRepository<Ratings, Long> {
 
     /**
-     * Récupère toutes les évaluations laissées par un utilisateur donné.
+     * Récupère toutes les évaluations laissées par un utilisateur donné, directement en {@link RatingDto}.
+     *
+     * Le titre de la série est joint dans la même requête ; l’utilisateur et l’épisode
+     * sont exposés par leur identifiant.
+     *
+     * @param personId identifiant de la personne
+     * @return les évaluations de cette personne, triées par identifiant
+     */
+    @Query("SELECT new ikasaidi.backend_lab.DTO.RatingDto(r.id, r.score, r.person.id, s.id, s.title, r.episode.id) "
+            + "FROM Ratings r LEFT JOIN r.series s WHERE r.person.id = :personId ORDER BY r.id")
+    List<RatingDto> findByPersonId(@Param("personId") Integer personId);
+
+    /**
+     * Page de évaluations triée par identifiant (pagination par clé), directement en {@link RatingDto}.
+     *
+     * @param after identifiant du dernier élément de la page précédente (0 pour la première page)
+     * @param limit nombre maximal d’éléments à retourner
+     * @return les éléments dont l’identifiant est supérieur à {@code after}
+     */
+    @Query("SELECT new ikasaidi.backend_lab.DTO.RatingDto(r.id, r.score, r.person.id, s.id, s.title, r.episode.id) "
+            + "FROM Ratings r LEFT JOIN r.series s WHERE r.id > :after ORDER BY r.id")
+    List<RatingDto> findPage(@Param("after") Long after, Limit limit);
+
+    /**
+     * Parcourt toutes les évaluations, ligne par ligne, pour l’export NDJSON.
+     *
+     * Les lignes sont construites directement en {@link RatingExportDto} (aucune entité
+     * n’entre dans le contexte de persistance) et lues par paquets de 500 depuis le curseur JDBC.
+     * Le flux doit être consommé, puis fermé, dans une transaction.
      *
-     * @param person la personne dont on veut récupérer les évaluations
-     * @return une liste d’évaluations associées à cette personne
+     * @return le flux des lignes, triées par identifiant
      */
-    List<Ratings> findByPerson(Person person);
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query("SELECT new ikasaidi.backend_lab.DTO.RatingExportDto(r.id, r.score, r.person.id, r.series.id, r.episode.id) "
+            + "FROM Ratings r ORDER BY r.id")
+    Stream<RatingExportDto> streamForExport();
 
     /**
      * Vérifie si une personne a déjà évalué une série donnée.
@@ -75,42 +116,90 @@ public interface RatingsRepository extends JpaRepository<Ratings, Long> {
     // ------------------------------------------------------------
 
     /**
-     * Récupère toutes les évaluations d’une personne pour une série spécifique.
+     * Retourne la note actuelle d’une personne pour une série (hors notes d’épisodes).
      *
-     * @param person la personne concernée
-     * @param series la série concernée
-     * @return une liste d’évaluations correspondant à la série
+     * @param personId identifiant de la personne
+     * @param seriesId identifiant de la série
+     * @return la note, ou {@code null} si la personne n’a pas encore noté la série
      */
-    List<Ratings> findAllByPersonAndSeries(Person person, Series series);
+    @Query("SELECT r.score FROM Ratings r WHERE r.person.id = :personId AND r.series.id = :seriesId AND r.episode IS NULL")
+    Integer findSeriesScore(@Param("personId") Integer personId, @Param("seriesId") Long seriesId);
 
     /**
-     * Calcule la moyenne des notes attribuées à une série.
+     * Insère ou met à jour la note d’une personne pour une série en une seule instruction.
      *
-     * @param series la série pour laquelle on veut calculer la moyenne
-     * @return la note moyenne, ou {@code null} si aucune note n’existe
+     * Le conflit est détecté par l’index unique partiel <code>ux_ratings_person_series</code>
+     * (person_id, series_id) sur les lignes sans épisode.
+     *
+     * @param personId identifiant de la personne
+     * @param seriesId identifiant de la série
+     * @param score note attribuée
+     * @return identifiant de l’évaluation insérée ou mise à jour
      */
-    @Query("SELECT AVG(r.score) FROM Ratings r WHERE r.series = :series")
-    Double findAverageBySeries(@Param("series") Series series);
+    @Query(value = "INSERT INTO ratings (score, person_id, series_id, episode_id) VALUES (:score, :personId, :seriesId, NULL) "
+            + "ON CONFLICT (person_id, series_id) WHERE episode_id IS NULL DO UPDATE SET score = excluded.score "
+            + "RETURNING id", nativeQuery = true)
+    Long upsertSeriesRating(@Param("personId") Integer personId, @Param("seriesId") Long seriesId,
+                            @Param("score") int score);
 
     // ------------------------------------------------------------
     // ---------- EPISODES ----------
     // ------------------------------------------------------------
 
     /**
-     * Récupère toutes les évaluations d’une personne pour un épisode spécifique.
+     * Retourne la note actuelle d’une personne pour un épisode.
      *
-     * @param person la personne concernée
-     * @param episode l’épisode concerné
-     * @return une liste d’évaluations correspondant à l’épisode
+     * @param personId identifiant de la personne
+     * @param episodeId identifiant de l’épisode
+     * @return la note, ou {@code null} si la personne n’a pas encore noté l’épisode
+     */
+    @Query("SELECT r.score FROM Ratings r WHERE r.person.id = :personId AND r.episode.id = :episodeId")
+    Integer findEpisodeScore(@Param("personId") Integer personId, @Param("episodeId") Long episodeId);
+
+    /**
+     * Insère ou met à jour la note d’une personne pour un épisode en une seule instruction.
+     *
+     * Le conflit est détecté par l’index unique <code>ux_ratings_person_episode</code> (person_id, episode_id).
+     *
+     * @param personId identifiant de la personne
+     * @param seriesId identifiant de la série de l’épisode
+     * @param episodeId identifiant de l’épisode
+     * @param score note attribuée
+     * @return identifiant de l’évaluation insérée ou mise à jour
      */
-    List<Ratings> findAllByPersonAndEpisode(Person person, Episodes episode);
+    @Query(value = "INSERT INTO ratings (score, person_id, series_id, episode_id) VALUES (:score, :personId, :seriesId, :episodeId) "
+            + "ON CONFLICT (person_id, episode_id) DO UPDATE SET score = excluded.score "
+            + "RETURNING id", nativeQuery = true)
+    Long upsertEpisodeRating(@Param("personId") Integer personId, @Param("seriesId") Long seriesId,
+                             @Param("episodeId") Long episodeId, @Param("score") int score);
+
+    // ------------------------------------------------------------
+    // ---------- AGRÉGATS ----------
+    // ------------------------------------------------------------
+
+    /**
+     * Note moyenne d’une personne pour une série (notes de la série et de ses épisodes).
+     */
+    interface PersonSeriesScore {
+
+        /** @return identifiant de la personne */
+        Integer getPersonId();
+
+        /** @return identifiant de la série */
+        Long getSeriesId();
+
+        /** @return note moyenne de la personne pour cette série */
+        Double getScore();
+    }
 
     /**
-     * Calcule la moyenne des notes attribuées à un épisode.
+     * Regroupe les évaluations par couple (personne, série) et retourne la note moyenne,
+     * sans charger les entités. Utilisé pour construire le modèle de co-notation.
      *
-     * @param episode l’épisode pour lequel on veut calculer la moyenne
-     * @return la note moyenne, ou {@code null} si aucune note n’existe
+     * @return une ligne par couple (personne, série) noté
      */
-    @Query("SELECT AVG(r.score) FROM Ratings r WHERE r.episode = :episode")
-    Double findAverageByEpisode(@Param("episode") Episodes episode);
+    @Query("SELECT r.person.id AS personId, r.series.id AS seriesId, AVG(r.score) AS score "
+            + "FROM Ratings r WHERE r.person IS NOT NULL AND r.series IS NOT NULL "
+            + "GROUP BY r.person.id, r.series.id")
+    List<PersonSeriesScore> averageByPersonAndSeries();
 }
@@ -1,7 +1,15 @@
 package ikasaidi.backend_lab.repositories;
 
+import ikasaidi.backend_lab.DTO.SeriesDto;
 import ikasaidi.backend_lab.models.Series;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -18,6 +26,8 @@ import java.util.List;
  * Elle définit également plusieurs méthodes de recherche dérivées
  * basées sur la convention de nommage de Spring Data JPA,
  * permettant de filtrer les séries selon différents critères.
+ * Les recherches par genre et nombre d’épisodes passent par le cache de requêtes Hibernate.
+ * Les agrégats de notes (somme, nombre) sont modifiés par incréments atomiques en base.
  *
  *
  * Méthodes héritées utiles :
@@ -50,6 +60,7 @@ public interface SeriesRepository extends JpaRepository<Series, Long> {
      * @param genre le genre recherché (ex. : "Drame", "Comédie")
      * @return une liste de séries correspondant au genre
      */
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     List<Series> findByGenre(String genre);
 
     /**
@@ -58,6 +69,7 @@ public interface SeriesRepository extends JpaRepository<Series, Long> {
      * @param nbEpisodes le nombre minimal d’épisodes
      * @return une liste de séries répondant au critère
      */
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     List<Series> findByNbEpisodesGreaterThanEqual(int nbEpisodes);
 
     /**
@@ -68,6 +80,7 @@ public interface SeriesRepository extends JpaRepository<Series, Long> {
      * @param nbEpisodes le nombre minimal d’épisodes
      * @return une liste de séries correspondant aux deux critères
      */
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     List<Series> findByGenreAndNbEpisodesGreaterThanEqual(String genre, int nbEpisodes);
 
     /**
@@ -77,4 +90,86 @@ public interface SeriesRepository extends JpaRepository<Series, Long> {
      * @return une liste de séries dont le titre contient le texte fourni
      */
     List<Series> findByTitleContaining(String title);
+
+    /**
+     * Page de séries triée par identifiant (pagination par clé).
+     *
+     * Seules les colonnes de la série sont lues, directement en {@link SeriesDto}.
+     *
+     * @param after identifiant du dernier élément de la page précédente (0 pour la première page)
+     * @param limit nombre maximal d’éléments à retourner
+     * @return les éléments dont l’identifiant est supérieur à {@code after}
+     */
+    @Query("SELECT new ikasaidi.backend_lab.DTO.SeriesDto(s.id, s.title, s.genre, s.nbEpisodes, s.note, "
+            + "s.ratingSum, s.ratingCount) FROM Series s WHERE s.id > :after ORDER BY s.id")
+    List<SeriesDto> findPage(@Param("after") Long after, Limit limit);
+
+    // ------------------------------------------------------------
+    // ---------- AGRÉGATS DE NOTES ----------
+    // ------------------------------------------------------------
+
+    /**
+     * Somme et nombre de notes d’une série ou d’un épisode.
+     */
+    interface RatingTotals {
+        /** @return somme des notes */
+        long getRatingSum();
+
+        /** @return nombre de notes */
+        long getRatingCount();
+    }
+
+    /**
+     * Lit les agrégats de notes d’une série (lecture par clé primaire, sans agrégation).
+     *
+     * @param id identifiant de la série
+     * @return les agrégats, ou {@code null} si la série n’existe pas
+     */
+    @Query("SELECT s.ratingSum AS ratingSum, s.ratingCount AS ratingCount FROM Series s WHERE s.id = :id")
+    RatingTotals findRatingTotals(@Param("id") Long id);
+
+    /**
+     * Verrouille la ligne d’une série avant l’écriture d’une note (mise à jour sans effet).
+     *
+     * Exécutée en premier dans la transaction, elle sérialise les notes d’une même cible :
+     * la note précédente lue ensuite ne peut plus changer avant la validation
+     * (verrou de ligne sous PostgreSQL, verrou d’écriture de la base sous SQLite).
+     *
+     * @param id identifiant de la série
+     * @return 1 si la série existe, 0 sinon
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "series"))
+    @Query(value = "UPDATE series SET rating_count = rating_count WHERE id = :id", nativeQuery = true)
+    int lockForRating(@Param("id") Long id);
+
+    /**
+     * Applique l’écart d’une évaluation aux agrégats d’une série, en une instruction atomique.
+     *
+     * L’espace de requête <code>series</code> est déclaré : Hibernate n’invalide que la région
+     * du cache des séries, et non tout le cache de second niveau.
+     *
+     * @param id identifiant de la série
+     * @param sumDelta écart de la somme (nouvelle note moins l’ancienne)
+     * @param countDelta 1 pour une nouvelle évaluation, 0 pour une modification
+     * @return nombre de lignes mises à jour
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "series"))
+    @Query(value = "UPDATE series SET rating_sum = rating_sum + :sumDelta, rating_count = rating_count + :countDelta "
+            + "WHERE id = :id", nativeQuery = true)
+    int addRating(@Param("id") Long id, @Param("sumDelta") long sumDelta, @Param("countDelta") long countDelta);
+
+    /**
+     * Recalcule les agrégats de toutes les séries à partir de la table des évaluations
+     * (après une écriture en masse qui ne passe pas par le chemin d’écriture des notes).
+     *
+     * @return nombre de séries mises à jour
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "series"))
+    @Query(value = "UPDATE series SET "
+            + "rating_sum = (SELECT COALESCE(SUM(r.score), 0) FROM ratings r WHERE r.series_id = series.id), "
+            + "rating_count = (SELECT COUNT(*) FROM ratings r WHERE r.series_id = series.id)", nativeQuery = true)
+    int recomputeRatingTotals();
 }
@@ -1,9 +1,20 @@
 package ikasaidi.backend_lab.repositories;
 
+import ikasaidi.backend_lab.DTO.ViewDto;
+import ikasaidi.backend_lab.DTO.ViewExportDto;
 import ikasaidi.backend_lab.models.VuesHistory;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
 /**
  * Repository pour la gestion des entités {@link VuesHistory}.
  *
@@ -25,8 +36,10 @@ import org.springframework.stereotype.Repository;
  *
  *
  *
- * Si nécessaire, de futures méthodes personnalisées peuvent être ajoutées ici,
- * par exemple pour filtrer les vues par utilisateur, par série ou par période.
+ * Il expose aussi des requêtes d’agrégation (vues par série et par jour, couples
+ * personne/série) utilisées par le {@link ikasaidi.backend_lab.services.TrendingService}
+ * et le {@link ikasaidi.backend_lab.services.CollaborativeRecommendationService},
+ * afin de ne pas charger chaque enregistrement en mémoire.
  *
  *
  * @author Rachel
@@ -34,6 +47,79 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public interface VuesHistoryRepository extends JpaRepository<VuesHistory, Long> {
-    // Pour le moment, aucune méthode personnalisée n’est requise.
-    // Les opérations de base (findAll, findById, save, deleteById, etc.) suffisent.
+
+    /**
+     * Parcourt tout l’historique, ligne par ligne, pour l’export NDJSON.
+     *
+     * Les lignes sont construites directement en {@link ViewExportDto} (aucune entité
+     * n’entre dans le contexte de persistance) et lues par paquets de 500 depuis le curseur JDBC.
+     * Le flux doit être consommé, puis fermé, dans une transaction.
+     *
+     * @return le flux des lignes, triées par identifiant
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query("SELECT new ikasaidi.backend_lab.DTO.ViewExportDto(v.id, v.person.id, v.series.id, v.dateWatched, v.progress) "
+            + "FROM VuesHistory v ORDER BY v.id")
+    Stream<ViewExportDto> streamForExport();
+
+    /**
+     * Page de visionnages triée par identifiant (pagination par clé), directement en {@link ViewDto}.
+     *
+     * Le titre de la série est joint dans la même requête.
+     *
+     * @param after identifiant du dernier élément de la page précédente (0 pour la première page)
+     * @param limit nombre maximal d’éléments à retourner
+     * @return les éléments dont l’identifiant est supérieur à {@code after}
+     */
+    @Query("SELECT new ikasaidi.backend_lab.DTO.ViewDto(v.id, v.dateWatched, v.progress, v.person.id, s.id, s.title) "
+            + "FROM VuesHistory v LEFT JOIN v.series s WHERE v.id > :after ORDER BY v.id")
+    List<ViewDto> findPage(@Param("after") Long after, Limit limit);
+
+    /**
+     * Nombre de vues d’une série pour une journée, calculé par la base de données.
+     */
+    interface DailySeriesViews {
+
+        /** @return identifiant de la série */
+        Long getSeriesId();
+
+        /** @return jour du visionnage */
+        LocalDate getDay();
+
+        /** @return nombre de vues de la série ce jour-là */
+        Long getViews();
+    }
+
+    /**
+     * Compte les vues par série et par jour à partir d’une date donnée.
+     *
+     * @param since date minimale (incluse)
+     * @return une ligne par couple (série, jour) ayant au moins une vue
+     */
+    @Query("SELECT v.series.id AS seriesId, v.dateWatched AS day, COUNT(v) AS views "
+            + "FROM VuesHistory v WHERE v.series IS NOT NULL AND v.dateWatched >= :since "
+            + "GROUP BY v.series.id, v.dateWatched")
+    List<DailySeriesViews> countDailyViewsBySeriesSince(@Param("since") LocalDate since);
+
+    /**
+     * Couple (personne, série) issu de l’historique de visionnage.
+     */
+    interface PersonSeriesPair {
+
+        /** @return identifiant de la personne */
+        Integer getPersonId();
+
+        /** @return identifiant de la série */
+        Long getSeriesId();
+    }
+
+    /**
+     * Retourne chaque couple distinct (personne, série) présent dans l’historique,
+     * sans charger les entités. Utilisé pour construire le modèle de co-visionnage.
+     *
+     * @return la liste des couples distincts
+     */
+    @Query("SELECT DISTINCT v.person.id AS personId, v.series.id AS seriesId "
+            + "FROM VuesHistory v WHERE v.person IS NOT NULL AND v.series IS NOT NULL")
+    List<PersonSeriesPair> findDistinctPersonSeriesPairs();
 }
@@ -6,16 +6,26 @@ import ikasaidi.backend_lab.models.Person;
 import ikasaidi.backend_lab.repositories.PersonRepository;
 import ikasaidi.backend_lab.utils.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
 /**
  * Service responsable de la gestion de l’authentification des utilisateurs.
  *
- * Cette classe fournit deux principales fonctionnalités :
+ * Cette classe fournit les fonctionnalités suivantes :
  * <ul>
  *     <li>La connexion d’un utilisateur existant en vérifiant son mot de passe et en générant un token JWT.</li>
  *     <li>L’inscription d’un nouvel utilisateur avec hachage sécurisé du mot de passe.</li>
+ *     <li>Le rafraîchissement du token d’accès avec un jeton de rafraîchissement, sans mot de passe.</li>
+ *     <li>La déconnexion (révocation d’une session ou de toutes les sessions).</li>
  * </ul>
  *
  *
@@ -23,8 +33,12 @@ import org.springframework.stereotype.Service;
  * <ul>
  *     <li>{@link PersonRepository} pour accéder aux données des utilisateurs.</li>
  *     <li>{@link JwtUtil} pour générer les tokens JWT.</li>
- *     <li>{@link BCryptPasswordEncoder} pour le chiffrement des mots de passe.</li>
+ *     <li>{@link RefreshTokenService} pour ouvrir, prolonger et révoquer les sessions.</li>
+ *     <li>{@link PasswordHashingService} pour le hachage et la vérification des mots de passe,
+ *         calculés hors du fil de la requête (le résultat est donc un {@link CompletableFuture}).</li>
  * </ul>
+ * La suite d’un calcul (accès à la base, ouverture de la session) s’exécute sur l’exécuteur de tâches
+ * de l’application et non sur le pool de hachage, dont les fils restent réservés à BCrypt.
  *
  *
  * @author Aya
@@ -33,6 +47,12 @@ import org.springframework.stereotype.Service;
 @Service
 public class AuthentificationService {
 
+    /** Logger pour suivre les mots de passe qui n’ont pas pu être hachés de nouveau. */
+    private static final Logger logger = Logger.getLogger(AuthentificationService.class.getName());
+
+    /** Rôles mis dans les tokens : le modèle ne distingue pas encore les comptes, tous sont utilisateurs. */
+    private static final List<String> ROLES = List.of("ROLE_USER");
+
     /** Repository permettant l’accès et la manipulation des données des utilisateurs. */
     @Autowired
     private PersonRepository personRepository;
@@ -41,9 +61,18 @@ public class AuthentificationService {
     @Autowired
     private JwtUtil jwtUtil;
 
-    /** Encodeur de mots de passe utilisant l’algorithme BCrypt pour plus de sécurité. */
+    /** Sessions de connexion et jetons de rafraîchissement. */
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    /** Hachage et vérification BCrypt sur un pool borné, hors des fils HTTP. */
     @Autowired
-    private BCryptPasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
+
+    /** Exécuteur des suites des calculs BCrypt (requêtes en base, ouverture de session). */
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private Executor taskExecutor;
 
     /**
      * Gère la connexion d’un utilisateur existant.
@@ -51,35 +80,106 @@ public class AuthentificationService {
      * Cette méthode :
      * <ul>
      *     <li>Recherche l’utilisateur par son email.</li>
-     *     <li>Vérifie la validité du mot de passe (haché ou en clair selon le cas).</li>
-     *     <li>Génère un token JWT si la connexion est réussie.</li>
+     *     <li>Vérifie la validité du mot de passe (haché ou en clair selon le cas) ;
+     *         la vérification BCrypt est faite sur le pool de hachage.</li>
+     *     <li>Après une connexion réussie, hache de nouveau en arrière-plan un mot de passe en clair
+     *         ou d’un coût inférieur au coût configuré.</li>
+     *     <li>Ouvre une session et génère un token JWT et un jeton de rafraîchissement si la connexion est réussie.</li>
      * </ul>
+     * Un compte sans mot de passe enregistré ne peut pas se connecter.
      *
      *
      * @param request objet {@link Connexion} contenant l’email et le mot de passe saisis par l’utilisateur
      * @return un objet {@link ReponseAuthentification} indiquant le succès ou l’échec de la connexion
+     * @throws RejectedExecutionException si la file du pool de hachage est pleine
+     */
+    public CompletableFuture<ReponseAuthentification> connexion(Connexion request) {
+        Optional<Person> found = personRepository.findByEmail(request.getEmail());
+        if (found.isEmpty()) {
+            return CompletableFuture.completedFuture(
+                    new ReponseAuthentification(false, "Email introuvable...", null, null, null));
+        }
+
+        Person person = found.get();
+        String stored = person.getPassword();
+        if (stored == null || request.getPassword() == null) {
+            return CompletableFuture.completedFuture(
+                    new ReponseAuthentification(false, "Mot de passe incorrect", null, null, null));
+        }
+
+        // Vérifie si le mot de passe est haché avec BCrypt
+        CompletableFuture<Boolean> check = passwordHashingService.isHashed(stored)
+                ? passwordHashingService.matches(request.getPassword(), stored)
+                : CompletableFuture.completedFuture(stored.equals(request.getPassword()));
+
+        return check.thenApplyAsync(passwordOk -> {
+            if (!passwordOk) {
+                return new ReponseAuthentification(false, "Mot de passe incorrect", null, null, null);
+            }
+
+            if (passwordHashingService.needsRehash(stored)) {
+                rehash(person.getId(), stored, request.getPassword());
+            }
+
+            return openSession(person, "Connexion réussie!");
+        }, taskExecutor);
+    }
+
+    /**
+     * Délivre un nouveau token d’accès à partir d’un jeton de rafraîchissement.
+     *
+     * Aucun mot de passe n’est vérifié : le jeton présenté est remplacé par un nouveau,
+     * retourné avec le token.
+     *
+     * @param refreshToken jeton de rafraîchissement remis à la connexion ou au dernier rafraîchissement
+     * @return un objet {@link ReponseAuthentification} avec le nouveau token et le nouveau jeton,
+     *         ou un échec si le jeton est invalide, déjà utilisé, révoqué ou expiré
+     */
+    public ReponseAuthentification refresh(String refreshToken) {
+        return refreshTokenService.rotate(refreshToken)
+                .map(session -> new ReponseAuthentification(true, "Session prolongée", session.personId(), session.name(),
+                        jwtUtil.generateToken(session.email(), session.personId(), ROLES, session.sessionId()),
+                        session.refreshToken()))
+                .orElse(new ReponseAuthentification(false, "Session invalide ou expirée", null, null, null));
+    }
+
+    /**
+     * Ferme la session d’un jeton de rafraîchissement, ou toutes les sessions de son utilisateur.
+     * Les tokens d’accès de ces sessions sont refusés dès la requête suivante.
+     *
+     * @param refreshToken jeton de rafraîchissement de la session
+     * @param allSessions {@code true} pour fermer toutes les sessions de l’utilisateur
+     * @return {@code true} si le jeton correspondait à une session ouverte
+     */
+    public boolean logout(String refreshToken, boolean allSessions) {
+        return refreshTokenService.revoke(refreshToken, allSessions);
+    }
+
+    /**
+     * Ouvre une session et construit la réponse avec son token d’accès et son jeton de rafraîchissement.
      */
-    public ReponseAuthentification connexion(Connexion request) {
-        return personRepository.findByEmail(request.getEmail())
-                .map(person -> {
-                    boolean passwordOk = false;
-
-                    // Vérifie si le mot de passe est haché avec BCrypt
-                    if (person.getPassword().startsWith("$2a$")) {
-                        passwordOk = passwordEncoder.matches(request.getPassword(), person.getPassword());
-                    } else {
-                        passwordOk = person.getPassword().equals(request.getPassword());
-                    }
-
-                    if (!passwordOk) {
-                        return new ReponseAuthentification(false, "Mot de passe incorrect", null, null, null);
-                    }
-
-                    // Génération du token JWT pour l'utilisateur connecté
-                    String token = jwtUtil.generateToken(person.getEmail());
-                    return new ReponseAuthentification(true, "Connexion réussie!", person.getId(), person.getName(), token);
-                })
-                .orElse(new ReponseAuthentification(false, "Email introuvable...", null, null, null));
+    private ReponseAuthentification openSession(Person person, String message) {
+        RefreshTokenService.Session session = refreshTokenService.open(person.getId(), person.getEmail(), person.getName());
+        // Génération du token JWT pour l'utilisateur connecté
+        String token = jwtUtil.generateToken(person.getEmail(), person.getId(), ROLES, session.sessionId());
+        return new ReponseAuthentification(true, message, person.getId(), person.getName(), token, session.refreshToken());
+    }
+
+    /**
+     * Enregistre en arrière-plan un nouveau haché du mot de passe, sans retarder la connexion.
+     * Si la file du pool est pleine, le mot de passe sera haché lors d’une prochaine connexion.
+     */
+    private void rehash(Integer personId, String stored, String rawPassword) {
+        try {
+            passwordHashingService.encode(rawPassword)
+                    .thenAcceptAsync(hash -> personRepository.updatePassword(personId, stored, hash), taskExecutor)
+                    .exceptionally(e -> {
+                        logger.log(Level.WARNING, "Nouveau hachage du mot de passe impossible (personne " + personId + ")", e);
+                        return null;
+                    });
+        } catch (RejectedExecutionException e) {
+            logger.fine("File de hachage pleine : mot de passe de la personne " + personId + " haché plus tard");
+        }
     }
 
     /**
@@ -90,30 +190,37 @@ public class AuthentificationService {
      *     <li>Vérifie si l’email n’est pas déjà utilisé.</li>
      *     <li>Crée un nouvel utilisateur avec les informations reçues.</li>
      *     <li>Hache le mot de passe avant de l’enregistrer en base de données.</li>
-     *     <li>Retourne une réponse avec un token JWT généré pour le nouvel utilisateur.</li>
+     *     <li>Retourne une réponse avec un token JWT et un jeton de rafraîchissement pour le nouvel utilisateur.</li>
      * </ul>
      *
      *
      * @param request objet {@link Connexion} contenant les informations d’inscription (nom, email, mot de passe, genre)
      * @return un objet {@link ReponseAuthentification} indiquant le succès ou l’échec de l’inscription
+     * @throws RejectedExecutionException si la file du pool de hachage est pleine
      */
-    public ReponseAuthentification register(Connexion request) {
+    public CompletableFuture<ReponseAuthentification> register(Connexion request) {
         // Vérifie si l’email est déjà enregistré
         if (personRepository.findByEmail(request.getEmail()).isPresent()) {
-            return new ReponseAuthentification(false, "Cet email est déjà utilisé", null, null, null);
+            return CompletableFuture.completedFuture(
+                    new ReponseAuthentification(false, "Cet email est déjà utilisé", null, null, null));
+        }
+        if (request.getPassword() == null || request.getPassword().isEmpty()) {
+            return CompletableFuture.completedFuture(
+                    new ReponseAuthentification(false, "Le mot de passe est obligatoire", null, null, null));
         }
 
-        // Création du nouvel utilisateur
-        Person newUser = new Person();
-        newUser.setEmail(request.getEmail());
-        newUser.setName(request.getName());
-        newUser.setGender(request.getGender());
-        newUser.setPassword(passwordEncoder.encode(request.getPassword())); // mot de passe haché avec BCrypt
-
-        // Enregistrement et génération du token
-        Person saved = personRepository.save(newUser);
-        String token = jwtUtil.generateToken(saved.getEmail());
+        // mot de passe haché avec BCrypt, sur le pool de hachage
+        return passwordHashingService.encode(request.getPassword()).thenApplyAsync(hash -> {
+            // Création du nouvel utilisateur
+            Person newUser = new Person();
+            newUser.setEmail(request.getEmail());
+            newUser.setName(request.getName());
+            newUser.setGender(request.getGender());
+            newUser.setPassword(hash);
 
-        return new ReponseAuthentification(true, "Utilisateur créé avec succès", saved.getId(), saved.getName(), token);
+            // Enregistrement et ouverture de la session
+            Person saved = personRepository.save(newUser);
+            return openSession(saved, "Utilisateur créé avec succès");
+        }, taskExecutor);
     }
 }
@@ -0,0 +1,281 @@
+package ikasaidi.backend_lab.services;
+
+import ikasaidi.backend_lab.models.Series;
+import ikasaidi.backend_lab.repositories.RatingsRepository;
+import ikasaidi.backend_lab.repositories.SeriesRepository;
+import ikasaidi.backend_lab.repositories.VuesHistoryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+/**
+ * Moteur de recommandation par filtrage collaboratif « série à série ».
+ *
+ * Deux séries sont considérées proches lorsqu’elles sont regardées ({@link ikasaidi.backend_lab.models.VuesHistory})
+ * ou notées ({@link ikasaidi.backend_lab.models.Ratings}) par les mêmes personnes. Chaque personne est vue comme un
+ * vecteur de poids par série (1 par série regardée + note moyenne / 5 par série notée), et la similarité entre deux
+ * séries est le cosinus de leurs vecteurs de personnes.
+ *
+ *
+ * Le modèle est stocké sous forme compacte :
+ * <ul>
+ *     <li>Pour chaque série, la liste triée de ses N plus proches voisines (tableaux d’indices et de scores).</li>
+ *     <li>Pour chaque personne, le tableau trié des séries avec lesquelles elle a interagi.</li>
+ * </ul>
+ * Il est reconstruit périodiquement en arrière-plan (tâche planifiée), le calcul des voisins étant réparti
+ * sur tous les cœurs. Le nouveau modèle remplace l’ancien d’un seul coup : les requêtes ne sont jamais bloquées
+ * et servent toujours un modèle complet.
+ *
+ *
+ * Tant qu’aucun modèle n’est disponible, ou pour une personne sans interaction connue,
+ * la recommandation par genres du {@link RecommendationService} est utilisée.
+ *
+ * @author Rachel
+ * @version 1.0
+ */
+@Service
+public class CollaborativeRecommendationService {
+
+    /** Logger pour suivre les reconstructions du modèle. */
+    private static final Logger logger = Logger.getLogger(CollaborativeRecommendationService.class.getName());
+
+    /** Nombre maximal de séries recommandées (même volume que la recommandation par genres). */
+    private static final int RECOMMENDATION_LIMIT = 9;
+
+    private final VuesHistoryRepository vuesHistoryRepository;
+    private final RatingsRepository ratingsRepository;
+    private final SeriesRepository seriesRepository;
+    private final RecommendationService recommendationService;
+
+    /** Nombre de voisins conservés par série. */
+    private final int neighbours;
+
+    /** Modèle courant, remplacé atomiquement après chaque reconstruction ({@code null} avant la première). */
+    private volatile Model model;
+
+    /**
+     * Constructeur injectant les dépendances et la configuration.
+     *
+     * @param vuesHistoryRepository repository de l’historique des vues (co-visionnage)
+     * @param ratingsRepository repository des évaluations (co-notation)
+     * @param seriesRepository repository des séries
+     * @param recommendationService recommandation par genres utilisée en repli
+     * @param neighbours nombre de voisins conservés par série (propriété <code>recommendation.cf.neighbours</code>)
+     */
+    public CollaborativeRecommendationService(VuesHistoryRepository vuesHistoryRepository,
+                                              RatingsRepository ratingsRepository,
+                                              SeriesRepository seriesRepository,
+                                              RecommendationService recommendationService,
+                                              @Value("${recommendation.cf.neighbours:20}") int neighbours) {
+        this.vuesHistoryRepository = vuesHistoryRepository;
+        this.ratingsRepository = ratingsRepository;
+        this.seriesRepository = seriesRepository;
+        this.recommendationService = recommendationService;
+        this.neighbours = neighbours;
+    }
+
+    /**
+     * Génère les recommandations d’une personne à partir des voisins des séries qu’elle a vues ou notées.
+     *
+     * Le score d’une série candidate est la somme de ses similarités avec les séries de la personne ;
+     * les séries déjà vues ou notées sont exclues. Les séries retenues sont lues avec leur détail
+     * (épisodes, évaluations, visionnages).
+     *
+     *
+     * @param personId identifiant de la personne
+     * @return une liste de séries recommandées, de la plus pertinente à la moins pertinente
+     * @throws RuntimeException si la personne n’existe pas (recommandation par genres en repli)
+     */
+    @Transactional(readOnly = true)
+    public List<Series> getPersonsRecommendation(Integer personId) {
+        Model current = model;
+        int[] items = current == null ? null : current.itemsByPerson.get(personId);
+        if (items == null) {
+            return recommendationService.getPersonsRecommendation(personId);
+        }
+
+        // 1️⃣ Cumul des similarités des voisins (quelques lectures de tableaux)
+        Map<Integer, Double> scores = new HashMap<>();
+        for (int item : items) {
+            int[] ns = current.neighbours[item];
+            float[] sims = current.similarities[item];
+            for (int k = 0; k < ns.length; k++) {
+                if (Arrays.binarySearch(items, ns[k]) < 0) {
+                    scores.merge(ns[k], (double) sims[k], Double::sum);
+                }
+            }
+        }
+
+        // 2️⃣ Meilleurs candidats
+        List<Map.Entry<Integer, Double>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<Integer, Double>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey()));
+        List<Long> ids = new ArrayList<>(RECOMMENDATION_LIMIT);
+        for (int i = 0; i < ranked.size() && i < RECOMMENDATION_LIMIT; i++) {
+            ids.add(current.seriesIds[ranked.get(i).getKey()]);
+        }
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // 3️⃣ Chargement des seules séries retenues, dans l’ordre du classement
+        Map<Long, Series> byId = new HashMap<>();
+        for (Series series : seriesRepository.findAllById(ids)) {
+            byId.put(series.getId(), series);
+        }
+        List<Series> recommendations = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Series series = byId.get(id);
+            if (series != null) recommendations.add(series);
+        }
+        return FetchPlans.seriesDetails(recommendations);
+    }
+
+    /**
+     * Reconstruit le modèle en arrière-plan, selon la période configurée
+     * (propriétés <code>recommendation.cf.initial-delay-ms</code> et <code>recommendation.cf.refresh-ms</code>).
+     */
+    @Scheduled(initialDelayString = "${recommendation.cf.initial-delay-ms:60000}",
+            fixedDelayString = "${recommendation.cf.refresh-ms:3600000}")
+    public void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            logger.warning("Reconstruction du modèle collaboratif impossible : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Construit un nouveau modèle à partir des vues et des notes, puis le publie.
+     */
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+
+        // 1️⃣ Poids par (personne, série), lus sous forme de tuples agrégés par la base
+        Map<Long, Integer> indexBySeries = new HashMap<>();
+        List<Long> seriesIds = new ArrayList<>();
+        Map<Integer, Map<Integer, Double>> weightsByPerson = new HashMap<>();
+
+        for (VuesHistoryRepository.PersonSeriesPair pair : vuesHistoryRepository.findDistinctPersonSeriesPairs()) {
+            int item = indexBySeries.computeIfAbsent(pair.getSeriesId(), id -> { seriesIds.add(id); return seriesIds.size() - 1; });
+            weightsByPerson.computeIfAbsent(pair.getPersonId(), p -> new HashMap<>()).merge(item, 1.0, Double::sum);
+        }
+        for (RatingsRepository.PersonSeriesScore row : ratingsRepository.averageByPersonAndSeries()) {
+            int item = indexBySeries.computeIfAbsent(row.getSeriesId(), id -> { seriesIds.add(id); return seriesIds.size() - 1; });
+            weightsByPerson.computeIfAbsent(row.getPersonId(), p -> new HashMap<>()).merge(item, row.getScore() / 5.0, Double::sum);
+        }
+
+        int n = seriesIds.size();
+
+        // 2️⃣ Vecteurs compacts par personne et index inversé série → personnes
+        Map<Integer, int[]> itemsByPerson = new HashMap<>();
+        int[][] userItems = new int[weightsByPerson.size()][];
+        double[][] userWeights = new double[weightsByPerson.size()][];
+        List<List<int[]>> usersByItem = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) usersByItem.add(new ArrayList<>());
+        double[] norms = new double[n];
+
+        int u = 0;
+        for (Map.Entry<Integer, Map<Integer, Double>> entry : weightsByPerson.entrySet()) {
+            int[] items = entry.getValue().keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+            double[] weights = new double[items.length];
+            for (int k = 0; k < items.length; k++) {
+                weights[k] = entry.getValue().get(items[k]);
+                norms[items[k]] += weights[k] * weights[k];
+                usersByItem.get(items[k]).add(new int[]{u, k});
+            }
+            userItems[u] = items;
+            userWeights[u] = weights;
+            itemsByPerson.put(entry.getKey(), items);
+            u++;
+        }
+        for (int i = 0; i < n; i++) norms[i] = Math.sqrt(norms[i]);
+
+        // 3️⃣ Voisins de chaque série, calculés en parallèle (un accumulateur par fil)
+        int[][] neighbourIds = new int[n][];
+        float[][] neighbourSims = new float[n][];
+        ThreadLocal<double[]> accumulators = ThreadLocal.withInitial(() -> new double[n]);
+
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            pool.submit(() -> IntStream.range(0, n).parallel().forEach(i -> {
+                double[] acc = accumulators.get();
+                List<Integer> touched = new ArrayList<>();
+
+                for (int[] ref : usersByItem.get(i)) {
+                    double wi = userWeights[ref[0]][ref[1]];
+                    int[] items = userItems[ref[0]];
+                    double[] weights = userWeights[ref[0]];
+                    for (int k = 0; k < items.length; k++) {
+                        int j = items[k];
+                        if (j == i) continue;
+                        if (acc[j] == 0) touched.add(j);
+                        acc[j] += wi * weights[k];
+                    }
+                }
+
+                // Sélection des N meilleurs voisins (tas minimum de taille N)
+                PriorityQueue<double[]> top = new PriorityQueue<>(Comparator.comparingDouble(a -> a[1]));
+                for (int j : touched) {
+                    double sim = acc[j] / (norms[i] * norms[j]);
+                    acc[j] = 0;
+                    top.add(new double[]{j, sim});
+                    if (top.size() > neighbours) top.poll();
+                }
+
+                int size = top.size();
+                int[] ids = new int[size];
+                float[] sims = new float[size];
+                for (int k = size - 1; k >= 0; k--) {
+                    double[] best = top.poll();
+                    ids[k] = (int) best[0];
+                    sims[k] = (float) best[1];
+                }
+                neighbourIds[i] = ids;
+                neighbourSims[i] = sims;
+            })).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reconstruction interrompue", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Échec de la reconstruction du modèle", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+
+        // 4️⃣ Publication atomique du nouveau modèle
+        long[] ids = seriesIds.stream().mapToLong(Long::longValue).toArray();
+        model = new Model(ids, neighbourIds, neighbourSims, itemsByPerson);
+
+        logger.info("Modèle collaboratif reconstruit : " + n + " séries, " + itemsByPerson.size()
+                + " personnes en " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * Modèle immuable de similarité entre séries.
+     */
+    private static final class Model {
+        /** Identifiant de série pour chaque indice interne. */
+        private final long[] seriesIds;
+        /** Indices des voisins de chaque série, du plus proche au moins proche. */
+        private final int[][] neighbours;
+        /** Similarités correspondant à {@link #neighbours}. */
+        private final float[][] similarities;
+        /** Indices (triés) des séries vues ou notées par chaque personne. */
+        private final Map<Integer, int[]> itemsByPerson;
+
+        private Model(long[] seriesIds, int[][] neighbours, float[][] similarities, Map<Integer, int[]> itemsByPerson) {
+            this.seriesIds = seriesIds;
+            this.neighbours = neighbours;
+            this.similarities = similarities;
+            this.itemsByPerson = itemsByPerson;
+        }
+    }
+}
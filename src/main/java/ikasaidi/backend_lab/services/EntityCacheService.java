@@ -0,0 +1,132 @@
+package ikasaidi.backend_lab.services;
+
+import ikasaidi.backend_lab.models.Episodes;
+import ikasaidi.backend_lab.models.Person;
+import ikasaidi.backend_lab.models.Series;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service d’accès au cache de second niveau Hibernate.
+ *
+ * Les entités {@link Series}, {@link Episodes} et {@link Person} sont conservées en mémoire
+ * (régions configurées dans <code>ehcache.xml</code>, taille bornée et expiration).
+ * Ce service permet :
+ * <ul>
+ *     <li>D’évincer une entrée après une modification ou une suppression.</li>
+ *     <li>D’évincer une série et un épisode après la validation d’une écriture faite hors Hibernate
+ *         (agrégats de notes).</li>
+ *     <li>De consulter les compteurs de succès et d’échecs de chaque région.</li>
+ * </ul>
+ *
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+@Service
+public class EntityCacheService {
+
+    /** Régions du cache de second niveau suivies par les statistiques. */
+    private static final List<String> REGIONS = List.of("series", "episodes", "person");
+
+    /** Fabrique JPA donnant accès au cache et aux statistiques Hibernate. */
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Constructeur injectant la fabrique JPA.
+     *
+     * @param entityManagerFactory fabrique des gestionnaires d’entités
+     */
+    public EntityCacheService(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * Retire une série du cache.
+     *
+     * @param id identifiant de la série
+     */
+    public void evictSeries(Long id) {
+        entityManagerFactory.getCache().evict(Series.class, id);
+    }
+
+    /**
+     * Retire un épisode du cache.
+     *
+     * @param id identifiant de l’épisode
+     */
+    public void evictEpisode(Long id) {
+        entityManagerFactory.getCache().evict(Episodes.class, id);
+    }
+
+    /**
+     * Retire une série et un épisode du cache une fois la transaction courante validée,
+     * ou immédiatement s’il n’y a pas de transaction.
+     *
+     * Utilisé après une mise à jour SQL des agrégats de notes, qu’Hibernate ne voit pas :
+     * évincer avant la validation laisserait une autre lecture remettre l’ancienne valeur en cache.
+     *
+     * @param seriesId identifiant de la série (ignoré si {@code null})
+     * @param episodeId identifiant de l’épisode (ignoré si {@code null})
+     */
+    public void evictAfterCommit(Long seriesId, Long episodeId) {
+        Runnable evict = () -> {
+            if (seriesId != null) evictSeries(seriesId);
+            if (episodeId != null) evictEpisode(episodeId);
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict.run();
+            }
+        });
+    }
+
+    /**
+     * Retire une personne du cache.
+     *
+     * @param id identifiant de la personne
+     */
+    public void evictPerson(Integer id) {
+        entityManagerFactory.getCache().evict(Person.class, id);
+    }
+
+    /**
+     * Retourne les statistiques de chaque région et du cache de requêtes.
+     *
+     * @return pour chaque région : succès, échecs et insertions
+     */
+    public Map<String, Map<String, Long>> getStatistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Map<String, Map<String, Long>> result = new LinkedHashMap<>();
+
+        for (String region : REGIONS) {
+            CacheRegionStatistics stats = statistics.getDomainDataRegionStatistics(region);
+            Map<String, Long> values = new LinkedHashMap<>();
+            values.put("hits", stats.getHitCount());
+            values.put("misses", stats.getMissCount());
+            values.put("puts", stats.getPutCount());
+            result.put(region, values);
+        }
+
+        Map<String, Long> queries = new LinkedHashMap<>();
+        queries.put("hits", statistics.getQueryCacheHitCount());
+        queries.put("misses", statistics.getQueryCacheMissCount());
+        queries.put("puts", statistics.getQueryCachePutCount());
+        result.put("queries", queries);
+        return result;
+    }
+}
@@ -0,0 +1,98 @@
+package ikasaidi.backend_lab.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ikasaidi.backend_lab.DTO.RatingExportDto;
+import ikasaidi.backend_lab.DTO.ViewExportDto;
+import ikasaidi.backend_lab.repositories.RatingsRepository;
+import ikasaidi.backend_lab.repositories.VuesHistoryRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Service d’export complet de l’historique de visionnage et des évaluations au format NDJSON
+ * (une ligne JSON par enregistrement), utilisé par les extractions analytiques.
+ *
+ * Plutôt que de charger toute la table dans une liste avant la sérialisation :
+ * <ol>
+ *     <li>La requête est lue en flux depuis un curseur JDBC (paquets de 500 lignes).</li>
+ *     <li>Chaque ligne est une projection (identifiants et colonnes simples) : aucune entité,
+ *         ni personne ni série, n’est chargée ou conservée dans le contexte de persistance.</li>
+ *     <li>Chaque ligne est écrite dès sa lecture, et la sortie est vidée toutes les {@value #FLUSH_EVERY} lignes.</li>
+ * </ol>
+ * La mémoire utilisée reste donc constante quel que soit le nombre de lignes.
+ *
+ * @author Rachel
+ * @version 1.0
+ */
+@Service
+public class ExportService {
+
+    /** Nombre de lignes écrites entre deux envois au client. */
+    static final int FLUSH_EVERY = 500;
+
+    private final VuesHistoryRepository vuesHistoryRepository;
+    private final RatingsRepository ratingsRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Constructeur injectant les dépendances.
+     *
+     * @param vuesHistoryRepository repository de l’historique des vues
+     * @param ratingsRepository repository des évaluations
+     * @param objectMapper sérialiseur JSON de l’application
+     */
+    public ExportService(VuesHistoryRepository vuesHistoryRepository,
+                         RatingsRepository ratingsRepository,
+                         ObjectMapper objectMapper) {
+        this.vuesHistoryRepository = vuesHistoryRepository;
+        this.ratingsRepository = ratingsRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Écrit tout l’historique de visionnage dans le flux de sortie.
+     *
+     * @param out flux de sortie (non fermé par cette méthode)
+     * @return nombre de lignes écrites
+     * @throws IOException si l’écriture échoue (client déconnecté, par exemple)
+     */
+    @Transactional(readOnly = true)
+    public long exportViews(OutputStream out) throws IOException {
+        try (Stream<ViewExportDto> rows = vuesHistoryRepository.streamForExport()) {
+            return write(rows, out);
+        }
+    }
+
+    /**
+     * Écrit toutes les évaluations dans le flux de sortie.
+     *
+     * @param out flux de sortie (non fermé par cette méthode)
+     * @return nombre de lignes écrites
+     * @throws IOException si l’écriture échoue (client déconnecté, par exemple)
+     */
+    @Transactional(readOnly = true)
+    public long exportRatings(OutputStream out) throws IOException {
+        try (Stream<RatingExportDto> rows = ratingsRepository.streamForExport()) {
+            return write(rows, out);
+        }
+    }
+
+    private long write(Stream<?> rows, OutputStream out) throws IOException {
+        long count = 0;
+        Iterator<?> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            out.write(objectMapper.writeValueAsBytes(iterator.next()));
+            out.write('\n');
+            if (++count % FLUSH_EVERY == 0) {
+                out.flush();
+            }
+        }
+        out.flush();
+        return count;
+    }
+}
@@ -0,0 +1,76 @@
+package ikasaidi.backend_lab.services;
+
+import ikasaidi.backend_lab.models.Person;
+import ikasaidi.backend_lab.models.Ratings;
+import ikasaidi.backend_lab.models.Series;
+import org.hibernate.Hibernate;
+
+import java.util.Collection;
+
+/**
+ * Plans de chargement des réponses détaillées (une personne, une ou plusieurs séries).
+ *
+ * Le module Hibernate de Jackson écrit à <code>null</code> toute collection non chargée : les endpoints
+ * qui renvoient une entité complète chargent donc eux-mêmes, dans leur transaction, les associations
+ * que leur JSON expose. Les collections sont des listes (plusieurs ne peuvent pas être jointes dans
+ * une même requête) : elles sont initialisées une à une, et le chargement par lots
+ * (<code>hibernate.default_batch_fetch_size</code>) regroupe celles des entités voisines.
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+final class FetchPlans {
+
+    private FetchPlans() {
+    }
+
+    /**
+     * Charge le détail d’une personne : historique (séries et leurs épisodes),
+     * évaluations (avec leur épisode) et visionnages.
+     *
+     * @param person personne gérée par la transaction en cours
+     * @return la même personne
+     */
+    static Person personDetails(Person person) {
+        Hibernate.initialize(person.getHistory());
+        for (Series series : person.getHistory()) {
+            Hibernate.initialize(series.getEpisodes());
+        }
+        initializeRatings(person.getRatings());
+        Hibernate.initialize(person.getViewsHistories());
+        return person;
+    }
+
+    /**
+     * Charge le détail d’une série : épisodes, évaluations (avec leur épisode) et visionnages.
+     *
+     * @param series série gérée par la transaction en cours
+     * @return la même série
+     */
+    static Series seriesDetails(Series series) {
+        Hibernate.initialize(series.getEpisodes());
+        initializeRatings(series.getRatings());
+        Hibernate.initialize(series.getViewsHistories());
+        return series;
+    }
+
+    /**
+     * Charge le détail de plusieurs séries (voir {@link #seriesDetails(Series)}).
+     *
+     * @param series séries gérées par la transaction en cours
+     * @return les mêmes séries
+     */
+    static <C extends Collection<Series>> C seriesDetails(C series) {
+        for (Series s : series) {
+            seriesDetails(s);
+        }
+        return series;
+    }
+
+    private static void initializeRatings(Collection<Ratings> ratings) {
+        Hibernate.initialize(ratings);
+        for (Ratings rating : ratings) {
+            Hibernate.initialize(rating.getEpisode());
+        }
+    }
+}
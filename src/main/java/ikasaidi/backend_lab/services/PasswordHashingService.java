@@ -0,0 +1,201 @@
+package ikasaidi.backend_lab.services;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Service de hachage et de vérification des mots de passe (BCrypt) hors des fils HTTP.
+ *
+ * Un calcul BCrypt prend plusieurs dizaines de millisecondes : exécuté sur le fil de la requête,
+ * une rafale de connexions occupe tous les fils de Tomcat et bloque les lectures du catalogue.
+ * Les calculs sont donc confiés à un pool dédié :
+ * <ul>
+ *     <li>Nombre de fils fixe (<code>password.hashing.threads</code>, 0 : un par processeur).</li>
+ *     <li>File d’attente bornée (<code>password.hashing.queue-capacity</code>) : au-delà, le calcul est refusé
+ *         par une {@link RejectedExecutionException} et le contrôleur répond 429.</li>
+ *     <li>Durée des calculs (vérification et hachage) et profondeur de la file suivies par {@link #getStatistics()}.</li>
+ * </ul>
+ *
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+@Service
+public class PasswordHashingService {
+
+    private final BCryptPasswordEncoder passwordEncoder;
+
+    /** Pool des calculs BCrypt. */
+    private final ThreadPoolExecutor executor;
+
+    /** Durées des vérifications ({@code matches}). */
+    private final Timer matchesTimer = new Timer();
+
+    /** Durées des hachages ({@code encode}). */
+    private final Timer encodeTimer = new Timer();
+
+    /** Calculs refusés parce que la file était pleine. */
+    private final LongAdder rejected = new LongAdder();
+
+    /** Plus grande profondeur de file observée. */
+    private final AtomicInteger maxQueued = new AtomicInteger();
+
+    /**
+     * Constructeur injectant l’encodeur et la configuration du pool.
+     *
+     * @param passwordEncoder encodeur BCrypt (coût <code>password.bcrypt.strength</code>)
+     * @param threads nombre de fils de calcul (0 : nombre de processeurs)
+     * @param queueCapacity nombre maximal de calculs en attente
+     */
+    public PasswordHashingService(BCryptPasswordEncoder passwordEncoder,
+                                  @Value("${password.hashing.threads:0}") int threads,
+                                  @Value("${password.hashing.queue-capacity:100}") int queueCapacity) {
+        this.passwordEncoder = passwordEncoder;
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> {
+                    Thread thread = new Thread(r, "password-hash-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Arrête le pool (les calculs en attente sont abandonnés).
+     */
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Vérifie un mot de passe saisi contre son haché BCrypt.
+     *
+     * @param rawPassword mot de passe saisi
+     * @param encodedPassword haché enregistré
+     * @return résultat de la vérification, disponible à la fin du calcul
+     * @throws RejectedExecutionException si la file d’attente est pleine
+     */
+    public CompletableFuture<Boolean> matches(String rawPassword, String encodedPassword) {
+        return submit(matchesTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Hache un mot de passe avec le coût configuré.
+     *
+     * @param rawPassword mot de passe en clair
+     * @return haché BCrypt, disponible à la fin du calcul
+     * @throws RejectedExecutionException si la file d’attente est pleine
+     */
+    public CompletableFuture<String> encode(String rawPassword) {
+        return submit(encodeTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Indique si un mot de passe enregistré doit être haché de nouveau :
+     * mot de passe en clair, ou haché BCrypt d’un coût inférieur au coût configuré.
+     *
+     * @param storedPassword mot de passe enregistré
+     * @return {@code true} s’il faut enregistrer un nouveau haché
+     */
+    public boolean needsRehash(String storedPassword) {
+        return !isHashed(storedPassword) || passwordEncoder.upgradeEncoding(storedPassword);
+    }
+
+    /**
+     * Indique si un mot de passe enregistré est un haché BCrypt.
+     *
+     * @param storedPassword mot de passe enregistré
+     * @return {@code true} si c’est un haché, {@code false} s’il est en clair
+     */
+    public boolean isHashed(String storedPassword) {
+        return storedPassword.startsWith("$2a$");
+    }
+
+    /**
+     * Retourne l’état du pool et les durées des calculs.
+     *
+     * @return pour la file : fils, calculs en cours, en attente, pic d’attente, refus ;
+     *         pour chaque opération : nombre, durée moyenne et maximale (µs)
+     */
+    public Map<String, Map<String, Long>> getStatistics() {
+        Map<String, Long> queue = new LinkedHashMap<>();
+        queue.put("threads", (long) executor.getMaximumPoolSize());
+        queue.put("active", (long) executor.getActiveCount());
+        queue.put("queued", (long) executor.getQueue().size());
+        queue.put("maxQueued", (long) maxQueued.get());
+        queue.put("capacity", (long) (executor.getQueue().size() + executor.getQueue().remainingCapacity()));
+        queue.put("rejected", rejected.sum());
+
+        Map<String, Map<String, Long>> result = new LinkedHashMap<>();
+        result.put("queue", queue);
+        result.put("matches", matchesTimer.toMap());
+        result.put("encode", encodeTimer.toMap());
+        return result;
+    }
+
+    /**
+     * Confie un calcul au pool en mesurant sa durée.
+     */
+    private <T> CompletableFuture<T> submit(Timer timer, Supplier<T> hashing) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                long start = System.nanoTime();
+                try {
+                    result.complete(hashing.get());
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    timer.record(System.nanoTime() - start);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw e;
+        }
+        maxQueued.accumulateAndGet(executor.getQueue().size(), Math::max);
+        return result;
+    }
+
+    /**
+     * Compteurs de durée d’une opération.
+     */
+    private static final class Timer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        Map<String, Long> toMap() {
+            long n = count.sum();
+            Map<String, Long> values = new LinkedHashMap<>();
+            values.put("count", n);
+            values.put("avgMicros", n == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalNanos.sum() / n));
+            values.put("maxMicros", TimeUnit.NANOSECONDS.toMicros(maxNanos.get()));
+            return values;
+        }
+    }
+}
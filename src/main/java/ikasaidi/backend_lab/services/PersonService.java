@@ -1,11 +1,15 @@
 package ikasaidi.backend_lab.services;
 
+import ikasaidi.backend_lab.DTO.PersonDto;
 import ikasaidi.backend_lab.models.Person;
 import ikasaidi.backend_lab.repositories.PersonRepository;
-import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Logger;
@@ -23,7 +27,9 @@ import java.util.logging.Logger;
  *
  *
  * Elle interagit directement avec le {@link PersonRepository}
- * pour manipuler les entités {@link Person}.
+ * pour manipuler les entités {@link Person}. Les personnes modifiées ou supprimées
+ * sont retirées du cache de second niveau ({@link EntityCacheService}) ; les sessions d’une personne
+ * supprimée sont révoquées ({@link RefreshTokenService}).
  *
  *
  * @author Rachel
@@ -37,6 +43,12 @@ public class PersonService {
     /** Repository pour la gestion des entités {@link Person}. */
     private final PersonRepository personRepository;
 
+    /** Cache de second niveau à invalider après chaque écriture. */
+    private final EntityCacheService entityCacheService;
+
+    /** Sessions de connexion à révoquer à la suppression d’une personne. */
+    private final RefreshTokenService refreshTokenService;
+
     /** Logger utilisé pour enregistrer les messages et erreurs liées aux fichiers. */
     private static final Logger logger = Logger.getLogger(PersonService.class.getName());
 
@@ -47,32 +59,48 @@ public class PersonService {
      * Constructeur injectant le repository.
      *
      * @param personRepository repository de gestion des personnes
+     * @param entityCacheService cache des entités à invalider
+     * @param refreshTokenService sessions de connexion
      */
-    public PersonService(PersonRepository personRepository) {
+    public PersonService(PersonRepository personRepository, EntityCacheService entityCacheService,
+                         RefreshTokenService refreshTokenService) {
         this.personRepository = personRepository;
+        this.entityCacheService = entityCacheService;
+        this.refreshTokenService = refreshTokenService;
     }
 
     /**
      * Lit le fichier CSV contenant les utilisateurs et retourne une liste de {@link Person}.
      *
      * Le fichier est lu ligne par ligne à partir du chemin <code>data/people.csv</code>.
+     *
+     * @return une liste de personnes lues depuis le fichier CSV
+     * @see #listPersons(Path)
+     */
+    public List<Person> listPersons() {
+        return listPersons(Path.of("data/people.csv"));
+    }
+
+    /**
+     * Lit un fichier CSV d’utilisateurs et retourne une liste de {@link Person}.
+     *
      * Les colonnes attendues sont :
      * <ul>
      *     <li>id</li>
      *     <li>prénom et nom</li>
      *     <li>email</li>
      *     <li>genre</li>
-     *     <li>mot de passe</li>
+     *     <li>mot de passe (facultatif : absent de <code>data/people.csv</code>)</li>
      * </ul>
      *
      *
+     * @param personFile fichier CSV à lire (la première ligne contient les en-têtes)
      * @return une liste de personnes lues depuis le fichier CSV
      */
-    public List<Person> listPersons() {
-        String personFilePath = "data/people.csv";
+    public List<Person> listPersons(Path personFile) {
         List<Person> memoirePerson = new ArrayList<>();
 
-        try (BufferedReader br = new BufferedReader(new FileReader(personFilePath))) {
+        try (BufferedReader br = Files.newBufferedReader(personFile)) {
             // Ignorer la première ligne (en-têtes du fichier)
             br.readLine();
 
@@ -84,7 +112,7 @@ public class PersonService {
                     String name = (peopleData[1].trim() + " " + peopleData[2].trim()).trim();
                     String email = peopleData[3].trim();
                     String gender = peopleData[4].trim();
-                    String password = peopleData[5].trim();
+                    String password = peopleData.length > 5 ? peopleData[5].trim() : null;
 
                     memoirePerson.add(new Person(id, name, gender, email, password));
                 }
@@ -128,6 +156,15 @@ public class PersonService {
         return filtered;
     }
 
+    /**
+     * Indique si la table des personnes est vide (une requête <code>COUNT</code>, sans charger les personnes).
+     *
+     * @return vrai si aucune personne n’est enregistrée
+     */
+    public boolean hasNoPersons() {
+        return personRepository.count() == 0;
+    }
+
     /**
      * Récupère toutes les personnes stockées dans la base de données.
      *
@@ -137,6 +174,17 @@ public class PersonService {
         return personRepository.findAll();
     }
 
+    /**
+     * Récupère une page de personnes triées par identifiant (pagination par clé).
+     *
+     * @param after identifiant de la dernière personne de la page précédente (0 pour la première page)
+     * @param limit nombre maximal de personnes à retourner
+     * @return les personnes dont l’identifiant est supérieur à {@code after}, sans mot de passe
+     */
+    public List<PersonDto> getPersonsPage(int after, Limit limit) {
+        return personRepository.findPage(after, limit);
+    }
+
     /**
      * Recherche une personne par son identifiant unique.
      *
@@ -149,6 +197,19 @@ public class PersonService {
                 .orElseThrow(() -> new RuntimeException("Personne non trouvée"));
     }
 
+    /**
+     * Recherche une personne et charge son détail (historique, évaluations, visionnages),
+     * tel que renvoyé par <code>GET /persons/{id}</code>.
+     *
+     * @param id identifiant de la personne à rechercher
+     * @return la personne correspondante, avec ses collections chargées
+     * @throws RuntimeException si la personne n’existe pas
+     */
+    @Transactional(readOnly = true)
+    public Person getPersonDetails(int id) {
+        return FetchPlans.personDetails(findPersonById(id));
+    }
+
     /**
      * Ajoute une nouvelle personne dans la base de données.
      *
@@ -171,18 +232,24 @@ public class PersonService {
         p.setName(newData.getName());
         p.setEmail(newData.getEmail());
         p.setGender(newData.getGender());
-        return personRepository.save(p);
+        Person saved = personRepository.save(p);
+        entityCacheService.evictPerson(id);
+        return saved;
     }
 
     /**
-     * Supprime une personne de la base de données.
+     * Supprime une personne de la base de données, après avoir révoqué toutes ses sessions :
+     * ses tokens d’accès encore valides sont refusés dès la requête suivante.
      *
      * @param id identifiant de la personne à supprimer
      * @return {@code true} si la suppression est réussie, {@code false} sinon
      */
+    @Transactional
     public boolean deletePerson(int id) {
         if (personRepository.existsById(id)) {
+            refreshTokenService.revokeAll(id);
             personRepository.deleteById(id);
+            entityCacheService.evictPerson(id);
             return true;
         }
         return false;
@@ -0,0 +1,718 @@
+package ikasaidi.backend_lab.services;
+
+import ikasaidi.backend_lab.models.Episodes;
+import ikasaidi.backend_lab.repositories.EpisodesRepository;
+import ikasaidi.backend_lab.repositories.SeriesRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Service d’ingestion différée des évaluations (write-behind).
+ *
+ * Lors des pics d’activité, chaque note n’est pas écrite immédiatement en base :
+ * <ol>
+ *     <li>La note est validée (bornes, existence de la série ou de l’épisode ; la personne est l’utilisateur
+ *         authentifié, dont l’identifiant vient du token et n’est pas relu).</li>
+ *     <li>Elle est ajoutée au journal local puis à une file bornée, et l’appel est acquitté.</li>
+ *     <li>Les notes répétées d’une même personne sur une même cible sont fusionnées : la dernière l’emporte.</li>
+ *     <li>La file est vidée périodiquement, ou dès qu’un seuil est atteint, par lots JDBC dans une seule transaction,
+ *         qui commence par verrouiller les séries et épisodes notés (dans l’ordre des identifiants).</li>
+ *     <li>Dans la même transaction, les écarts de notes sont cumulés par série et par épisode,
+ *         puis ajoutés à leurs agrégats (somme, nombre) en une mise à jour par cible.</li>
+ * </ol>
+ *
+ *
+ * <p>Contre-pression : lorsque la file est pleine, l’appel attend brièvement qu’un lot soit écrit,
+ * puis est refusé ({@code false}) pour que le contrôleur réponde 429.</p>
+ *
+ * <p>Durabilité : le journal est relu au démarrage, et n’est supprimé qu’après la validation
+ * de la transaction qui contient ses notes. Les notes acquittées survivent donc à un arrêt brutal du processus
+ * (et à une coupure de courant si <code>ratings.ingest.journal-sync=true</code>).</p>
+ *
+ * <p>Notes impossibles à écrire : une note dont la série, l’épisode ou la personne a été supprimé depuis
+ * l’acquittement est écartée du lot. Si le lot échoue malgré tout, il est réécrit note par note : une note
+ * refusée seule par la base (contrainte) est écartée, les autres sont écrites. Les notes écartées sont
+ * journalisées et conservées dans <code>ratings-journal.rejected</code> ; elles ne bloquent ni la file
+ * ni le démarrage. Toute autre erreur (base indisponible) remet les notes non écrites en file.</p>
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+@Service
+public class RatingIngestionService {
+
+    /** Logger pour suivre les lots écrits et la reprise du journal. */
+    private static final Logger logger = Logger.getLogger(RatingIngestionService.class.getName());
+
+    /** Journal des notes acquittées qui ne sont pas encore dans un lot en cours d’écriture. */
+    private static final String JOURNAL = "ratings-journal.log";
+
+    /** Journal du lot en cours d’écriture (supprimé après validation). */
+    private static final String FLUSHING = "ratings-journal.flushing";
+
+    /** Notes écartées parce qu’elles ne peuvent pas être écrites (cible ou personne supprimée, contrainte). */
+    private static final String REJECTED = "ratings-journal.rejected";
+
+    /** Code d’erreur SQLite d’une contrainte non respectée (<code>SQLITE_CONSTRAINT</code>). */
+    private static final int SQLITE_CONSTRAINT = 19;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SeriesRepository seriesRepository;
+    private final EpisodesRepository episodesRepository;
+    private final TrendingService trendingService;
+    private final EntityCacheService entityCacheService;
+
+    /** Nombre maximal de couples (personne, cible) en attente. */
+    private final int capacity;
+
+    /** Nombre de notes en attente qui déclenche une écriture immédiate. */
+    private final int flushThreshold;
+
+    /** Intervalle maximal entre deux écritures. */
+    private final long flushIntervalMs;
+
+    /** Attente maximale d’une place dans la file avant refus. */
+    private final long offerTimeoutMs;
+
+    /** Répertoire du journal local. */
+    private final Path journalDir;
+
+    /** Force l’écriture du journal sur disque à chaque note. */
+    private final boolean journalSync;
+
+    // === État partagé (protégé par le moniteur de l’instance) === //
+
+    /** Notes en attente, fusionnées par couple (personne, cible), dans l’ordre d’arrivée. */
+    private LinkedHashMap<RatingKey, Integer> pending = new LinkedHashMap<>();
+
+    /** Nombre de notes du lot en cours d’écriture (elles occupent encore leur place dans la file). */
+    private int inFlight;
+
+    /** Journal ouvert en ajout. */
+    private FileChannel journal;
+
+    /** Verrou qui garantit un seul lot en cours d’écriture. */
+    private final Object flushLock = new Object();
+
+    /** Fil chargé des écritures périodiques et déclenchées par le seuil. */
+    private ScheduledExecutorService flusher;
+
+    /**
+     * Constructeur injectant les dépendances et la configuration.
+     *
+     * @param jdbcTemplate accès JDBC pour les écritures par lot
+     * @param transactionManager gestionnaire de transactions
+     * @param seriesRepository repository des séries (validation)
+     * @param episodesRepository repository des épisodes (validation)
+     * @param trendingService service des tendances à tenir à jour
+     * @param entityCacheService cache des entités, dont les séries et épisodes notés sont évincés
+     * @param capacity nombre maximal de notes en attente
+     * @param flushThreshold nombre de notes en attente qui déclenche une écriture
+     * @param flushIntervalMs intervalle maximal entre deux écritures (ms)
+     * @param offerTimeoutMs attente maximale d’une place dans la file (ms)
+     * @param journalDir répertoire du journal local
+     * @param journalSync force l’écriture du journal sur disque à chaque note
+     */
+    public RatingIngestionService(JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  SeriesRepository seriesRepository,
+                                  EpisodesRepository episodesRepository,
+                                  TrendingService trendingService,
+                                  EntityCacheService entityCacheService,
+                                  @Value("${ratings.ingest.capacity:10000}") int capacity,
+                                  @Value("${ratings.ingest.flush-threshold:500}") int flushThreshold,
+                                  @Value("${ratings.ingest.flush-interval-ms:200}") long flushIntervalMs,
+                                  @Value("${ratings.ingest.offer-timeout-ms:50}") long offerTimeoutMs,
+                                  @Value("${ratings.ingest.journal-dir:data/journal}") String journalDir,
+                                  @Value("${ratings.ingest.journal-sync:false}") boolean journalSync) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.seriesRepository = seriesRepository;
+        this.episodesRepository = episodesRepository;
+        this.trendingService = trendingService;
+        this.entityCacheService = entityCacheService;
+        this.capacity = capacity;
+        this.flushThreshold = flushThreshold;
+        this.flushIntervalMs = flushIntervalMs;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.journalDir = Paths.get(journalDir);
+        this.journalSync = journalSync;
+    }
+
+    // ------------------------------------------------------------
+    // ---------- CYCLE DE VIE ----------
+    // ------------------------------------------------------------
+
+    /**
+     * Rejoue le journal laissé par une exécution précédente, l’écrit en base,
+     * puis démarre les écritures périodiques.
+     */
+    @PostConstruct
+    public void start() {
+        try {
+            Files.createDirectories(journalDir);
+            synchronized (this) {
+                replay(journalDir.resolve(FLUSHING));
+                replay(journalDir.resolve(JOURNAL));
+                rewriteJournal();
+                openJournal();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible d’ouvrir le journal des évaluations", e);
+        }
+        if (!pending.isEmpty()) {
+            logger.info("Reprise du journal : " + pending.size() + " évaluations à écrire");
+            flushQuietly();
+        }
+
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ratings-ingest");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Arrête les écritures périodiques et écrit les notes encore en attente.
+     */
+    @PreDestroy
+    public void stop() {
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        flushQuietly();
+        synchronized (this) {
+            closeJournal();
+        }
+    }
+
+    // ------------------------------------------------------------
+    // ---------- ACQUITTEMENT ----------
+    // ------------------------------------------------------------
+
+    /**
+     * Valide et met en file la note d’une personne pour une série.
+     *
+     * @param seriesId identifiant de la série
+     * @param personId identifiant de la personne
+     * @param score note attribuée (entre 1 et 5)
+     * @return {@code true} si la note est acquittée, {@code false} si la file est pleine
+     * @throws IllegalArgumentException si la note est hors limites ou si la série n’existe pas
+     */
+    public boolean submitSeriesRating(Long seriesId, int personId, int score) {
+        validate(score);
+        if (seriesRepository.findById(seriesId).isEmpty()) {
+            throw new IllegalArgumentException("Série introuvable");
+        }
+        return enqueue(new RatingKey(personId, seriesId, null), score);
+    }
+
+    /**
+     * Valide et met en file la note d’une personne pour un épisode.
+     *
+     * @param episodeId identifiant de l’épisode
+     * @param personId identifiant de la personne
+     * @param score note attribuée (entre 1 et 5)
+     * @return {@code true} si la note est acquittée, {@code false} si la file est pleine
+     * @throws IllegalArgumentException si la note est hors limites ou si l’épisode n’existe pas
+     */
+    public boolean submitEpisodeRating(Long episodeId, int personId, int score) {
+        validate(score);
+        Episodes episode = episodesRepository.findById(episodeId)
+                .orElseThrow(() -> new IllegalArgumentException("Épisode introuvable"));
+        Long seriesId = episode.getSeries() != null ? episode.getSeries().getId() : null;
+        return enqueue(new RatingKey(personId, seriesId, episodeId), score);
+    }
+
+    /**
+     * Retourne le nombre de notes en attente d’écriture.
+     *
+     * @return taille de la file
+     */
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    private void validate(int score) {
+        if (score < 1 || score > 5) {
+            throw new IllegalArgumentException("La note doit être entre 1 et 5");
+        }
+    }
+
+    /**
+     * Ajoute une note au journal puis à la file, en attendant au besoin qu’une place se libère.
+     */
+    private synchronized boolean enqueue(RatingKey key, int score) {
+        // 1️⃣ Contre-pression : une nouvelle cible n’entre que s’il reste de la place
+        if (!pending.containsKey(key) && pending.size() + inFlight >= capacity) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(offerTimeoutMs);
+            requestFlush();
+            while (pending.size() + inFlight >= capacity) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) return false;
+                try {
+                    wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+
+        // 2️⃣ Journal avant acquittement
+        try {
+            appendJournal(key, score);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Écriture du journal des évaluations impossible", e);
+        }
+
+        // 3️⃣ Fusion : la dernière note l’emporte, à la position de la dernière écriture
+        pending.remove(key);
+        pending.put(key, score);
+        if (pending.size() >= flushThreshold) {
+            requestFlush();
+        }
+        return true;
+    }
+
+    private void requestFlush() {
+        if (flusher != null && !flusher.isShutdown()) {
+            flusher.execute(this::flushQuietly);
+        }
+    }
+
+    // ------------------------------------------------------------
+    // ---------- ÉCRITURE PAR LOT ----------
+    // ------------------------------------------------------------
+
+    /**
+     * Écrit toutes les notes en attente dans une seule transaction.
+     *
+     * La file et le journal sont échangés contre des vides (les nouvelles notes continuent d’arriver
+     * pendant l’écriture), puis le journal du lot est supprimé une fois la transaction validée.
+     * Les places occupées par le lot ne sont libérées qu’après la validation.
+     * Si la transaction échoue, le lot est réécrit note par note (voir {@link #writeRows}) ;
+     * les notes qui n’ont pas pu être écrites sont remises en tête de file et le journal est réécrit.
+     *
+     * @return nombre de notes écrites
+     */
+    public int flush() {
+        synchronized (flushLock) {
+            Map<RatingKey, Integer> batch;
+            synchronized (this) {
+                if (pending.isEmpty()) return 0;
+                batch = pending;
+                pending = new LinkedHashMap<>();
+                inFlight = batch.size();
+                rotateJournal();
+            }
+
+            Map<RatingKey, Integer> previous = new HashMap<>();
+            Map<RatingKey, Integer> rejected = new LinkedHashMap<>();
+            Map<RatingKey, Integer> remaining = new LinkedHashMap<>(batch);
+            RuntimeException failure = null;
+            try {
+                writeBatch(batch, previous, rejected);
+                remaining.clear();
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Écriture du lot d’évaluations impossible, nouvel essai note par note", e);
+                failure = writeRows(remaining, previous, rejected);
+            }
+
+            synchronized (this) {
+                if (!remaining.isEmpty()) {
+                    // Les notes arrivées pendant l’écriture sont plus récentes : elles l’emportent
+                    remaining.keySet().removeAll(pending.keySet());
+                    remaining.putAll(pending);
+                    pending = new LinkedHashMap<>(remaining);
+                    try {
+                        closeJournal();
+                        rewriteJournal();
+                        openJournal();
+                    } catch (IOException io) {
+                        failure.addSuppressed(io);
+                    }
+                }
+                inFlight = 0;
+                notifyAll();
+            }
+            try {
+                Files.deleteIfExists(journalDir.resolve(FLUSHING));
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Suppression du journal impossible", e);
+            }
+            reject(rejected);
+
+            int written = 0;
+            for (Map.Entry<RatingKey, Integer> entry : batch.entrySet()) {
+                RatingKey key = entry.getKey();
+                if (remaining.containsKey(key) || rejected.containsKey(key)) continue;
+                entityCacheService.evictAfterCommit(key.seriesId(), key.episodeId());
+                trendingService.onRatingSaved(key.seriesId(), entry.getValue(), previous.get(key));
+                written++;
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return written;
+        }
+    }
+
+    /**
+     * Écrit des notes dans une transaction ; les anciennes notes et les notes écartées
+     * (cible ou personne supprimée) ne sont retenues qu’après la validation.
+     */
+    private void writeBatch(Map<RatingKey, Integer> notes, Map<RatingKey, Integer> previous,
+                            Map<RatingKey, Integer> rejected) {
+        Written result = transactionTemplate.execute(status -> write(notes));
+        previous.putAll(result.previous());
+        for (RatingKey key : result.dropped()) {
+            rejected.put(key, notes.get(key));
+        }
+    }
+
+    /**
+     * Écrit les notes d’un lot refusé une par une, chacune dans sa transaction.
+     *
+     * Une note refusée seule par la base (contrainte) est écartée ; à la première autre erreur,
+     * l’écriture s’arrête. Les notes écrites ou écartées sont retirées de <code>remaining</code>.
+     *
+     * @return l’erreur qui a interrompu l’écriture, ou {@code null}
+     */
+    private RuntimeException writeRows(Map<RatingKey, Integer> remaining, Map<RatingKey, Integer> previous,
+                                       Map<RatingKey, Integer> rejected) {
+        for (Map.Entry<RatingKey, Integer> row : new ArrayList<>(remaining.entrySet())) {
+            try {
+                writeBatch(Map.of(row.getKey(), row.getValue()), previous, rejected);
+            } catch (RuntimeException e) {
+                if (!isConstraintViolation(e)) {
+                    return e;
+                }
+                logger.log(Level.WARNING, "Évaluation refusée par la base : " + journalLine(row.getKey(), row.getValue()), e);
+                rejected.put(row.getKey(), row.getValue());
+            }
+            remaining.remove(row.getKey());
+        }
+        return null;
+    }
+
+    private static boolean isConstraintViolation(Throwable e) {
+        if (e instanceof DataIntegrityViolationException) return true;
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql && sql.getErrorCode() == SQLITE_CONSTRAINT) return true;
+        }
+        return false;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Écriture du lot d’évaluations impossible, nouvel essai au prochain cycle", e);
+        }
+    }
+
+    /**
+     * Écrit un lot : verrouillage des lignes notées (les notes dont la cible ou la personne n’existe plus
+     * sont écartées), lecture de la note existante de chaque cible
+     * (pour l’écart transmis aux tendances et aux agrégats),
+     * puis insertions ou mises à jour groupées en <code>INSERT ... ON CONFLICT DO UPDATE</code>,
+     * et enfin une mise à jour des agrégats par série et par épisode touchés.
+     *
+     * @return anciennes notes des évaluations qui existaient déjà, et notes écartées
+     */
+    private Written write(Map<RatingKey, Integer> batch) {
+        return jdbcTemplate.execute((ConnectionCallback<Written>) con -> {
+            Map<RatingKey, Integer> previous = new HashMap<>();
+            Map<Long, long[]> seriesTotals = new HashMap<>();
+            Map<Long, long[]> episodeTotals = new HashMap<>();
+            Set<RatingKey> dropped = lockTargets(con, batch.keySet());
+            try (PreparedStatement findSeries = con.prepareStatement(
+                         "SELECT score FROM ratings WHERE person_id = ? AND series_id = ? AND episode_id IS NULL");
+                 PreparedStatement findEpisode = con.prepareStatement(
+                         "SELECT score FROM ratings WHERE person_id = ? AND episode_id = ?");
+                 PreparedStatement upsertSeries = con.prepareStatement(
+                         "INSERT INTO ratings (score, person_id, series_id, episode_id) VALUES (?, ?, ?, NULL) "
+                                 + "ON CONFLICT (person_id, series_id) WHERE episode_id IS NULL DO UPDATE SET score = excluded.score");
+                 PreparedStatement upsertEpisode = con.prepareStatement(
+                         "INSERT INTO ratings (score, person_id, series_id, episode_id) VALUES (?, ?, ?, ?) "
+                                 + "ON CONFLICT (person_id, episode_id) DO UPDATE SET score = excluded.score")) {
+
+                for (Map.Entry<RatingKey, Integer> entry : batch.entrySet()) {
+                    RatingKey key = entry.getKey();
+                    if (dropped.contains(key)) continue;
+                    boolean onEpisode = key.episodeId() != null;
+                    PreparedStatement find = onEpisode ? findEpisode : findSeries;
+                    find.setInt(1, key.personId());
+                    find.setLong(2, onEpisode ? key.episodeId() : key.seriesId());
+                    try (ResultSet rs = find.executeQuery()) {
+                        if (rs.next()) {
+                            previous.put(key, rs.getInt(1));
+                        }
+                    }
+
+                    PreparedStatement upsert = onEpisode ? upsertEpisode : upsertSeries;
+                    upsert.setInt(1, entry.getValue());
+                    upsert.setInt(2, key.personId());
+                    setNullableLong(upsert, 3, key.seriesId());
+                    if (onEpisode) {
+                        upsert.setLong(4, key.episodeId());
+                    }
+                    upsert.addBatch();
+
+                    Integer before = previous.get(key);
+                    long sumDelta = before == null ? entry.getValue() : entry.getValue() - before;
+                    long countDelta = before == null ? 1 : 0;
+                    addDelta(seriesTotals, key.seriesId(), sumDelta, countDelta);
+                    addDelta(episodeTotals, key.episodeId(), sumDelta, countDelta);
+                }
+                upsertSeries.executeBatch();
+                upsertEpisode.executeBatch();
+            }
+            updateTotals(con, "series", seriesTotals);
+            updateTotals(con, "episodes", episodeTotals);
+            return new Written(previous, dropped);
+        });
+    }
+
+    /**
+     * Verrouille les séries et épisodes notés avant de lire les notes existantes
+     * (mises à jour sans effet, dans l’ordre des identifiants pour éviter les interblocages).
+     * Une cible absente n’est pas mise à jour : ses notes sont écartées, de même que celles
+     * d’une personne supprimée.
+     *
+     * @return notes dont la cible ou la personne n’existe plus
+     */
+    private static Set<RatingKey> lockTargets(Connection con, Collection<RatingKey> keys) throws SQLException {
+        SortedSet<Long> series = new TreeSet<>();
+        SortedSet<Long> episodes = new TreeSet<>();
+        Set<Integer> persons = new HashSet<>();
+        for (RatingKey key : keys) {
+            if (key.episodeId() != null) {
+                episodes.add(key.episodeId());
+            } else if (key.seriesId() != null) {
+                series.add(key.seriesId());
+            }
+            persons.add(key.personId());
+        }
+        Set<Long> missingSeries = lockRows(con, "series", series);
+        Set<Long> missingEpisodes = lockRows(con, "episodes", episodes);
+        Set<Integer> missingPersons = missingPersons(con, persons);
+
+        Set<RatingKey> dropped = new HashSet<>();
+        for (RatingKey key : keys) {
+            boolean missingTarget = key.episodeId() != null
+                    ? missingEpisodes.contains(key.episodeId())
+                    : missingSeries.contains(key.seriesId());
+            if (missingTarget || missingPersons.contains(key.personId())) {
+                dropped.add(key);
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * @return identifiants des lignes absentes (aucune ligne mise à jour)
+     */
+    private static Set<Long> lockRows(Connection con, String table, SortedSet<Long> ids) throws SQLException {
+        if (ids.isEmpty()) return Set.of();
+        List<Long> ordered = new ArrayList<>(ids);
+        int[] counts;
+        try (PreparedStatement lock = con.prepareStatement(
+                "UPDATE " + table + " SET rating_count = rating_count WHERE id = ?")) {
+            for (Long id : ordered) {
+                lock.setLong(1, id);
+                lock.addBatch();
+            }
+            counts = lock.executeBatch();
+        }
+        Set<Long> missing = new HashSet<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) missing.add(ordered.get(i));
+        }
+        return missing;
+    }
+
+    private static Set<Integer> missingPersons(Connection con, Set<Integer> ids) throws SQLException {
+        Set<Integer> missing = new HashSet<>();
+        try (PreparedStatement find = con.prepareStatement("SELECT 1 FROM person WHERE id = ?")) {
+            for (Integer id : ids) {
+                find.setInt(1, id);
+                try (ResultSet rs = find.executeQuery()) {
+                    if (!rs.next()) missing.add(id);
+                }
+            }
+        }
+        return missing;
+    }
+
+    private static void addDelta(Map<Long, long[]> totals, Long id, long sumDelta, long countDelta) {
+        if (id == null) return;
+        long[] delta = totals.computeIfAbsent(id, k -> new long[2]);
+        delta[0] += sumDelta;
+        delta[1] += countDelta;
+    }
+
+    /**
+     * Ajoute les écarts cumulés aux agrégats de notes d’une table (<code>series</code> ou <code>episodes</code>).
+     */
+    private static void updateTotals(Connection con, String table, Map<Long, long[]> totals) throws SQLException {
+        if (totals.isEmpty()) return;
+        try (PreparedStatement update = con.prepareStatement("UPDATE " + table
+                + " SET rating_sum = rating_sum + ?, rating_count = rating_count + ? WHERE id = ?")) {
+            for (Map.Entry<Long, long[]> entry : totals.entrySet()) {
+                long[] delta = entry.getValue();
+                if (delta[0] == 0 && delta[1] == 0) continue;
+                update.setLong(1, delta[0]);
+                update.setLong(2, delta[1]);
+                update.setLong(3, entry.getKey());
+                update.addBatch();
+            }
+            update.executeBatch();
+        }
+    }
+
+    private static void setNullableLong(PreparedStatement statement, int index, Long value) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, java.sql.Types.BIGINT);
+        } else {
+            statement.setLong(index, value);
+        }
+    }
+
+    // ------------------------------------------------------------
+    // ---------- JOURNAL LOCAL ----------
+    // ------------------------------------------------------------
+
+    private void openJournal() throws IOException {
+        journal = FileChannel.open(journalDir.resolve(JOURNAL),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void closeJournal() {
+        try {
+            if (journal != null) journal.close();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Fermeture du journal impossible", e);
+        }
+    }
+
+    /**
+     * Une ligne par note : <code>personId,seriesId,episodeId,score</code> (episodeId vide pour une série).
+     */
+    private void appendJournal(RatingKey key, int score) throws IOException {
+        String line = journalLine(key, score) + "\n";
+        ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            journal.write(buffer);
+        }
+        if (journalSync) {
+            journal.force(false);
+        }
+    }
+
+    /**
+     * Le journal courant devient celui du lot en cours d’écriture, et un journal vide est ouvert.
+     */
+    private void rotateJournal() {
+        try {
+            journal.close();
+            Files.move(journalDir.resolve(JOURNAL), journalDir.resolve(FLUSHING), StandardCopyOption.REPLACE_EXISTING);
+            openJournal();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Rotation du journal des évaluations impossible", e);
+        }
+    }
+
+    /**
+     * Relit un journal dans la file : la dernière note de chaque cible l’emporte.
+     */
+    private void replay(Path file) throws IOException {
+        if (!Files.exists(file)) return;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(",", -1);
+                if (parts.length != 4) continue; // ligne tronquée par un arrêt brutal
+                RatingKey key = new RatingKey(Integer.parseInt(parts[0]),
+                        parts[1].isEmpty() ? null : Long.parseLong(parts[1]),
+                        parts[2].isEmpty() ? null : Long.parseLong(parts[2]));
+                pending.remove(key);
+                pending.put(key, Integer.parseInt(parts[3]));
+            }
+        }
+    }
+
+    /**
+     * Remplace le journal courant par le contenu de la file (écriture atomique),
+     * puis supprime le journal d’un lot non écrit.
+     */
+    private void rewriteJournal() throws IOException {
+        Path tmp = journalDir.resolve(JOURNAL + ".tmp");
+        List<String> lines = new ArrayList<>(pending.size());
+        pending.forEach((key, score) -> lines.add(journalLine(key, score)));
+        Files.write(tmp, lines, StandardCharsets.UTF_8);
+        Files.move(tmp, journalDir.resolve(JOURNAL), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.deleteIfExists(journalDir.resolve(FLUSHING));
+    }
+
+    /**
+     * Ajoute les notes écartées au fichier <code>ratings-journal.rejected</code>, pour une reprise manuelle.
+     */
+    private void reject(Map<RatingKey, Integer> rejected) {
+        if (rejected.isEmpty()) return;
+        List<String> lines = new ArrayList<>(rejected.size());
+        rejected.forEach((key, score) -> lines.add(journalLine(key, score)));
+        logger.warning(rejected.size() + " évaluations écartées (cible ou personne supprimée, contrainte) : " + lines);
+        try {
+            Files.write(journalDir.resolve(REJECTED), lines, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Écriture des évaluations écartées impossible", e);
+        }
+    }
+
+    private static String journalLine(RatingKey key, int score) {
+        return key.personId() + "," + (key.seriesId() == null ? "" : key.seriesId()) + ","
+                + (key.episodeId() == null ? "" : key.episodeId()) + "," + score;
+    }
+
+    /**
+     * Cible d’une note : une série ({@code episodeId} nul) ou un épisode (avec la série qui le contient).
+     */
+    record RatingKey(int personId, Long seriesId, Long episodeId) {
+    }
+
+    /**
+     * Résultat de l’écriture d’un lot : anciennes notes et notes écartées.
+     */
+    private record Written(Map<RatingKey, Integer> previous, Set<RatingKey> dropped) {
+    }
+}
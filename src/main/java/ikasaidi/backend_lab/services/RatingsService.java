@@ -8,9 +8,9 @@ import ikasaidi.backend_lab.repositories.EpisodesRepository;
 import ikasaidi.backend_lab.repositories.PersonRepository;
 import ikasaidi.backend_lab.repositories.RatingsRepository;
 import ikasaidi.backend_lab.repositories.SeriesRepository;
+import ikasaidi.backend_lab.repositories.SeriesRepository.RatingTotals;
 import org.springframework.stereotype.Service;
-
-import java.util.List;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Service gérant la logique métier des évaluations (ratings) dans l’application.
@@ -18,7 +18,7 @@ import java.util.List;
  * Cette classe permet :
  * <ul>
  *     <li>D’ajouter ou de modifier une évaluation pour une série ou un épisode.</li>
- *     <li>De calculer la moyenne des notes pour une série ou un épisode donné.</li>
+ *     <li>De lire la moyenne des notes d’une série ou d’un épisode donné.</li>
  * </ul>
  *
  *
@@ -32,6 +32,18 @@ import java.util.List;
  * </ul>
  *
  *
+ * Chaque note est enregistrée par une seule instruction <code>INSERT ... ON CONFLICT DO UPDATE</code>,
+ * appuyée sur les index uniques (personne, série) et (personne, épisode) : deux requêtes simultanées
+ * ne peuvent plus créer de doublon. Les séries, épisodes et personnes sont lus depuis le cache
+ * de second niveau, et le {@link TrendingService} est informé de l’écart de note.
+ *
+ *
+ * Dans la même transaction, l’écart est ajouté par incrément atomique à la somme et au nombre de notes
+ * de la série (et de l’épisode) : les moyennes sont ensuite lues par clé primaire, sans <code>AVG</code>.
+ * La ligne de la cible est verrouillée par la première instruction de la transaction : deux notes
+ * simultanées de la même personne ne peuvent pas lire la même note précédente et compter deux fois.
+ *
+ *
  * @author Sarah
  * @version 1.0
  */
@@ -50,6 +62,12 @@ public class RatingsService {
     /** Repository des épisodes. */
     private final EpisodesRepository episodesRepository;
 
+    /** Service des tendances à informer de chaque note enregistrée. */
+    private final TrendingService trendingService;
+
+    /** Cache de second niveau, dont les séries et épisodes notés sont évincés après validation. */
+    private final EntityCacheService entityCacheService;
+
     /**
      * Constructeur injectant les dépendances.
      *
@@ -57,13 +75,18 @@ public class RatingsService {
      * @param seriesRepository repository pour les séries
      * @param personRepository repository pour les utilisateurs
      * @param episodesRepository repository pour les épisodes
+     * @param trendingService service des tendances à tenir à jour
+     * @param entityCacheService service d’accès au cache des entités
      */
     public RatingsService(RatingsRepository ratingsRepository, SeriesRepository seriesRepository,
-                          PersonRepository personRepository, EpisodesRepository episodesRepository) {
+                          PersonRepository personRepository, EpisodesRepository episodesRepository,
+                          TrendingService trendingService, EntityCacheService entityCacheService) {
         this.ratingsRepository = ratingsRepository;
         this.seriesRepository = seriesRepository;
         this.personRepository = personRepository;
         this.episodesRepository = episodesRepository;
+        this.trendingService = trendingService;
+        this.entityCacheService = entityCacheService;
     }
 
     // ------------------------------------------------------------
@@ -74,50 +97,52 @@ public class RatingsService {
      * Ajoute ou met à jour une évaluation d’une série pour un utilisateur donné.
      *
      * Si l’utilisateur a déjà noté cette série, la note est mise à jour.
-     * Sinon, une nouvelle évaluation est créée.
+     * Sinon, une nouvelle évaluation est créée. Les notes d’épisodes de la série ne sont pas touchées.
      *
      *
      * @param seriesId identifiant de la série à évaluer
-     * @param personId identifiant de l’utilisateur
+     * @param personId identifiant de l’utilisateur authentifié (lu dans son token : la personne n’est pas relue)
      * @param score note attribuée (entre 1 et 5)
      * @return l’objet {@link Ratings} enregistré ou mis à jour
-     * @throws IllegalArgumentException si la note est hors limites ou si la série/utilisateur n’existe pas
+     * @throws IllegalArgumentException si la note est hors limites ou si la série n’existe pas
      */
+    @Transactional
     public Ratings addOrUpdatingRatingBySerie(Long seriesId, int personId, int score) {
         if (score < 1 || score > 5) {
             throw new IllegalArgumentException("La note doit être entre 1 et 5");
         }
 
+        if (seriesRepository.lockForRating(seriesId) == 0) {
+            throw new IllegalArgumentException("Série introuvable");
+        }
         Series series = seriesRepository.findById(seriesId)
                 .orElseThrow(() -> new IllegalArgumentException("Série introuvable"));
-        Person person = personRepository.findById(personId)
-                .orElseThrow(() -> new IllegalArgumentException("Utilisateur introuvable"));
+        Person person = personRepository.getReferenceById(personId);
 
-        List<Ratings> existingRatings = ratingsRepository.findAllByPersonAndSeries(person, series);
+        Integer previousScore = ratingsRepository.findSeriesScore(personId, seriesId);
+        Long id = ratingsRepository.upsertSeriesRating(personId, seriesId, score);
+        updateTotals(series, null, score, previousScore);
+        TrendingService.afterCommit(() -> trendingService.onRatingSaved(seriesId, score, previousScore));
 
-        Ratings rating;
-        if (!existingRatings.isEmpty()) {
-            rating = existingRatings.get(0);
-            rating.setScore(score);
-        } else {
-            rating = new Ratings(score, person, series);
-        }
-
-        return ratingsRepository.save(rating);
+        Ratings rating = new Ratings(score, person, series);
+        rating.setId(id);
+        return rating;
     }
 
     /**
-     * Calcule la moyenne des notes attribuées à une série.
+     * Retourne la moyenne des notes attribuées à une série (et à ses épisodes),
+     * à partir des agrégats tenus à jour sur la série.
      *
      * @param seriesId identifiant de la série
      * @return la moyenne des notes (0.0 si aucune note)
      * @throws IllegalArgumentException si la série n’existe pas
      */
     public double getAverageRatingsBySerie(Long seriesId) {
-        Series series = seriesRepository.findById(seriesId)
-                .orElseThrow(() -> new IllegalArgumentException("Série introuvable"));
-        Double avg = ratingsRepository.findAverageBySeries(series);
-        return avg != null ? avg : 0.0;
+        RatingTotals totals = seriesRepository.findRatingTotals(seriesId);
+        if (totals == null) {
+            throw new IllegalArgumentException("Série introuvable");
+        }
+        return average(totals);
     }
 
     // ------------------------------------------------------------
@@ -132,45 +157,87 @@ public class RatingsService {
      *
      *
      * @param episodeId identifiant de l’épisode à évaluer
-     * @param personId identifiant de l’utilisateur
+     * @param personId identifiant de l’utilisateur authentifié (lu dans son token : la personne n’est pas relue)
      * @param score note attribuée (entre 1 et 5)
      * @return l’objet {@link Ratings} enregistré ou mis à jour
-     * @throws IllegalArgumentException si la note est hors limites ou si l’épisode/utilisateur n’existe pas
+     * @throws IllegalArgumentException si la note est hors limites ou si l’épisode n’existe pas
      */
+    @Transactional
     public Ratings addOrUpdatingRatingByEpisode(Long episodeId, int personId, int score) {
         if (score < 1 || score > 5) {
             throw new IllegalArgumentException("La note doit être entre 1 et 5");
         }
 
+        if (episodesRepository.lockForRating(episodeId) == 0) {
+            throw new IllegalArgumentException("Épisode introuvable");
+        }
         Episodes episode = episodesRepository.findById(episodeId)
                 .orElseThrow(() -> new IllegalArgumentException("Épisode introuvable"));
-        Person person = personRepository.findById(personId)
-                .orElseThrow(() -> new IllegalArgumentException("Utilisateur introuvable"));
+        Person person = personRepository.getReferenceById(personId);
 
-        List<Ratings> existingRatings = ratingsRepository.findAllByPersonAndEpisode(person, episode);
-
-        Ratings rating;
-        if (!existingRatings.isEmpty()) {
-            rating = existingRatings.get(0);
-            rating.setScore(score);
-        } else {
-            rating = new Ratings(score, person, episode);
-        }
+        Long seriesId = episode.getSeries() != null ? episode.getSeries().getId() : null;
+        Integer previousScore = ratingsRepository.findEpisodeScore(personId, episodeId);
+        Long id = ratingsRepository.upsertEpisodeRating(personId, seriesId, episodeId, score);
+        updateTotals(episode.getSeries(), episode, score, previousScore);
+        TrendingService.afterCommit(() -> trendingService.onRatingSaved(seriesId, score, previousScore));
 
-        return ratingsRepository.save(rating);
+        Ratings rating = new Ratings(score, person, episode);
+        rating.setId(id);
+        return rating;
     }
 
     /**
-     * Calcule la moyenne des notes attribuées à un épisode.
+     * Retourne la moyenne des notes attribuées à un épisode,
+     * à partir des agrégats tenus à jour sur l’épisode.
      *
      * @param episodeId identifiant de l’épisode
      * @return la moyenne des notes (0.0 si aucune note)
      * @throws IllegalArgumentException si l’épisode n’existe pas
      */
     public double getAverageRatingsByEpisode(Long episodeId) {
-        Episodes episode = episodesRepository.findById(episodeId)
-                .orElseThrow(() -> new IllegalArgumentException("Épisode introuvable"));
-        Double avg = ratingsRepository.findAverageByEpisode(episode);
-        return avg != null ? avg : 0.0;
+        RatingTotals totals = episodesRepository.findRatingTotals(episodeId);
+        if (totals == null) {
+            throw new IllegalArgumentException("Épisode introuvable");
+        }
+        return average(totals);
+    }
+
+    // ------------------------------------------------------------
+    // ---------- AGRÉGATS ----------
+    // ------------------------------------------------------------
+
+    /**
+     * Applique l’écart d’une note aux agrégats de la série et de l’épisode concernés.
+     *
+     * Une nouvelle évaluation ajoute sa note et incrémente le nombre ; une modification
+     * n’ajoute que la différence avec l’ancienne note. Les entités gérées reçoivent les valeurs
+     * relues en base, et leurs entrées du cache sont évincées après la validation.
+     *
+     * @param series série notée (directement ou via l’épisode), ou {@code null}
+     * @param episode épisode noté, ou {@code null} pour une note de série
+     * @param score nouvelle note
+     * @param previousScore ancienne note, ou {@code null} pour une nouvelle évaluation
+     */
+    private void updateTotals(Series series, Episodes episode, int score, Integer previousScore) {
+        long sumDelta = previousScore == null ? score : score - previousScore;
+        long countDelta = previousScore == null ? 1 : 0;
+        if (sumDelta == 0 && countDelta == 0) return;
+
+        if (series != null) {
+            seriesRepository.addRating(series.getId(), sumDelta, countDelta);
+            RatingTotals totals = seriesRepository.findRatingTotals(series.getId());
+            series.setRatingTotals(totals.getRatingSum(), totals.getRatingCount());
+        }
+        if (episode != null) {
+            episodesRepository.addRating(episode.getId(), sumDelta, countDelta);
+            RatingTotals totals = episodesRepository.findRatingTotals(episode.getId());
+            episode.setRatingTotals(totals.getRatingSum(), totals.getRatingCount());
+        }
+        entityCacheService.evictAfterCommit(series != null ? series.getId() : null,
+                episode != null ? episode.getId() : null);
+    }
+
+    private static double average(RatingTotals totals) {
+        return totals.getRatingCount() == 0 ? 0.0 : (double) totals.getRatingSum() / totals.getRatingCount();
     }
 }
@@ -1,15 +1,17 @@
 package ikasaidi.backend_lab.services;
 
-import ikasaidi.backend_lab.models.Person;
+import ikasaidi.backend_lab.DTO.PersonRecommendationsDto;
 import ikasaidi.backend_lab.models.Series;
 import ikasaidi.backend_lab.repositories.PersonRepository;
 import ikasaidi.backend_lab.repositories.SeriesRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 /**
  * Service responsable de la génération de recommandations personnalisées.
@@ -27,11 +29,25 @@ import java.util.Map;
  * </ol>
  *
  *
+ * Pour éviter de relire toutes les séries à chaque appel, le service maintient en mémoire :
+ * <ul>
+ *     <li>Un index genre → séries, tenu à jour par le {@link SeriesService} (création, modification, suppression).</li>
+ *     <li>Un profil par personne (nombre de séries vues par genre et ensemble des séries vues),
+ *         construit une seule fois à partir de l’historique puis mis à jour à chaque ajout dans l’historique.
+ *         Le profil est lu en base hors de tout verrou ; au plus <code>recommendation.profiles.max-size</code>
+ *         profils sont gardés (au-delà, des profils sont retirés et relus au besoin).</li>
+ * </ul>
+ *
+ *
+ * Un calcul par lot ({@link #streamRecommendations}) est aussi offert pour les traitements
+ * qui précalculent les recommandations de nombreuses personnes : le catalogue est lu une seule fois,
+ * les historiques sont lus par paquets et le calcul est réparti sur un nombre borné de fils.
+ *
  *
  * Il interagit principalement avec :
  * <ul>
  *     <li>{@link PersonRepository} pour récupérer les utilisateurs et leur historique.</li>
- *     <li>{@link SeriesRepository} pour accéder à toutes les séries disponibles.</li>
+ *     <li>{@link SeriesRepository} pour accéder aux séries disponibles.</li>
  * </ul>
  *
  *
@@ -41,12 +57,58 @@ import java.util.Map;
 @Service
 public class RecommendationService {
 
+    /** Nombre de genres favoris pris en compte. */
+    private static final int TOP_GENRES = 3;
+
+    /** Nombre maximal de recommandations par genre. */
+    private static final int PER_GENRE = 3;
+
+    /** Nombre de personnes dont l’historique est lu et traité ensemble lors d’un calcul par lot. */
+    private static final int BATCH_CHUNK = 256;
+
+    /** Nombre de fils utilisés pour un calcul par lot. */
+    @Value("${recommendation.batch.parallelism:4}")
+    private int batchParallelism = 4;
+
     /** Repository des utilisateurs (personnes). */
     private final PersonRepository personRepository;
 
     /** Repository des séries. */
     private final SeriesRepository seriesRepository;
 
+    // === État maintenu en mémoire (protégé par le moniteur de l’instance) === //
+
+    /** Index genre → identifiants des séries de ce genre (ordre croissant). */
+    private final Map<String, NavigableSet<Long>> seriesByGenre = new HashMap<>();
+
+    /** Genre connu de chaque série indexée. */
+    private final Map<Long, String> genreBySeries = new HashMap<>();
+
+    /**
+     * Genre des séries créées, modifiées ou supprimées (valeur {@code null}) avant la construction
+     * de l’index : le catalogue est lu hors du verrou, ces écritures sont appliquées à son installation.
+     */
+    private final Map<Long, String> changedBeforeLoad = new HashMap<>();
+
+    /** Indique si l’index des genres a été construit (lu hors du verrou). */
+    private volatile boolean indexLoaded;
+
+    /** Nombre maximal de profils gardés en mémoire. */
+    @Value("${recommendation.profiles.max-size:10000}")
+    private int profilesMaxSize = 10000;
+
+    /**
+     * Profils de genres par identifiant de personne. La table est concurrente, mais un profil
+     * n’est lu ou modifié que sous le moniteur de l’instance.
+     */
+    private final ConcurrentHashMap<Integer, GenreProfile> profiles = new ConcurrentHashMap<>();
+
+    /**
+     * Compteur des invalidations de profils : un profil lu en base pendant une invalidation
+     * n’est pas publié (il pourrait ne pas contenir la dernière écriture).
+     */
+    private final AtomicLong profileInvalidations = new AtomicLong();
+
     /**
      * Constructeur injectant les dépendances nécessaires.
      *
@@ -64,59 +126,360 @@ public class RecommendationService {
      * Le processus de recommandation repose sur les genres les plus regardés
      * dans l’historique de la personne. Les trois genres les plus fréquents sont extraits,
      * puis jusqu’à trois séries non encore vues sont proposées pour chaque genre.
+     * Seules les séries retenues sont lues en base (par identifiant), avec leur détail
+     * (épisodes, évaluations, visionnages).
      *
      *
      * @param id identifiant de la personne pour laquelle on souhaite générer des recommandations
      * @return une liste de séries recommandées selon les genres favoris de l’utilisateur
      * @throws RuntimeException si la personne n’existe pas dans la base de données
      */
+    @Transactional(readOnly = true)
     public List<Series> getPersonsRecommendation(Integer id) {
-
-        // 1️⃣ Récupérer la personne et son historique
-        Person person = personRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Personne non trouvée"));
-        List<Series> history = person.getHistory();
-
-        // 2️⃣ Compter le nombre de séries regardées par genre
-        Map<String, Integer> genreCount = new HashMap<>();
-        for (Series series : history) {
-            String genre = series.getGenre();
-            genreCount.put(genre, genreCount.getOrDefault(genre, 0) + 1);
+        List<Long> ids = recommendedSeriesIds(id);
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
         }
 
-        // 3️⃣ Identifier les 3 genres les plus populaires
-        List<String> topGenres = new ArrayList<>();
-        for (int i = 0; i < 3; i++) {
-            String bestGenre = null;
-            int max = 0;
+        // Une seule requête par clé primaire, puis remise dans l’ordre de recommandation
+        Map<Long, Series> byId = new HashMap<>();
+        for (Series series : seriesRepository.findAllById(ids)) {
+            byId.put(series.getId(), series);
+        }
+        List<Series> recommendations = new ArrayList<>(ids.size());
+        for (Long seriesId : ids) {
+            Series series = byId.get(seriesId);
+            if (series != null) recommendations.add(series);
+        }
+        return FetchPlans.seriesDetails(recommendations);
+    }
 
-            for (Map.Entry<String, Integer> entry : genreCount.entrySet()) {
-                if (!topGenres.contains(entry.getKey()) && entry.getValue() > max) {
-                    bestGenre = entry.getKey();
-                    max = entry.getValue();
+    /**
+     * Calcule les identifiants des séries recommandées à partir de l’index et du profil.
+     *
+     * Les lectures en base (catalogue au premier appel, historique de la personne si son profil
+     * n’est pas en mémoire) sont faites hors du verrou ; seule la sélection, en mémoire, le prend.
+     *
+     * @param id identifiant de la personne
+     * @return identifiants recommandés, groupés par genre favori
+     * @throws RuntimeException si la personne n’existe pas dans la base de données
+     */
+    private List<Long> recommendedSeriesIds(Integer id) {
+        List<Series> catalogue = indexLoaded ? null : seriesRepository.findAll();
+        GenreProfile profile = profiles.get(id);
+        if (profile == null) {
+            long invalidations = profileInvalidations.get();
+            GenreProfile loaded = loadProfile(id);
+            synchronized (this) {
+                profile = profiles.get(id);
+                if (profile == null) {
+                    profile = loaded;
+                    if (invalidations == profileInvalidations.get()) {
+                        profiles.put(id, loaded);
+                        trimProfiles();
+                    }
                 }
             }
+        }
 
-            if (bestGenre != null) {
-                topGenres.add(bestGenre);
+        synchronized (this) {
+            if (catalogue != null) {
+                installIndex(catalogue);
             }
+            return select(profile, seriesByGenre);
         }
+    }
 
-        // 4️⃣ Rechercher dans toutes les séries celles non vues correspondant aux top genres
-        List<Series> allSeries = seriesRepository.findAll();
-        List<Series> recommendations = new ArrayList<>();
+    /**
+     * Construit le profil d’une personne à partir de son historique, en une requête
+     * (une personne inexistante ne produit aucune ligne).
+     */
+    private GenreProfile loadProfile(Integer id) {
+        List<PersonRepository.HistoryEntry> entries = personRepository.findHistoryEntries(Set.of(id));
+        if (entries.isEmpty()) {
+            throw new RuntimeException("Personne non trouvée");
+        }
+        GenreProfile profile = new GenreProfile();
+        for (PersonRepository.HistoryEntry entry : entries) {
+            if (entry.getSeriesId() != null) {
+                profile.add(entry.getSeriesId(), entry.getGenre());
+            }
+        }
+        return profile;
+    }
 
-        for (String genre : topGenres) {
+    /**
+     * Retire des profils au-delà de la taille maximale (appelée sous le moniteur).
+     */
+    private void trimProfiles() {
+        Iterator<Integer> ids = profiles.keySet().iterator();
+        while (profiles.size() > profilesMaxSize && ids.hasNext()) {
+            ids.next();
+            ids.remove();
+        }
+    }
+
+    /**
+     * Sélectionne jusqu’à trois séries non vues pour chacun des trois genres favoris d’un profil.
+     *
+     * @param profile profil de la personne
+     * @param index index genre → identifiants des séries (ordre croissant)
+     * @return identifiants recommandés, groupés par genre favori
+     */
+    private static List<Long> select(GenreProfile profile, Map<String, ? extends Collection<Long>> index) {
+        List<Long> ids = new ArrayList<>();
+        for (String genre : profile.topGenres(TOP_GENRES)) {
             int count = 0;
-            for (Series series : allSeries) {
-                if (series.getGenre().equals(genre) && !history.contains(series)) {
-                    recommendations.add(series);
-                    count++;
-                    if (count == 3) break; // max 3 recommandations par genre
+            Collection<Long> candidates = index.get(genre);
+            if (candidates == null) continue;
+            for (Long seriesId : candidates) {
+                if (!profile.seen.contains(seriesId)) {
+                    ids.add(seriesId);
+                    if (++count == PER_GENRE) break; // max 3 recommandations par genre
                 }
             }
         }
+        return ids;
+    }
+
+    // ------------------------------------------------------------
+    // ---------- CALCUL PAR LOT ----------
+    // ------------------------------------------------------------
+
+    /**
+     * Calcule les recommandations de plusieurs personnes et les transmet au fur et à mesure.
+     *
+     * Le catalogue des séries est lu une seule fois, les historiques sont lus par paquets
+     * de {@value #BATCH_CHUNK} personnes (une requête par paquet) et chaque paquet est traité
+     * par un exécuteur borné. Au plus un paquet par fil est en cours à un instant donné,
+     * ce qui limite la mémoire utilisée ; les résultats sont transmis dans l’ordre des identifiants reçus.
+     *
+     *
+     * @param personIds identifiants des personnes, ou {@code null} pour toutes les personnes
+     * @param sink destinataire de chaque résultat (appelé par le fil appelant)
+     */
+    public void streamRecommendations(List<Integer> personIds, Consumer<PersonRecommendationsDto> sink) {
+        // 1️⃣ Catalogue et index lus une seule fois pour tout le lot
+        List<Series> all = seriesRepository.findAll();
+        Map<Long, Series> catalogue = new HashMap<>();
+        for (Series series : all) {
+            catalogue.put(series.getId(), series);
+        }
+        Map<String, List<Long>> index = indexSnapshot(all);
+
+        List<Integer> ids = personIds != null ? personIds : personRepository.findAllIds();
+        int threads = Math.max(1, batchParallelism);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads), new ThreadPoolExecutor.CallerRunsPolicy());
+        Deque<Future<List<PersonRecommendationsDto>>> pending = new ArrayDeque<>();
+        try {
+            for (int from = 0; from < ids.size(); from += BATCH_CHUNK) {
+                List<Integer> chunk = ids.subList(from, Math.min(from + BATCH_CHUNK, ids.size()));
+
+                // 2️⃣ Historiques du paquet lus en une requête
+                Map<Integer, GenreProfile> chunkProfiles = new HashMap<>();
+                for (PersonRepository.HistoryEntry entry : personRepository.findHistoryEntries(new HashSet<>(chunk))) {
+                    GenreProfile profile = chunkProfiles.computeIfAbsent(entry.getPersonId(), k -> new GenreProfile());
+                    if (entry.getSeriesId() != null) {
+                        profile.add(entry.getSeriesId(), entry.getGenre());
+                    }
+                }
+
+                // 3️⃣ Calcul du paquet sur l’exécuteur, en attendant le plus ancien si tous les fils sont occupés
+                if (pending.size() == threads) {
+                    drain(pending.poll(), sink);
+                }
+                pending.add(executor.submit(() -> score(chunk, chunkProfiles, index, catalogue)));
+            }
+            while (!pending.isEmpty()) {
+                drain(pending.poll(), sink);
+            }
+        } finally {
+            pending.forEach(f -> f.cancel(true));
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Calcule les résultats d’un paquet de personnes à partir d’un index figé.
+     */
+    private static List<PersonRecommendationsDto> score(List<Integer> chunk, Map<Integer, GenreProfile> chunkProfiles,
+                                                        Map<String, List<Long>> index, Map<Long, Series> catalogue) {
+        List<PersonRecommendationsDto> results = new ArrayList<>(chunk.size());
+        for (Integer personId : chunk) {
+            GenreProfile profile = chunkProfiles.get(personId);
+            if (profile == null) {
+                results.add(PersonRecommendationsDto.error(personId, "Personne non trouvée"));
+                continue;
+            }
+            List<Series> recommendations = new ArrayList<>();
+            for (Long seriesId : select(profile, index)) {
+                Series series = catalogue.get(seriesId);
+                if (series != null) recommendations.add(series);
+            }
+            results.add(new PersonRecommendationsDto(personId, recommendations));
+        }
+        return results;
+    }
+
+    /**
+     * Attend la fin d’un paquet et transmet ses résultats.
+     */
+    private static void drain(Future<List<PersonRecommendationsDto>> future, Consumer<PersonRecommendationsDto> sink) {
+        try {
+            future.get().forEach(sink);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Calcul des recommandations interrompu", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Erreur lors du calcul des recommandations", e.getCause());
+        }
+    }
+
+    /**
+     * Construit l’index au besoin à partir du catalogue fourni, puis en retourne une copie figée
+     * qui peut être lue par plusieurs fils sans verrou.
+     *
+     * @param catalogue toutes les séries
+     * @return copie de l’index genre → identifiants
+     */
+    private synchronized Map<String, List<Long>> indexSnapshot(List<Series> catalogue) {
+        installIndex(catalogue);
+        Map<String, List<Long>> snapshot = new HashMap<>();
+        seriesByGenre.forEach((genre, ids) -> snapshot.put(genre, List.copyOf(ids)));
+        return snapshot;
+    }
+
+    // ------------------------------------------------------------
+    // ---------- MISES À JOUR INCRÉMENTALES ----------
+    // ------------------------------------------------------------
+
+    /**
+     * Ajoute une série à l’index des genres, ou la déplace si son genre a changé.
+     *
+     * @param series série créée ou modifiée
+     */
+    public synchronized void onSeriesSaved(Series series) {
+        if (series.getId() == null) return;
+        if (!indexLoaded) {
+            changedBeforeLoad.put(series.getId(), series.getGenre());
+            return;
+        }
+        String previous = genreBySeries.get(series.getId());
+        if (previous != null && previous.equals(series.getGenre())) return;
+
+        unindex(series.getId());
+        index(series.getId(), series.getGenre());
+        if (previous != null) {
+            // Le genre a changé : les profils qui contiennent cette série sont reconstruits au besoin
+            invalidateProfiles();
+        }
+    }
+
+    /**
+     * Retire une série supprimée de l’index des genres.
+     *
+     * @param seriesId identifiant de la série supprimée
+     */
+    public synchronized void onSeriesRemoved(Long seriesId) {
+        if (!indexLoaded) {
+            changedBeforeLoad.put(seriesId, null);
+            return;
+        }
+        unindex(seriesId);
+        invalidateProfiles();
+    }
 
-        return recommendations;
+    /**
+     * Met à jour le profil d’une personne après l’ajout d’une série à son historique.
+     *
+     * @param personId identifiant de la personne
+     * @param series série ajoutée à l’historique
+     */
+    public synchronized void onHistoryAdded(Integer personId, Series series) {
+        profileInvalidations.incrementAndGet();
+        GenreProfile profile = profiles.get(personId);
+        if (profile != null) {
+            profile.add(series.getId(), series.getGenre());
+        }
+    }
+
+    /**
+     * Oublie le profil d’une personne supprimée.
+     *
+     * @param personId identifiant de la personne
+     */
+    public synchronized void onPersonRemoved(Integer personId) {
+        profileInvalidations.incrementAndGet();
+        profiles.remove(personId);
+    }
+
+    // ------------------------------------------------------------
+    // ---------- OUTILS INTERNES ----------
+    // ------------------------------------------------------------
+
+    /**
+     * Oublie tous les profils (appelée sous le moniteur).
+     */
+    private void invalidateProfiles() {
+        profileInvalidations.incrementAndGet();
+        profiles.clear();
+    }
+
+    /**
+     * Construit l’index à partir d’un catalogue lu hors du verrou, puis y applique les écritures
+     * survenues depuis (appelée sous le moniteur ; sans effet si l’index existe déjà).
+     */
+    private void installIndex(List<Series> catalogue) {
+        if (indexLoaded) return;
+        for (Series series : catalogue) {
+            index(series.getId(), series.getGenre());
+        }
+        changedBeforeLoad.forEach((seriesId, genre) -> {
+            unindex(seriesId);
+            index(seriesId, genre);
+        });
+        changedBeforeLoad.clear();
+        indexLoaded = true;
+    }
+
+    private void index(Long seriesId, String genre) {
+        if (genre == null) return;
+        seriesByGenre.computeIfAbsent(genre, g -> new TreeSet<>()).add(seriesId);
+        genreBySeries.put(seriesId, genre);
+    }
+
+    private void unindex(Long seriesId) {
+        String genre = genreBySeries.remove(seriesId);
+        if (genre == null) return;
+        NavigableSet<Long> ids = seriesByGenre.get(genre);
+        ids.remove(seriesId);
+        if (ids.isEmpty()) seriesByGenre.remove(genre);
+    }
+
+    /**
+     * Profil de visionnage d’une personne.
+     */
+    private static final class GenreProfile {
+        /** Nombre de séries de l’historique par genre (les doublons sont comptés). */
+        private final Map<String, Integer> genreCount = new HashMap<>();
+        /** Identifiants des séries déjà vues. */
+        private final Set<Long> seen = new HashSet<>();
+
+        private void add(Long seriesId, String genre) {
+            seen.add(seriesId);
+            if (genre != null) genreCount.merge(genre, 1, Integer::sum);
+        }
+
+        private List<String> topGenres(int limit) {
+            List<Map.Entry<String, Integer>> entries = new ArrayList<>(genreCount.entrySet());
+            entries.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+
+            List<String> top = new ArrayList<>(limit);
+            for (int i = 0; i < entries.size() && i < limit; i++) {
+                top.add(entries.get(i).getKey());
+            }
+            return top;
+        }
     }
 }
@@ -0,0 +1,248 @@
+package ikasaidi.backend_lab.services;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Service des sessions de connexion : jetons de rafraîchissement et révocation.
+ *
+ * À la connexion, une session est ouverte avec un jeton de rafraîchissement opaque et de longue durée
+ * (<code>jwt.refresh.expiration-ms</code>), envoyé à côté du token JWT d’accès de courte durée.
+ * <ul>
+ *     <li>Seule l’empreinte SHA-256 du jeton est enregistrée (table <code>refresh_tokens</code>, une ligne par session).</li>
+ *     <li>Un rafraîchissement remplace le jeton de la session (l’ancien n’est plus accepté) et ne lit
+ *         que cette ligne et la personne par sa clé : ni recherche par courriel, ni calcul BCrypt.</li>
+ *     <li>Le token d’accès porte l’identifiant de session (claim <code>sid</code>). Une session révoquée
+ *         est gardée dans un ensemble en mémoire consulté par {@link ikasaidi.backend_lab.utils.JwtFilter}
+ *         à chaque requête, sans accès à la base ; l’ensemble est enregistré dans <code>revoked_sessions</code>
+ *         et rechargé au démarrage.</li>
+ *     <li>Les sessions et révocations expirées sont purgées périodiquement (<code>jwt.refresh.purge-ms</code>).</li>
+ * </ul>
+ *
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+@Service
+public class RefreshTokenService {
+
+    /** Logger pour suivre les purges. */
+    private static final Logger logger = Logger.getLogger(RefreshTokenService.class.getName());
+
+    private static final SecureRandom random = new SecureRandom();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Durée de vie d’un jeton de rafraîchissement (ms). */
+    private final long refreshExpirationMs;
+
+    /** Durée de vie d’un token d’accès (ms) : durée pendant laquelle une révocation doit être gardée. */
+    private final long accessExpirationMs;
+
+    /** Sessions révoquées : identifiant → instant après lequel tous leurs tokens d’accès ont expiré. */
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    /**
+     * Session ouverte ou prolongée.
+     *
+     * @param sessionId identifiant de la session (claim <code>sid</code> du token d’accès)
+     * @param personId identifiant de la personne
+     * @param email adresse courriel de la personne (sujet du token d’accès)
+     * @param name nom de la personne
+     * @param refreshToken nouveau jeton de rafraîchissement, à transmettre au client
+     */
+    public record Session(String sessionId, Integer personId, String email, String name, String refreshToken) {
+    }
+
+    /**
+     * Constructeur injectant l’accès JDBC et la configuration.
+     *
+     * @param jdbcTemplate accès JDBC aux tables des sessions
+     * @param refreshExpirationMs durée de vie d’un jeton de rafraîchissement (ms)
+     * @param accessExpirationMs durée de vie d’un token d’accès (ms)
+     */
+    public RefreshTokenService(JdbcTemplate jdbcTemplate,
+                               @Value("${jwt.refresh.expiration-ms:2592000000}") long refreshExpirationMs,
+                               @Value("${jwt.expiration}") long accessExpirationMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.refreshExpirationMs = refreshExpirationMs;
+        this.accessExpirationMs = accessExpirationMs;
+    }
+
+    /**
+     * Recharge en mémoire les sessions révoquées encore utiles.
+     */
+    @PostConstruct
+    public void loadRevoked() {
+        jdbcTemplate.query("SELECT session_id, expires_at FROM revoked_sessions WHERE expires_at > ?",
+                rs -> {
+                    revoked.put(rs.getString(1), rs.getLong(2));
+                },
+                System.currentTimeMillis());
+    }
+
+    /**
+     * Ouvre une session pour une personne qui vient de se connecter.
+     *
+     * @param personId identifiant de la personne
+     * @param email adresse courriel de la personne
+     * @param name nom de la personne
+     * @return la session et son jeton de rafraîchissement
+     */
+    @Transactional
+    public Session open(Integer personId, String email, String name) {
+        String sessionId = randomToken(16);
+        String refreshToken = randomToken(32);
+        jdbcTemplate.update("INSERT INTO refresh_tokens (session_id, token_hash, person_id, expires_at) VALUES (?, ?, ?, ?)",
+                sessionId, fingerprint(refreshToken), personId, System.currentTimeMillis() + refreshExpirationMs);
+        return new Session(sessionId, personId, email, name, refreshToken);
+    }
+
+    /**
+     * Remplace un jeton de rafraîchissement valide par un nouveau et prolonge la session.
+     *
+     * Si deux demandes utilisent le même jeton en même temps, une seule réussit.
+     *
+     * @param refreshToken jeton présenté par le client
+     * @return la session prolongée, ou vide si le jeton est inconnu, déjà remplacé, révoqué ou expiré
+     */
+    @Transactional
+    public Optional<Session> rotate(String refreshToken) {
+        if (refreshToken == null || refreshToken.isEmpty()) {
+            return Optional.empty();
+        }
+        String hash = fingerprint(refreshToken);
+        long now = System.currentTimeMillis();
+        List<Session> found = jdbcTemplate.query(
+                "SELECT r.session_id, r.person_id, p.email, p.name FROM refresh_tokens r "
+                        + "JOIN person p ON p.id = r.person_id WHERE r.token_hash = ? AND r.expires_at > ?",
+                (rs, i) -> new Session(rs.getString(1), rs.getInt(2), rs.getString(3), rs.getString(4), null),
+                hash, now);
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Session session = found.get(0);
+        String next = randomToken(32);
+        int updated;
+        try {
+            updated = jdbcTemplate.update(
+                    "UPDATE refresh_tokens SET token_hash = ?, expires_at = ? WHERE session_id = ? AND token_hash = ?",
+                    fingerprint(next), now + refreshExpirationMs, session.sessionId(), hash);
+        } catch (DuplicateKeyException e) {
+            updated = 0;
+        }
+        if (updated == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new Session(session.sessionId(), session.personId(), session.email(), session.name(), next));
+    }
+
+    /**
+     * Révoque la session d’un jeton de rafraîchissement, ou toutes les sessions de sa personne.
+     *
+     * @param refreshToken jeton présenté par le client
+     * @param allSessions {@code true} pour révoquer toutes les sessions de la personne
+     * @return {@code true} si le jeton correspondait à une session
+     */
+    @Transactional
+    public boolean revoke(String refreshToken, boolean allSessions) {
+        if (refreshToken == null || refreshToken.isEmpty()) {
+            return false;
+        }
+        List<Map<String, Object>> found = jdbcTemplate.queryForList(
+                "SELECT session_id, person_id FROM refresh_tokens WHERE token_hash = ?", fingerprint(refreshToken));
+        if (found.isEmpty()) {
+            return false;
+        }
+
+        if (allSessions) {
+            revokeAll(((Number) found.get(0).get("person_id")).intValue());
+        } else {
+            revokeSessions(List.of((String) found.get(0).get("session_id")));
+        }
+        return true;
+    }
+
+    /**
+     * Révoque toutes les sessions d’une personne, par exemple avant la suppression de son compte :
+     * ses tokens d’accès encore valides sont refusés dès la requête suivante.
+     *
+     * @param personId identifiant de la personne
+     * @return nombre de sessions révoquées
+     */
+    @Transactional
+    public int revokeAll(Integer personId) {
+        List<String> sessions = jdbcTemplate.queryForList(
+                "SELECT session_id FROM refresh_tokens WHERE person_id = ?", String.class, personId);
+        revokeSessions(sessions);
+        return sessions.size();
+    }
+
+    /**
+     * Indique si une session a été révoquée (lecture en mémoire seulement).
+     *
+     * @param sessionId identifiant de session du token d’accès (peut être {@code null})
+     * @return {@code true} si les tokens de cette session doivent être refusés
+     */
+    public boolean isRevoked(String sessionId) {
+        return sessionId != null && revoked.containsKey(sessionId);
+    }
+
+    /**
+     * Supprime les sessions expirées et les révocations devenues inutiles.
+     */
+    @Scheduled(initialDelayString = "${jwt.refresh.purge-ms:3600000}", fixedDelayString = "${jwt.refresh.purge-ms:3600000}")
+    @Transactional
+    public void purge() {
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+        int sessions = jdbcTemplate.update("DELETE FROM refresh_tokens WHERE expires_at <= ?", now);
+        int revocations = jdbcTemplate.update("DELETE FROM revoked_sessions WHERE expires_at <= ?", now);
+        if (sessions + revocations > 0) {
+            logger.info("Purge des sessions : " + sessions + " expirées, " + revocations + " révocations retirées");
+        }
+    }
+
+    private void revokeSessions(List<String> sessions) {
+        long expiresAt = System.currentTimeMillis() + accessExpirationMs;
+        for (String sessionId : sessions) {
+            jdbcTemplate.update("DELETE FROM refresh_tokens WHERE session_id = ?", sessionId);
+            jdbcTemplate.update("DELETE FROM revoked_sessions WHERE session_id = ?", sessionId);
+            jdbcTemplate.update("INSERT INTO revoked_sessions (session_id, expires_at) VALUES (?, ?)", sessionId, expiresAt);
+            revoked.put(sessionId, expiresAt);
+        }
+    }
+
+    private static String randomToken(int bytes) {
+        byte[] value = new byte[bytes];
+        random.nextBytes(value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value);
+    }
+
+    private static String fingerprint(String token) {
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+}
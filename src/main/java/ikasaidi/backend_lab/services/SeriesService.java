@@ -1,8 +1,11 @@
 package ikasaidi.backend_lab.services;
 
+import ikasaidi.backend_lab.DTO.SeriesDto;
 import ikasaidi.backend_lab.models.Series;
 import ikasaidi.backend_lab.repositories.SeriesRepository;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.logging.Logger;
@@ -21,7 +24,9 @@ import java.util.logging.Logger;
  *
  *
  * Elle communique directement avec le {@link SeriesRepository} pour interagir
- * avec la base de données.
+ * avec la base de données, et tient à jour l’index des genres du
+ * {@link RecommendationService} à chaque écriture. Les séries modifiées ou supprimées
+ * sont aussi retirées du cache de second niveau ({@link EntityCacheService}).
  *
  *
  * @author Rachel
@@ -38,13 +43,24 @@ public class SeriesService {
     /** Repository permettant l’accès et la gestion des séries. */
     private final SeriesRepository seriesRepository;
 
+    /** Service de recommandations dont l’index des genres doit suivre les écritures. */
+    private final RecommendationService recommendationService;
+
+    /** Cache de second niveau à invalider après chaque écriture. */
+    private final EntityCacheService entityCacheService;
+
     /**
      * Constructeur injectant le repository des séries.
      *
      * @param seriesRepository repository pour accéder aux données des séries
+     * @param recommendationService service de recommandations à tenir à jour
+     * @param entityCacheService cache des entités à invalider
      */
-    public SeriesService(SeriesRepository seriesRepository) {
+    public SeriesService(SeriesRepository seriesRepository, RecommendationService recommendationService,
+                         EntityCacheService entityCacheService) {
         this.seriesRepository = seriesRepository;
+        this.recommendationService = recommendationService;
+        this.entityCacheService = entityCacheService;
     }
 
     // ------------------------------------------------------------
@@ -60,14 +76,28 @@ public class SeriesService {
         return seriesRepository.findAll();
     }
 
+    /**
+     * Récupère une page de séries triées par identifiant (pagination par clé).
+     *
+     * @param after identifiant de la dernière série de la page précédente (0 pour la première page)
+     * @param limit nombre maximal de séries à retourner
+     * @return les séries dont l’identifiant est supérieur à {@code after}, sans leurs relations
+     */
+    public List<SeriesDto> findPage(long after, Limit limit) {
+        return seriesRepository.findPage(after, limit);
+    }
+
     /**
      * Récupère une série à partir de son identifiant unique.
      *
+     * La série est renvoyée avec son détail (épisodes, évaluations, visionnages).
+     *
      * @param id identifiant de la série recherchée
      * @return la série correspondante ou {@code null} si elle n’existe pas
      */
+    @Transactional(readOnly = true)
     public Series findById(Long id) {
-        return seriesRepository.findById(id).orElse(null);
+        return seriesRepository.findById(id).map(FetchPlans::seriesDetails).orElse(null);
     }
 
     /**
@@ -82,7 +112,9 @@ public class SeriesService {
      */
     public Series newSerie(Series s) {
         s.setId(null);
-        return seriesRepository.save(s);
+        Series saved = seriesRepository.save(s);
+        recommendationService.onSeriesSaved(saved);
+        return saved;
     }
 
     /**
@@ -99,7 +131,10 @@ public class SeriesService {
                     serie.setGenre(s.getGenre());
                     serie.setTitle(s.getTitle());
                     serie.setNote(s.getNote());
-                    return seriesRepository.save(serie);
+                    Series saved = seriesRepository.save(serie);
+                    entityCacheService.evictSeries(id);
+                    recommendationService.onSeriesSaved(saved);
+                    return saved;
                 })
                 .orElse(null);
     }
@@ -112,6 +147,8 @@ public class SeriesService {
     public void deleteSerie(Long id) {
         if (seriesRepository.existsById(id)) {
             seriesRepository.deleteById(id);
+            entityCacheService.evictSeries(id);
+            recommendationService.onSeriesRemoved(id);
         } else {
             logger.warning("Série non trouvée : suppression impossible");
         }
@@ -135,17 +172,18 @@ public class SeriesService {
      *
      * @param genre genre des séries à rechercher (optionnel)
      * @param nbEpisodes nombre minimal d’épisodes (optionnel)
-     * @return une liste de séries correspondant aux critères
+     * @return une liste de séries correspondant aux critères, avec leur détail
      */
+    @Transactional(readOnly = true)
     public List<Series> searchSerie(String genre, Integer nbEpisodes) {
         if (genre != null && nbEpisodes != null) {
-            return seriesRepository.findByGenreAndNbEpisodesGreaterThanEqual(genre, nbEpisodes);
+            return FetchPlans.seriesDetails(seriesRepository.findByGenreAndNbEpisodesGreaterThanEqual(genre, nbEpisodes));
         } else if (genre != null) {
-            return seriesRepository.findByGenre(genre);
+            return FetchPlans.seriesDetails(seriesRepository.findByGenre(genre));
         } else if (nbEpisodes != null) {
-            return seriesRepository.findByNbEpisodesGreaterThanEqual(nbEpisodes);
+            return FetchPlans.seriesDetails(seriesRepository.findByNbEpisodesGreaterThanEqual(nbEpisodes));
         } else {
-            return seriesRepository.findAll();
+            return FetchPlans.seriesDetails(seriesRepository.findAll());
         }
     }
 }
@@ -0,0 +1,106 @@
+package ikasaidi.backend_lab.services;
+
+import ikasaidi.backend_lab.models.Ratings;
+import ikasaidi.backend_lab.models.Series;
+import ikasaidi.backend_lab.models.VuesHistory;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Écouteur JPA qui propage les écritures de {@link Series}, {@link Ratings}
+ * et {@link VuesHistory} vers le {@link TrendingService}.
+ *
+ * Il est déclaré sur les entités via {@code @EntityListeners} ; Hibernate récupère
+ * l’instance gérée par Spring, ce qui permet de suivre toutes les écritures
+ * (contrôleurs, services et seeders) sans modifier chaque appel à {@code save}.
+ *
+ * Les callbacks JPA sont appelés pendant la transaction : les valeurs utiles sont lues tout de suite,
+ * mais les agrégats ne sont modifiés qu’après la validation ({@link TrendingService#afterCommit}).
+ *
+ *
+ * Le service est résolu paresseusement afin d’éviter une dépendance circulaire
+ * avec l’{@code EntityManagerFactory} lors du démarrage.
+ *
+ * @author Ikram
+ * @version 1.0
+ */
+@Component
+public class TrendingListener {
+
+    /** Accès différé au service de tendances. */
+    private final ObjectProvider<TrendingService> trendingService;
+
+    /**
+     * Constructeur injectant l’accès différé au service de tendances.
+     *
+     * @param trendingService fournisseur du {@link TrendingService}
+     */
+    public TrendingListener(ObjectProvider<TrendingService> trendingService) {
+        this.trendingService = trendingService;
+    }
+
+    /**
+     * Appelée après l’insertion d’une entité suivie.
+     *
+     * @param entity entité insérée
+     */
+    @PostPersist
+    public void afterInsert(Object entity) {
+        TrendingService trending = trendingService.getObject();
+        if (entity instanceof Series series) {
+            TrendingService.afterCommit(() -> trending.onSeriesSaved(series));
+        } else if (entity instanceof VuesHistory view) {
+            TrendingService.afterCommit(() -> trending.onViewAdded(view));
+        } else if (entity instanceof Ratings rating) {
+            ratingSaved(trending, rating, null);
+        }
+    }
+
+    /**
+     * Appelée après la mise à jour d’une entité suivie.
+     *
+     * @param entity entité modifiée
+     */
+    @PostUpdate
+    public void afterUpdate(Object entity) {
+        TrendingService trending = trendingService.getObject();
+        if (entity instanceof Series series) {
+            TrendingService.afterCommit(() -> trending.onSeriesSaved(series));
+        } else if (entity instanceof Ratings rating) {
+            ratingSaved(trending, rating, rating.getPersistedScore());
+        }
+    }
+
+    /**
+     * Appelée après la suppression d’une entité suivie.
+     *
+     * @param entity entité supprimée
+     */
+    @PostRemove
+    public void afterDelete(Object entity) {
+        TrendingService trending = trendingService.getObject();
+        if (entity instanceof Series series) {
+            Long seriesId = series.getId();
+            TrendingService.afterCommit(() -> trending.onSeriesRemoved(seriesId));
+        } else if (entity instanceof VuesHistory view) {
+            TrendingService.afterCommit(() -> trending.onViewRemoved(view));
+        } else if (entity instanceof Ratings rating) {
+            Integer persisted = rating.getPersistedScore();
+            int score = persisted != null ? persisted : rating.getScore();
+            TrendingService.afterCommit(() -> trending.onRatingRemoved(rating, score));
+        }
+    }
+
+    /**
+     * Reporte après la validation l’écriture d’une évaluation, avec la note lue au moment de l’écriture.
+     */
+    private static void ratingSaved(TrendingService trending, Ratings rating, Integer previousScore) {
+        if (rating.getSeries() == null) return;
+        Long seriesId = rating.getSeries().getId();
+        int score = rating.getScore();
+        TrendingService.afterCommit(() -> trending.onRatingSaved(seriesId, score, previousScore));
+    }
+}
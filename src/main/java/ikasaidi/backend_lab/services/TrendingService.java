@@ -4,10 +4,11 @@ import ikasaidi.backend_lab.DTO.TrendingDto;
 import ikasaidi.backend_lab.models.Ratings;
 import ikasaidi.backend_lab.models.Series;
 import ikasaidi.backend_lab.models.VuesHistory;
-import ikasaidi.backend_lab.repositories.RatingsRepository;
 import ikasaidi.backend_lab.repositories.SeriesRepository;
 import ikasaidi.backend_lab.repositories.VuesHistoryRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDate;
 import java.util.*;
@@ -16,16 +17,21 @@ import java.util.*;
  * Service responsable du calcul des séries les plus populaires ("Trending").
  *
  * Cette classe analyse les données de visionnage et de notation pour identifier
- * les séries les plus regardées et les mieux notées des 7 derniers jours.
+ * les séries les plus regardées et les mieux notées sur une fenêtre glissante
+ * de 1, 7 (par défaut) ou 30 jours.
  *
- *Étapes du traitement :
+ * Plutôt que de relire toutes les tables à chaque appel, le service maintient
+ * en mémoire des agrégats par série :
  * <ol>
- *     <li>Récupération de toutes les séries, notes et vues récentes.</li>
- *     <li>Filtrage des vues sur les 7 derniers jours.</li>
- *     <li>Calcul du nombre total de vues récentes par série.</li>
- *     <li>Calcul de la moyenne des notes pour chaque série.</li>
- *     <li>Calcul d’un score de popularité basé sur : <code>score = views * factor1 + avgRating * factor2</code>.</li>
- *     <li>Tri des séries selon leur score décroissant et sélection du Top 10.</li>
+ *     <li>Chargement initial des séries avec leur somme et leur nombre de notes (tenus à jour
+ *         sur l’entité, sans agrégation), puis des vues des 30 derniers jours (une seule fois).</li>
+ *     <li>Un tampon circulaire de compteurs journaliers par série ; au passage de minuit,
+ *         le jour qui sort de chaque fenêtre est soustrait en O(1), sans relire l’historique.</li>
+ *     <li>Mise à jour incrémentale des compteurs et de la somme/nombre de notes
+ *         après la validation de chaque écriture (via {@link TrendingListener}) : une écriture annulée
+ *         ne change pas le classement.</li>
+ *     <li>Recalcul du score de la seule série modifiée : <code>score = views * factor1 + avgRating * factor2</code>.</li>
+ *     <li>Un classement trié par fenêtre : le Top 10 est lu en O(k).</li>
  * </ol>
  *
  *
@@ -40,8 +46,14 @@ public class TrendingService {
 
     // === Constantes configurables === //
 
-    /** Nombre de jours pris en compte pour la tendance (7 derniers jours). */
-    private static final int DAYS = 7;
+    /** Fenêtre utilisée par défaut pour la tendance (7 derniers jours). */
+    public static final int DAYS = 7;
+
+    /** Fenêtres supportées (en jours), toutes servies à partir des mêmes compteurs journaliers. */
+    private static final int[] WINDOWS = {1, DAYS, 30};
+
+    /** Taille du tampon circulaire : une case par jour de la plus grande fenêtre, plus le jour courant. */
+    private static final int BUCKETS = 31;
 
     /** Poids appliqué au nombre de vues dans le calcul du score. */
     private static final double FACTOR_VIEWS = 1.0;
@@ -53,100 +65,365 @@ public class TrendingService {
     private static final int TOP_LIMIT = 10;
 
     // === Dépendances === //
-    private final RatingsRepository ratingsRepository;
     private final SeriesRepository seriesRepository;
     private final VuesHistoryRepository vuesHistoryRepository;
 
+    // === État maintenu en mémoire (protégé par le moniteur de l’instance) === //
+
+    /** Agrégats par identifiant de série. */
+    private final Map<Long, SeriesStats> statsBySeries = new HashMap<>();
+
+    /**
+     * Un classement trié par fenêtre (même indice que {@link #WINDOWS}) : score décroissant,
+     * puis identifiant croissant. Chaque entrée est retirée puis réinsérée à chaque modification.
+     */
+    private final List<NavigableSet<SeriesStats>> rankings = new ArrayList<>();
+
+    /** Jour courant des tampons circulaires ({@code null} tant que rien n’est chargé). */
+    private LocalDate loadedDay;
+
     /**
      * Constructeur injectant les repositories nécessaires.
      *
-     * @param ratingsRepository repository des évaluations
      * @param seriesRepository repository des séries
      * @param vuesHistoryRepository repository de l’historique des vues
      */
-    public TrendingService(RatingsRepository ratingsRepository,
-                           SeriesRepository seriesRepository,
+    public TrendingService(SeriesRepository seriesRepository,
                            VuesHistoryRepository vuesHistoryRepository) {
-        this.ratingsRepository = ratingsRepository;
         this.seriesRepository = seriesRepository;
         this.vuesHistoryRepository = vuesHistoryRepository;
+
+        for (int i = 0; i < WINDOWS.length; i++) {
+            final int w = i;
+            rankings.add(new TreeSet<>(
+                    Comparator.comparingDouble((SeriesStats s) -> s.scores[w]).reversed()
+                            .thenComparing(s -> s.id)));
+        }
+    }
+
+    /**
+     * Retourne la liste des séries les plus populaires des 7 derniers jours.
+     *
+     * @return une liste triée (desc) de {@link TrendingDto} contenant les 10 séries les plus populaires
+     */
+    public List<TrendingDto> getTrending() {
+        return getTrending(DAYS);
     }
 
     /**
-     * Calcule la liste des séries les plus populaires des 7 derniers jours.
+     * Retourne la liste des séries les plus populaires sur la fenêtre demandée.
      *
      * Le score de tendance est calculé selon la formule :
      * <code>score = (nombre_de_vues * FACTOR_VIEWS) + (note_moyenne * FACTOR_RATING)</code>.
+     * Les agrégats étant déjà à jour, seule la lecture des 10 premières entrées du classement est effectuée.
      *
      *
+     * @param window taille de la fenêtre en jours (1, 7 ou 30)
      * @return une liste triée (desc) de {@link TrendingDto} contenant les 10 séries les plus populaires
+     * @throws IllegalArgumentException si la fenêtre n’est pas supportée
      */
-    public List<TrendingDto> getTrending() {
+    public synchronized List<TrendingDto> getTrending(int window) {
+        int w = windowIndex(window);
+        ensureLoaded();
+
+        List<TrendingDto> result = new ArrayList<>(TOP_LIMIT);
+        for (SeriesStats stats : rankings.get(w)) {
+            if (result.size() == TOP_LIMIT) break;
+            result.add(stats.toDto(w));
+        }
+        return result;
+    }
+
+    // ------------------------------------------------------------
+    // ---------- MISES À JOUR INCRÉMENTALES ----------
+    // ------------------------------------------------------------
+
+    /**
+     * Applique une mise à jour des agrégats après la validation de la transaction en cours,
+     * ou immédiatement hors transaction.
+     *
+     * @param change mise à jour à appliquer
+     */
+    static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    /**
+     * Enregistre la création ou la modification d’une série (titre, présence dans le classement).
+     *
+     * @param series série sauvegardée
+     */
+    public synchronized void onSeriesSaved(Series series) {
+        if (loadedDay == null || series.getId() == null) return;
+        SeriesStats stats = detach(series.getId(), series.getTitle());
+        stats.title = series.getTitle();
+        attach(stats);
+    }
+
+    /**
+     * Retire une série supprimée du classement.
+     *
+     * @param seriesId identifiant de la série supprimée
+     */
+    public synchronized void onSeriesRemoved(Long seriesId) {
+        if (loadedDay == null || seriesId == null) return;
+        SeriesStats stats = statsBySeries.remove(seriesId);
+        if (stats != null) {
+            for (NavigableSet<SeriesStats> ranking : rankings) {
+                ranking.remove(stats);
+            }
+        }
+    }
+
+    /**
+     * Comptabilise une nouvelle vue si elle tombe dans la fenêtre de tendance.
+     *
+     * @param view vue enregistrée
+     */
+    public synchronized void onViewAdded(VuesHistory view) {
+        applyView(view, 1);
+    }
+
+    /**
+     * Retire une vue supprimée du compteur de la fenêtre de tendance.
+     *
+     * @param view vue supprimée
+     */
+    public synchronized void onViewRemoved(VuesHistory view) {
+        applyView(view, -1);
+    }
+
+    /**
+     * Met à jour la somme et le nombre de notes d’une série après l’écriture d’une évaluation.
+     *
+     * @param rating évaluation sauvegardée
+     * @param previousScore ancienne note si l’évaluation existait déjà, sinon {@code null}
+     */
+    public synchronized void onRatingSaved(Ratings rating, Integer previousScore) {
+        if (loadedDay == null || rating.getSeries() == null) return;
+        applyRating(rating.getSeries().getId(), rating.getSeries().getTitle(), rating.getScore(), previousScore);
+    }
+
+    /**
+     * Variante de {@link #onRatingSaved(Ratings, Integer)} pour les écritures faites hors JPA
+     * (ingestion par lot des évaluations).
+     *
+     * @param seriesId identifiant de la série notée (directement ou via un de ses épisodes)
+     * @param score note enregistrée
+     * @param previousScore ancienne note si l’évaluation existait déjà, sinon {@code null}
+     */
+    public synchronized void onRatingSaved(Long seriesId, int score, Integer previousScore) {
+        if (loadedDay == null || seriesId == null) return;
+        applyRating(seriesId, null, score, previousScore);
+    }
+
+    private void applyRating(Long seriesId, String title, int score, Integer previousScore) {
+        SeriesStats stats = detach(seriesId, title);
+        if (previousScore == null) {
+            stats.ratingSum += score;
+            stats.ratingCount++;
+        } else {
+            stats.ratingSum += score - previousScore;
+        }
+        attach(stats);
+    }
+
+    /**
+     * Retire une évaluation supprimée des agrégats de sa série.
+     *
+     * @param rating évaluation supprimée
+     * @param score note effectivement enregistrée en base au moment de la suppression
+     */
+    public synchronized void onRatingRemoved(Ratings rating, int score) {
+        if (loadedDay == null || rating.getSeries() == null) return;
+        SeriesStats stats = detach(rating.getSeries().getId(), rating.getSeries().getTitle());
+        stats.ratingSum -= score;
+        stats.ratingCount--;
+        attach(stats);
+    }
 
-        // 1️⃣ Charger toutes les données nécessaires
-        List<Series> allSeries = seriesRepository.findAll();
-        List<Ratings> allRatings = ratingsRepository.findAll();
-        List<VuesHistory> allViews = vuesHistoryRepository.findAll();
+    // ------------------------------------------------------------
+    // ---------- CHARGEMENT ET OUTILS INTERNES ----------
+    // ------------------------------------------------------------
 
-        // 2️⃣ Calculer la date minimale (fenêtre de 7 jours)
-        LocalDate minDate = LocalDate.now().minusDays(DAYS);
+    /**
+     * Charge les agrégats au premier appel, puis fait avancer les tampons circulaires
+     * lorsque le jour change.
+     */
+    private void ensureLoaded() {
+        LocalDate today = LocalDate.now();
+        if (loadedDay == null) {
+            load(today);
+        } else if (today.isAfter(loadedDay)) {
+            roll(today);
+        }
+    }
 
-        // 3️⃣ Compter les vues récentes par série (<seriesId, nbVue>)
-        Map<Long, Long> views7BySeries = new HashMap<>();
-        for (VuesHistory vh : allViews) {
-            LocalDate d = vh.getDateWatched();
-            if (d == null || d.isBefore(minDate)) continue;
+    /**
+     * Construit tous les agrégats à partir de la base de données.
+     *
+     * @param today jour courant
+     */
+    private void load(LocalDate today) {
+        statsBySeries.clear();
 
-            Long seriesId = vh.getSeries().getId();
-            Long currentViews = views7BySeries.getOrDefault(seriesId, 0L);
-            views7BySeries.put(seriesId, currentViews + 1);
+        // 1️⃣ Une entrée par série, même sans vue ni note, avec la somme et le nombre de notes de l’entité
+        for (Series s : seriesRepository.findAll()) {
+            SeriesStats stats = new SeriesStats(s.getId(), s.getTitle());
+            stats.ratingSum = s.getRatingSum();
+            stats.ratingCount = s.getRatingCount();
+            statsBySeries.put(s.getId(), stats);
         }
 
-        // 4️⃣ Calculer la moyenne des notes par série
-        Map<Long, Integer> sumBySeries = new HashMap<>();
-        Map<Long, Integer> countBySeries = new HashMap<>();
+        // 2️⃣ Compteurs journaliers des 30 derniers jours (agrégés par la base de données)
+        loadedDay = today;
+        LocalDate since = today.minusDays(BUCKETS - 1);
+        for (VuesHistoryRepository.DailySeriesViews row : vuesHistoryRepository.countDailyViewsBySeriesSince(since)) {
+            SeriesStats stats = statsBySeries.get(row.getSeriesId());
+            if (stats != null) addView(stats, row.getDay(), row.getViews());
+        }
 
-        for (Ratings r : allRatings) {
-            Long seriesId = r.getSeries().getId();
-            int score = r.getScore();
+        // 3️⃣ Construction des classements
+        rebuildRankings();
+    }
 
-            sumBySeries.put(seriesId, sumBySeries.getOrDefault(seriesId, 0) + score);
-            countBySeries.put(seriesId, countBySeries.getOrDefault(seriesId, 0) + 1);
+    /**
+     * Fait avancer les tampons circulaires jusqu’au jour donné.
+     *
+     * Pour chaque jour écoulé et chaque fenêtre, le compteur du jour qui sort de la fenêtre
+     * est soustrait, puis la case du nouveau jour (la plus ancienne du tampon) est remise à zéro.
+     *
+     *
+     * @param today nouveau jour courant
+     */
+    private void roll(LocalDate today) {
+        long start = loadedDay.toEpochDay();
+        long steps = Math.min(today.toEpochDay() - start, BUCKETS);
+
+        for (SeriesStats stats : statsBySeries.values()) {
+            for (long day = start + 1; day <= start + steps; day++) {
+                for (int w = 0; w < WINDOWS.length; w++) {
+                    stats.views[w] -= stats.buckets[bucket(day - WINDOWS[w] - 1)];
+                }
+                stats.buckets[bucket(day)] = 0;
+            }
         }
 
-        // Convertir en moyenne
-        Map<Long, Double> averageBySeries = new HashMap<>();
-        for (Long seriesId : sumBySeries.keySet()) {
-            int sum = sumBySeries.get(seriesId);
-            int count = countBySeries.getOrDefault(seriesId, 0);
-            double avg = (count == 0) ? 0.0 : ((double) sum) / count;
-            averageBySeries.put(seriesId, round2(avg));
+        loadedDay = today;
+        rebuildRankings();
+    }
+
+    /**
+     * Recalcule tous les scores et reconstruit les classements.
+     */
+    private void rebuildRankings() {
+        for (NavigableSet<SeriesStats> ranking : rankings) {
+            ranking.clear();
+        }
+        for (SeriesStats stats : statsBySeries.values()) {
+            attach(stats);
         }
+    }
+
+    /**
+     * Ajoute ou retire une vue du compteur de sa série si elle est dans la fenêtre courante.
+     *
+     * @param view vue concernée
+     * @param delta +1 pour un ajout, -1 pour une suppression
+     */
+    private void applyView(VuesHistory view, int delta) {
+        if (loadedDay == null || view.getSeries() == null) return;
+        ensureLoaded();
+
+        SeriesStats stats = detach(view.getSeries().getId(), view.getSeries().getTitle());
+        addView(stats, view.getDateWatched(), delta);
+        attach(stats);
+    }
 
-        // 5️⃣ Calculer le score global de chaque série
-        List<TrendingDto> result = new ArrayList<>();
-        for (Series s : allSeries) {
-            long views7d = views7BySeries.getOrDefault(s.getId(), 0L);
-            double avg = averageBySeries.getOrDefault(s.getId(), 0.0);
-            double score = round2(views7d * FACTOR_VIEWS + avg * FACTOR_RATING);
+    /**
+     * Applique une vue au compteur journalier de sa date et aux fenêtres qui la contiennent.
+     * Les dates futures sont comptées dans le jour courant.
+     *
+     * @param stats agrégats de la série
+     * @param date date du visionnage
+     * @param delta nombre de vues à ajouter (négatif pour une suppression)
+     */
+    private void addView(SeriesStats stats, LocalDate date, long delta) {
+        if (date == null) return;
+        long today = loadedDay.toEpochDay();
+        long day = Math.min(date.toEpochDay(), today);
+        long age = today - day;
+        if (age >= BUCKETS) return;
 
-            result.add(new TrendingDto(
-                    s.getId(),
-                    s.getTitle(),
-                    views7d,
-                    avg,
-                    score
-            ));
+        stats.buckets[bucket(day)] += delta;
+        for (int w = 0; w < WINDOWS.length; w++) {
+            if (age <= WINDOWS[w]) stats.views[w] += delta;
         }
+    }
+
+    /**
+     * Retourne l’indice de la case du tampon circulaire pour un jour donné.
+     *
+     * @param epochDay jour (nombre de jours depuis 1970-01-01)
+     * @return indice dans le tampon
+     */
+    private static int bucket(long epochDay) {
+        return (int) Math.floorMod(epochDay, (long) BUCKETS);
+    }
 
-        // 6️⃣ Trier le résultat par score décroissant et limiter à 10
-        result.sort((a, b) -> Double.compare(b.getScore(), a.getScore()));
+    /**
+     * Retourne l’indice d’une fenêtre supportée.
+     *
+     * @param window taille de la fenêtre en jours
+     * @return indice dans {@link #WINDOWS}
+     * @throws IllegalArgumentException si la fenêtre n’est pas supportée
+     */
+    private static int windowIndex(int window) {
+        for (int w = 0; w < WINDOWS.length; w++) {
+            if (WINDOWS[w] == window) return w;
+        }
+        throw new IllegalArgumentException("Fenêtre non supportée : " + window + " (valeurs possibles : 1, 7, 30)");
+    }
 
-        if (result.size() > TOP_LIMIT) {
-            return new ArrayList<>(result.subList(0, TOP_LIMIT));
+    /**
+     * Retire du classement les agrégats d’une série (en les créant au besoin) avant modification.
+     *
+     * @param seriesId identifiant de la série
+     * @param title titre utilisé si la série n’est pas encore connue
+     * @return les agrégats de la série, hors classement
+     */
+    private SeriesStats detach(Long seriesId, String title) {
+        SeriesStats stats = statsBySeries.get(seriesId);
+        if (stats == null) {
+            stats = new SeriesStats(seriesId, title);
+            statsBySeries.put(seriesId, stats);
+        } else {
+            for (NavigableSet<SeriesStats> ranking : rankings) {
+                ranking.remove(stats);
+            }
         }
+        return stats;
+    }
 
-        return result;
+    /**
+     * Recalcule les scores d’une série puis la réinsère dans chaque classement.
+     *
+     * @param stats agrégats modifiés
+     */
+    private void attach(SeriesStats stats) {
+        stats.refreshScores();
+        for (NavigableSet<SeriesStats> ranking : rankings) {
+            ranking.add(stats);
+        }
     }
 
     /**
@@ -158,4 +435,40 @@ public class TrendingService {
     private static double round2(double x) {
         return Math.round(x * 100.0) / 100.0;
     }
+
+    /**
+     * Agrégats de tendance d’une série.
+     */
+    private static final class SeriesStats {
+        private final Long id;
+        private String title;
+        /** Vues par jour, indexées par {@link #bucket(long)}. */
+        private final long[] buckets = new long[BUCKETS];
+        /** Vues cumulées par fenêtre (même indice que {@link #WINDOWS}). */
+        private final long[] views = new long[WINDOWS.length];
+        /** Score par fenêtre (même indice que {@link #WINDOWS}). */
+        private final double[] scores = new double[WINDOWS.length];
+        private long ratingSum;
+        private long ratingCount;
+
+        private SeriesStats(Long id, String title) {
+            this.id = id;
+            this.title = title;
+        }
+
+        private double avg() {
+            return ratingCount == 0 ? 0.0 : round2(((double) ratingSum) / ratingCount);
+        }
+
+        private void refreshScores() {
+            double avg = avg();
+            for (int w = 0; w < WINDOWS.length; w++) {
+                scores[w] = round2(views[w] * FACTOR_VIEWS + avg * FACTOR_RATING);
+            }
+        }
+
+        private TrendingDto toDto(int w) {
+            return new TrendingDto(id, title, views[w], avg(), scores[w]);
+        }
+    }
 }
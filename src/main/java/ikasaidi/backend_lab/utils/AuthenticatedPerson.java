@@ -0,0 +1,44 @@
+package ikasaidi.backend_lab.utils;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.security.Principal;
+
+/**
+ * Utilisateur authentifié d’une requête, construit par {@link JwtFilter} à partir des claims du token
+ * (sujet et identifiant de la personne), sans accès à la base de données.
+ *
+ * Les contrôleurs le reçoivent avec {@code @AuthenticationPrincipal} pour connaître l’appelant,
+ * au lieu de lui faire confiance pour un paramètre <code>personId</code>.
+ *
+ * @param id identifiant de la personne (claim <code>pid</code> ; {@code null} pour un token émis sans ce claim)
+ * @param email adresse courriel de la personne (sujet du token)
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+public record AuthenticatedPerson(Integer id, String email) implements Principal {
+
+    /**
+     * @return l’adresse courriel, nom de l’utilisateur pour Spring Security
+     */
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    /**
+     * Retourne l’identifiant de l’appelant d’un endpoint qui exige une personne connectée.
+     *
+     * @param caller utilisateur authentifié (peut être {@code null})
+     * @return identifiant de la personne
+     * @throws ResponseStatusException 401 si la requête n’a pas de token portant l’identifiant de la personne
+     */
+    public static int idOf(AuthenticatedPerson caller) {
+        if (caller == null || caller.id() == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Connexion requise");
+        }
+        return caller.id();
+    }
+}
@@ -1,5 +1,6 @@
 package ikasaidi.backend_lab.utils;
 
+import ikasaidi.backend_lab.services.RefreshTokenService;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import jakarta.servlet.FilterChain;
@@ -8,12 +9,15 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.List;
 
 /**
  * Filtre de sécurité JWT pour l’authentification des requêtes HTTP.
@@ -23,12 +27,14 @@ import java.util.Collections;
  * <ul>
  *     <li>Vérifier la présence d’un en-tête HTTP <code>Authorization</code> contenant un token JWT valide.</li>
  *     <li>Valider le token et en extraire les informations utilisateur.</li>
- *     <li>Configurer le contexte de sécurité de Spring pour l’utilisateur authentifié.</li>
+ *     <li>Configurer le contexte de sécurité de Spring pour l’utilisateur authentifié : un {@link AuthenticatedPerson}
+ *         (courriel et identifiant de la personne) et ses rôles, lus dans les claims sans accès à la base.</li>
  * </ul>
  *
  *
  *
- * En cas de token expiré ou invalide, le filtre renvoie une réponse HTTP 401 (UNAUTHORIZED)
+ * En cas de token expiré, invalide ou dont la session a été révoquée (vérification en mémoire,
+ * voir {@link RefreshTokenService}), le filtre renvoie une réponse HTTP 401 (UNAUTHORIZED)
  * sans exécuter le reste de la chaîne.
  *
  *
@@ -46,6 +52,10 @@ public class JwtFilter extends OncePerRequestFilter {
     @Autowired
     private JwtUtil jwtUtil;
 
+    /** Sessions de connexion, pour refuser les tokens d’une session révoquée. */
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
     /**
      * Intercepte et traite chaque requête HTTP avant qu’elle atteigne les contrôleurs.
      *
@@ -76,9 +86,17 @@ public class JwtFilter extends OncePerRequestFilter {
                 // 3️⃣ Valider le token et extraire les informations utilisateur
                 Claims claims = jwtUtil.validationToken(token);
 
-                // 4️⃣ Créer un objet d’authentification sans rôle (ici liste vide)
+                // Session fermée (déconnexion) : le token n’est plus accepté même s’il n’a pas expiré
+                if (refreshTokenService.isRevoked(claims.get(JwtUtil.SESSION_CLAIM, String.class))) {
+                    response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Session révoquée");
+                    return;
+                }
+
+                // 4️⃣ Créer un objet d’authentification à partir des claims (personne et rôles)
+                AuthenticatedPerson principal =
+                        new AuthenticatedPerson(claims.get(JwtUtil.PERSON_CLAIM, Integer.class), claims.getSubject());
                 UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(claims.getSubject(), null, Collections.emptyList());
+                        new UsernamePasswordAuthenticationToken(principal, null, authorities(claims));
 
                 // 5️⃣ Injecter l’authentification dans le contexte de sécurité
                 SecurityContextHolder.getContext().setAuthentication(authentication);
@@ -97,4 +115,17 @@ public class JwtFilter extends OncePerRequestFilter {
         // 6️⃣ Continuer le traitement normal (autres filtres, contrôleurs, etc.)
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Convertit le claim des rôles en autorités Spring Security (liste vide si le token n’en porte pas).
+     */
+    private static List<GrantedAuthority> authorities(Claims claims) {
+        List<?> roles = claims.get(JwtUtil.ROLES_CLAIM, List.class);
+        if (roles == null) {
+            return Collections.emptyList();
+        }
+        return roles.stream()
+                .<GrantedAuthority>map(role -> new SimpleGrantedAuthority(role.toString()))
+                .toList();
+    }
 }
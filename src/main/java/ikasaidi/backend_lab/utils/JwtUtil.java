@@ -1,21 +1,31 @@
 package ikasaidi.backend_lab.utils;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Utilitaire pour la gestion des tokens JWT (JSON Web Token).
  *
  * Cette classe fournit les méthodes nécessaires pour :
  * <ul>
- *     <li>Générer un token JWT sécurisé contenant l’adresse courriel de l’utilisateur.</li>
+ *     <li>Générer un token JWT sécurisé contenant l’adresse courriel de l’utilisateur,
+ *         son identifiant, ses rôles et sa session.</li>
  *     <li>Valider et décoder un token existant afin d’en extraire les informations (claims).</li>
  * </ul>
  *
@@ -28,6 +38,12 @@ import java.util.Date;
  * jwt.expiration = 86400000
  * </pre>
  *
+ * La clé de signature et le parseur (sans état, partagé entre les threads) sont construits
+ * une seule fois au démarrage. Les tokens déjà validés sont gardés dans un cache borné
+ * (empreinte SHA-256 du token → claims) : une session qui renvoie le même token évite
+ * la vérification HMAC. Une entrée expire avec le token, ou au plus tard après
+ * <code>jwt.cache.ttl-ms</code> ; <code>jwt.cache.max-size=0</code> désactive le cache.
+ *
  *
  *
  * Cette classe est utilisée par :
@@ -43,6 +59,15 @@ import java.util.Date;
 @Component
 public class JwtUtil {
 
+    /** Nom du claim portant l’identifiant de session. */
+    public static final String SESSION_CLAIM = "sid";
+
+    /** Nom du claim portant l’identifiant de la personne. */
+    public static final String PERSON_CLAIM = "pid";
+
+    /** Nom du claim portant les rôles (autorités Spring Security) de la personne. */
+    public static final String ROLES_CLAIM = "roles";
+
     /** Clé secrète utilisée pour signer et vérifier les tokens JWT. */
     @Value("${jwt.secret}")
     private String secret;
@@ -51,13 +76,48 @@ public class JwtUtil {
     @Value("${jwt.expiration}")
     private long expiration;
 
+    /** Nombre maximal de tokens validés gardés en mémoire (0 : pas de cache). */
+    @Value("${jwt.cache.max-size:10000}")
+    private int cacheMaxSize;
+
+    /** Durée maximale (en millisecondes) pendant laquelle un token validé est réutilisé. */
+    @Value("${jwt.cache.ttl-ms:300000}")
+    private long cacheTtlMs;
+
+    /** Clé de signature HMAC, dérivée une seule fois de la clé secrète. */
+    private SecretKey secretKey;
+
+    /** Parseur vérifiant la signature, réutilisable par tous les threads. */
+    private JwtParser parser;
+
+    /** Tokens déjà validés : empreinte du token → claims, du moins au plus récemment utilisé. */
+    private Map<String, ValidatedToken> validated;
+
     /**
-     * Génère la clé de signature HMAC à partir de la clé secrète configurée.
+     * Claims d’un token validé et instant (en millisecondes) jusqu’auquel ils peuvent être réutilisés.
      *
-     * @return la clé secrète de type {@link SecretKey}
+     * @param claims claims extraits du token
+     * @param expiresAt fin de validité de l’entrée
      */
-    private SecretKey getSecretKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    private record ValidatedToken(Claims claims, long expiresAt) {
+    }
+
+    /**
+     * Construit la clé de signature, le parseur et le cache à partir de la configuration.
+     */
+    @PostConstruct
+    void init() {
+        secretKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parserBuilder()
+                .setSigningKey(secretKey)
+                .build();
+        // Ordre d'accès : l'entrée la moins récemment utilisée est retirée au-delà de la taille maximale
+        validated = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ValidatedToken> eldest) {
+                return size() > cacheMaxSize;
+            }
+        });
     }
 
     /**
@@ -76,11 +136,32 @@ public class JwtUtil {
      * @return le token JWT généré sous forme de chaîne
      */
     public String generateToken(String email) {
+        return generateToken(email, null, null, null);
+    }
+
+    /**
+     * Génère un token JWT rattaché à une personne et à une session de connexion.
+     *
+     * En plus du contenu de {@link #generateToken(String)}, le token porte l’identifiant de la personne
+     * (claim <code>pid</code>) et ses rôles (claim <code>roles</code>), avec lesquels {@link JwtFilter}
+     * construit l’utilisateur authentifié sans accès à la base, ainsi que l’identifiant de session
+     * (claim <code>sid</code>), qui permet de le refuser une fois la session révoquée.
+     *
+     * @param email l’adresse courriel de l’utilisateur (sera stockée comme sujet du token)
+     * @param personId identifiant de la personne (aucun claim si {@code null})
+     * @param roles rôles de la personne (aucun claim si {@code null})
+     * @param sessionId identifiant de la session (aucun claim si {@code null})
+     * @return le token JWT généré sous forme de chaîne
+     */
+    public String generateToken(String email, Integer personId, Collection<String> roles, String sessionId) {
         return Jwts.builder()
                 .setSubject(email)
+                .claim(PERSON_CLAIM, personId)
+                .claim(ROLES_CLAIM, roles)
+                .claim(SESSION_CLAIM, sessionId)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSecretKey())
+                .signWith(secretKey)
                 .compact();
     }
 
@@ -89,16 +170,48 @@ public class JwtUtil {
      *
      * Si le token est expiré ou invalide, une exception sera levée
      * (gérée par {@link ikasaidi.backend_lab.utils.JwtFilter}).
+     * Un token déjà validé et encore valable est retrouvé dans le cache sans vérifier la signature ;
+     * les claims retournés sont alors partagés et ne doivent pas être modifiés.
      *
      *
      * @param token le token JWT à valider
      * @return un objet {@link Claims} contenant les informations extraites du token
      */
     public Claims validationToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSecretKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        if (cacheMaxSize <= 0) {
+            return parser.parseClaimsJws(token).getBody();
+        }
+
+        String key = fingerprint(token);
+        long now = System.currentTimeMillis();
+        ValidatedToken cached = validated.get(key);
+        if (cached != null && cached.expiresAt() > now) {
+            return cached.claims();
+        }
+
+        // Absent ou périmé : vérification complète (lève une exception si le token a expiré)
+        validated.remove(key);
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        long expiresAt = now + cacheTtlMs;
+        if (claims.getExpiration() != null) {
+            expiresAt = Math.min(expiresAt, claims.getExpiration().getTime());
+        }
+        validated.put(key, new ValidatedToken(claims, expiresAt));
+        return claims;
+    }
+
+    /**
+     * Calcule l’empreinte SHA-256 d’un token, utilisée comme clé du cache.
+     *
+     * @param token le token JWT
+     * @return l’empreinte encodée en Base64
+     */
+    private static String fingerprint(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
     }
 }
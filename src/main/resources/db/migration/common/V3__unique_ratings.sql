@@ -0,0 +1,15 @@
+-- Unicite des evaluations : une note par personne et par serie (hors episodes),
+-- et une note par personne et par episode (cibles des INSERT ... ON CONFLICT).
+
+-- Doublons eventuels laisses par l'ancien chemin d'ecriture (lecture puis ecriture) : la plus recente est conservee
+DELETE FROM ratings
+WHERE episode_id IS NULL
+  AND id NOT IN (SELECT MAX(id) FROM ratings WHERE episode_id IS NULL GROUP BY person_id, series_id);
+
+DELETE FROM ratings
+WHERE episode_id IS NOT NULL
+  AND id NOT IN (SELECT MAX(id) FROM ratings WHERE episode_id IS NOT NULL GROUP BY person_id, episode_id);
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_ratings_person_series ON ratings (person_id, series_id) WHERE episode_id IS NULL;
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_ratings_person_episode ON ratings (person_id, episode_id);
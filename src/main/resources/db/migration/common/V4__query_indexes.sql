@@ -0,0 +1,23 @@
+-- Index des colonnes filtrees par les requetes frequentes et des cles etrangeres.
+
+-- Catalogue : findByGenre, findByGenreAndNbEpisodesGreaterThanEqual, titres exacts ou par prefixe et tri par titre
+-- (findByTitleContaining, en LIKE '%...%', reste un parcours de la table)
+CREATE INDEX IF NOT EXISTS ix_series_genre ON series (genre);
+CREATE INDEX IF NOT EXISTS ix_series_title ON series (title);
+
+-- Connexion : findByEmail a chaque login
+CREATE INDEX IF NOT EXISTS ix_person_email ON person (email);
+
+-- Visionnages : filtres par date (tendances) et par serie puis par date ;
+-- l'index composite sert aussi de cle etrangere series_id
+CREATE INDEX IF NOT EXISTS ix_vues_history_date_watched ON vues_history (date_watched);
+CREATE INDEX IF NOT EXISTS ix_vues_history_series_date ON vues_history (series_id, date_watched);
+CREATE INDEX IF NOT EXISTS ix_vues_history_person ON vues_history (person_id);
+
+-- Evaluations : person_id est deja en tete de ux_ratings_person_episode (index complet)
+CREATE INDEX IF NOT EXISTS ix_ratings_series ON ratings (series_id);
+CREATE INDEX IF NOT EXISTS ix_ratings_episode ON ratings (episode_id);
+
+-- Autres cles etrangeres
+CREATE INDEX IF NOT EXISTS ix_episodes_series ON episodes (series_id);
+CREATE INDEX IF NOT EXISTS ix_person_history_person ON person_history (person_id);
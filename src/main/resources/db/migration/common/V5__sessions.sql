@@ -0,0 +1,19 @@
+-- Sessions de connexion : un jeton de rafraichissement par session, remplace a chaque rafraichissement.
+-- Seule l'empreinte SHA-256 du jeton est conservee ; les dates sont en millisecondes depuis l'epoque.
+CREATE TABLE IF NOT EXISTS refresh_tokens (
+    session_id varchar(32) PRIMARY KEY,
+    token_hash varchar(64) NOT NULL,
+    person_id  integer     NOT NULL REFERENCES person (id) ON DELETE CASCADE,
+    expires_at bigint      NOT NULL
+);
+
+-- Rafraichissement : recherche par empreinte ; deconnexion de toutes les sessions d'une personne
+CREATE UNIQUE INDEX IF NOT EXISTS ux_refresh_tokens_hash ON refresh_tokens (token_hash);
+CREATE INDEX IF NOT EXISTS ix_refresh_tokens_person ON refresh_tokens (person_id);
+
+-- Sessions revoquees, rechargees en memoire au demarrage : gardees tant qu'un token d'acces
+-- de la session peut encore etre valide
+CREATE TABLE IF NOT EXISTS revoked_sessions (
+    session_id varchar(32) PRIMARY KEY,
+    expires_at bigint      NOT NULL
+);
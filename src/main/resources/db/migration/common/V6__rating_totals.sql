@@ -0,0 +1,10 @@
+-- Agregats de notes des series et des episodes recalcules a partir de la table des evaluations.
+-- Apres V3 : les doublons supprimes par V3 ne doivent plus etre comptes (V2 ajoute seulement les colonnes).
+
+UPDATE series SET
+    rating_sum = (SELECT COALESCE(SUM(r.score), 0) FROM ratings r WHERE r.series_id = series.id),
+    rating_count = (SELECT COUNT(*) FROM ratings r WHERE r.series_id = series.id);
+
+UPDATE episodes SET
+    rating_sum = (SELECT COALESCE(SUM(r.score), 0) FROM ratings r WHERE r.episode_id = episodes.id),
+    rating_count = (SELECT COUNT(*) FROM ratings r WHERE r.episode_id = episodes.id);
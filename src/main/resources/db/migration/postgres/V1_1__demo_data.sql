@@ -0,0 +1,55 @@
+-- Donnees de reference du profil postgres : series du catalogue et comptes de demonstration
+-- (memes identifiants que persons.db). Les lignes deja presentes sont conservees.
+
+INSERT INTO series (id, genre, nb_episodes, note, title) VALUES
+    (2, 'Sci-Fi', 26, 9.2, 'Dark'),
+    (3, 'comedie', 6, 5.2, 'hah'),
+    (4, 'Drama', 5, 6.3, 'Breaking Bad'),
+    (5, 'Action', 12, 5.2, 'Super Action'),
+    (6, 'Action', 10, 9.3, 'Action Super 2'),
+    (7, 'Drama', 32, 8.0, 'Breaking Point'),
+    (8, 'Drama', 30, 4.8, 'Family Secrets'),
+    (9, 'Teen', 16, 7.6, 'Family'),
+    (10, 'Romance', 10, 8.6, 'High School'),
+    (11, 'Sci-Fi', 62, 8.5, 'The Expanse'),
+    (12, 'Drama', 5, 9.1, 'Chernobyl'),
+    (13, 'Animation', 9, 9.0, 'Arcane'),
+    (14, 'Thriller', 45, 8.6, 'Mr. Robot')
+ON CONFLICT (id) DO NOTHING;
+
+INSERT INTO person (id, age, email, gender, name, password) VALUES
+    (1, 0, 'fschutt0@dailymail.co.uk', 'Male', 'Finn Schutt', 'Rt9u@zLp3'),
+    (2, 0, 'mcauldfield1@ebay.co.uk', 'Female', 'Martynne Cauldfield', 'Kx4$gHa72'),
+    (3, 0, 'tcaldecutt2@clickbank.net', 'Bigender', 'Torre Caldecutt', 'Tn7%Qv1kr'),
+    (4, 0, 'fperryman3@qq.com', 'Male', 'Filmore Perryman', 'Wb2!yRt59'),
+    (5, 0, 'fguerrieri4@plala.or.jp', 'Female', 'Fran Guerrieri', 'Gp6#sN3uz'),
+    (6, 0, 'ldrejer5@va.gov', 'Female', 'Lesya Drejer', 'Lv5$Qh9mT'),
+    (7, 0, 'grichley6@mapy.cz', 'Male', 'Gideon Richley', 'Pr8@wX2ne'),
+    (8, 0, 'gpharo7@opensource.org', 'Female', 'Gloriane Pharo', 'Sd1#tUv63'),
+    (9, 0, 'alazenby8@google.it', 'Female', 'Amitie Lazenby', 'Nx3!qLz75'),
+    (10, 0, 'swhitehorne9@blogspot.com', 'Non-binary', 'Sean Whitehorne', 'Jm4%rVa8s'),
+    (11, 0, 'sfritschmanna@geocities.jp', 'Female', 'Shauna Fritschmann', 'Hu7$kWp3n'),
+    (12, 0, 'ccatob@example.com', 'Male', 'Cooper Cato', 'Qd2@zYt65'),
+    (13, 0, 'mwickhamc@npr.org', 'Genderqueer', 'Melli Wickham', 'Kb8#fLn4v'),
+    (14, 0, 'pbondleyd@cbsnews.com', 'Male', 'Prinz Bondley', 'Mz6!pQr2x'),
+    (15, 0, 'sshilitoe@state.tx.us', 'Female', 'Suzanne Shilito', 'Xv9%tSa7n'),
+    (16, 0, 'akneafseyf@paypal.com', 'Male', 'Alvan Kneafsey', 'Yh1$gJm8q'),
+    (17, 0, 'dcobdeng@desdev.cn', 'Female', 'Dayle Cobden', 'Fn5@lWp3r'),
+    (18, 0, 'hriddlesh@samsung.com', 'Male', 'Haroun Riddles', 'Dr8#vQt9x'),
+    (19, 0, 'amabbetti@istockphoto.com', 'Male', 'Abner Mabbett', 'Cj2!bNf6p'),
+    (20, 0, 'asantarellij@360.cn', 'Male', 'Augustin Santarelli', 'Ta7%yRm1s'),
+    (21, 0, 'mhordlek@constantcontact.com', 'Female', 'Michaela Hordle', 'Wp4$kLx8q'),
+    (22, 0, 'gwannesl@hostgator.com', 'Female', 'Gwenore Wannes', 'He9@rTf3n'),
+    (23, 0, 'tpitherickm@hatena.ne.jp', 'Non-binary', 'Tiffanie Pitherick', 'Qs6#pVy2m'),
+    (24, 0, 'bmortimern@slate.com', 'Female', 'Becca Mortimer', 'Jt1!gZw7x'),
+    (25, 0, 'osmallpieceo@zdnet.com', 'Female', 'Oralle Smallpiece', 'Ul8%rNc4p'),
+    (26, 0, 'mhoulistonp@amazonaws.com', 'Female', 'Max Houliston', 'Bk5$yHq9t'),
+    (27, 0, 'bboastq@ovh.net', 'Male', 'Brandy Boast', 'Zp3@wGs7v'),
+    (28, 0, 'tlaysonr@netlog.com', 'Female', 'Terrie Layson', 'Xc6#dJr1n'),
+    (29, 0, 'htomalins@businesswire.com', 'Male', 'Hobie Tomalin', 'Rm9!lQt5x'),
+    (30, 0, 'cmuldowniet@mozilla.com', 'Male', 'Culver Muldownie', 'Ev2%hNk8p')
+ON CONFLICT (id) DO NOTHING;
+
+-- Les identites reprennent apres les identifiants inseres explicitement
+SELECT setval(pg_get_serial_sequence('series', 'id'), (SELECT COALESCE(MAX(id), 1) FROM series));
+SELECT setval(pg_get_serial_sequence('person', 'id'), (SELECT COALESCE(MAX(id), 1) FROM person));
@@ -0,0 +1,51 @@
+-- Schema initial PostgreSQL (profil postgres) : meme modele que la base SQLite.
+-- Les index sont crees par les migrations communes (db/migration/common).
+
+CREATE TABLE IF NOT EXISTS person (
+    id       integer GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    age      integer      NOT NULL DEFAULT 0,
+    email    varchar(255),
+    gender   varchar(255),
+    name     varchar(255),
+    password varchar(255)
+);
+
+CREATE TABLE IF NOT EXISTS series (
+    id           bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    genre        varchar(255),
+    nb_episodes  integer          NOT NULL,
+    note         double precision NOT NULL,
+    title        varchar(255),
+    rating_sum   bigint           NOT NULL DEFAULT 0,
+    rating_count bigint           NOT NULL DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS episodes (
+    id             bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    episode_number integer NOT NULL,
+    title          varchar(255),
+    series_id      bigint REFERENCES series (id) ON DELETE CASCADE,
+    rating_sum     bigint  NOT NULL DEFAULT 0,
+    rating_count   bigint  NOT NULL DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS person_history (
+    person_id  integer NOT NULL REFERENCES person (id) ON DELETE CASCADE,
+    history_id bigint  NOT NULL REFERENCES series (id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS ratings (
+    id         bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    score      integer NOT NULL,
+    person_id  integer REFERENCES person (id) ON DELETE CASCADE,
+    series_id  bigint REFERENCES series (id) ON DELETE CASCADE,
+    episode_id bigint REFERENCES episodes (id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS vues_history (
+    id           bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    date_watched date    NOT NULL,
+    progress     integer NOT NULL,
+    person_id    integer REFERENCES person (id) ON DELETE CASCADE,
+    series_id    bigint REFERENCES series (id) ON DELETE CASCADE
+);
@@ -0,0 +1,51 @@
+-- Schema initial SQLite, tel que cree jusqu'ici par Hibernate (ddl-auto=update) dans persons.db.
+-- Sur une base existante, les tables sont conservees (IF NOT EXISTS) : la migration ne fait rien.
+
+CREATE TABLE IF NOT EXISTS person (
+    id       integer PRIMARY KEY,
+    age      integer NOT NULL,
+    email    varchar(255),
+    gender   varchar(255),
+    name     varchar(255),
+    password varchar(255)
+);
+
+CREATE TABLE IF NOT EXISTS series (
+    id          integer,
+    genre       varchar(255),
+    nb_episodes integer NOT NULL,
+    note        float   NOT NULL,
+    title       varchar(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS episodes (
+    id             integer,
+    episode_number integer NOT NULL,
+    title          varchar(255),
+    series_id      bigint,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS person_history (
+    person_id  integer NOT NULL,
+    history_id bigint  NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS ratings (
+    id         integer,
+    score      integer NOT NULL,
+    person_id  integer,
+    series_id  bigint,
+    episode_id bigint,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS vues_history (
+    id           integer,
+    date_watched date,
+    progress     integer NOT NULL,
+    person_id    integer,
+    series_id    bigint,
+    PRIMARY KEY (id)
+);
@@ -0,0 +1,96 @@
+package ikasaidi.backend_lab;
+
+import ikasaidi.backend_lab.config.BoundedConnectionDataSource;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Classe de test de la source de données bornée {@link BoundedConnectionDataSource}.
+ *
+ * <b>Objectif :</b>
+ * Vérifier qu’au plus N connexions sont ouvertes en même temps, qu’une demande en trop attend
+ * la fermeture d’une connexion ou échoue après l’attente maximale, et qu’une double fermeture
+ * ne rend l’autorisation qu’une fois.
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+class BoundedConnectionDataSourceTest {
+
+    private static DataSource target() throws SQLException {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        return target;
+    }
+
+    /**
+     * Vérifie qu’une demande en trop attend qu’une connexion soit fermée, puis l’obtient.
+     */
+    @Test
+    void extraRequestWaitsForClose() throws Exception {
+        BoundedConnectionDataSource dataSource = new BoundedConnectionDataSource(target(), 2, 5000);
+        Connection first = dataSource.getConnection();
+        dataSource.getConnection();
+
+        CompletableFuture<Connection> third = CompletableFuture.supplyAsync(() -> {
+            try {
+                return dataSource.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(100);
+        assertFalse(third.isDone());
+
+        first.close();
+        assertNotNull(third.get(5, TimeUnit.SECONDS));
+
+        Map<String, Long> stats = dataSource.getStatistics().get("jdbc");
+        assertEquals(3L, stats.get("acquired"));
+        assertEquals(1L, stats.get("waited"));
+        assertEquals(0L, stats.get("available"));
+    }
+
+    /**
+     * Vérifie qu’une demande échoue après l’attente maximale, et qu’une double fermeture ne rend qu’une autorisation.
+     */
+    @Test
+    void requestTimesOutAndDoubleCloseReleasesOnce() throws Exception {
+        BoundedConnectionDataSource dataSource = new BoundedConnectionDataSource(target(), 1, 50);
+        Connection connection = dataSource.getConnection();
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+        connection.close();
+        connection.close();
+        Connection next = dataSource.getConnection();
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        next.close();
+
+        Map<String, Long> stats = dataSource.getStatistics().get("jdbc");
+        assertEquals(2L, stats.get("timeouts"));
+        assertEquals(1L, stats.get("available"));
+    }
+
+    /**
+     * Vérifie que l’autorisation est rendue si la source enveloppée ne donne pas de connexion.
+     */
+    @Test
+    void permitIsReleasedWhenTargetFails() throws Exception {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenThrow(new SQLException("base indisponible"));
+        BoundedConnectionDataSource dataSource = new BoundedConnectionDataSource(target, 1, 50);
+
+        assertThrows(SQLException.class, dataSource::getConnection);
+        assertEquals(1L, dataSource.getStatistics().get("jdbc").get("available"));
+    }
+}
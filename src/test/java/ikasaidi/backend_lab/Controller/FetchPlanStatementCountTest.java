@@ -0,0 +1,229 @@
+package ikasaidi.backend_lab.Controller;
+
+import ikasaidi.backend_lab.repositories.PersonRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Classe de test des plans de chargement des endpoints de lecture.
+ *
+ * <b>Objectif :</b>
+ * Vérifier, à cache de second niveau vide, que chaque endpoint ne prépare qu’un nombre fixe
+ * de requêtes SQL, quel que soit le nombre de lignes retournées :
+ * <ul>
+ *   <li><b>GET /persons</b> → les personnes seules, sans mot de passe ni collections ;</li>
+ *   <li><b>GET /persons/{id}/history</b> → les séries de l’historique ;</li>
+ *   <li><b>GET /ratings</b> et <b>GET /ratings/user/{id}</b> → les évaluations et leurs séries ;</li>
+ *   <li><b>GET /vues</b> → les visionnages et leurs séries.</li>
+ * </ul>
+ *
+ * Les réponses détaillées (<b>GET /persons/{id}</b>, <b>GET /series/{id}</b>, <b>GET /series/search</b>
+ * et les recommandations) renvoient leurs collections chargées, et non <code>null</code>.
+ *
+ * L’application démarre sur une copie de <code>persons.db</code> (complétée par les seeders),
+ * et le nombre de requêtes est lu dans les statistiques Hibernate.
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "ratings.ingest.journal-dir=target/fetch-plans-journal",
+        "recommendation.cf.initial-delay-ms=3600000"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class FetchPlanStatementCountTest {
+
+    /** Personne ayant des séries dans son historique et des évaluations dans <code>persons.db</code>. */
+    private static final int PERSON_ID = 2;
+
+    /** Série ayant des épisodes, des évaluations et des visionnages dans <code>persons.db</code>. */
+    private static final long SERIES_ID = 2;
+
+    /**
+     * Requêtes maximales d’une réponse détaillée : les collections sont chargées par lots
+     * (quelques requêtes), et non une requête par ligne (plus d’une centaine pour ces données).
+     */
+    private static final int MAX_DETAIL_STATEMENTS = 10;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    private Statistics statistics;
+
+    /**
+     * Fait pointer l’application sur une copie de la base fournie, pour ne pas modifier l’originale.
+     */
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) throws IOException {
+        Path copy = Path.of("target", "fetch-plans-test.db");
+        Files.createDirectories(copy.getParent());
+        Files.copy(Path.of("persons.db"), copy, StandardCopyOption.REPLACE_EXISTING);
+        registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + copy);
+    }
+
+    @BeforeAll
+    void statistics() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /**
+     * Vide le cache de second niveau : chaque endpoint est mesuré à froid.
+     */
+    @BeforeEach
+    void clearCaches() {
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    /**
+     * Exécute une requête GET après avoir remis les compteurs Hibernate à zéro.
+     */
+    private ResultActions measure(String url) throws Exception {
+        statistics.clear();
+        return mockMvc.perform(get(url)).andExpect(status().isOk());
+    }
+
+    /**
+     * Vérifie que la liste des personnes ne charge aucune collection.
+     */
+    @Test
+    void personListUsesOneStatement() throws Exception {
+        int expected = (int) Math.min(50, personRepository.count());
+        measure("/persons?limit=50").andExpect(jsonPath("$", hasSize(expected)))
+                .andExpect(jsonPath("$[0].email").exists())
+                .andExpect(jsonPath("$[0].password").doesNotExist())
+                .andExpect(jsonPath("$[0].history").doesNotExist());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    /**
+     * Vérifie que l’historique est lu en une seule requête (sans vérifier l’existence de la personne).
+     */
+    @Test
+    void historyUsesOneStatement() throws Exception {
+        measure("/persons/" + PERSON_ID + "/history").andExpect(jsonPath("$", not(empty())))
+                .andExpect(jsonPath("$[0].title").exists());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    /**
+     * Vérifie que la page d’évaluations joint les séries et n’expose l’utilisateur que par son identifiant.
+     */
+    @Test
+    void ratingsPageUsesOneStatement() throws Exception {
+        measure("/ratings?limit=50").andExpect(jsonPath("$", hasSize(50)))
+                .andExpect(jsonPath("$[0].seriesTitle").exists())
+                .andExpect(jsonPath("$[0].personId").exists())
+                .andExpect(jsonPath("$[0].person").doesNotExist());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    /**
+     * Vérifie que les évaluations d’un utilisateur sont lues en une seule requête.
+     */
+    @Test
+    void ratingsOfUserUseOneStatement() throws Exception {
+        measure("/ratings/user/" + PERSON_ID).andExpect(jsonPath("$", not(empty())))
+                .andExpect(jsonPath("$[0].seriesTitle").exists());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    /**
+     * Vérifie que la page de visionnages joint les séries.
+     */
+    @Test
+    void viewsPageUsesOneStatement() throws Exception {
+        measure("/vues?limit=50").andExpect(jsonPath("$", hasSize(50)))
+                .andExpect(jsonPath("$[0].seriesTitle").exists());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    /**
+     * Vérifie que le détail d’une personne contient son historique (avec les épisodes des séries),
+     * ses évaluations (avec leur épisode) et ses visionnages, en un nombre borné de requêtes.
+     */
+    @Test
+    void personDetailsIncludeCollections() throws Exception {
+        measure("/persons/" + PERSON_ID)
+                .andExpect(jsonPath("$.password").doesNotExist())
+                .andExpect(jsonPath("$.history", not(empty())))
+                .andExpect(jsonPath("$.history[0].title").exists())
+                .andExpect(jsonPath("$.history[*].episodes", everyItem(not(empty()))))
+                .andExpect(jsonPath("$.ratings", not(empty())))
+                .andExpect(jsonPath("$.ratings[0].score").exists())
+                .andExpect(jsonPath("$.ratings[0].person").doesNotExist())
+                .andExpect(jsonPath("$.ratings[*].episode.title", not(empty())))
+                .andExpect(jsonPath("$.viewsHistories", not(empty())))
+                .andExpect(jsonPath("$.viewsHistories[0].dateWatched").exists());
+        assertTrue(statistics.getPrepareStatementCount() <= MAX_DETAIL_STATEMENTS);
+    }
+
+    /**
+     * Vérifie que le détail d’une série contient ses épisodes, ses évaluations (avec leur épisode)
+     * et ses visionnages, en un nombre borné de requêtes.
+     */
+    @Test
+    void seriesDetailsIncludeCollections() throws Exception {
+        measure("/series/" + SERIES_ID)
+                .andExpect(jsonPath("$.title").exists())
+                .andExpect(jsonPath("$.episodes", not(empty())))
+                .andExpect(jsonPath("$.episodes[0].title").exists())
+                .andExpect(jsonPath("$.ratings", not(empty())))
+                .andExpect(jsonPath("$.ratings[*].episode.title", not(empty())))
+                .andExpect(jsonPath("$.viewsHistories", not(empty())));
+        assertTrue(statistics.getPrepareStatementCount() <= MAX_DETAIL_STATEMENTS);
+    }
+
+    /**
+     * Vérifie que la recherche de séries et les recommandations renvoient aussi les collections.
+     */
+    @Test
+    void seriesListsIncludeCollections() throws Exception {
+        measure("/series/search?nbEpisodes=1")
+                .andExpect(jsonPath("$", not(empty())))
+                .andExpect(jsonPath("$[*].episodes", everyItem(not(empty()))))
+                .andExpect(jsonPath("$[0].ratings").isArray())
+                .andExpect(jsonPath("$[0].viewsHistories").isArray());
+        assertTrue(statistics.getPrepareStatementCount() <= MAX_DETAIL_STATEMENTS);
+        measure("/persons/" + PERSON_ID + "/recommendation")
+                .andExpect(jsonPath("$", not(empty())))
+                .andExpect(jsonPath("$[0].episodes").isArray())
+                .andExpect(jsonPath("$[0].ratings").isArray())
+                .andExpect(jsonPath("$[0].viewsHistories").isArray());
+        assertTrue(statistics.getPrepareStatementCount() <= MAX_DETAIL_STATEMENTS);
+    }
+}
@@ -7,7 +7,9 @@ import ikasaidi.backend_lab.repositories.PersonRepository;
 import ikasaidi.backend_lab.repositories.SeriesRepository;
 import ikasaidi.backend_lab.services.PersonService;
 import ikasaidi.backend_lab.services.RecommendationService;
+import ikasaidi.backend_lab.utils.AuthenticatedPerson;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -19,15 +21,21 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.method.annotation.AuthenticationPrincipalArgumentResolver;
 
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 
@@ -65,6 +73,7 @@ class PersonControllerTest {
 
     @Mock private PersonRepository personRepository;
     @Mock private SeriesRepository seriesRepository;
+    @Mock private RecommendationService recommendationService;
 
     @InjectMocks
     private PersonController personController;
@@ -85,7 +94,14 @@ class PersonControllerTest {
         ReflectionTestUtils.setField(personController, "personRepository", personRepository);
         ReflectionTestUtils.setField(personController, "seriesRepository", seriesRepository);
 
-        mvc = MockMvcBuilders.standaloneSetup(personController).build();
+        mvc = MockMvcBuilders.standaloneSetup(personController)
+                .setCustomArgumentResolvers(new AuthenticationPrincipalArgumentResolver())
+                .build();
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
     }
 
     /**
@@ -111,10 +127,14 @@ class PersonControllerTest {
         Series series = new Series(2L, "Dark", "Sci-Fi", 26, 9.2);
 
         //Mock
-        when(personRepository.findById(1)).thenReturn(Optional.of(person));
+        when(personRepository.findWithHistoryById(1)).thenReturn(Optional.of(person));
         when(seriesRepository.findById(2L)).thenReturn(Optional.of(series));
         when(personRepository.save(person)).thenReturn(person);
 
+        // Utilisateur connecté, comme après le JwtFilter
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                new AuthenticatedPerson(1, "alice@x.com"), null, List.of()));
+
         MockHttpServletResponse response = mvc.perform(
                         post("/persons/{id}/history/{seriesId}", 1, 2)
                                 .accept(MediaType.APPLICATION_JSON))
@@ -127,6 +147,7 @@ class PersonControllerTest {
         assertTrue(body.contains("\"id\":1"));
         assertTrue(body.contains("\"history\""));
         assertTrue(body.contains("\"id\":2"));
+        assertFalse(body.contains("abc123x")); // le mot de passe n’est jamais renvoyé
     }
 
 
@@ -141,10 +162,10 @@ class PersonControllerTest {
     @Test
     void addSerieToHistoryPersonNotFound()  {
 
-        when(personRepository.findById(123)).thenReturn(Optional.empty());
+        when(personRepository.findWithHistoryById(123)).thenReturn(Optional.empty());
 
         RuntimeException ex = assertThrows(RuntimeException.class, () ->
-                personController.addSerieToHistory(123, 2L)
+                personController.addSerieToHistory(123, 2L, new AuthenticatedPerson(123, "bob@x.com"))
         );
         assertEquals("Personne non trouvée", ex.getMessage());
     }
@@ -162,12 +183,30 @@ class PersonControllerTest {
         // Arrange, la personne OK, mais la série introuvable
         Person person = new Person(1, "Alice Smith", "Female", "alice@x.com", "abc123x");
         person.setHistory(new ArrayList<>());
-        when(personRepository.findById(1)).thenReturn(Optional.of(person));
+        when(personRepository.findWithHistoryById(1)).thenReturn(Optional.of(person));
         when(seriesRepository.findById(999L)).thenReturn(Optional.empty());
 
         RuntimeException ex = assertThrows(RuntimeException.class, () ->
-                personController.addSerieToHistory(1, 999L)
+                personController.addSerieToHistory(1, 999L, new AuthenticatedPerson(1, "alice@x.com"))
         );
         assertEquals("Série non trouvée", ex.getMessage());
     }
+
+    /**
+     * Vérifie qu’un utilisateur connecté ne peut pas modifier l’historique d’une autre personne (403),
+     * et qu’un appel sans utilisateur connecté est refusé (401), sans accès à la base.
+     */
+    @Test
+    void addSerieToHistoryOfAnotherPersonIsForbidden() {
+        ResponseStatusException forbidden = assertThrows(ResponseStatusException.class, () ->
+                personController.addSerieToHistory(2, 2L, new AuthenticatedPerson(1, "alice@x.com"))
+        );
+        assertEquals(HttpStatus.FORBIDDEN, forbidden.getStatusCode());
+
+        ResponseStatusException anonymous = assertThrows(ResponseStatusException.class, () ->
+                personController.addSerieToHistory(2, 2L, null)
+        );
+        assertEquals(HttpStatus.UNAUTHORIZED, anonymous.getStatusCode());
+        verifyNoInteractions(personRepository, seriesRepository);
+    }
 }
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import ikasaidi.backend_lab.DTO.SeriesDto;
 import ikasaidi.backend_lab.controllers.SeriesController;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -33,7 +34,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 /**
  * Classe de test pour le contrôleur {@link SeriesController}.
  * <ul>
- *   <li><b>GET /series</b> : Récupère toutes les séries.</li>
+ *   <li><b>GET /series</b> : Récupère une page de séries (entités ou projection <code>fields</code>).</li>
  *   <li><b>GET /series/{id}</b> : Récupère une série par ID.</li>
  *   <li><b>POST /series</b> : Crée une nouvelle série.</li>
  *   <li><b>PUT /series/{id}</b> : Met à jour une série existante.</li>
@@ -90,17 +91,17 @@ class SeriesControllerTest {
     /**
      * Teste l’endpoint <b>GET /series</b>.
      * <ul>
-     *   <li>Vérifie que le contrôleur renvoie toutes les séries avec le code 200 OK.</li>
-     *   <li>Compare le JSON retourné avec la liste simulée.</li>
+     *   <li>Vérifie que le contrôleur renvoie la première page avec le code 200 OK.</li>
+     *   <li>Compare le JSON retourné avec la liste simulée ; pas de page suivante.</li>
      * </ul>
      * @throws Exception en cas d’erreur pendant l’exécution du test.
      */
     @Test
     void getAllTest() throws Exception {
         // ARRANGE : données simulées
-        var s1 = new Series(1L, "Dark", "Sci-Fi", 26, 9.2);
-        var s2 = new Series(2L, "Breaking Bad", "Drama", 62, 9.5);
-        given(seriesService.findAll()).willReturn(List.of(s1, s2));
+        var s1 = new SeriesDto(1L, "Dark", "Sci-Fi", 26, 9.2, 0, 0);
+        var s2 = new SeriesDto(2L, "Breaking Bad", "Drama", 62, 9.5, 9, 2);
+        given(seriesService.findPage(eq(0L), any())).willReturn(List.of(s1, s2));
 
         // ACT : appel GET /series
         MockHttpServletResponse res = mvc.perform(get("/series")
@@ -109,6 +110,35 @@ class SeriesControllerTest {
         // ASSERT : vérifier le status et le Json
         assertThat(res.getStatus()).isEqualTo(HttpStatus.OK.value());
         assertThat(res.getContentAsString()).isEqualTo(mapper.writeValueAsString(List.of(s1, s2)));
+        assertThat(res.getContentAsString()).contains("\"note\":4.5"); // moyenne des notes reçues
+        assertThat(res.getHeader("Link")).isNull();
+    }
+
+    /**
+     * Teste l’endpoint <b>GET /series?after=&amp;limit=&amp;fields=</b>.
+     * <ul>
+     *   <li>Vérifie que seuls les champs demandés sont retournés.</li>
+     *   <li>Vérifie que la ligne lue en plus est retirée et que le lien vers la page suivante repart du dernier identifiant.</li>
+     *   <li>Vérifie qu’un champ inconnu donne 400.</li>
+     * </ul>
+     * @throws Exception en cas d’erreur pendant l’exécution du test.
+     */
+    @Test
+    void getPageWithFieldsTest() throws Exception {
+        var s1 = new SeriesDto(3L, "Dark", "Sci-Fi", 26, 9.2, 0, 0);
+        var s2 = new SeriesDto(5L, "Breaking Bad", "Drama", 62, 9.5, 0, 0);
+        given(seriesService.findPage(eq(2L), any())).willReturn(List.of(s1, s2));
+
+        MockHttpServletResponse res = mvc.perform(get("/series?after=2&limit=1&fields=id,title")
+                .accept(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        assertThat(res.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(res.getContentAsString()).isEqualTo("[{\"id\":3,\"title\":\"Dark\"}]");
+        assertThat(res.getHeader("Link")).contains("after=3").contains("limit=1").contains("rel=\"next\"");
+
+        MockHttpServletResponse bad = mvc.perform(get("/series?fields=password")
+                .accept(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+        assertThat(bad.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST.value());
     }
 
     /**
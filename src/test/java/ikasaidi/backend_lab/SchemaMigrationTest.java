@@ -0,0 +1,136 @@
+package ikasaidi.backend_lab;
+
+import ikasaidi.backend_lab.db.migration.V2__RatingAggregates;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItems;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Classe de test des migrations du schéma (Flyway).
+ *
+ * <b>Objectif :</b>
+ * Vérifier qu’une copie de <code>persons.db</code> (sans historique de migrations) est amenée
+ * à la dernière version, que les index attendus existent, que SQLite les utilise
+ * pour les requêtes fréquentes et que les agrégats de notes ne comptent pas les doublons supprimés.
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "ratings.ingest.journal-dir=target/migration-journal",
+        "recommendation.cf.initial-delay-ms=3600000"
+})
+class SchemaMigrationTest {
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Fait pointer l’application sur une copie de la base fournie, pour ne pas modifier l’originale.
+     */
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) throws IOException {
+        Path copy = Path.of("target", "migration-test.db");
+        Files.createDirectories(copy.getParent());
+        Files.copy(Path.of("persons.db"), copy, StandardCopyOption.REPLACE_EXISTING);
+        registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + copy);
+    }
+
+    /**
+     * Vérifie que toutes les migrations ont été appliquées.
+     */
+    @Test
+    void schemaIsAtLatestVersion() {
+        assertEquals("6", flyway.info().current().getVersion().getVersion());
+        assertEquals(0, flyway.info().pending().length);
+    }
+
+    /**
+     * Vérifie la présence des index des colonnes filtrées et des clés étrangères.
+     */
+    @Test
+    void indexesExist() {
+        List<String> indexes = jdbcTemplate.queryForList(
+                "SELECT name FROM sqlite_master WHERE type = 'index'", String.class);
+        assertThat(indexes, hasItems("ix_series_genre", "ix_series_title", "ix_person_email",
+                "ix_vues_history_date_watched", "ix_vues_history_series_date",
+                "ix_ratings_series", "ix_ratings_episode",
+                "ux_ratings_person_series", "ux_ratings_person_episode"));
+    }
+
+    /**
+     * Vérifie que la recherche par email (connexion) et par genre n’est plus un parcours de table.
+     */
+    @Test
+    void hotLookupsUseIndexes() {
+        assertThat(plan("SELECT * FROM person WHERE email = 'a@b.c'"), containsString("ix_person_email"));
+        assertThat(plan("SELECT * FROM series WHERE genre = 'Drama'"), containsString("ix_series_genre"));
+        assertThat(plan("SELECT * FROM vues_history WHERE series_id = 2 AND date_watched >= '2024-01-01'"),
+                containsString("ix_vues_history_series_date"));
+    }
+
+    /**
+     * Vérifie que les agrégats de notes sont calculés après la suppression des doublons (V3) :
+     * une note en double ajoutée à une copie de la base n’est pas comptée.
+     */
+    @Test
+    void ratingTotalsIgnoreRemovedDuplicates() throws IOException {
+        Path copy = Path.of("target", "migration-duplicates.db");
+        Files.copy(Path.of("persons.db"), copy, StandardCopyOption.REPLACE_EXISTING);
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource("jdbc:sqlite:" + copy, true);
+        try {
+            JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+            // persons.db peut déjà avoir été migrée par les autres tests : retour à une base sans migrations
+            jdbc.execute("DROP TABLE IF EXISTS flyway_schema_history");
+            jdbc.execute("DROP INDEX IF EXISTS ux_ratings_person_series");
+            jdbc.execute("DROP INDEX IF EXISTS ux_ratings_person_episode");
+            jdbc.update("INSERT INTO ratings (score, person_id, series_id, episode_id) "
+                    + "SELECT score, person_id, series_id, episode_id FROM ratings WHERE episode_id IS NOT NULL LIMIT 1");
+
+            Flyway.configure()
+                    .dataSource(dataSource)
+                    .locations("classpath:db/migration/common", "classpath:db/migration/sqlite")
+                    .javaMigrations(new V2__RatingAggregates())
+                    .baselineOnMigrate(true)
+                    .baselineVersion("0")
+                    .load()
+                    .migrate();
+
+            assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM series s WHERE s.rating_count <> "
+                    + "(SELECT COUNT(*) FROM ratings r WHERE r.series_id = s.id)", Integer.class));
+            assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM series s WHERE s.rating_sum <> "
+                    + "(SELECT COALESCE(SUM(r.score), 0) FROM ratings r WHERE r.series_id = s.id)", Integer.class));
+            assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM episodes e WHERE e.rating_count <> "
+                    + "(SELECT COUNT(*) FROM ratings r WHERE r.episode_id = e.id)", Integer.class));
+        } finally {
+            dataSource.destroy();
+            Files.deleteIfExists(copy);
+        }
+    }
+
+    private String plan(String sql) {
+        return String.join(" ", jdbcTemplate.queryForList("EXPLAIN QUERY PLAN " + sql).stream()
+                .map(row -> String.valueOf(row.get("detail")))
+                .toList());
+    }
+}
@@ -0,0 +1,202 @@
+package ikasaidi.backend_lab.Service;
+
+import ikasaidi.backend_lab.DTO.Connexion;
+import ikasaidi.backend_lab.DTO.ReponseAuthentification;
+import ikasaidi.backend_lab.models.Person;
+import ikasaidi.backend_lab.repositories.PersonRepository;
+import ikasaidi.backend_lab.services.AuthentificationService;
+import ikasaidi.backend_lab.services.PasswordHashingService;
+import ikasaidi.backend_lab.services.RefreshTokenService;
+import ikasaidi.backend_lab.utils.JwtUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Classe de test pour le service {@link AuthentificationService} et son pool de hachage {@link PasswordHashingService}.
+ *
+ * <b>Objectif :</b>
+ * Vérifier qu’un mot de passe en clair ou d’un coût trop faible est haché de nouveau après une connexion réussie,
+ * qu’un compte sans mot de passe est refusé, que les sessions ne sont pas ouvertes sur le pool de hachage
+ * et que le pool refuse les calculs quand sa file est pleine.
+ *
+ * <b>Technologies utilisées :</b>
+ * <ul>
+ *   <li>JUnit 5 pour l’exécution des tests unitaires</li>
+ *   <li>Mockito pour simuler le repository et l’utilitaire JWT</li>
+ * </ul>
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+class AuthentificationServiceTest {
+
+    private PersonRepository personRepository;
+    private PasswordHashingService passwordHashingService;
+    private RefreshTokenService refreshTokenService;
+    private ExecutorService taskExecutor;
+    private AuthentificationService authentificationService;
+
+    private static Person person(String password) {
+        return new Person(7, "Alice", "Female", "alice@example.com", password);
+    }
+
+    private static Connexion login(String password) {
+        Connexion request = new Connexion();
+        request.setEmail("alice@example.com");
+        request.setPassword(password);
+        return request;
+    }
+
+    /**
+     * Construit le service avec un vrai pool de hachage (coût 5), un exécuteur de tâches et des mocks.
+     */
+    @BeforeEach
+    void setUp() {
+        personRepository = mock(PersonRepository.class);
+        JwtUtil jwtUtil = mock(JwtUtil.class);
+        when(jwtUtil.generateToken(anyString(), any(), any(), anyString())).thenReturn("token");
+        refreshTokenService = mock(RefreshTokenService.class);
+        when(refreshTokenService.open(any(), any(), any())).thenAnswer(invocation -> new RefreshTokenService.Session(
+                "session", invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2), "refresh"));
+        passwordHashingService = new PasswordHashingService(new BCryptPasswordEncoder(5), 2, 10);
+        taskExecutor = Executors.newFixedThreadPool(2, r -> new Thread(r, "task"));
+
+        authentificationService = new AuthentificationService();
+        ReflectionTestUtils.setField(authentificationService, "personRepository", personRepository);
+        ReflectionTestUtils.setField(authentificationService, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(authentificationService, "refreshTokenService", refreshTokenService);
+        ReflectionTestUtils.setField(authentificationService, "passwordHashingService", passwordHashingService);
+        ReflectionTestUtils.setField(authentificationService, "taskExecutor", taskExecutor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordHashingService.stop();
+        taskExecutor.shutdownNow();
+    }
+
+    /**
+     * Vérifie que l’inscription et la connexion enregistrent la personne et ouvrent la session
+     * sur l’exécuteur de tâches, pas sur un fil du pool de hachage.
+     */
+    @Test
+    void sessionIsOpenedOffTheHashingPool() {
+        when(personRepository.findByEmail("alice@example.com")).thenReturn(Optional.empty());
+        when(personRepository.save(any(Person.class))).thenAnswer(invocation -> {
+            assertEquals("task", Thread.currentThread().getName());
+            Person saved = invocation.getArgument(0);
+            saved.setId(7);
+            return saved;
+        });
+        when(refreshTokenService.open(any(), any(), any())).thenAnswer(invocation -> {
+            assertEquals("task", Thread.currentThread().getName());
+            return new RefreshTokenService.Session("session", invocation.getArgument(0),
+                    invocation.getArgument(1), invocation.getArgument(2), "refresh");
+        });
+
+        Connexion request = login("secret");
+        request.setName("Alice");
+        assertTrue(authentificationService.register(request).join().isSuccess());
+
+        when(personRepository.findByEmail("alice@example.com"))
+                .thenReturn(Optional.of(person(new BCryptPasswordEncoder(5).encode("secret"))));
+        assertTrue(authentificationService.connexion(login("secret")).join().isSuccess());
+        verify(refreshTokenService, times(2)).open(any(), any(), any());
+    }
+
+    /**
+     * Vérifie qu’un mot de passe en clair est accepté puis remplacé par un haché BCrypt.
+     */
+    @Test
+    void plaintextPasswordIsRehashedAfterLogin() {
+        when(personRepository.findByEmail("alice@example.com")).thenReturn(Optional.of(person("secret")));
+
+        ReponseAuthentification response = authentificationService.connexion(login("secret")).join();
+        assertTrue(response.isSuccess());
+        assertEquals("token", response.getToken());
+        assertEquals("refresh", response.getRefreshToken());
+
+        ArgumentCaptor<String> hash = ArgumentCaptor.forClass(String.class);
+        verify(personRepository, timeout(5000)).updatePassword(eq(7), eq("secret"), hash.capture());
+        assertTrue(new BCryptPasswordEncoder().matches("secret", hash.getValue()));
+    }
+
+    /**
+     * Vérifie qu’un haché d’un coût inférieur au coût configuré est remplacé, mais pas un haché à jour.
+     */
+    @Test
+    void weakerHashIsUpgradedButCurrentHashIsKept() {
+        String weak = new BCryptPasswordEncoder(4).encode("secret");
+        when(personRepository.findByEmail("alice@example.com")).thenReturn(Optional.of(person(weak)));
+        assertTrue(authentificationService.connexion(login("secret")).join().isSuccess());
+        verify(personRepository, timeout(5000)).updatePassword(eq(7), eq(weak), anyString());
+
+        reset(personRepository);
+        String current = new BCryptPasswordEncoder(5).encode("secret");
+        when(personRepository.findByEmail("alice@example.com")).thenReturn(Optional.of(person(current)));
+        assertTrue(authentificationService.connexion(login("secret")).join().isSuccess());
+        assertFalse(authentificationService.connexion(login("wrong")).join().isSuccess());
+        verify(personRepository, after(200).never()).updatePassword(any(), any(), any());
+    }
+
+    /**
+     * Vérifie qu’un compte sans mot de passe enregistré ou une demande sans mot de passe est refusé.
+     */
+    @Test
+    void missingPasswordIsRejected() {
+        when(personRepository.findByEmail("alice@example.com")).thenReturn(Optional.of(person(null)));
+        assertFalse(authentificationService.connexion(login("secret")).join().isSuccess());
+
+        when(personRepository.findByEmail("alice@example.com")).thenReturn(Optional.of(person("secret")));
+        assertFalse(authentificationService.connexion(login(null)).join().isSuccess());
+        verify(personRepository, never()).updatePassword(any(), any(), any());
+    }
+
+    /**
+     * Vérifie qu’un calcul est refusé quand tous les fils sont occupés et la file pleine, et que le refus est compté.
+     */
+    @Test
+    void poolRejectsWhenQueueIsFull() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        BCryptPasswordEncoder blocking = new BCryptPasswordEncoder(4) {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.encode(rawPassword);
+            }
+        };
+        PasswordHashingService pool = new PasswordHashingService(blocking, 1, 1);
+        try {
+            pool.encode("a");
+            pool.encode("b");
+            assertThrows(RejectedExecutionException.class, () -> pool.encode("c"));
+
+            release.countDown();
+            Map<String, Map<String, Long>> stats = pool.getStatistics();
+            assertEquals(1L, stats.get("queue").get("rejected"));
+            assertEquals(1L, stats.get("queue").get("maxQueued"));
+        } finally {
+            release.countDown();
+            pool.stop();
+        }
+    }
+}
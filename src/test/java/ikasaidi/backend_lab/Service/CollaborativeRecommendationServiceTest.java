@@ -0,0 +1,124 @@
+package ikasaidi.backend_lab.Service;
+
+import ikasaidi.backend_lab.models.Series;
+import ikasaidi.backend_lab.repositories.RatingsRepository;
+import ikasaidi.backend_lab.repositories.SeriesRepository;
+import ikasaidi.backend_lab.repositories.VuesHistoryRepository;
+import ikasaidi.backend_lab.services.CollaborativeRecommendationService;
+import ikasaidi.backend_lab.services.RecommendationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Classe de test pour le service {@link CollaborativeRecommendationService}.
+ *
+ * <b>Objectif :</b>
+ * Vérifier que le modèle de similarité série à série est construit à partir
+ * du co-visionnage et de la co-notation, et que la recommandation :
+ * <ul>
+ *   <li>propose les séries regardées par des personnes ayant les mêmes goûts ;</li>
+ *   <li>exclut les séries déjà vues ;</li>
+ *   <li>utilise la recommandation par genres tant qu’aucun modèle n’est disponible.</li>
+ * </ul>
+ *
+ * @author Rachel
+ * @version 1.0
+ */
+class CollaborativeRecommendationServiceTest {
+
+    @Mock
+    private VuesHistoryRepository vuesHistoryRepository;
+
+    @Mock
+    private RatingsRepository ratingsRepository;
+
+    @Mock
+    private SeriesRepository seriesRepository;
+
+    @Mock
+    private RecommendationService recommendationService;
+
+    private CollaborativeRecommendationService service;
+
+    /**
+     * Personnes 1 et 2 regardent les séries 10 et 20 ; la personne 2 regarde aussi la série 30.
+     * La personne 3 note la série 40 seulement.
+     */
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        service = new CollaborativeRecommendationService(vuesHistoryRepository, ratingsRepository,
+                seriesRepository, recommendationService, 20);
+
+        when(vuesHistoryRepository.findDistinctPersonSeriesPairs()).thenReturn(List.of(
+                pair(1, 10L), pair(1, 20L),
+                pair(2, 10L), pair(2, 20L), pair(2, 30L)
+        ));
+        when(ratingsRepository.averageByPersonAndSeries()).thenReturn(List.of(
+                score(3, 40L, 5.0)
+        ));
+    }
+
+    private static VuesHistoryRepository.PersonSeriesPair pair(Integer personId, Long seriesId) {
+        return new VuesHistoryRepository.PersonSeriesPair() {
+            public Integer getPersonId() { return personId; }
+            public Long getSeriesId() { return seriesId; }
+        };
+    }
+
+    private static RatingsRepository.PersonSeriesScore score(Integer personId, Long seriesId, Double score) {
+        return new RatingsRepository.PersonSeriesScore() {
+            public Integer getPersonId() { return personId; }
+            public Long getSeriesId() { return seriesId; }
+            public Double getScore() { return score; }
+        };
+    }
+
+    /**
+     * Vérifie que la série co-regardée est recommandée et que les séries déjà vues sont exclues.
+     */
+    @Test
+    void testRecommendsCoWatchedSeries() {
+        Series thirty = new Series(30L, "Chernobyl", "Drama", 5, 9.1);
+        when(seriesRepository.findAllById(List.of(30L))).thenReturn(List.of(thirty));
+
+        service.rebuild();
+        List<Series> result = service.getPersonsRecommendation(1);
+
+        assertEquals(List.of(thirty), result);
+        verify(recommendationService, never()).getPersonsRecommendation(anyInt());
+    }
+
+    /**
+     * Vérifie qu’une personne sans voisin commun ne reçoit aucune recommandation.
+     */
+    @Test
+    void testNoNeighbours() {
+        service.rebuild();
+
+        assertTrue(service.getPersonsRecommendation(3).isEmpty());
+        verify(seriesRepository, never()).findAllById(any());
+    }
+
+    /**
+     * Vérifie le repli sur la recommandation par genres avant la première construction du modèle
+     * et pour une personne inconnue du modèle.
+     */
+    @Test
+    void testFallbackToGenres() {
+        Series dark = new Series(1L, "Dark", "Sci-Fi", 26, 9.2);
+        when(recommendationService.getPersonsRecommendation(anyInt())).thenReturn(List.of(dark));
+
+        assertEquals(List.of(dark), service.getPersonsRecommendation(1));
+
+        service.rebuild();
+        assertEquals(List.of(dark), service.getPersonsRecommendation(99));
+    }
+}
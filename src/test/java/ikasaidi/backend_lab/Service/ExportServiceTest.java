@@ -0,0 +1,93 @@
+package ikasaidi.backend_lab.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import ikasaidi.backend_lab.DTO.RatingExportDto;
+import ikasaidi.backend_lab.DTO.ViewExportDto;
+import ikasaidi.backend_lab.repositories.RatingsRepository;
+import ikasaidi.backend_lab.repositories.VuesHistoryRepository;
+import ikasaidi.backend_lab.services.ExportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Classe de test pour le service {@link ExportService}.
+ *
+ * <b>Objectif :</b>
+ * Vérifier que l’export écrit une ligne JSON par enregistrement (NDJSON),
+ * sans relations imbriquées, et que le flux de la requête est bien fermé.
+ *
+ * @author Rachel
+ * @version 1.0
+ */
+class ExportServiceTest {
+
+    @Mock
+    private VuesHistoryRepository vuesHistoryRepository;
+
+    @Mock
+    private RatingsRepository ratingsRepository;
+
+    private ExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ObjectMapper mapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        exportService = new ExportService(vuesHistoryRepository, ratingsRepository, mapper);
+    }
+
+    /**
+     * Vérifie le format NDJSON de l’export de l’historique et la fermeture du flux.
+     */
+    @Test
+    void testExportViews() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(vuesHistoryRepository.streamForExport()).thenReturn(Stream.of(
+                new ViewExportDto(1L, 2, 3L, LocalDate.of(2025, 10, 1), 4),
+                new ViewExportDto(2L, 5, 6L, LocalDate.of(2025, 10, 2), 1)
+        ).onClose(() -> closed.set(true)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = exportService.exportViews(out);
+
+        assertEquals(2, count);
+        assertEquals("{\"id\":1,\"personId\":2,\"seriesId\":3,\"dateWatched\":\"2025-10-01\",\"progress\":4}\n"
+                + "{\"id\":2,\"personId\":5,\"seriesId\":6,\"dateWatched\":\"2025-10-02\",\"progress\":1}\n",
+                out.toString(StandardCharsets.UTF_8));
+        assertTrue(closed.get());
+    }
+
+    /**
+     * Vérifie l’export des évaluations, y compris une note de série (sans épisode).
+     */
+    @Test
+    void testExportRatings() throws Exception {
+        when(ratingsRepository.streamForExport()).thenReturn(Stream.of(
+                new RatingExportDto(7L, 5, 1, 2L, null),
+                new RatingExportDto(8L, 3, 1, 2L, 9L)
+        ));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(2, exportService.exportRatings(out));
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("{\"id\":7,\"score\":5,\"personId\":1,\"seriesId\":2,\"episodeId\":null}", lines[0]);
+        assertTrue(lines[1].endsWith("\"episodeId\":9}"));
+    }
+}
@@ -0,0 +1,110 @@
+package ikasaidi.backend_lab.Service;
+
+import ikasaidi.backend_lab.utils.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe de test pour l’utilitaire {@link JwtUtil}.
+ *
+ * <b>Objectif :</b>
+ * Vérifier que la validation d’un token déjà vu est servie par le cache (mêmes claims),
+ * que le cache reste borné, qu’un token expiré ou falsifié est toujours refusé,
+ * et que l’identifiant de la personne, ses rôles et la session sont portés par le token.
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+class JwtUtilTest {
+
+    private static JwtUtil jwtUtil(long expiration, int cacheMaxSize) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "C0NkZRP0cwrDN2SKSWQb5SlZBG0Gb785");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", expiration);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxSize", cacheMaxSize);
+        ReflectionTestUtils.setField(jwtUtil, "cacheTtlMs", 300_000L);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+        return jwtUtil;
+    }
+
+    /**
+     * Vérifie qu’un token validé deux fois donne les mêmes claims, et des claims distincts sans cache.
+     */
+    @Test
+    void repeatedTokenIsServedFromCache() {
+        JwtUtil cached = jwtUtil(3_600_000L, 100);
+        String token = cached.generateToken("alice@example.com");
+
+        Claims first = cached.validationToken(token);
+        assertEquals("alice@example.com", first.getSubject());
+        assertSame(first, cached.validationToken(token));
+
+        JwtUtil uncached = jwtUtil(3_600_000L, 0);
+        assertNotSame(uncached.validationToken(token), uncached.validationToken(token));
+    }
+
+    /**
+     * Vérifie que le token le moins récemment utilisé est retiré au-delà de la taille maximale.
+     */
+    @Test
+    void cacheIsBounded() {
+        JwtUtil jwtUtil = jwtUtil(3_600_000L, 2);
+        String alice = jwtUtil.generateToken("alice@example.com");
+        String bob = jwtUtil.generateToken("bob@example.com");
+        String carol = jwtUtil.generateToken("carol@example.com");
+
+        Claims aliceClaims = jwtUtil.validationToken(alice);
+        Claims bobClaims = jwtUtil.validationToken(bob);
+        jwtUtil.validationToken(carol);
+
+        assertSame(bobClaims, jwtUtil.validationToken(bob));
+        assertNotSame(aliceClaims, jwtUtil.validationToken(alice));
+    }
+
+    /**
+     * Vérifie qu’un token expiré ou falsifié lève toujours une exception, même avec le cache.
+     */
+    @Test
+    void expiredAndTamperedTokensAreRejected() {
+        JwtUtil jwtUtil = jwtUtil(3_600_000L, 100);
+        String token = jwtUtil.generateToken("alice@example.com");
+        jwtUtil.validationToken(token);
+
+        int signature = token.lastIndexOf('.') + 1;
+        String tampered = token.substring(0, signature)
+                + (token.charAt(signature) == 'A' ? 'B' : 'A')
+                + token.substring(signature + 1);
+        assertThrows(SignatureException.class, () -> jwtUtil.validationToken(tampered));
+
+        JwtUtil expired = jwtUtil(-60_000L, 100);
+        String old = expired.generateToken("alice@example.com");
+        assertThrows(ExpiredJwtException.class, () -> expired.validationToken(old));
+        assertThrows(ExpiredJwtException.class, () -> expired.validationToken(old));
+    }
+
+    /**
+     * Vérifie que les claims de la personne, des rôles et de la session sont relus tels quels.
+     */
+    @Test
+    void personRolesAndSessionClaimsRoundTrip() {
+        JwtUtil jwtUtil = jwtUtil(3_600_000L, 100);
+        Claims claims = jwtUtil.validationToken(
+                jwtUtil.generateToken("alice@example.com", 7, List.of("ROLE_USER"), "session"));
+
+        assertEquals("alice@example.com", claims.getSubject());
+        assertEquals(7, claims.get(JwtUtil.PERSON_CLAIM, Integer.class));
+        assertEquals(List.of("ROLE_USER"), claims.get(JwtUtil.ROLES_CLAIM, List.class));
+        assertEquals("session", claims.get(JwtUtil.SESSION_CLAIM, String.class));
+
+        Claims anonymous = jwtUtil.validationToken(jwtUtil.generateToken("bob@example.com"));
+        assertNull(anonymous.get(JwtUtil.PERSON_CLAIM));
+        assertNull(anonymous.get(JwtUtil.ROLES_CLAIM));
+    }
+}
@@ -0,0 +1,250 @@
+package ikasaidi.backend_lab.Service;
+
+import ikasaidi.backend_lab.models.Series;
+import ikasaidi.backend_lab.repositories.EpisodesRepository;
+import ikasaidi.backend_lab.repositories.SeriesRepository;
+import ikasaidi.backend_lab.services.EntityCacheService;
+import ikasaidi.backend_lab.services.RatingIngestionService;
+import ikasaidi.backend_lab.services.TrendingService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Classe de test pour le service {@link RatingIngestionService}.
+ *
+ * <b>Objectif :</b>
+ * Vérifier, sur une base SQLite temporaire, que l’ingestion différée des évaluations :
+ * <ul>
+ *   <li>fusionne les notes répétées (la dernière l’emporte) ;</li>
+ *   <li>met à jour les évaluations existantes et tient les tendances à jour ;</li>
+ *   <li>applique l’écart de chaque note aux agrégats de la série ;</li>
+ *   <li>applique la contre-pression lorsque la file est pleine ;</li>
+ *   <li>rejoue le journal après un arrêt brutal ;</li>
+ *   <li>écarte les notes impossibles à écrire sans bloquer les autres ni la file.</li>
+ * </ul>
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+class RatingIngestionServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private SeriesRepository seriesRepository;
+
+    @Mock
+    private EpisodesRepository episodesRepository;
+
+    @Mock
+    private TrendingService trendingService;
+
+    @Mock
+    private EntityCacheService entityCacheService;
+
+    private JdbcTemplate jdbcTemplate;
+    private DataSourceTransactionManager transactionManager;
+    private RatingIngestionService service;
+
+    /**
+     * Crée les tables des évaluations (avec ses index uniques), des séries et des personnes
+     * dans une base temporaire ; les séries 10 et 20 et les personnes 1 à 3 existent.
+     */
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:sqlite:" + tempDir.resolve("test.db"));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate.execute("CREATE TABLE ratings (id integer, score integer not null, person_id integer, "
+                + "series_id bigint, episode_id bigint, primary key (id))");
+        jdbcTemplate.execute("CREATE UNIQUE INDEX ux_ratings_person_series ON ratings (person_id, series_id) "
+                + "WHERE episode_id IS NULL");
+        jdbcTemplate.execute("CREATE UNIQUE INDEX ux_ratings_person_episode ON ratings (person_id, episode_id)");
+        jdbcTemplate.execute("CREATE TABLE series (id integer, rating_sum bigint default 0 not null, "
+                + "rating_count bigint default 0 not null, primary key (id))");
+        jdbcTemplate.execute("INSERT INTO series (id) VALUES (10), (20)");
+        jdbcTemplate.execute("CREATE TABLE person (id integer, primary key (id))");
+        jdbcTemplate.execute("INSERT INTO person (id) VALUES (1), (2), (3)");
+
+        when(seriesRepository.findById(10L)).thenReturn(Optional.of(new Series(10L, "Dark", "Sci-Fi", 26, 9.2)));
+        when(seriesRepository.findById(20L)).thenReturn(Optional.of(new Series(20L, "Arcane", "Animation", 9, 9.0)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) service.stop();
+    }
+
+    private RatingIngestionService newService(int capacity) {
+        return new RatingIngestionService(jdbcTemplate, transactionManager, seriesRepository,
+                episodesRepository, trendingService, entityCacheService, capacity, 500, 3_600_000L, 200L,
+                tempDir.resolve("journal").toString(), false);
+    }
+
+    private Integer scoreOf(int personId, long seriesId) {
+        return jdbcTemplate.query("SELECT score FROM ratings WHERE person_id = ? AND series_id = ?",
+                rs -> rs.next() ? rs.getInt(1) : null, personId, seriesId);
+    }
+
+    private long[] totalsOf(long seriesId) {
+        return jdbcTemplate.queryForObject("SELECT rating_sum, rating_count FROM series WHERE id = ?",
+                (rs, i) -> new long[]{rs.getLong(1), rs.getLong(2)}, seriesId);
+    }
+
+    /**
+     * Vérifie que plusieurs notes sur la même série ne produisent qu’une seule écriture.
+     */
+    @Test
+    void testCoalescesRepeatedRatings() {
+        service = newService(100);
+        service.start();
+
+        assertTrue(service.submitSeriesRating(10L, 1, 2));
+        assertTrue(service.submitSeriesRating(10L, 1, 3));
+        assertTrue(service.submitSeriesRating(10L, 1, 5));
+        assertEquals(1, service.getPendingCount());
+
+        assertEquals(1, service.flush());
+        assertEquals(5, scoreOf(1, 10L));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ratings", Integer.class));
+        verify(trendingService).onRatingSaved(10L, 5, null);
+        assertArrayEquals(new long[]{5, 1}, totalsOf(10L));
+        verify(entityCacheService).evictAfterCommit(10L, null);
+    }
+
+    /**
+     * Vérifie qu’une évaluation existante est mise à jour et que l’ancienne note est transmise aux tendances.
+     */
+    @Test
+    void testUpdatesExistingRating() {
+        jdbcTemplate.update("INSERT INTO ratings (score, person_id, series_id) VALUES (2, 1, 10)");
+        jdbcTemplate.update("UPDATE series SET rating_sum = 2, rating_count = 1 WHERE id = 10");
+        service = newService(100);
+        service.start();
+
+        service.submitSeriesRating(10L, 1, 4);
+        service.flush();
+
+        assertEquals(4, scoreOf(1, 10L));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ratings", Integer.class));
+        verify(trendingService).onRatingSaved(10L, 4, 2);
+        assertArrayEquals(new long[]{4, 1}, totalsOf(10L)); // seul l’écart est appliqué
+    }
+
+    /**
+     * Vérifie qu’une note invalide est refusée avant d’entrer dans la file.
+     */
+    @Test
+    void testRejectsInvalidRating() {
+        service = newService(100);
+        service.start();
+
+        assertThrows(IllegalArgumentException.class, () -> service.submitSeriesRating(10L, 1, 6));
+        assertThrows(IllegalArgumentException.class, () -> service.submitSeriesRating(99L, 1, 3));
+        assertEquals(0, service.getPendingCount());
+    }
+
+    /**
+     * Vérifie la contre-pression : une file pleine déclenche une écriture, et la note est refusée
+     * si la base ne peut pas absorber le lot.
+     */
+    @Test
+    void testBackpressure() {
+        service = newService(1);
+        service.start();
+
+        assertTrue(service.submitSeriesRating(10L, 1, 3));
+        assertTrue(service.submitSeriesRating(20L, 1, 4)); // attend l’écriture du premier lot
+        assertEquals(3, scoreOf(1, 10L));
+
+        jdbcTemplate.execute("DROP TABLE ratings");
+        assertFalse(service.submitSeriesRating(10L, 1, 5));
+        assertEquals(1, service.getPendingCount());
+    }
+
+    /**
+     * Vérifie que les notes acquittées mais non écrites sont rejouées au redémarrage.
+     */
+    @Test
+    void testReplaysJournalAfterCrash() {
+        RatingIngestionService crashed = newService(100);
+        crashed.start();
+        crashed.submitSeriesRating(10L, 1, 2);
+        crashed.submitSeriesRating(10L, 1, 4);
+        // Arrêt brutal : ni stop() ni flush()
+
+        service = newService(100);
+        service.start();
+
+        assertEquals(4, scoreOf(1, 10L));
+        assertEquals(0, service.getPendingCount());
+    }
+
+    /**
+     * Vérifie qu’une note rejouée au démarrage pour une série supprimée est écartée :
+     * le démarrage réussit, les autres notes sont écrites et la file se vide.
+     */
+    @Test
+    void testReplaySkipsRatingOfMissingSeries() throws IOException {
+        Path journal = tempDir.resolve("journal");
+        Files.createDirectories(journal);
+        Files.write(journal.resolve("ratings-journal.log"), List.of("1,10,,4", "1,99,,3", "2,20,,5"));
+
+        service = newService(100);
+        assertDoesNotThrow(service::start);
+
+        assertEquals(4, scoreOf(1, 10L));
+        assertEquals(5, scoreOf(2, 20L));
+        assertNull(scoreOf(1, 99L));
+        assertEquals(0, service.getPendingCount());
+        assertArrayEquals(new long[]{4, 1}, totalsOf(10L));
+        assertEquals(List.of("1,99,,3"), Files.readAllLines(journal.resolve("ratings-journal.rejected")));
+        verify(trendingService, never()).onRatingSaved(eq(99L), anyInt(), any());
+    }
+
+    /**
+     * Vérifie qu’une note refusée par la base fait réécrire le lot note par note :
+     * les autres notes sont écrites, la note refusée est écartée et la file accepte de nouvelles notes.
+     */
+    @Test
+    void testRejectedRowDoesNotBlockQueue() throws IOException {
+        jdbcTemplate.execute("CREATE TRIGGER reject_person_3 BEFORE INSERT ON ratings WHEN NEW.person_id = 3 "
+                + "BEGIN SELECT RAISE(ABORT, 'FOREIGN KEY constraint failed'); END");
+        service = newService(2);
+        service.start();
+
+        assertTrue(service.submitSeriesRating(10L, 1, 2));
+        assertTrue(service.submitSeriesRating(10L, 3, 5));
+        assertEquals(1, service.flush());
+
+        assertEquals(2, scoreOf(1, 10L));
+        assertNull(scoreOf(3, 10L));
+        assertEquals(0, service.getPendingCount());
+        assertArrayEquals(new long[]{2, 1}, totalsOf(10L));
+        assertEquals(List.of("3,10,,5"),
+                Files.readAllLines(tempDir.resolve("journal").resolve("ratings-journal.rejected")));
+
+        assertTrue(service.submitSeriesRating(20L, 2, 4));
+        assertTrue(service.submitSeriesRating(20L, 1, 3));
+        assertEquals(2, service.flush());
+        assertArrayEquals(new long[]{7, 2}, totalsOf(20L));
+    }
+}
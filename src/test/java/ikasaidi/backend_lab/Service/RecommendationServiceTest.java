@@ -0,0 +1,208 @@
+package ikasaidi.backend_lab.Service;
+
+import ikasaidi.backend_lab.DTO.PersonRecommendationsDto;
+import ikasaidi.backend_lab.models.Series;
+import ikasaidi.backend_lab.repositories.PersonRepository;
+import ikasaidi.backend_lab.repositories.SeriesRepository;
+import ikasaidi.backend_lab.services.RecommendationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Classe de test pour le service {@link RecommendationService}.
+ *
+ * <b>Objectif :</b>
+ * Vérifier que les recommandations sont calculées à partir de l’index des genres
+ * et du profil de la personne, sans relire toutes les séries à chaque appel :
+ * <ul>
+ *   <li>Les séries déjà vues sont exclues.</li>
+ *   <li>L’ajout dans l’historique met à jour le profil.</li>
+ *   <li>Les séries créées ou supprimées sont reflétées dans l’index,
+ *   y compris pendant la lecture du catalogue.</li>
+ *   <li>Le nombre de profils gardés en mémoire est borné.</li>
+ *   <li>Le calcul par lot lit le catalogue et les historiques une seule fois.</li>
+ * </ul>
+ *
+ * @author Rachel
+ * @version 1.0
+ */
+class RecommendationServiceTest {
+
+    @Mock
+    private PersonRepository personRepository;
+
+    @Mock
+    private SeriesRepository seriesRepository;
+
+    @InjectMocks
+    private RecommendationService recommendationService;
+
+    private Series dark;
+    private Series expanse;
+    private Series arcane;
+
+    /**
+     * Initialise un catalogue de trois séries et une personne ayant vu « Dark ».
+     */
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        dark = new Series(1L, "Dark", "Sci-Fi", 26, 9.2);
+        expanse = new Series(2L, "The Expanse", "Sci-Fi", 62, 8.5);
+        arcane = new Series(3L, "Arcane", "Animation", 9, 9.0);
+
+        when(seriesRepository.findAll()).thenReturn(List.of(dark, expanse, arcane));
+        when(personRepository.findHistoryEntries(Set.of(1))).thenReturn(List.of(entry(1, 1L, "Sci-Fi")));
+        when(seriesRepository.findAllById(anyIterable())).thenAnswer(inv -> {
+            List<Series> found = new ArrayList<>();
+            for (Object id : (Iterable<?>) inv.getArgument(0)) {
+                for (Series s : List.of(dark, expanse, arcane)) {
+                    if (s.getId().equals(id)) found.add(s);
+                }
+            }
+            return found;
+        });
+    }
+
+    /**
+     * Vérifie que seules les séries non vues du genre favori sont proposées
+     * et que le catalogue n’est lu qu’une seule fois.
+     */
+    @Test
+    void testRecommendationUsesIndex() {
+        List<Series> first = recommendationService.getPersonsRecommendation(1);
+        List<Series> second = recommendationService.getPersonsRecommendation(1);
+
+        assertEquals(List.of(expanse), first);
+        assertEquals(List.of(expanse), second);
+        verify(seriesRepository, times(1)).findAll();
+        verify(personRepository, times(1)).findHistoryEntries(Set.of(1));
+    }
+
+    /**
+     * Vérifie que l’ajout dans l’historique met à jour le profil sans relire la personne.
+     */
+    @Test
+    void testHistoryAddedUpdatesProfile() {
+        recommendationService.getPersonsRecommendation(1);
+
+        recommendationService.onHistoryAdded(1, expanse);
+        recommendationService.onHistoryAdded(1, arcane);
+        recommendationService.onHistoryAdded(1, arcane);
+
+        assertTrue(recommendationService.getPersonsRecommendation(1).isEmpty());
+        verify(personRepository, times(1)).findHistoryEntries(Set.of(1));
+    }
+
+    /**
+     * Vérifie que les séries créées puis supprimées sont reflétées dans l’index.
+     */
+    @Test
+    void testSeriesIndexFollowsWrites() {
+        recommendationService.getPersonsRecommendation(1);
+
+        Series severance = new Series(4L, "Severance", "Sci-Fi", 9, 8.6);
+        recommendationService.onSeriesSaved(severance);
+        when(seriesRepository.findAllById(anyIterable())).thenReturn(List.of(expanse, severance));
+        assertEquals(List.of(expanse, severance), recommendationService.getPersonsRecommendation(1));
+
+        recommendationService.onSeriesRemoved(2L);
+        when(seriesRepository.findAllById(List.of(4L))).thenReturn(List.of(severance));
+        assertEquals(List.of(severance), recommendationService.getPersonsRecommendation(1));
+    }
+
+    /**
+     * Vérifie que les séries créées ou supprimées pendant la première lecture du catalogue
+     * ne sont pas perdues à la construction de l’index.
+     */
+    @Test
+    void testWritesDuringFirstLoadAreKept() {
+        Series severance = new Series(4L, "Severance", "Sci-Fi", 9, 8.6);
+        when(seriesRepository.findAll()).thenAnswer(inv -> {
+            List<Series> snapshot = List.of(dark, expanse, arcane);
+            recommendationService.onSeriesSaved(severance);
+            recommendationService.onSeriesRemoved(2L);
+            return snapshot;
+        });
+        when(seriesRepository.findAllById(List.of(4L))).thenReturn(List.of(severance));
+
+        assertEquals(List.of(severance), recommendationService.getPersonsRecommendation(1));
+    }
+
+    /**
+     * Vérifie qu’une personne inexistante provoque une erreur.
+     */
+    @Test
+    void testPersonNotFound() {
+        when(personRepository.findHistoryEntries(Set.of(99))).thenReturn(List.of());
+
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> recommendationService.getPersonsRecommendation(99));
+        assertEquals("Personne non trouvée", ex.getMessage());
+    }
+
+    /**
+     * Vérifie qu’au plus <code>recommendation.profiles.max-size</code> profils sont gardés,
+     * et qu’un profil retiré est relu au besoin.
+     */
+    @Test
+    void testProfilesAreBounded() {
+        ReflectionTestUtils.setField(recommendationService, "profilesMaxSize", 1);
+        when(personRepository.findHistoryEntries(Set.of(2))).thenReturn(List.of(entry(2, 3L, "Animation")));
+
+        recommendationService.getPersonsRecommendation(1);
+        recommendationService.getPersonsRecommendation(2);
+        assertEquals(List.of(expanse), recommendationService.getPersonsRecommendation(1));
+
+        Map<?, ?> profiles = (Map<?, ?>) ReflectionTestUtils.getField(recommendationService, "profiles");
+        assertEquals(1, profiles.size());
+        verify(personRepository, times(2)).findHistoryEntries(Set.of(1));
+    }
+
+    /**
+     * Vérifie que le calcul par lot lit le catalogue une fois, les historiques en une requête,
+     * conserve l’ordre demandé et signale les personnes inexistantes.
+     */
+    @Test
+    void testStreamRecommendations() {
+        when(personRepository.findHistoryEntries(anyCollection())).thenReturn(List.of(
+                entry(1, 1L, "Sci-Fi"),
+                entry(2, 3L, "Animation"),
+                entry(3, null, null)
+        ));
+
+        List<PersonRecommendationsDto> results = new ArrayList<>();
+        recommendationService.streamRecommendations(List.of(1, 2, 3, 99), results::add);
+
+        assertEquals(List.of(1, 2, 3, 99), results.stream().map(PersonRecommendationsDto::getPersonId).toList());
+        assertEquals(2L, results.get(0).getSeries().get(0).getId());
+        assertTrue(results.get(1).getSeries().isEmpty());
+        assertTrue(results.get(2).getSeries().isEmpty());
+        assertEquals("Personne non trouvée", results.get(3).getError());
+
+        verify(seriesRepository, times(1)).findAll();
+        verify(personRepository, times(1)).findHistoryEntries(anyCollection());
+        verify(personRepository, never()).findById(anyInt());
+    }
+
+    private static PersonRepository.HistoryEntry entry(Integer personId, Long seriesId, String genre) {
+        return new PersonRepository.HistoryEntry() {
+            public Integer getPersonId() { return personId; }
+            public Long getSeriesId() { return seriesId; }
+            public String getGenre() { return genre; }
+        };
+    }
+}
@@ -0,0 +1,144 @@
+package ikasaidi.backend_lab.Service;
+
+import ikasaidi.backend_lab.services.RefreshTokenService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe de test pour le service {@link RefreshTokenService}.
+ *
+ * <b>Objectif :</b>
+ * Vérifier sur une base SQLite temporaire (migration <code>V5__sessions.sql</code>) qu’un jeton de
+ * rafraîchissement n’est accepté qu’une fois, qu’une session révoquée est refusée en mémoire
+ * et après un redémarrage, que la déconnexion peut fermer toutes les sessions d’une personne
+ * et que la suppression d’un compte révoque ses sessions.
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+class RefreshTokenServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private RefreshTokenService refreshTokenService;
+
+    /**
+     * Crée une base vide avec une personne et les tables des sessions.
+     */
+    @BeforeEach
+    void setUp() throws IOException {
+        Path database = Path.of("target", "refresh-token-test.db");
+        Files.createDirectories(database.getParent());
+        Files.deleteIfExists(database);
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:sqlite:" + database);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE person (id INTEGER PRIMARY KEY, email VARCHAR(255), name VARCHAR(255))");
+        jdbcTemplate.update("INSERT INTO person (id, email, name) VALUES (7, 'alice@example.com', 'Alice')");
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/common/V5__sessions.sql")).execute(dataSource);
+
+        refreshTokenService = new RefreshTokenService(jdbcTemplate, 60_000L, 60_000L);
+        refreshTokenService.loadRevoked();
+    }
+
+    /**
+     * Vérifie qu’un rafraîchissement remplace le jeton : le nouveau est accepté, l’ancien ne l’est plus.
+     */
+    @Test
+    void rotationAcceptsEachTokenOnce() {
+        RefreshTokenService.Session opened = refreshTokenService.open(7, "alice@example.com", "Alice");
+
+        Optional<RefreshTokenService.Session> refreshed = refreshTokenService.rotate(opened.refreshToken());
+        assertTrue(refreshed.isPresent());
+        assertEquals(opened.sessionId(), refreshed.get().sessionId());
+        assertEquals("alice@example.com", refreshed.get().email());
+        assertNotEquals(opened.refreshToken(), refreshed.get().refreshToken());
+
+        assertTrue(refreshTokenService.rotate(opened.refreshToken()).isEmpty());
+        assertTrue(refreshTokenService.rotate(refreshed.get().refreshToken()).isPresent());
+        assertTrue(refreshTokenService.rotate("inconnu").isEmpty());
+        assertTrue(refreshTokenService.rotate(null).isEmpty());
+    }
+
+    /**
+     * Vérifie qu’une session révoquée est refusée, y compris après rechargement depuis la base.
+     */
+    @Test
+    void revokedSessionIsRejectedAndReloaded() {
+        RefreshTokenService.Session kept = refreshTokenService.open(7, "alice@example.com", "Alice");
+        RefreshTokenService.Session closed = refreshTokenService.open(7, "alice@example.com", "Alice");
+
+        assertTrue(refreshTokenService.revoke(closed.refreshToken(), false));
+        assertTrue(refreshTokenService.isRevoked(closed.sessionId()));
+        assertFalse(refreshTokenService.isRevoked(kept.sessionId()));
+        assertFalse(refreshTokenService.isRevoked(null));
+        assertTrue(refreshTokenService.rotate(closed.refreshToken()).isEmpty());
+        assertFalse(refreshTokenService.revoke(closed.refreshToken(), false));
+
+        RefreshTokenService restarted = new RefreshTokenService(jdbcTemplate, 60_000L, 60_000L);
+        restarted.loadRevoked();
+        assertTrue(restarted.isRevoked(closed.sessionId()));
+        assertFalse(restarted.isRevoked(kept.sessionId()));
+    }
+
+    /**
+     * Vérifie que la déconnexion de toutes les sessions ferme chacune d’elles.
+     */
+    @Test
+    void logoutFromAllSessions() {
+        RefreshTokenService.Session first = refreshTokenService.open(7, "alice@example.com", "Alice");
+        RefreshTokenService.Session second = refreshTokenService.open(7, "alice@example.com", "Alice");
+
+        assertTrue(refreshTokenService.revoke(first.refreshToken(), true));
+        assertTrue(refreshTokenService.isRevoked(first.sessionId()));
+        assertTrue(refreshTokenService.isRevoked(second.sessionId()));
+        assertTrue(refreshTokenService.rotate(second.refreshToken()).isEmpty());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM refresh_tokens", Integer.class));
+    }
+
+    /**
+     * Vérifie que la révocation d’un compte ferme ses sessions sans toucher à celles des autres personnes.
+     */
+    @Test
+    void revokeAllClosesSessionsOfOnePerson() {
+        jdbcTemplate.update("INSERT INTO person (id, email, name) VALUES (8, 'bob@example.com', 'Bob')");
+        RefreshTokenService.Session first = refreshTokenService.open(7, "alice@example.com", "Alice");
+        RefreshTokenService.Session second = refreshTokenService.open(7, "alice@example.com", "Alice");
+        RefreshTokenService.Session other = refreshTokenService.open(8, "bob@example.com", "Bob");
+
+        assertEquals(2, refreshTokenService.revokeAll(7));
+        assertTrue(refreshTokenService.isRevoked(first.sessionId()));
+        assertTrue(refreshTokenService.isRevoked(second.sessionId()));
+        assertFalse(refreshTokenService.isRevoked(other.sessionId()));
+        assertTrue(refreshTokenService.rotate(first.refreshToken()).isEmpty());
+        assertTrue(refreshTokenService.rotate(other.refreshToken()).isPresent());
+        assertEquals(0, refreshTokenService.revokeAll(7));
+    }
+
+    /**
+     * Vérifie qu’un jeton expiré est refusé puis purgé, ainsi que les révocations devenues inutiles.
+     */
+    @Test
+    void expiredSessionsArePurged() {
+        RefreshTokenService shortLived = new RefreshTokenService(jdbcTemplate, -1L, -1L);
+        RefreshTokenService.Session expired = shortLived.open(7, "alice@example.com", "Alice");
+        assertTrue(shortLived.rotate(expired.refreshToken()).isEmpty());
+
+        RefreshTokenService.Session revoked = shortLived.open(7, "alice@example.com", "Alice");
+        shortLived.revoke(revoked.refreshToken(), false);
+
+        shortLived.purge();
+        assertFalse(shortLived.isRevoked(revoked.sessionId()));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM refresh_tokens", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM revoked_sessions", Integer.class));
+    }
+}
@@ -2,6 +2,8 @@ package ikasaidi.backend_lab.Service;
 
 import ikasaidi.backend_lab.models.Series;
 import ikasaidi.backend_lab.repositories.SeriesRepository;
+import ikasaidi.backend_lab.services.EntityCacheService;
+import ikasaidi.backend_lab.services.RecommendationService;
 import ikasaidi.backend_lab.services.SeriesService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -48,6 +50,12 @@ class SeriesServiceTest {
     @Mock
     private SeriesRepository seriesRepository;
 
+    @Mock
+    private RecommendationService recommendationService;
+
+    @Mock
+    private EntityCacheService entityCacheService;
+
     @InjectMocks
     private SeriesService seriesService;
 
@@ -101,6 +109,7 @@ class SeriesServiceTest {
         Series result = seriesService.findById(99L);
 
         assertNull(result);
+        verify(entityCacheService, never()).evictSeries(anyLong());
     }
 
     /**
@@ -136,6 +145,7 @@ class SeriesServiceTest {
         assertEquals("New Title", result.getTitle());
         assertEquals(10, result.getNbEpisodes());
         assertEquals(9.0, result.getNote());
+        verify(entityCacheService).evictSeries(1L);
     }
 
     /**
@@ -150,6 +160,7 @@ class SeriesServiceTest {
         Series result = seriesService.updateSerie(42L, updated);
 
         assertNull(result);
+        verify(entityCacheService, never()).evictSeries(anyLong());
     }
 
     /**
@@ -163,6 +174,7 @@ class SeriesServiceTest {
 
         // 3) vérifier que deleteById a bien été appelé
         verify(seriesRepository, times(1)).deleteById(1L);
+        verify(entityCacheService).evictSeries(1L);
     }
 
     /**
@@ -0,0 +1,208 @@
+package ikasaidi.backend_lab.Service;
+
+import ikasaidi.backend_lab.DTO.TrendingDto;
+import ikasaidi.backend_lab.models.Person;
+import ikasaidi.backend_lab.models.Ratings;
+import ikasaidi.backend_lab.models.Series;
+import ikasaidi.backend_lab.models.VuesHistory;
+import ikasaidi.backend_lab.repositories.SeriesRepository;
+import ikasaidi.backend_lab.repositories.VuesHistoryRepository;
+import ikasaidi.backend_lab.services.TrendingListener;
+import ikasaidi.backend_lab.services.TrendingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Classe de test pour le service {@link TrendingService}.
+ *
+ * <b>Objectif :</b>
+ * Vérifier que le classement maintenu en mémoire donne le même résultat que
+ * la formule <code>score = vues + moyenne * 10</code>, qu’il est construit à partir
+ * des vues agrégées par la base et des agrégats de notes des séries, puis mis à jour de façon incrémentale,
+ * seulement après la validation des écritures.
+ *
+ * <b>Technologies utilisées :</b>
+ * <ul>
+ *   <li>JUnit 5 pour l’exécution des tests unitaires</li>
+ *   <li>Mockito pour simuler les repositories</li>
+ * </ul>
+ *
+ * @author Ikram
+ * @version 1.0
+ */
+class TrendingServiceTest {
+
+    @Mock
+    private SeriesRepository seriesRepository;
+
+    @Mock
+    private VuesHistoryRepository vuesHistoryRepository;
+
+    @InjectMocks
+    private TrendingService trendingService;
+
+    private Series dark;
+    private Series arcane;
+    private Person alice;
+
+    /**
+     * Initialise les mocks et un petit jeu de données : deux séries, des vues et des notes.
+     */
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        dark = new Series(1L, "Dark", "Sci-Fi", 26, 9.2);
+        arcane = new Series(2L, "Arcane", "Animation", 9, 9.0);
+        dark.setRatingTotals(4, 1);
+        arcane.setRatingTotals(3, 1);
+        alice = new Person(1, "Alice Smith", "Female", "alice@x.com", "abc123x");
+
+        LocalDate today = LocalDate.now();
+        when(seriesRepository.findAll()).thenReturn(List.of(dark, arcane));
+        when(vuesHistoryRepository.countDailyViewsBySeriesSince(any())).thenReturn(List.of(
+                dailyViews(1L, today, 1),
+                dailyViews(1L, today.minusDays(2), 1),
+                dailyViews(2L, today.minusDays(30), 1)
+        ));
+    }
+
+    /**
+     * Construit une ligne d’agrégat de vues comme la retournerait la base de données.
+     */
+    private static VuesHistoryRepository.DailySeriesViews dailyViews(Long seriesId, LocalDate day, long views) {
+        return new VuesHistoryRepository.DailySeriesViews() {
+            public Long getSeriesId() { return seriesId; }
+            public LocalDate getDay() { return day; }
+            public Long getViews() { return views; }
+        };
+    }
+
+    /**
+     * Vérifie que le classement initial applique la formule et ignore les vues hors fenêtre.
+     */
+    @Test
+    void testInitialRanking() {
+        List<TrendingDto> result = trendingService.getTrending();
+
+        assertEquals(2, result.size());
+        assertEquals("Dark", result.get(0).getTitle());
+        assertEquals(2, result.get(0).getViews());
+        assertEquals(42.0, result.get(0).getScore());
+        assertEquals(0, result.get(1).getViews());
+        assertEquals(30.0, result.get(1).getScore());
+    }
+
+    /**
+     * Vérifie que les écritures sont appliquées sans nouveau chargement des tables.
+     */
+    @Test
+    void testIncrementalUpdates() {
+        trendingService.getTrending();
+
+        Ratings newRating = new Ratings(5, alice, arcane);
+        trendingService.onRatingSaved(newRating, null);
+        for (int i = 0; i < 30; i++) {
+            trendingService.onViewAdded(new VuesHistory(LocalDate.now(), 1, alice, arcane));
+        }
+
+        List<TrendingDto> result = trendingService.getTrending();
+
+        assertEquals("Arcane", result.get(0).getTitle());
+        assertEquals(30, result.get(0).getViews());
+        assertEquals(4.0, result.get(0).getAvgRating());
+        assertEquals(70.0, result.get(0).getScore());
+
+        // modification d’une note existante : seul l’écart est appliqué
+        newRating.setScore(1);
+        trendingService.onRatingSaved(newRating, 5);
+        assertEquals(2.0, trendingService.getTrending().get(0).getAvgRating());
+
+        verify(seriesRepository, times(1)).findAll();
+        verify(vuesHistoryRepository, times(1)).countDailyViewsBySeriesSince(any());
+        verify(vuesHistoryRepository, never()).findAll();
+    }
+
+    /**
+     * Vérifie qu’une série supprimée disparaît du classement.
+     */
+    @Test
+    void testSeriesRemoved() {
+        trendingService.getTrending();
+
+        trendingService.onSeriesRemoved(1L);
+
+        List<TrendingDto> result = trendingService.getTrending();
+        assertEquals(1, result.size());
+        assertEquals("Arcane", result.get(0).getTitle());
+    }
+
+    /**
+     * Vérifie que les fenêtres de 1 et 30 jours sont servies à partir des mêmes compteurs journaliers.
+     */
+    @Test
+    void testWindows() {
+        List<TrendingDto> day = trendingService.getTrending(1);
+        assertEquals("Dark", day.get(0).getTitle());
+        assertEquals(1, day.get(0).getViews());
+        assertEquals(0, day.get(1).getViews());
+
+        List<TrendingDto> month = trendingService.getTrending(30);
+        assertEquals(2, month.get(0).getViews());
+        assertEquals(1, month.get(1).getViews());
+        assertEquals(31.0, month.get(1).getScore());
+
+        verify(vuesHistoryRepository, times(1)).countDailyViewsBySeriesSince(any());
+    }
+
+    /**
+     * Vérifie qu’une fenêtre non supportée est refusée.
+     */
+    @Test
+    void testUnsupportedWindow() {
+        assertThrows(IllegalArgumentException.class, () -> trendingService.getTrending(3));
+    }
+
+    /**
+     * Vérifie qu’une écriture vue par l’écouteur JPA n’est appliquée qu’à la validation de sa transaction :
+     * une note annulée ne reste pas dans le classement.
+     */
+    @Test
+    void testListenerAppliesOnlyAfterCommit() {
+        trendingService.getTrending();
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("trendingService", trendingService);
+        TrendingListener listener = new TrendingListener(beans.getBeanProvider(TrendingService.class));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            listener.afterInsert(new Ratings(5, alice, arcane));
+            assertEquals(3.0, trendingService.getTrending().get(1).getAvgRating());
+            // annulation : les synchronisations sont abandonnées sans afterCommit
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(3.0, trendingService.getTrending().get(1).getAvgRating());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            listener.afterInsert(new Ratings(5, alice, arcane));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(4.0, trendingService.getTrending().get(1).getAvgRating());
+    }
+}
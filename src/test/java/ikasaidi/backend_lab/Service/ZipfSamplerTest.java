@@ -0,0 +1,63 @@
+package ikasaidi.backend_lab.Service;
+
+import ikasaidi.backend_lab.generator.ZipfSampler;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe de test pour le tirage {@link ZipfSampler} du générateur de données de charge.
+ *
+ * <b>Objectif :</b>
+ * Vérifier que les fréquences observées suivent la loi demandée : rang 0 deux fois plus tiré
+ * que le rang 1 pour un exposant 1, tirage uniforme pour un exposant 0, rangs toujours valides.
+ *
+ * @author Sarah
+ * @version 1.0
+ */
+class ZipfSamplerTest {
+
+    private static final int DRAWS = 200_000;
+
+    private static int[] histogram(ZipfSampler sampler) {
+        SplittableRandom random = new SplittableRandom(7);
+        int[] counts = new int[sampler.size()];
+        for (int i = 0; i < DRAWS; i++) {
+            counts[sampler.sample(random)]++;
+        }
+        return counts;
+    }
+
+    /**
+     * Vérifie le rapport des fréquences des premiers rangs pour un exposant 1.
+     */
+    @Test
+    void classicZipfHalvesFromFirstToSecondRank() {
+        int[] counts = histogram(new ZipfSampler(1000, 1.0));
+        double ratio = (double) counts[0] / counts[1];
+        assertEquals(2.0, ratio, 0.1);
+        assertTrue(counts[0] > counts[999] * 100);
+    }
+
+    /**
+     * Vérifie qu’un exposant 0 donne un tirage uniforme.
+     */
+    @Test
+    void zeroExponentIsUniform() {
+        int[] counts = histogram(new ZipfSampler(10, 0.0));
+        for (int count : counts) {
+            assertEquals(DRAWS / 10.0, count, DRAWS / 10.0 * 0.05);
+        }
+    }
+
+    /**
+     * Vérifie qu’un seul rang est toujours tiré et qu’une taille nulle est refusée.
+     */
+    @Test
+    void singleRankAndInvalidSize() {
+        assertEquals(DRAWS, histogram(new ZipfSampler(1, 1.2))[0]);
+        assertThrows(IllegalArgumentException.class, () -> new ZipfSampler(0, 1.0));
+    }
+}